@@ -0,0 +1,81 @@
+package bg.softuni.magelan.aop;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every service method into {@code magelan.service.calls}, tagged by class, method, outcome
+ * and exception. Percentiles and histogram buckets are configured through the usual
+ * {@code management.metrics.distribution.*} properties. Only calls slower than the threshold are
+ * logged.
+ */
+@Slf4j
+@Aspect
+@Component
+@ConditionalOnProperty(name = "magelan.service-metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class ServiceMetricsAspect {
+
+    static final String TIMER_NAME = "magelan.service.calls";
+
+    private final MeterRegistry meterRegistry;
+    private final long slowThresholdNanos;
+
+    // Registry lookups sort and hash the tags on every call; resolve each timer once instead.
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry,
+                                @Value("${magelan.service-metrics.slow-threshold:500ms}") Duration slowThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Around("execution(* bg.softuni.magelan..service..*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        Class<? extends Throwable> failure = null;
+
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            failure = e.getClass();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            timers.computeIfAbsent(new TimerKey(method, failure), this::register)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+
+            if (elapsed >= slowThresholdNanos) {
+                log.warn("Slow call {}.{} took {} ms{}", method.getDeclaringClass().getSimpleName(), method.getName(),
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), failure == null ? "" : " and threw " + failure.getSimpleName());
+            }
+        }
+    }
+
+    private Timer register(TimerKey key) {
+        return Timer.builder(TIMER_NAME)
+                .description("Time spent in service methods")
+                .tag("class", key.method().getDeclaringClass().getSimpleName())
+                .tag("method", key.method().getName())
+                .tag("outcome", key.exception() == null ? "success" : "error")
+                .tag("exception", key.exception() == null ? "none" : key.exception().getSimpleName())
+                .register(meterRegistry);
+    }
+
+    private record TimerKey(Method method, Class<? extends Throwable> exception) {
+    }
+}
@@ -1,25 +0,0 @@
-package bg.softuni.magelan.aop;
-
-import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.annotation.Around;
-import org.aspectj.lang.annotation.Aspect;
-import org.springframework.stereotype.Component;
-
-@Slf4j
-@Aspect
-@Component
-public class ServicePerformanceLoggingAspect {
-
-    @Around("execution(* bg.softuni.magelan..service..*(..))")
-    public Object logExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
-        long start = System.currentTimeMillis();
-
-        Object result = joinPoint.proceed();
-
-        long duration = System.currentTimeMillis() - start;
-        log.info("Executed {} in {} ms", joinPoint.getSignature(), duration);
-
-        return result;
-    }
-}
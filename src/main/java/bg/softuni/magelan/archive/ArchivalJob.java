@@ -0,0 +1,82 @@
+package bg.softuni.magelan.archive;
+
+import bg.softuni.magelan.booking.archive.BookingArchiver;
+import bg.softuni.magelan.order.archive.OrderArchiver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.IntSupplier;
+
+/**
+ * Off-peak job that moves old bookings and delivered orders out of the hot tables. Every chunk is
+ * its own short transaction, chunks are spaced out by a pause, and the run stops once its time
+ * budget is spent so it never drags into service hours; the next night picks up where it left off.
+ */
+@Slf4j
+@Component
+public class ArchivalJob {
+
+    private final BookingArchiver bookingArchiver;
+    private final OrderArchiver orderArchiver;
+    private final int chunkSize;
+    private final long pauseMs;
+    private final Duration maxRun;
+    private final int bookingRetentionDays;
+    private final int orderRetentionDays;
+
+    public ArchivalJob(BookingArchiver bookingArchiver,
+                       OrderArchiver orderArchiver,
+                       @Value("${magelan.archive.chunk-size:500}") int chunkSize,
+                       @Value("${magelan.archive.pause-ms:200}") long pauseMs,
+                       @Value("${magelan.archive.max-run-minutes:30}") long maxRunMinutes,
+                       @Value("${magelan.archive.booking-retention-days:90}") int bookingRetentionDays,
+                       @Value("${magelan.archive.order-retention-days:90}") int orderRetentionDays) {
+        this.bookingArchiver = bookingArchiver;
+        this.orderArchiver = orderArchiver;
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+        this.maxRun = Duration.ofMinutes(maxRunMinutes);
+        this.bookingRetentionDays = bookingRetentionDays;
+        this.orderRetentionDays = orderRetentionDays;
+    }
+
+    @Scheduled(cron = "${magelan.archive.cron:0 0 4 * * *}")
+    public void run() {
+        Instant deadline = Instant.now().plus(maxRun);
+
+        LocalDate bookingCutoff = LocalDate.now().minusDays(bookingRetentionDays);
+        int bookings = drain(() -> bookingArchiver.archiveChunk(bookingCutoff, chunkSize), deadline);
+
+        LocalDateTime orderCutoff = LocalDateTime.now().minusDays(orderRetentionDays);
+        int orders = drain(() -> orderArchiver.archiveChunk(orderCutoff, chunkSize), deadline);
+
+        log.info("Archived {} bookings older than {} and {} delivered orders older than {}",
+                bookings, bookingCutoff, orders, orderCutoff);
+    }
+
+    private int drain(IntSupplier chunk, Instant deadline) {
+        int total = 0;
+
+        while (Instant.now().isBefore(deadline)) {
+            int moved = chunk.getAsInt();
+            total += moved;
+            if (moved < chunkSize) {
+                break;
+            }
+
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,34 @@
+package bg.softuni.magelan.booking.archive;
+
+import bg.softuni.magelan.booking.repository.ArchivedBookingRepository;
+import bg.softuni.magelan.booking.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class BookingArchiver {
+
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+
+    /**
+     * Moves up to {@code limit} bookings dated before {@code before} into the archive table.
+     */
+    @Transactional
+    public int archiveChunk(LocalDate before, int limit) {
+        List<UUID> ids = bookingRepository.findIdsDatedBefore(before, Limit.of(limit));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        archivedBookingRepository.copyFromBookings(ids);
+        return bookingRepository.deleteByIds(ids);
+    }
+}
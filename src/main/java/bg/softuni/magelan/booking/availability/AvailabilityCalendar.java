@@ -0,0 +1,135 @@
+package bg.softuni.magelan.booking.availability;
+
+import bg.softuni.magelan.booking.capacity.TableCapacityIndex;
+import bg.softuni.magelan.booking.event.BookingChangedEvent;
+import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.repository.BookingRepository;
+import bg.softuni.magelan.booking.repository.BookingSlotGuestsView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Free capacity per slot for whole months. Missing days are filled from one grouped query and
+ * kept until a booking on that day is created or changes status.
+ */
+@Slf4j
+@Component
+public class AvailabilityCalendar {
+
+    private final BookingRepository bookingRepository;
+    private final TableCapacityIndex tableCapacityIndex;
+    private final LocalTime openingTime;
+    private final LocalTime closingTime;
+    private final int monthsAhead;
+
+    private final ConcurrentMap<LocalDate, DayAvailability> days = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public AvailabilityCalendar(BookingRepository bookingRepository,
+                                TableCapacityIndex tableCapacityIndex,
+                                @Value("${magelan.booking.opening-time:12:00}") LocalTime openingTime,
+                                @Value("${magelan.booking.closing-time:22:00}") LocalTime closingTime,
+                                @Value("${magelan.booking.availability-months-ahead:6}") int monthsAhead) {
+        this.bookingRepository = bookingRepository;
+        this.tableCapacityIndex = tableCapacityIndex;
+        this.openingTime = openingTime;
+        this.closingTime = closingTime;
+        this.monthsAhead = monthsAhead;
+    }
+
+    public MonthAvailability getMonth(YearMonth month) {
+        LocalDate today = LocalDate.now();
+        LocalDate horizon = YearMonth.from(today).plusMonths(monthsAhead).atEndOfMonth();
+        LocalDate from = month.atDay(1).isBefore(today) ? today : month.atDay(1);
+        LocalDate to = month.atEndOfMonth().isAfter(horizon) ? horizon : month.atEndOfMonth();
+
+        if (from.isAfter(to)) {
+            return new MonthAvailability(month, tableCapacityIndex.getSeatsPerSlot(), List.of());
+        }
+
+        List<LocalDate> dates = from.datesUntil(to.plusDays(1)).toList();
+        List<LocalDate> missing = dates.stream().filter(date -> !days.containsKey(date)).toList();
+        Map<LocalDate, DayAvailability> loaded = missing.isEmpty()
+                ? Map.of()
+                : load(missing.get(0), missing.get(missing.size() - 1));
+
+        List<DayAvailability> result = new ArrayList<>(dates.size());
+        for (LocalDate date : dates) {
+            DayAvailability day = days.get(date);
+            result.add(day != null ? day : loaded.get(date));
+        }
+
+        return new MonthAvailability(month, tableCapacityIndex.getSeatsPerSlot(), result);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        invalidations.incrementAndGet();
+        days.remove(event.date());
+    }
+
+    @Scheduled(cron = "${magelan.booking.capacity-prune-cron:0 5 0 * * *}")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        days.keySet().removeIf(date -> date.isBefore(today));
+    }
+
+    private Map<LocalDate, DayAvailability> load(LocalDate from, LocalDate to) {
+        long generation = invalidations.get();
+
+        int firstSlot = tableCapacityIndex.slotOf(from, openingTime).index();
+        int lastSlot = tableCapacityIndex.slotOf(from, closingTime.minusMinutes(1)).index();
+        int slotCount = Math.max(0, lastSlot - firstSlot + 1);
+
+        Map<LocalDate, int[]> freeTables = new HashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            int[] free = new int[slotCount];
+            Arrays.fill(free, tableCapacityIndex.getTables());
+            freeTables.put(date, free);
+        }
+
+        for (BookingSlotGuestsView row : bookingRepository.countGuestsBetween(from, to, BookingStatus.CANCELLED)) {
+            int slot = tableCapacityIndex.slotOf(row.getDate(), row.getTime()).index() - firstSlot;
+            if (slot >= 0 && slot < slotCount) {
+                freeTables.get(row.getDate())[slot] -= tableCapacityIndex.tablesFor(row.getGuests()) * row.getBookings().intValue();
+            }
+        }
+
+        Map<LocalDate, DayAvailability> loaded = new HashMap<>();
+        freeTables.forEach((date, free) -> {
+            List<SlotAvailability> slots = new ArrayList<>(slotCount);
+            for (int i = 0; i < slotCount; i++) {
+                int tables = Math.max(0, free[i]);
+                slots.add(new SlotAvailability(
+                        tableCapacityIndex.startOf(firstSlot + i),
+                        tables,
+                        tables * tableCapacityIndex.getSeatsPerTable()));
+            }
+            loaded.put(date, new DayAvailability(date, List.copyOf(slots)));
+        });
+
+        days.putAll(loaded);
+        if (invalidations.get() != generation) {
+            // A booking changed while we were reading; don't keep what may already be stale.
+            days.keySet().removeAll(loaded.keySet());
+        }
+
+        log.debug("Loaded availability for {} days from {} to {}", loaded.size(), from, to);
+        return loaded;
+    }
+}
@@ -0,0 +1,7 @@
+package bg.softuni.magelan.booking.availability;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record DayAvailability(LocalDate date, List<SlotAvailability> slots) {
+}
@@ -0,0 +1,7 @@
+package bg.softuni.magelan.booking.availability;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public record MonthAvailability(YearMonth month, int seatsPerSlot, List<DayAvailability> days) {
+}
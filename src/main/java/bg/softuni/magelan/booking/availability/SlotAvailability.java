@@ -0,0 +1,6 @@
+package bg.softuni.magelan.booking.availability;
+
+import java.time.LocalTime;
+
+public record SlotAvailability(LocalTime start, int freeTables, int freeSeats) {
+}
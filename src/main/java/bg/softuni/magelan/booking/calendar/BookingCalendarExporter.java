@@ -0,0 +1,133 @@
+package bg.softuni.magelan.booking.calendar;
+
+import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.repository.BookingCalendarView;
+import bg.softuni.magelan.booking.repository.BookingRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.stream.Stream;
+
+/**
+ * Writes bookings as an iCalendar (RFC 5545) feed, one event per booking, straight from a
+ * database cursor to the writer.
+ */
+@Component
+public class BookingCalendarExporter {
+
+    private static final String CRLF = "\r\n";
+    private static final int MAX_LINE_OCTETS = 75;
+    private static final DateTimeFormatter LOCAL_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter UTC_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private final BookingRepository bookingRepository;
+    private final long slotMinutes;
+
+    public BookingCalendarExporter(BookingRepository bookingRepository,
+                                   @Value("${magelan.booking.slot-minutes:120}") long slotMinutes) {
+        this.bookingRepository = bookingRepository;
+        this.slotMinutes = slotMinutes;
+    }
+
+    public LocalDateTime lastModified(LocalDate from, LocalDate to) {
+        return bookingRepository.findLastModifiedBetween(from, to);
+    }
+
+    /**
+     * Must run inside a transaction, which keeps the cursor open while rows are written.
+     */
+    public int export(LocalDate from, LocalDate to, Writer writer) throws IOException {
+        writeLine(writer, "BEGIN:VCALENDAR");
+        writeLine(writer, "VERSION:2.0");
+        writeLine(writer, "PRODID:-//Magelan//Bookings//EN");
+        writeLine(writer, "CALSCALE:GREGORIAN");
+        writeLine(writer, "X-WR-CALNAME:Magelan bookings");
+
+        int events = 0;
+        try (Stream<BookingCalendarView> bookings = bookingRepository.streamCalendarBetween(from, to)) {
+            for (BookingCalendarView booking : (Iterable<BookingCalendarView>) bookings::iterator) {
+                writeEvent(writer, booking);
+                events++;
+            }
+        }
+
+        writeLine(writer, "END:VCALENDAR");
+        writer.flush();
+        return events;
+    }
+
+    private void writeEvent(Writer writer, BookingCalendarView booking) throws IOException {
+        LocalDateTime start = LocalDateTime.of(booking.getDate(), booking.getTime());
+
+        writeLine(writer, "BEGIN:VEVENT");
+        writeLine(writer, "UID:" + booking.getId() + "@magelan");
+        writeLine(writer, "DTSTAMP:" + utc(booking.getUpdatedOn()));
+        writeLine(writer, "LAST-MODIFIED:" + utc(booking.getUpdatedOn()));
+        writeLine(writer, "DTSTART:" + start.format(LOCAL_TIME));
+        writeLine(writer, "DTEND:" + start.plusMinutes(slotMinutes).format(LOCAL_TIME));
+        writeLine(writer, "SUMMARY:" + escape("Table for %d - %s".formatted(booking.getGuests(), booking.getCustomerName())));
+
+        StringBuilder description = new StringBuilder();
+        if (booking.getPhone() != null && !booking.getPhone().isBlank()) {
+            description.append("Phone: ").append(booking.getPhone());
+        }
+        if (booking.getNotes() != null && !booking.getNotes().isBlank()) {
+            description.append(description.isEmpty() ? "" : "\n").append("Notes: ").append(booking.getNotes());
+        }
+        if (!description.isEmpty()) {
+            writeLine(writer, "DESCRIPTION:" + escape(description.toString()));
+        }
+
+        writeLine(writer, "STATUS:" + statusOf(booking.getStatus()));
+        writeLine(writer, "END:VEVENT");
+    }
+
+    private static String statusOf(BookingStatus status) {
+        return switch (status) {
+            case PENDING -> "TENTATIVE";
+            case CONFIRMED -> "CONFIRMED";
+            case CANCELLED -> "CANCELLED";
+        };
+    }
+
+    private static String utc(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).format(UTC_TIME);
+    }
+
+    static String escape(String text) {
+        return text.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n");
+    }
+
+    /**
+     * Folds lines longer than 75 octets onto continuation lines starting with a space, without
+     * splitting a UTF-8 sequence.
+     */
+    static void writeLine(Writer writer, String line) throws IOException {
+        int octets = 0;
+        int limit = MAX_LINE_OCTETS;
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            int size = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (octets + size > limit) {
+                writer.write(CRLF + " ");
+                octets = 0;
+                limit = MAX_LINE_OCTETS - 1;
+            }
+            writer.write(Character.toChars(codePoint));
+            octets += size;
+            i += Character.charCount(codePoint);
+        }
+        writer.write(CRLF);
+    }
+}
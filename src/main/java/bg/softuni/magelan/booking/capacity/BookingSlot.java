@@ -0,0 +1,9 @@
+package bg.softuni.magelan.booking.capacity;
+
+import java.time.LocalDate;
+
+/**
+ * A seating period: {@code index} counts slots of the configured length from midnight.
+ */
+public record BookingSlot(LocalDate date, int index) {
+}
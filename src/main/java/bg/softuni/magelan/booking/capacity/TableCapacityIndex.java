@@ -0,0 +1,263 @@
+package bg.softuni.magelan.booking.capacity;
+
+import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.repository.BookingRepository;
+import bg.softuni.magelan.booking.repository.BookingSeatsView;
+import bg.softuni.magelan.exception.BookingCapacityExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Free tables per date and slot. Reservations are a CAS on the slot's counter, so bookings for
+ * the same evening never queue up behind each other or behind a database lock.
+ * <p>
+ * Counter changes share a read lock that a rebuild takes exclusively. A transaction holds it from
+ * just before its commit until its tables are settled, so the rebuild's read of the bookings and
+ * the in-memory changes line up; reservations still in flight are carried over to the new map.
+ */
+@Slf4j
+@Component
+public class TableCapacityIndex {
+
+    private final BookingRepository bookingRepository;
+    private final int tables;
+    private final int seatsPerTable;
+    private final int slotMinutes;
+
+    private volatile ConcurrentMap<BookingSlot, AtomicInteger> freeTables = new ConcurrentHashMap<>();
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final Set<PendingReservation> pending = ConcurrentHashMap.newKeySet();
+
+    public TableCapacityIndex(BookingRepository bookingRepository,
+                              @Value("${magelan.booking.tables:12}") int tables,
+                              @Value("${magelan.booking.seats-per-table:4}") int seatsPerTable,
+                              @Value("${magelan.booking.slot-minutes:120}") int slotMinutes) {
+        this.bookingRepository = bookingRepository;
+        this.tables = tables;
+        this.seatsPerTable = seatsPerTable;
+        this.slotMinutes = slotMinutes;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        ConcurrentMap<BookingSlot, AtomicInteger> rebuilt = new ConcurrentHashMap<>();
+        int bookings = 0;
+        int inFlight;
+
+        rebuildLock.writeLock().lock();
+        try {
+            for (BookingSeatsView booking : bookingRepository.findSeatsFrom(LocalDate.now(), BookingStatus.CANCELLED)) {
+                rebuilt.computeIfAbsent(slotOf(booking.getDate(), booking.getTime()), slot -> new AtomicInteger(tables))
+                        .addAndGet(-tablesFor(booking.getGuests()));
+                bookings++;
+            }
+            // Not committed yet, so not in the query above, but the tables are already promised.
+            for (PendingReservation reservation : pending) {
+                rebuilt.computeIfAbsent(reservation.slot, slot -> new AtomicInteger(tables))
+                        .addAndGet(-reservation.tables);
+            }
+            inFlight = pending.size();
+            freeTables = rebuilt;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+
+        log.info("Table capacity index rebuilt from {} upcoming bookings and {} reservations in flight across {} slots",
+                bookings, inFlight, rebuilt.size());
+    }
+
+    @Scheduled(cron = "${magelan.booking.capacity-prune-cron:0 5 0 * * *}")
+    public void prunePastSlots() {
+        LocalDate today = LocalDate.now();
+        freeTables.keySet().removeIf(slot -> slot.date().isBefore(today));
+    }
+
+    public BookingSlot slotOf(LocalDate date, LocalTime time) {
+        return new BookingSlot(date, (time.getHour() * 60 + time.getMinute()) / slotMinutes);
+    }
+
+    public int tablesFor(int guests) {
+        return (guests + seatsPerTable - 1) / seatsPerTable;
+    }
+
+    public LocalTime startOf(int slotIndex) {
+        return LocalTime.MIN.plusMinutes((long) slotIndex * slotMinutes);
+    }
+
+    public int getTables() {
+        return tables;
+    }
+
+    public int getSeatsPerTable() {
+        return seatsPerTable;
+    }
+
+    public int getSeatsPerSlot() {
+        return tables * seatsPerTable;
+    }
+
+    public int remainingSeats(LocalDate date, LocalTime time) {
+        AtomicInteger free = freeTables.get(slotOf(date, time));
+        return Math.max(0, free == null ? tables : free.get()) * seatsPerTable;
+    }
+
+    public boolean tryReserve(LocalDate date, LocalTime time, int guests) {
+        rebuildLock.readLock().lock();
+        try {
+            return take(slotOf(date, time), tablesFor(guests));
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    public void release(LocalDate date, LocalTime time, int guests) {
+        rebuildLock.readLock().lock();
+        try {
+            AtomicInteger free = freeTables.get(slotOf(date, time));
+            if (free != null) {
+                free.accumulateAndGet(tablesFor(guests), (current, released) -> Math.min(tables, current + released));
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private boolean take(BookingSlot slot, int needed) {
+        AtomicInteger free = freeTables.computeIfAbsent(slot, key -> new AtomicInteger(tables));
+
+        while (true) {
+            int current = free.get();
+            if (current < needed) {
+                return false;
+            }
+            if (free.compareAndSet(current, current - needed)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean fitsInSlot(int guests) {
+        return tablesFor(guests) <= tables;
+    }
+
+    /**
+     * Takes the tables now and hands them back if the surrounding transaction rolls back.
+     */
+    public void reserve(LocalDate date, LocalTime time, int guests) {
+        if (!reserveIfAvailable(date, time, guests)) {
+            throw new BookingCapacityExceededException(date, time, guests);
+        }
+    }
+
+    /**
+     * Like {@link #reserve} but reports a full slot instead of throwing.
+     */
+    public boolean reserveIfAvailable(LocalDate date, LocalTime time, int guests) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return tryReserve(date, time, guests);
+        }
+
+        PendingReservation reservation = new PendingReservation(slotOf(date, time), tablesFor(guests));
+        rebuildLock.readLock().lock();
+        try {
+            if (!take(reservation.slot, reservation.tables)) {
+                return false;
+            }
+            pending.add(reservation);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new CommitGuard() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    pending.remove(reservation);
+                    if (status != STATUS_COMMITTED) {
+                        release(date, time, guests);
+                    }
+                } finally {
+                    super.afterCompletion(status);
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Frees the tables once the surrounding transaction commits, so a failed cancellation never
+     * leaves them double-sold.
+     */
+    public void releaseOnCommit(LocalDate date, LocalTime time, int guests) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(date, time, guests);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new CommitGuard() {
+            // Ahead of after-commit event listeners, so the waitlist sees the freed tables.
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCommit() {
+                release(date, time, guests);
+            }
+        });
+    }
+
+    /**
+     * Holds the read lock across the commit, so a rebuild sees the change either in the database
+     * or in memory, never in both or neither.
+     */
+    private abstract class CommitGuard implements TransactionSynchronization {
+
+        private boolean locked;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            rebuildLock.readLock().lock();
+            locked = true;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (locked) {
+                locked = false;
+                rebuildLock.readLock().unlock();
+            }
+        }
+    }
+
+    // Compared by identity: two parties of the same size in the same slot are two reservations.
+    private static final class PendingReservation {
+
+        private final BookingSlot slot;
+        private final int tables;
+
+        private PendingReservation(BookingSlot slot, int tables) {
+            this.slot = slot;
+            this.tables = tables;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package bg.softuni.magelan.booking.event;
+
+import java.time.LocalDate;
+
+public record BookingChangedEvent(LocalDate date) {
+}
@@ -0,0 +1,16 @@
+package bg.softuni.magelan.booking.event;
+
+import bg.softuni.magelan.booking.model.BookingStatus;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+public record BookingStatusChangedEvent(
+        UUID bookingId,
+        UUID customerId,
+        LocalDate date,
+        LocalTime time,
+        BookingStatus status
+) {
+}
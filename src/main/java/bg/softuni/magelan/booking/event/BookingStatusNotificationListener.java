@@ -0,0 +1,18 @@
+package bg.softuni.magelan.booking.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Slf4j
+@Component
+public class BookingStatusNotificationListener {
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void notifyCustomer(BookingStatusChangedEvent event) {
+        log.info("Notifying customer {}: booking {} on {} at {} is now {}",
+                event.customerId(), event.bookingId(), event.date(), event.time(), event.status());
+    }
+}
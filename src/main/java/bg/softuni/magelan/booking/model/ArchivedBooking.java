@@ -0,0 +1,65 @@
+package bg.softuni.magelan.booking.model;
+
+import bg.softuni.magelan.user.model.User;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "bookings_archive", indexes = @Index(columnList = "customer_id, date, time"))
+public class ArchivedBooking {
+
+    @Id
+    private UUID id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    private User customer;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false)
+    private LocalTime time;
+
+    @Column(nullable = false)
+    private Integer guests;
+
+    @Column(length = 20)
+    private String phone;
+
+    @Column(length = 500)
+    private String notes;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BookingStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedOn;
+
+    public Booking toBooking() {
+        return Booking.builder()
+                .id(id)
+                .customer(customer)
+                .date(date)
+                .time(time)
+                .guests(guests)
+                .phone(phone)
+                .notes(notes)
+                .createdOn(createdOn)
+                .status(status)
+                .build();
+    }
+}
@@ -42,6 +42,10 @@ public class Booking {
     @Column(nullable = false)
     private LocalDateTime createdOn;
 
+    private LocalDateTime updatedOn;
+
+    private LocalDateTime reminderSentOn;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private BookingStatus status;
@@ -0,0 +1,47 @@
+package bg.softuni.magelan.booking.model;
+
+import bg.softuni.magelan.user.model.User;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "booking_waitlist",
+        indexes = @Index(columnList = "date"),
+        uniqueConstraints = @UniqueConstraint(columnNames = {"customer_id", "date", "time"}))
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    private User customer;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false)
+    private LocalTime time;
+
+    @Column(nullable = false)
+    private Integer guests;
+
+    @Column(length = 20)
+    private String phone;
+
+    @Column(length = 500)
+    private String notes;
+
+    @Column(nullable = false)
+    private LocalDateTime joinedOn;
+}
@@ -0,0 +1,25 @@
+package bg.softuni.magelan.booking.reminder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+public record BookingReminder(UUID bookingId, UUID customerId, LocalDateTime startsAt, Instant dueAt)
+        implements Delayed {
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(Duration.between(Instant.now(), dueAt));
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        if (other instanceof BookingReminder reminder) {
+            return dueAt.compareTo(reminder.dueAt);
+        }
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,197 @@
+package bg.softuni.magelan.booking.reminder;
+
+import bg.softuni.magelan.booking.event.BookingStatusChangedEvent;
+import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.repository.BookingRepository;
+import bg.softuni.magelan.booking.repository.BookingStatusView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a reminder a fixed lead time before each confirmed booking. Reminders wait in a queue
+ * ordered by due time, so a tick only touches reminders that are due instead of scanning bookings.
+ * Each reminder is stamped on the booking before it goes out, so it is sent once however often the
+ * booking is confirmed, and a restart only re-sends what never went out.
+ */
+@Slf4j
+@Component
+public class BookingReminderDispatcher {
+
+    private final BookingRepository bookingRepository;
+    private final List<ReminderSink> sinks;
+    private final Duration leadTime;
+    private final int batchSize;
+    private final long dispatchDelayMs;
+
+    private final DelayQueue<BookingReminder> queue = new DelayQueue<>();
+    // The reminder currently owed per booking; queue entries that no longer match are dropped on dispatch.
+    private final ConcurrentMap<UUID, BookingReminder> scheduled = new ConcurrentHashMap<>();
+
+    private final Counter sent;
+    private final Counter failed;
+    private final Timer lag;
+
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "booking-reminder-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BookingReminderDispatcher(BookingRepository bookingRepository,
+                                     List<ReminderSink> sinks,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${magelan.booking.reminders.lead-hours:3}") long leadHours,
+                                     @Value("${magelan.booking.reminders.batch-size:100}") int batchSize,
+                                     @Value("${magelan.booking.reminders.dispatch-delay-ms:1000}") long dispatchDelayMs) {
+        this.bookingRepository = bookingRepository;
+        this.sinks = sinks;
+        this.leadTime = Duration.ofHours(leadHours);
+        this.batchSize = batchSize;
+        this.dispatchDelayMs = dispatchDelayMs;
+
+        this.sent = meterRegistry.counter("magelan.booking.reminders.sent");
+        this.failed = meterRegistry.counter("magelan.booking.reminders.failed");
+        this.lag = Timer.builder("magelan.booking.reminders.lag")
+                .description("Time between a reminder falling due and being sent")
+                .register(meterRegistry);
+        meterRegistry.gauge("magelan.booking.reminders.pending", scheduled, ConcurrentMap::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+        dispatcher.scheduleWithFixedDelay(this::dispatchDue, dispatchDelayMs, dispatchDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void rebuild() {
+        Instant now = Instant.now();
+        int restored = 0;
+
+        int overdue = 0;
+
+        for (BookingStatusView booking : bookingRepository.findAwaitingReminderFrom(BookingStatus.CONFIRMED, LocalDate.now())) {
+            BookingReminder reminder = reminderFor(booking.getId(), booking.getCustomerId(),
+                    booking.getDate(), booking.getTime());
+            // Overdue reminders were missed while the node was down; they go out on the next tick.
+            if (reminder != null) {
+                enqueue(reminder);
+                restored++;
+                if (!reminder.dueAt().isAfter(now)) {
+                    overdue++;
+                }
+            }
+        }
+
+        log.info("Booking reminder queue rebuilt with {} reminders, {} of them overdue", restored, overdue);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(BookingStatusChangedEvent event) {
+        if (event.status() != BookingStatus.CONFIRMED) {
+            scheduled.remove(event.bookingId());
+            return;
+        }
+
+        BookingReminder reminder = reminderFor(event.bookingId(), event.customerId(), event.date(), event.time());
+        if (reminder != null) {
+            enqueue(reminder);
+        }
+    }
+
+    public void dispatchDue() {
+        try {
+            List<BookingReminder> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                batch.forEach(this::dispatch);
+                batch.clear();
+            }
+        } catch (RuntimeException e) {
+            log.error("Booking reminder dispatch failed", e);
+        }
+    }
+
+    public int getPendingCount() {
+        return scheduled.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    private void dispatch(BookingReminder reminder) {
+        if (!scheduled.remove(reminder.bookingId(), reminder)) {
+            return;
+        }
+
+        // Claimed before sending, so a booking confirmed twice or queued on two nodes is reminded once.
+        try {
+            if (bookingRepository.claimReminder(reminder.bookingId(), LocalDateTime.now()) != 1) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not claim the reminder for booking {}; it is retried after a restart: {}",
+                    reminder.bookingId(), e.getMessage());
+            return;
+        }
+
+        boolean delivered = false;
+        try {
+            sinks.forEach(sink -> sink.send(reminder));
+            sent.increment();
+            delivered = true;
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.warn("Sending reminder for booking {} failed: {}", reminder.bookingId(), e.getMessage());
+        }
+        lag.record(Duration.between(reminder.dueAt(), Instant.now()));
+        if (delivered) {
+            return;
+        }
+
+        try {
+            bookingRepository.releaseReminder(reminder.bookingId());
+        } catch (RuntimeException e) {
+            log.warn("Could not release the reminder for booking {}; it will not be sent again: {}",
+                    reminder.bookingId(), e.getMessage());
+        }
+    }
+
+    private void enqueue(BookingReminder reminder) {
+        scheduled.put(reminder.bookingId(), reminder);
+        queue.add(reminder);
+    }
+
+    private BookingReminder reminderFor(UUID bookingId, UUID customerId, LocalDate date, LocalTime time) {
+        LocalDateTime startsAt = LocalDateTime.of(date, time);
+        Instant start = startsAt.atZone(ZoneId.systemDefault()).toInstant();
+        if (!start.isAfter(Instant.now())) {
+            return null;
+        }
+        return new BookingReminder(bookingId, customerId, startsAt, start.minus(leadTime));
+    }
+}
@@ -0,0 +1,15 @@
+package bg.softuni.magelan.booking.reminder;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class LoggingReminderSink implements ReminderSink {
+
+    @Override
+    public void send(BookingReminder reminder) {
+        log.info("Reminder for customer {}: booking {} starts at {}",
+                reminder.customerId(), reminder.bookingId(), reminder.startsAt());
+    }
+}
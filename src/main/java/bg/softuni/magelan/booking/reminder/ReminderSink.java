@@ -0,0 +1,6 @@
+package bg.softuni.magelan.booking.reminder;
+
+public interface ReminderSink {
+
+    void send(BookingReminder reminder);
+}
@@ -0,0 +1,30 @@
+package bg.softuni.magelan.booking.repository;
+
+import bg.softuni.magelan.booking.model.ArchivedBooking;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, UUID> {
+
+    List<ArchivedBooking> findAllByCustomer_IdOrderByDateDescTimeDesc(UUID customerId);
+
+    Window<ArchivedBooking> findByCustomer_IdOrderByDateDescTimeDescIdDesc(UUID customerId, ScrollPosition position,
+                                                                          Limit limit);
+
+    @Modifying
+    @Query("""
+            insert into ArchivedBooking (id, customer, date, time, guests, phone, notes, createdOn, status, archivedOn)
+            select b.id, b.customer, b.date, b.time, b.guests, b.phone, b.notes, b.createdOn, b.status, local datetime
+            from Booking b
+            where b.id in :ids
+            """)
+    int copyFromBookings(Collection<UUID> ids);
+}
@@ -0,0 +1,29 @@
+package bg.softuni.magelan.booking.repository;
+
+import bg.softuni.magelan.booking.model.BookingStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.UUID;
+
+public interface BookingCalendarView {
+
+    UUID getId();
+
+    String getCustomerName();
+
+    LocalDate getDate();
+
+    LocalTime getTime();
+
+    Integer getGuests();
+
+    String getPhone();
+
+    String getNotes();
+
+    BookingStatus getStatus();
+
+    LocalDateTime getUpdatedOn();
+}
@@ -1,11 +1,27 @@
 package bg.softuni.magelan.booking.repository;
 
 import bg.softuni.magelan.booking.model.Booking;
+import bg.softuni.magelan.booking.model.BookingStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, UUID> {
 
@@ -14,14 +30,97 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
             LocalDate date
     );
 
-    List<Booking> findAllByCustomer_IdAndDateLessThanOrderByDateDesc(
-            UUID customerId,
-            LocalDate date
-    );
+    Window<Booking> findByCustomer_IdAndDateLessThanOrderByDateDescTimeDescIdDesc(UUID customerId, LocalDate date,
+                                                                                  ScrollPosition position, Limit limit);
+
+    @EntityGraph(attributePaths = "customer")
+    Window<Booking> findByDateBetweenOrderByDateAscTimeAscIdAsc(LocalDate from, LocalDate to,
+                                                               ScrollPosition position, Limit limit);
+
+    @EntityGraph(attributePaths = "customer")
+    Window<Booking> findByDateBetweenOrderByDateDescTimeDescIdDesc(LocalDate from, LocalDate to,
+                                                                  ScrollPosition position, Limit limit);
+
+    @Query("""
+            select b.date as date, b.time as time, b.guests as guests
+            from Booking b
+            where b.date >= :from and b.status <> :excluded
+            """)
+    List<BookingSeatsView> findSeatsFrom(LocalDate from, BookingStatus excluded);
+
+    @Query("""
+            select b.date as date, b.time as time, b.guests as guests, count(b) as bookings
+            from Booking b
+            where b.date between :from and :to and b.status <> :excluded
+            group by b.date, b.time, b.guests
+            """)
+    List<BookingSlotGuestsView> countGuestsBetween(LocalDate from, LocalDate to, BookingStatus excluded);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select b.id as id, b.customer.id as customerId, b.date as date, b.time as time,
+                   b.guests as guests, b.status as status
+            from Booking b
+            where (:date is null or b.date = :date)
+              and (:status is null or b.status = :status)
+              and (:anyId = true or b.id in :ids)
+              and b.status <> :target and b.status <> :excluded
+            """)
+    List<BookingStatusView> lockForStatusChange(LocalDate date, BookingStatus status, boolean anyId,
+                                                Collection<UUID> ids, BookingStatus target, BookingStatus excluded);
+
+    @Query("""
+            select b.id as id, b.customer.id as customerId, b.date as date, b.time as time,
+                   b.guests as guests, b.status as status
+            from Booking b
+            where b.status = :status and b.date >= :from and b.reminderSentOn is null
+            """)
+    List<BookingStatusView> findAwaitingReminderFrom(BookingStatus status, LocalDate from);
+
+    /**
+     * Stamps the reminder as sent unless another node already did; a result of 1 means the caller
+     * owns sending it.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Booking b set b.reminderSentOn = :sentOn where b.id = :id and b.reminderSentOn is null")
+    int claimReminder(UUID id, LocalDateTime sentOn);
+
+    @Transactional
+    @Modifying
+    @Query("update Booking b set b.reminderSentOn = null where b.id = :id")
+    int releaseReminder(UUID id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status, b.updatedOn = local datetime where b.id in :ids")
+    int updateStatus(Collection<UUID> ids, BookingStatus status);
+
+    /**
+     * Rows are fetched in chunks and never enter the persistence context; close the stream, and
+     * consume it inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select b.id as id, c.username as customerName, b.date as date, b.time as time, b.guests as guests,
+                   b.phone as phone, b.notes as notes, b.status as status,
+                   coalesce(b.updatedOn, b.createdOn) as updatedOn
+            from Booking b join b.customer c
+            where b.date between :from and :to
+            order by b.date, b.time, b.id
+            """)
+    Stream<BookingCalendarView> streamCalendarBetween(LocalDate from, LocalDate to);
 
-    List<Booking> findAllByOrderByDateAscTimeAsc();
+    @Query("select max(coalesce(b.updatedOn, b.createdOn)) from Booking b where b.date between :from and :to")
+    LocalDateTime findLastModifiedBetween(LocalDate from, LocalDate to);
 
-    List<Booking> findAllByDateGreaterThanEqualOrderByDateAscTimeAsc(LocalDate dateFrom);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b.id from Booking b where b.date < :before order by b.date, b.id")
+    List<UUID> findIdsDatedBefore(LocalDate before, Limit limit);
 
-    List<Booking> findAllByDateLessThanOrderByDateDescTimeDesc(LocalDate dateTo);
+    @Modifying
+    @Query("delete from Booking b where b.id in :ids")
+    int deleteByIds(Collection<UUID> ids);
 }
@@ -0,0 +1,13 @@
+package bg.softuni.magelan.booking.repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public interface BookingSeatsView {
+
+    LocalDate getDate();
+
+    LocalTime getTime();
+
+    Integer getGuests();
+}
@@ -0,0 +1,15 @@
+package bg.softuni.magelan.booking.repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public interface BookingSlotGuestsView {
+
+    LocalDate getDate();
+
+    LocalTime getTime();
+
+    Integer getGuests();
+
+    Long getBookings();
+}
@@ -0,0 +1,22 @@
+package bg.softuni.magelan.booking.repository;
+
+import bg.softuni.magelan.booking.model.BookingStatus;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+public interface BookingStatusView {
+
+    UUID getId();
+
+    UUID getCustomerId();
+
+    LocalDate getDate();
+
+    LocalTime getTime();
+
+    Integer getGuests();
+
+    BookingStatus getStatus();
+}
@@ -0,0 +1,36 @@
+package bg.softuni.magelan.booking.repository;
+
+import bg.softuni.magelan.booking.model.WaitlistEntry;
+import bg.softuni.magelan.booking.waitlist.WaitingParty;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, UUID> {
+
+    List<WaitlistEntry> findAllByCustomer_IdAndDateGreaterThanEqualOrderByDateAscTimeAsc(UUID customerId, LocalDate date);
+
+    Optional<WaitlistEntry> findByIdAndCustomer_Id(UUID id, UUID customerId);
+
+    boolean existsByCustomer_IdAndDateAndTime(UUID customerId, LocalDate date, LocalTime time);
+
+    @Query("""
+            select new bg.softuni.magelan.booking.waitlist.WaitingParty(
+                   e.id, e.customer.id, e.date, e.time, e.guests, e.joinedOn)
+            from WaitlistEntry e
+            where e.date >= :from
+            """)
+    List<WaitingParty> findPartiesFrom(LocalDate from);
+
+    @Transactional
+    @Modifying
+    @Query("delete from WaitlistEntry e where e.date < :before")
+    int deleteDatedBefore(LocalDate before);
+}
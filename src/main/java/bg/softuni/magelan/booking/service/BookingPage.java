@@ -0,0 +1,74 @@
+package bg.softuni.magelan.booking.service;
+
+import bg.softuni.magelan.booking.model.Booking;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One page of bookings plus an opaque cursor (date, time and id of the last row) for the next one.
+ */
+public record BookingPage(List<Booking> bookings, String nextCursor) {
+
+    // Ids compare as text so ties break the way the database orders them, as unsigned bytes.
+    private static final Comparator<Booking> NEWEST_FIRST = Comparator.comparing(Booking::getDate)
+            .thenComparing(Booking::getTime)
+            .thenComparing(booking -> booking.getId().toString())
+            .reversed();
+
+    public static BookingPage empty() {
+        return new BookingPage(List.of(), null);
+    }
+
+    static BookingPage of(Window<Booking> window) {
+        List<Booking> bookings = window.getContent();
+        if (!window.hasNext() || bookings.isEmpty()) {
+            return new BookingPage(bookings, null);
+        }
+
+        return new BookingPage(bookings, cursorOf(bookings.get(bookings.size() - 1)));
+    }
+
+    /**
+     * The newest {@code size} of bookings gathered from several sources, each read newest first from
+     * the same cursor; {@code more} tells whether any source had rows beyond the ones it returned.
+     */
+    static BookingPage newestOf(List<Booking> bookings, int size, boolean more) {
+        List<Booking> newest = bookings.stream().sorted(NEWEST_FIRST).limit(size).toList();
+        if (newest.isEmpty() || (!more && bookings.size() <= size)) {
+            return new BookingPage(newest, null);
+        }
+        return new BookingPage(newest, cursorOf(newest.get(newest.size() - 1)));
+    }
+
+    static ScrollPosition positionAfter(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        String[] parts = cursor.split("_", 3);
+        try {
+            return ScrollPosition.forward(Map.of(
+                    "date", LocalDate.parse(parts[0]),
+                    "time", LocalTime.parse(parts[1]),
+                    "id", UUID.fromString(parts[2])));
+        } catch (ArrayIndexOutOfBoundsException | DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor [%s].".formatted(cursor));
+        }
+    }
+
+    private static String cursorOf(Booking booking) {
+        return booking.getDate() + "_" + booking.getTime() + "_" + booking.getId();
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,15 @@
+package bg.softuni.magelan.booking.service;
+
+/**
+ * Outcome of a table request: either booked, or queued at {@code waitlistPosition} for a full slot.
+ */
+public record BookingRequestResult(boolean booked, int waitlistPosition) {
+
+    public static BookingRequestResult reserved() {
+        return new BookingRequestResult(true, 0);
+    }
+
+    public static BookingRequestResult waitlisted(int position) {
+        return new BookingRequestResult(false, position);
+    }
+}
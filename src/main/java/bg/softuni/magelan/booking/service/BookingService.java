@@ -1,19 +1,42 @@
 package bg.softuni.magelan.booking.service;
 
+import bg.softuni.magelan.booking.availability.AvailabilityCalendar;
+import bg.softuni.magelan.booking.availability.MonthAvailability;
+import bg.softuni.magelan.booking.calendar.BookingCalendarExporter;
+import bg.softuni.magelan.booking.capacity.TableCapacityIndex;
+import bg.softuni.magelan.booking.event.BookingChangedEvent;
+import bg.softuni.magelan.booking.event.BookingStatusChangedEvent;
+import bg.softuni.magelan.booking.model.ArchivedBooking;
 import bg.softuni.magelan.booking.model.Booking;
 import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.model.WaitlistEntry;
+import bg.softuni.magelan.booking.repository.ArchivedBookingRepository;
 import bg.softuni.magelan.booking.repository.BookingRepository;
+import bg.softuni.magelan.booking.repository.BookingStatusView;
+import bg.softuni.magelan.booking.waitlist.BookingWaitlist;
+import bg.softuni.magelan.exception.BookingCapacityExceededException;
 import bg.softuni.magelan.exception.BookingNotFoundException;
 import bg.softuni.magelan.user.model.User;
 import bg.softuni.magelan.web.dto.BookTableRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
@@ -21,13 +44,38 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class BookingService {
 
-    private final BookingRepository bookingRepository;
+    private static final int ADMIN_PAGE_SIZE = 25;
+    private static final int HISTORY_PAGE_SIZE = 20;
+    private static final LocalDate FIRST_DATE = LocalDate.EPOCH;
+    private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
 
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final TableCapacityIndex tableCapacityIndex;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final BookingWaitlist bookingWaitlist;
+    private final BookingCalendarExporter bookingCalendarExporter;
+
+    /**
+     * Books a table, or puts the party on the slot's waitlist when it is full. Only a party larger
+     * than the whole room is turned away.
+     */
     @Transactional
-    public void createBooking(User customer, BookTableRequest request) {
+    public BookingRequestResult createBooking(User customer, BookTableRequest request) {
         log.info("Creating booking for user {} on {} at {} for {} guests",
-                customer.getUsername(), request.getDate(), request.getTime(), request.getGuests());
-
+                customer.getId(), request.getDate(), request.getTime(), request.getGuests());
+
+        if (!tableCapacityIndex.fitsInSlot(request.getGuests())) {
+            throw new BookingCapacityExceededException(request.getDate(), request.getTime(), request.getGuests());
+        }
+        // Freed seats go to the parties already waiting for the slot before any newcomer.
+        if (bookingWaitlist.waitingCount(request.getDate(), request.getTime()) > 0
+                || !tableCapacityIndex.reserveIfAvailable(request.getDate(), request.getTime(), request.getGuests())) {
+            return BookingRequestResult.waitlisted(bookingWaitlist.join(customer, request));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
         Booking booking = Booking.builder()
                 .customer(customer)
                 .date(request.getDate())
@@ -36,10 +84,13 @@ public class BookingService {
                 .phone(request.getPhone())
                 .notes(request.getNotes())
                 .status(BookingStatus.PENDING)
-                .createdOn(LocalDateTime.now())
+                .createdOn(now)
+                .updatedOn(now)
                 .build();
 
         bookingRepository.save(booking);
+        applicationEventPublisher.publishEvent(new BookingChangedEvent(booking.getDate()));
+        return BookingRequestResult.reserved();
     }
 
     @Transactional(readOnly = true)
@@ -49,30 +100,90 @@ public class BookingService {
                 .findAllByCustomer_IdAndDateGreaterThanEqualOrderByDateAscTimeAsc(userId, today);
     }
 
+    /**
+     * The customer's past bookings, newest first, one page at a time across the live and archived
+     * tables.
+     */
     @Transactional(readOnly = true)
-    public List<Booking> getPastBookingsForUser(UUID userId) {
-        LocalDate today = LocalDate.now();
-        return bookingRepository
-                .findAllByCustomer_IdAndDateLessThanOrderByDateDesc(userId, today);
+    public BookingPage getPastBookingsForUser(UUID userId, String before) {
+        ScrollPosition position = BookingPage.positionAfter(before);
+        Window<Booking> recent = bookingRepository.findByCustomer_IdAndDateLessThanOrderByDateDescTimeDescIdDesc(
+                userId, LocalDate.now(), position, Limit.of(HISTORY_PAGE_SIZE));
+        Window<ArchivedBooking> archived = archivedBookingRepository.findByCustomer_IdOrderByDateDescTimeDescIdDesc(
+                userId, position, Limit.of(HISTORY_PAGE_SIZE));
+
+        List<Booking> bookings = new ArrayList<>(recent.getContent());
+        archived.forEach(booking -> bookings.add(booking.toBooking()));
+        return BookingPage.newestOf(bookings, HISTORY_PAGE_SIZE, recent.hasNext() || archived.hasNext());
     }
 
     @Transactional(readOnly = true)
-    public List<Booking> getUpcomingBookingsForAdmin() {
-        LocalDate today = LocalDate.now();
-        return bookingRepository
-                .findAllByDateGreaterThanEqualOrderByDateAscTimeAsc(today);
+    public List<WaitlistEntry> getWaitlistEntries(UUID userId) {
+        return bookingWaitlist.getUpcomingEntries(userId);
+    }
+
+    @Transactional
+    public boolean leaveWaitlist(UUID userId, UUID entryId) {
+        return bookingWaitlist.leave(userId, entryId);
     }
 
     @Transactional(readOnly = true)
-    public List<Booking> getPastBookingsForAdmin() {
+    public BookingPage getUpcomingBookingsForAdmin(LocalDate from, LocalDate to, String after) {
         LocalDate today = LocalDate.now();
-        return bookingRepository
-                .findAllByDateLessThanOrderByDateDescTimeDesc(today);
+        LocalDate start = from == null || from.isBefore(today) ? today : from;
+        LocalDate end = to == null ? LAST_DATE : to;
+        if (start.isAfter(end)) {
+            return BookingPage.empty();
+        }
+
+        return BookingPage.of(bookingRepository.findByDateBetweenOrderByDateAscTimeAscIdAsc(
+                start, end, BookingPage.positionAfter(after), Limit.of(ADMIN_PAGE_SIZE)));
+    }
+
+    @Transactional(readOnly = true)
+    public BookingPage getPastBookingsForAdmin(LocalDate from, LocalDate to, String after) {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate start = from == null ? FIRST_DATE : from;
+        LocalDate end = to == null || to.isAfter(yesterday) ? yesterday : to;
+        if (start.isAfter(end)) {
+            return BookingPage.empty();
+        }
+
+        return BookingPage.of(bookingRepository.findByDateBetweenOrderByDateDescTimeDescIdDesc(
+                start, end, BookingPage.positionAfter(after), Limit.of(ADMIN_PAGE_SIZE)));
     }
 
     @Transactional(readOnly = true)
-    public List<Booking> getAllBookings() {
-        return bookingRepository.findAllByOrderByDateAscTimeAsc();
+    public BookingPage searchBookingsForAdmin(LocalDate from, LocalDate to, String after) {
+        LocalDate start = from == null ? FIRST_DATE : from;
+        LocalDate end = to == null ? LAST_DATE : to;
+        if (start.isAfter(end)) {
+            return BookingPage.empty();
+        }
+
+        return BookingPage.of(bookingRepository.findByDateBetweenOrderByDateAscTimeAscIdAsc(
+                start, end, BookingPage.positionAfter(after), Limit.of(ADMIN_PAGE_SIZE)));
+    }
+
+    @Transactional(readOnly = true)
+    public LocalDateTime getCalendarLastModified(LocalDate from, LocalDate to) {
+        return bookingCalendarExporter.lastModified(from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public int exportCalendar(LocalDate from, LocalDate to, Writer writer) throws IOException {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("The export range must start before it ends.");
+        }
+
+        int exported = bookingCalendarExporter.export(from, to, writer);
+        log.info("Exported {} bookings between {} and {} as iCalendar", exported, from, to);
+        return exported;
+    }
+
+    @Transactional(readOnly = true)
+    public MonthAvailability getAvailability(YearMonth month) {
+        return availabilityCalendar.getMonth(month);
     }
 
     @Transactional
@@ -82,9 +193,57 @@ public class BookingService {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new BookingNotFoundException(bookingId));
 
+        BookingStatus previous = booking.getStatus();
+        if (previous != BookingStatus.CANCELLED && status == BookingStatus.CANCELLED) {
+            tableCapacityIndex.releaseOnCommit(booking.getDate(), booking.getTime(), booking.getGuests());
+        } else if (previous == BookingStatus.CANCELLED && status != BookingStatus.CANCELLED) {
+            tableCapacityIndex.reserve(booking.getDate(), booking.getTime(), booking.getGuests());
+        }
+
         booking.setStatus(status);
+        booking.setUpdatedOn(LocalDateTime.now());
         bookingRepository.save(booking);
+        applicationEventPublisher.publishEvent(new BookingChangedEvent(booking.getDate()));
+        applicationEventPublisher.publishEvent(new BookingStatusChangedEvent(
+                booking.getId(), booking.getCustomer() != null ? booking.getCustomer().getId() : null,
+                booking.getDate(), booking.getTime(), status));
 
         log.info("Booking {} status changed to {}", bookingId, status);
     }
+
+    /**
+     * Moves every booking matching the filter to {@code status} with one UPDATE. Cancelled bookings
+     * are never restored in bulk, since that needs a capacity check per booking.
+     */
+    @Transactional
+    public int changeStatuses(LocalDate date, BookingStatus currentStatus, Collection<UUID> ids, BookingStatus status) {
+        boolean anyId = ids == null || ids.isEmpty();
+        if (date == null && currentStatus == null && anyId) {
+            throw new IllegalArgumentException("Pick a date, a status or at least one booking to update.");
+        }
+
+        log.info("Changing status to {} for bookings on {} with status {} and ids {}", status, date, currentStatus, ids);
+
+        List<BookingStatusView> matched = bookingRepository.lockForStatusChange(
+                date, currentStatus, anyId, anyId ? List.of() : ids, status, BookingStatus.CANCELLED);
+        if (matched.isEmpty()) {
+            return 0;
+        }
+
+        int updated = bookingRepository.updateStatus(matched.stream().map(BookingStatusView::getId).toList(), status);
+
+        Set<LocalDate> dates = new LinkedHashSet<>();
+        for (BookingStatusView booking : matched) {
+            if (status == BookingStatus.CANCELLED) {
+                tableCapacityIndex.releaseOnCommit(booking.getDate(), booking.getTime(), booking.getGuests());
+            }
+            applicationEventPublisher.publishEvent(new BookingStatusChangedEvent(
+                    booking.getId(), booking.getCustomerId(), booking.getDate(), booking.getTime(), status));
+            dates.add(booking.getDate());
+        }
+        dates.forEach(changed -> applicationEventPublisher.publishEvent(new BookingChangedEvent(changed)));
+
+        log.info("Changed status of {} bookings to {}", updated, status);
+        return updated;
+    }
 }
@@ -0,0 +1,334 @@
+package bg.softuni.magelan.booking.waitlist;
+
+import bg.softuni.magelan.booking.capacity.BookingSlot;
+import bg.softuni.magelan.booking.capacity.TableCapacityIndex;
+import bg.softuni.magelan.booking.event.BookingChangedEvent;
+import bg.softuni.magelan.booking.event.BookingStatusChangedEvent;
+import bg.softuni.magelan.booking.model.Booking;
+import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.model.WaitlistEntry;
+import bg.softuni.magelan.booking.repository.BookingRepository;
+import bg.softuni.magelan.booking.repository.WaitlistEntryRepository;
+import bg.softuni.magelan.exception.AlreadyWaitlistedException;
+import bg.softuni.magelan.user.model.User;
+import bg.softuni.magelan.web.dto.BookTableRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Parties waiting for a full slot, first come first served. Entries are persisted so the queues
+ * survive a restart; promotion works off the in-memory queue head, so a cancellation never scans
+ * the waitlist table. Promotions run one at a time on their own thread, never on the request that
+ * freed the tables.
+ */
+@Slf4j
+@Component
+public class BookingWaitlist {
+
+    private final BookingRepository bookingRepository;
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final TableCapacityIndex tableCapacityIndex;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final TransactionTemplate promotionTransaction;
+
+    private final Executor promoter;
+
+    private final ConcurrentMap<BookingSlot, NavigableSet<WaitingParty>> waiting = new ConcurrentHashMap<>();
+    // Lets a party that leaves be taken out of its slot's queue without a scan.
+    private final ConcurrentMap<UUID, WaitingParty> partiesByEntry = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookingWaitlist(BookingRepository bookingRepository,
+                           WaitlistEntryRepository waitlistEntryRepository,
+                           TableCapacityIndex tableCapacityIndex,
+                           ApplicationEventPublisher applicationEventPublisher,
+                           PlatformTransactionManager transactionManager) {
+        this(bookingRepository, waitlistEntryRepository, tableCapacityIndex, applicationEventPublisher,
+                transactionManager, Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "booking-waitlist-promoter");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    BookingWaitlist(BookingRepository bookingRepository,
+                    WaitlistEntryRepository waitlistEntryRepository,
+                    TableCapacityIndex tableCapacityIndex,
+                    ApplicationEventPublisher applicationEventPublisher,
+                    PlatformTransactionManager transactionManager,
+                    Executor promoter) {
+        this.promoter = promoter;
+        this.bookingRepository = bookingRepository;
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.tableCapacityIndex = tableCapacityIndex;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.promotionTransaction = new TransactionTemplate(transactionManager);
+        this.promotionTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        waiting.clear();
+        partiesByEntry.clear();
+        List<WaitingParty> parties = waitlistEntryRepository.findPartiesFrom(LocalDate.now());
+        parties.forEach(this::enqueue);
+        log.info("Booking waitlist rebuilt with {} parties across {} slots", parties.size(), waiting.size());
+
+        // Tables may have been freed while the application was down.
+        for (NavigableSet<WaitingParty> queue : List.copyOf(waiting.values())) {
+            WaitingParty head;
+            synchronized (queue) {
+                head = queue.isEmpty() ? null : queue.first();
+            }
+            if (head != null) {
+                promote(head.date(), head.time());
+            }
+        }
+    }
+
+    @Scheduled(cron = "${magelan.booking.waitlist-prune-cron:0 10 0 * * *}")
+    public void prunePastEntries() {
+        LocalDate today = LocalDate.now();
+        waiting.keySet().removeIf(slot -> slot.date().isBefore(today));
+        partiesByEntry.values().removeIf(party -> party.date().isBefore(today));
+        int removed = waitlistEntryRepository.deleteDatedBefore(today);
+        if (removed > 0) {
+            log.info("Removed {} waitlist entries for past dates", removed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (promoter instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Queues the party once the surrounding transaction commits. A customer holds at most one place
+     * per requested date and time.
+     *
+     * @return the party's position in the slot's queue
+     * @throws AlreadyWaitlistedException when the customer is already waiting for that time
+     */
+    public int join(User customer, BookTableRequest request) {
+        if (waitlistEntryRepository.existsByCustomer_IdAndDateAndTime(customer.getId(), request.getDate(), request.getTime())) {
+            throw new AlreadyWaitlistedException(request.getDate(), request.getTime());
+        }
+
+        WaitlistEntry entry;
+        try {
+            // Flushed so a second join racing this one trips the unique key here, not at commit.
+            entry = waitlistEntryRepository.saveAndFlush(WaitlistEntry.builder()
+                    .customer(customer)
+                    .date(request.getDate())
+                    .time(request.getTime())
+                    .guests(request.getGuests())
+                    .phone(request.getPhone())
+                    .notes(request.getNotes())
+                    .joinedOn(LocalDateTime.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            throw new AlreadyWaitlistedException(request.getDate(), request.getTime());
+        }
+
+        WaitingParty party = new WaitingParty(entry.getId(), customer.getId(), entry.getDate(), entry.getTime(),
+                entry.getGuests(), entry.getJoinedOn());
+        int position = waitingCount(party.date(), party.time()) + 1;
+
+        afterCommit(() -> {
+            enqueue(party);
+            promote(party.date(), party.time());
+        });
+
+        log.info("User {} joined the waitlist for {} at {} at position {}",
+                customer.getId(), party.date(), party.time(), position);
+        return position;
+    }
+
+    /**
+     * Takes the customer's entry off the waitlist. The slot is re-checked afterwards, since a large
+     * party at the head may have been holding up smaller ones behind it.
+     *
+     * @return whether the customer was still waiting, rather than already promoted or gone
+     */
+    public boolean leave(UUID customerId, UUID entryId) {
+        WaitlistEntry entry = waitlistEntryRepository.findByIdAndCustomer_Id(entryId, customerId).orElse(null);
+        if (entry == null) {
+            return false;
+        }
+
+        waitlistEntryRepository.delete(entry);
+        LocalDate date = entry.getDate();
+        LocalTime time = entry.getTime();
+        afterCommit(() -> {
+            dequeue(entryId, date, time);
+            promote(date, time);
+        });
+
+        log.info("User {} left the waitlist for {} at {}", customerId, date, time);
+        return true;
+    }
+
+    public List<WaitlistEntry> getUpcomingEntries(UUID customerId) {
+        return waitlistEntryRepository
+                .findAllByCustomer_IdAndDateGreaterThanEqualOrderByDateAscTimeAsc(customerId, LocalDate.now());
+    }
+
+    public int waitingCount(LocalDate date, LocalTime time) {
+        NavigableSet<WaitingParty> parties = waiting.get(tableCapacityIndex.slotOf(date, time));
+        if (parties == null) {
+            return 0;
+        }
+        synchronized (parties) {
+            return parties.size();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(BookingStatusChangedEvent event) {
+        if (event.status() == BookingStatus.CANCELLED) {
+            promote(event.date(), event.time());
+        }
+    }
+
+    /**
+     * Schedules turning waiting parties into bookings for as long as the head of the slot's queue
+     * fits. The queue stays strictly first come first served: a large party at the head is not
+     * overtaken by a smaller one behind it.
+     */
+    public void promote(LocalDate date, LocalTime time) {
+        BookingSlot slot = tableCapacityIndex.slotOf(date, time);
+        promoter.execute(() -> promoteHeads(slot));
+    }
+
+    // Only the promoter thread takes parties off the head, so the queue lock is never held across the transaction.
+    private void promoteHeads(BookingSlot slot) {
+        NavigableSet<WaitingParty> parties = waiting.get(slot);
+        if (parties == null) {
+            return;
+        }
+
+        while (true) {
+            WaitingParty party;
+            synchronized (parties) {
+                party = parties.isEmpty() ? null : parties.first();
+            }
+            if (party == null) {
+                return;
+            }
+
+            Boolean done;
+            try {
+                done = promotionTransaction.execute(status -> convert(party));
+            } catch (RuntimeException e) {
+                log.warn("Promoting waitlist entry {} failed: {}", party.entryId(), e.getMessage());
+                return;
+            }
+            if (!Boolean.TRUE.equals(done)) {
+                return;
+            }
+            partiesByEntry.remove(party.entryId());
+            synchronized (parties) {
+                // The party may have left while its promotion ran; anyone else at the head stays put.
+                if (!parties.isEmpty() && parties.first() == party) {
+                    parties.pollFirst();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the party has left the queue, either as a new booking or because its entry is gone
+     */
+    private boolean convert(WaitingParty party) {
+        WaitlistEntry entry = waitlistEntryRepository.findById(party.entryId()).orElse(null);
+        if (entry == null) {
+            return true;
+        }
+        if (!tableCapacityIndex.reserveIfAvailable(entry.getDate(), entry.getTime(), entry.getGuests())) {
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Booking booking = bookingRepository.save(Booking.builder()
+                .customer(entry.getCustomer())
+                .date(entry.getDate())
+                .time(entry.getTime())
+                .guests(entry.getGuests())
+                .phone(entry.getPhone())
+                .notes(entry.getNotes())
+                .status(BookingStatus.PENDING)
+                .createdOn(now)
+                .updatedOn(now)
+                .build());
+        waitlistEntryRepository.delete(entry);
+
+        applicationEventPublisher.publishEvent(new BookingChangedEvent(booking.getDate()));
+        applicationEventPublisher.publishEvent(new BookingStatusChangedEvent(
+                booking.getId(), party.customerId(), booking.getDate(), booking.getTime(), BookingStatus.PENDING));
+
+        log.info("Promoted waitlist entry {} to booking {}", party.entryId(), booking.getId());
+        return true;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void enqueue(WaitingParty party) {
+        NavigableSet<WaitingParty> parties = waiting.computeIfAbsent(
+                tableCapacityIndex.slotOf(party.date(), party.time()),
+                slot -> new TreeSet<>(WaitingParty.FIRST_COME));
+        partiesByEntry.put(party.entryId(), party);
+        synchronized (parties) {
+            parties.add(party);
+        }
+    }
+
+    private void dequeue(UUID entryId, LocalDate date, LocalTime time) {
+        WaitingParty party = partiesByEntry.remove(entryId);
+        NavigableSet<WaitingParty> parties = waiting.get(tableCapacityIndex.slotOf(date, time));
+        if (party == null || parties == null) {
+            return;
+        }
+        synchronized (parties) {
+            parties.remove(party);
+        }
+    }
+}
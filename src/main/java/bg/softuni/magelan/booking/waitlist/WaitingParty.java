@@ -0,0 +1,14 @@
+package bg.softuni.magelan.booking.waitlist;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.UUID;
+
+public record WaitingParty(UUID entryId, UUID customerId, LocalDate date, LocalTime time, int guests,
+                           LocalDateTime joinedOn) {
+
+    static final Comparator<WaitingParty> FIRST_COME = Comparator.comparing(WaitingParty::joinedOn)
+            .thenComparing(WaitingParty::entryId);
+}
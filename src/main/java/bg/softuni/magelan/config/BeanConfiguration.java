@@ -1,14 +1,42 @@
 package bg.softuni.magelan.config;
 
+import bg.softuni.magelan.security.PasswordHashCalibrator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
 
 @Configuration
 public class BeanConfiguration {
+
+    private static final String BCRYPT = "bcrypt";
+    private static final String PBKDF2 = "pbkdf2";
+
+    /**
+     * New hashes are {@code {bcrypt}} at the calibrated cost. Hashes stored before ids were added
+     * are plain bcrypt and still match; the login flow rehashes them, and anything weaker, on the
+     * next successful sign-in.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashCalibrator passwordHashCalibrator) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(passwordHashCalibrator.calibrateBcryptStrength());
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT, Map.of(
+                BCRYPT, bcrypt,
+                PBKDF2, pbkdf2()
+        ));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    // PBKDF2-HMAC-SHA256 with 16 byte salts and 310,000 iterations, as recommended by OWASP.
+    static Pbkdf2PasswordEncoder pbkdf2() {
+        Pbkdf2PasswordEncoder pbkdf2 = new Pbkdf2PasswordEncoder("", 16, 310_000, 256);
+        pbkdf2.setAlgorithm(Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+        return pbkdf2;
     }
 }
@@ -0,0 +1,83 @@
+package bg.softuni.magelan.config;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Caffeine caches configured per name under {@code magelan.cache.specs.<name>}, using Caffeine's
+ * spec syntax. Caches without their own spec get {@code magelan.cache.default-spec}. Every cache is
+ * bound to the meter registry as it is created, including those first used after startup, so
+ * caches with {@code recordStats} report hits, misses and evictions as {@code cache.*} metrics.
+ */
+@Slf4j
+@Configuration
+public class CacheConfiguration {
+
+    // Same tag the actuator adds when it binds the caches it finds at startup, so the meters coincide.
+    private static final String CACHE_MANAGER_TAG = "cache.manager";
+    private static final String CACHE_MANAGER_NAME = "cacheManager";
+
+    @Bean
+    public CacheManager cacheManager(Environment environment,
+                                     List<NamedCacheLoader<?, ?>> loaders,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${magelan.cache.default-spec:maximumSize=1000,expireAfterWrite=10m,recordStats}") String defaultSpec) {
+        Map<String, String> specs = Binder.get(environment)
+                .bind("magelan.cache.specs", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+        return cacheManager(defaultSpec, specs, loaders, meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    static CaffeineCacheManager cacheManager(String defaultSpec, Map<String, String> specs,
+                                             List<NamedCacheLoader<?, ?>> loaders, MeterRegistry meterRegistry) {
+        Map<String, NamedCacheLoader<?, ?>> loadersByCache = loaders.stream()
+                .collect(Collectors.toMap(NamedCacheLoader::cacheName, Function.identity()));
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            // Every cache passes through here, whether registered below or created on first use.
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                CaffeineCacheMetrics.monitor(meterRegistry, cache, name, CACHE_MANAGER_TAG, CACHE_MANAGER_NAME);
+                return super.adaptCaffeineCache(name, cache);
+            }
+        };
+        cacheManager.setCaffeineSpec(CaffeineSpec.parse(defaultSpec));
+
+        // A cache with a loader is always built as a loading cache, with the default spec if it has none of its own.
+        Map<String, String> customSpecs = new LinkedHashMap<>(specs);
+        loadersByCache.keySet().forEach(name -> customSpecs.putIfAbsent(name, defaultSpec));
+
+        customSpecs.forEach((name, spec) -> {
+            Caffeine<Object, Object> builder = Caffeine.from(spec);
+            CacheLoader<Object, Object> loader = (CacheLoader<Object, Object>) loadersByCache.get(name);
+            if (loader == null && spec.contains("refreshAfterWrite")) {
+                throw new IllegalStateException("Cache '%s' refreshes after write but has no NamedCacheLoader.".formatted(name));
+            }
+
+            cacheManager.registerCustomCache(name, loader != null ? builder.build(loader) : builder.build());
+            log.info("Cache '{}' configured with {}{}", name, spec, loader != null ? " and a loader" : "");
+        });
+
+        return cacheManager;
+    }
+}
@@ -9,6 +9,8 @@ import bg.softuni.magelan.product.repository.ProductRepository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -23,61 +25,64 @@ public class DataInitializer implements CommandLineRunner {
         }
 
         LocalDateTime now = LocalDateTime.now();
+        List<Product> products = new ArrayList<>();
 
-        create("Captain's Garlic Bread",
+        create(products, "Captain's Garlic Bread",
                 "Toasted rustic bread with garlic butter, herbs & a hint of sea salt.",
                 "5.90", ProductCategory.STARTER, now);
 
-        create("Harbor Soup",
+        create(products, "Harbor Soup",
                 "Creamy roasted vegetables with smoked paprika & crispy croutons.",
                 "7.40", ProductCategory.STARTER, now);
 
-        create("Black Pearl Bites",
+        create(products, "Black Pearl Bites",
                 "Crispy breaded bites with spicy dip, perfect for sharing your plunder.",
                 "8.90", ProductCategory.STARTER, now);
 
-        create("Magelan Burger",
+        create(products, "Magelan Burger",
                 "Juicy beef patty, cheddar, caramelized onions & Magelan sauce in a toasted bun.",
                 "14.90", ProductCategory.MAIN, now);
 
-        create("Crimson Chicken Steak",
+        create(products, "Crimson Chicken Steak",
                 "Marinated chicken fillet, grilled & served with smoky butter and fries.",
                 "13.50", ProductCategory.MAIN, now);
 
-        create("Veggie Corsair Bowl",
+        create(products, "Veggie Corsair Bowl",
                 "Roasted veggies, herbed rice, chickpeas & tangy house dressing.",
                 "12.40", ProductCategory.MAIN, now);
 
-        create("Midnight Ribs",
+        create(products, "Midnight Ribs",
                 "Slow-cooked pork ribs glazed with dark BBQ sauce, served with wedges.",
                 "18.90", ProductCategory.MAIN, now);
 
-        create("Black Forest Treasure",
+        create(products, "Black Forest Treasure",
                 "Rich chocolate cake with cherry filling & dark chocolate drizzle.",
                 "6.90", ProductCategory.DESSERT, now);
 
-        create("Sea Mist Cheesecake",
+        create(products, "Sea Mist Cheesecake",
                 "Creamy baked cheesecake with berry coulis.",
                 "6.40", ProductCategory.DESSERT, now);
 
-        create("Craft Lemonade",
+        create(products, "Craft Lemonade",
                 "Classic / Raspberry / Elderflower.",
                 "3.90", ProductCategory.DRINK, now);
 
-        create("Espresso",
+        create(products, "Espresso",
                 "Short, strong, unforgiving.",
                 "2.40", ProductCategory.DRINK, now);
 
-        create("Soft Drinks",
+        create(products, "Soft Drinks",
                 "Selection of bottled soft drinks.",
                 "2.90", ProductCategory.DRINK, now);
 
-        create("Caribbean Rum",
+        create(products, "Caribbean Rum",
                 "Warm, golden Caribbean rum with a hint of adventure. Yo-ho-ho in a glass.",
                 "5.90", ProductCategory.DRINK, now);
+
+        productRepository.saveAll(products);
     }
 
-    private void create(String name, String desc, String price,
+    private void create(List<Product> products, String name, String desc, String price,
                         ProductCategory category, LocalDateTime now) {
         Product p = Product.builder()
                 .name(name)
@@ -89,6 +94,6 @@ public class DataInitializer implements CommandLineRunner {
                 .updatedOn(now)
                 .build();
 
-        productRepository.save(p);
+        products.add(p);
     }
 }
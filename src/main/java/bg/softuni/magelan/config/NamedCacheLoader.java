@@ -0,0 +1,12 @@
+package bg.softuni.magelan.config;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+
+/**
+ * Loads entries for one named cache, which lets that cache refresh entries in the background
+ * ({@code refreshAfterWrite}) instead of only expiring them.
+ */
+public interface NamedCacheLoader<K, V> extends CacheLoader<K, V> {
+
+    String cacheName();
+}
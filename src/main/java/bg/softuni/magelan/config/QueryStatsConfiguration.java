@@ -0,0 +1,30 @@
+package bg.softuni.magelan.config;
+
+import bg.softuni.magelan.querystats.QueryStatsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Per-request SQL statistics, switched on by the {@code dev} profile. The Hibernate hooks are
+ * always installed but count nothing unless this filter has started a request.
+ */
+@Configuration
+@ConditionalOnProperty(name = "magelan.query-stats.enabled", havingValue = "true")
+public class QueryStatsConfiguration {
+
+    // Just inside the session filter and ahead of Spring Security, so principal lookups count too.
+    @Bean
+    public FilterRegistrationBean<QueryStatsFilter> queryStatsFilter(
+            MeterRegistry meterRegistry,
+            @Value("${magelan.query-stats.repeat-threshold:5}") int repeatThreshold) {
+        FilterRegistrationBean<QueryStatsFilter> registration =
+                new FilterRegistrationBean<>(new QueryStatsFilter(meterRegistry, repeatThreshold));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 60);
+        return registration;
+    }
+}
@@ -0,0 +1,25 @@
+package bg.softuni.magelan.config;
+
+import bg.softuni.magelan.session.SessionRepository;
+import bg.softuni.magelan.session.SessionRepositoryFilter;
+import jakarta.servlet.DispatcherType;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.EnumSet;
+
+@Configuration
+public class SessionConfiguration {
+
+    // Ahead of Spring Security and everything else that may touch the session.
+    @Bean
+    public FilterRegistrationBean<SessionRepositoryFilter> sessionRepositoryFilter(SessionRepository sessionRepository) {
+        FilterRegistrationBean<SessionRepositoryFilter> registration =
+                new FilterRegistrationBean<>(new SessionRepositoryFilter(sessionRepository));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 50);
+        registration.setDispatcherTypes(EnumSet.allOf(DispatcherType.class));
+        return registration;
+    }
+}
@@ -1,13 +1,22 @@
 package bg.softuni.magelan.config;
 
+import bg.softuni.magelan.security.LoginThrottle;
+import bg.softuni.magelan.security.LoginThrottleFilter;
+import bg.softuni.magelan.security.PrincipalRefreshFilter;
+import bg.softuni.magelan.security.UserProfileChanges;
 import org.springframework.boot.autoconfigure.security.servlet.PathRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
@@ -16,14 +25,28 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebConfiguration implements WebMvcConfigurer {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity,
+                                                   UserProfileChanges userProfileChanges,
+                                                   UserDetailsService userDetailsService,
+                                                   LoginThrottle loginThrottle) throws Exception {
+        RequestMatcher staticResources = new OrRequestMatcher(
+                PathRequest.toStaticResources().atCommonLocations(),
+                new AntPathRequestMatcher("/*.css"),
+                new AntPathRequestMatcher("/*.jpg"));
+
         httpSecurity
+                .addFilterAfter(new PrincipalRefreshFilter(userProfileChanges, userDetailsService, staticResources),
+                        SecurityContextHolderFilter.class)
+                .addFilterBefore(new LoginThrottleFilter(loginThrottle, "/login", "username"),
+                        UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(matcher -> matcher
                         .requestMatchers(PathRequest.toStaticResources().atCommonLocations()).permitAll()
                         .requestMatchers(
                                 "/",
                                 "/register",
                                 "/menu",
+                                "/menu/search",
+                                "/menu/suggest",
                                 "/menu.css",
                                 "/login",
                                 "/profile",
@@ -40,10 +63,12 @@ public class WebConfiguration implements WebMvcConfigurer {
                                 "/images/**",
                                 "/webjars/**"
                         ).permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/admin/panel").hasRole("ADMIN")
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         .requestMatchers("/orders/**").hasRole("USER")
-                        .requestMatchers("/book-table").hasRole("USER")
+                        .requestMatchers("/book-table", "/book-table/**").hasRole("USER")
                         .anyRequest().authenticated()
                 )
                 .formLogin(formLogin -> formLogin
@@ -0,0 +1,19 @@
+package bg.softuni.magelan.exception;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Getter
+public class AlreadyWaitlistedException extends RuntimeException {
+
+    private final LocalDate date;
+    private final LocalTime time;
+
+    public AlreadyWaitlistedException(LocalDate date, LocalTime time) {
+        super("Already on the waitlist for %s at %s.".formatted(date, time));
+        this.date = date;
+        this.time = time;
+    }
+}
@@ -0,0 +1,21 @@
+package bg.softuni.magelan.exception;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Getter
+public class BookingCapacityExceededException extends RuntimeException {
+
+    private final LocalDate date;
+    private final LocalTime time;
+    private final int guests;
+
+    public BookingCapacityExceededException(LocalDate date, LocalTime time, int guests) {
+        super("There are no free tables for %d guests on %s at %s.".formatted(guests, date, time));
+        this.date = date;
+        this.time = time;
+        this.guests = guests;
+    }
+}
@@ -0,0 +1,14 @@
+package bg.softuni.magelan.exception;
+
+import lombok.Getter;
+
+@Getter
+public class UsernameTakenException extends RuntimeException {
+
+    private final String username;
+
+    public UsernameTakenException(String username, Throwable cause) {
+        super("Username [%s] is already taken.".formatted(username), cause);
+        this.username = username;
+    }
+}
@@ -0,0 +1,40 @@
+package bg.softuni.magelan.order.archive;
+
+import bg.softuni.magelan.order.model.OrderStatus;
+import bg.softuni.magelan.order.repository.ArchivedOrderRepository;
+import bg.softuni.magelan.order.repository.OrderItemRepository;
+import bg.softuni.magelan.order.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class OrderArchiver {
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+
+    /**
+     * Moves up to {@code limit} DELIVERED orders created before {@code before}, with their items,
+     * into the archive tables.
+     */
+    @Transactional
+    public int archiveChunk(LocalDateTime before, int limit) {
+        List<UUID> ids = orderRepository.findIdsByStatusCreatedBefore(OrderStatus.DELIVERED, before, Limit.of(limit));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        archivedOrderRepository.copyFromOrders(ids);
+        archivedOrderRepository.copyItemsFromOrders(ids);
+        orderItemRepository.deleteByOrderIds(ids);
+        return orderRepository.deleteByIds(ids);
+    }
+}
@@ -0,0 +1,5 @@
+package bg.softuni.magelan.order.event;
+
+public enum OrderEventType {
+    SUBMITTED, CONFIRMED, DELIVERED, CANCELLED
+}
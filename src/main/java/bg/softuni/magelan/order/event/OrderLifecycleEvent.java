@@ -4,10 +4,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
-public record OrderSubmittedEvent(
+public record OrderLifecycleEvent(
+        long sequence,
         UUID orderId,
         UUID userId,
+        OrderEventType type,
         BigDecimal amount,
-        LocalDateTime createdOn
+        LocalDateTime occurredOn
 ) {
 }
@@ -8,9 +8,9 @@ import org.springframework.stereotype.Component;
 @Component
 public class OrderSubmittedListener {
 
-    @EventListener
-    public void handleOrderSubmitted(OrderSubmittedEvent event) {
-        log.info("OrderSubmittedEvent received: orderId={}, userId={}, amount={}",
+    @EventListener(condition = "#event.type().name() == 'SUBMITTED'")
+    public void handleOrderSubmitted(OrderLifecycleEvent event) {
+        log.info("Order submitted event received: orderId={}, userId={}, amount={}",
                 event.orderId(), event.userId(), event.amount());
     }
 }
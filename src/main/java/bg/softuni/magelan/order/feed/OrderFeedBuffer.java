@@ -0,0 +1,52 @@
+package bg.softuni.magelan.order.feed;
+
+import bg.softuni.magelan.order.event.OrderLifecycleEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class OrderFeedBuffer {
+
+    private final OrderFeedEntry[] entries;
+    private long lastId;
+
+    public OrderFeedBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Feed buffer capacity must be positive.");
+        }
+        this.entries = new OrderFeedEntry[capacity];
+    }
+
+    public synchronized OrderFeedEntry append(OrderLifecycleEvent event) {
+        OrderFeedEntry entry = new OrderFeedEntry(++lastId, event);
+        entries[(int) (entry.id() % entries.length)] = entry;
+        return entry;
+    }
+
+    public synchronized long lastId() {
+        return lastId;
+    }
+
+    // Empty when some of the requested entries were already overwritten, or the id was never handed
+    // out, and the caller has to resync.
+    public synchronized Optional<List<OrderFeedEntry>> entriesAfter(long id) {
+        if (id == lastId) {
+            return Optional.of(List.of());
+        }
+        if (id > lastId) {
+            return Optional.empty();
+        }
+
+        long oldestId = Math.max(1, lastId - entries.length + 1);
+        if (id < 0 || id + 1 < oldestId) {
+            return Optional.empty();
+        }
+
+        List<OrderFeedEntry> result = new ArrayList<>((int) (lastId - id));
+        for (long next = id + 1; next <= lastId; next++) {
+            result.add(entries[(int) (next % entries.length)]);
+        }
+        return Optional.of(result);
+    }
+}
@@ -0,0 +1,6 @@
+package bg.softuni.magelan.order.feed;
+
+import bg.softuni.magelan.order.event.OrderLifecycleEvent;
+
+public record OrderFeedEntry(long id, OrderLifecycleEvent event) {
+}
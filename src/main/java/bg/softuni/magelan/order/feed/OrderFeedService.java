@@ -0,0 +1,213 @@
+package bg.softuni.magelan.order.feed;
+
+import bg.softuni.magelan.order.event.OrderLifecycleEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+public class OrderFeedService {
+
+    static final String ORDER_EVENT = "order";
+    static final String RESYNC_EVENT = "resync";
+
+    private final OrderFeedBuffer buffer;
+    // Event ids are "<epoch>-<sequence>"; the buffer starts over with every start, so ids from an
+    // earlier run, or another node, cannot be replayed and get a resync instead.
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final long emitterTimeoutMs;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Publishing only moves the ring buffer and wakes subscribers; writers then catch each subscriber
+    // up from its own cursor. A subscriber has at most one drain queued, so the queue is bounded by
+    // the subscriber limit, and a slow socket holds up one writer instead of the whole feed.
+    private final ThreadPoolExecutor writers;
+
+    public OrderFeedService(@Value("${magelan.order-feed.buffer-size:512}") int bufferSize,
+                            @Value("${magelan.order-feed.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                            @Value("${magelan.order-feed.writer-threads:4}") int writerThreads,
+                            @Value("${magelan.order-feed.max-subscribers:500}") int maxSubscribers) {
+        this.buffer = new OrderFeedBuffer(bufferSize);
+        this.emitterTimeoutMs = emitterTimeoutMs;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.writers = new ThreadPoolExecutor(writerThreads, writerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxSubscribers), runnable -> {
+                    Thread thread = new Thread(runnable, "order-feed-writer-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = createEmitter();
+        // Without a last event id the subscriber starts at the head; an id that cannot be replayed
+        // leaves the cursor before the buffer, which makes the first drain send a resync.
+        Subscriber subscriber = new Subscriber(emitter,
+                lastEventId == null ? buffer.lastId() : sequenceOf(lastEventId));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        subscribers.add(subscriber);
+        wake(subscriber);
+
+        log.debug("New order feed subscriber (last event id {})", lastEventId);
+        return emitter;
+    }
+
+    @EventListener
+    public void onOrderEvent(OrderLifecycleEvent event) {
+        buffer.append(event);
+        subscribers.forEach(this::wake);
+    }
+
+    @Scheduled(fixedDelayString = "${magelan.order-feed.heartbeat-ms:20000}")
+    public void sendHeartbeat() {
+        subscribers.forEach(subscriber -> {
+            subscriber.heartbeatDue = true;
+            wake(subscriber);
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(emitterTimeoutMs);
+    }
+
+    private void wake(Subscriber subscriber) {
+        if (!subscriber.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            writers.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.scheduled.set(false);
+            drop(subscriber, e);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            if (!catchUp(subscriber)) {
+                return;
+            }
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+
+        // Something may have been published after the catch-up and before the flag was cleared.
+        if (subscribers.contains(subscriber)
+                && (buffer.lastId() > subscriber.cursor || subscriber.heartbeatDue)) {
+            wake(subscriber);
+        }
+    }
+
+    private boolean catchUp(Subscriber subscriber) {
+        Optional<List<OrderFeedEntry>> missed = buffer.entriesAfter(subscriber.cursor);
+
+        if (missed.isEmpty()) {
+            // Fell behind the ring buffer, or came back with an id from elsewhere.
+            long lastId = buffer.lastId();
+            if (!trySend(subscriber, SseEmitter.event().id(eventId(lastId)).name(RESYNC_EVENT).data("reload"))) {
+                return false;
+            }
+            subscriber.cursor = lastId;
+        } else {
+            for (OrderFeedEntry entry : missed.get()) {
+                if (!send(subscriber, entry)) {
+                    return false;
+                }
+                subscriber.cursor = entry.id();
+            }
+        }
+
+        if (subscriber.heartbeatDue) {
+            subscriber.heartbeatDue = false;
+            return trySend(subscriber, SseEmitter.event().comment("heartbeat"));
+        }
+        return true;
+    }
+
+    private boolean send(Subscriber subscriber, OrderFeedEntry entry) {
+        return trySend(subscriber, SseEmitter.event()
+                .id(eventId(entry.id()))
+                .name(ORDER_EVENT)
+                .data(entry.event(), MediaType.APPLICATION_JSON));
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    // -1 for ids that are malformed or were handed out by an earlier run.
+    private long sequenceOf(String eventId) {
+        String prefix = epoch + "-";
+        if (!eventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private boolean trySend(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            drop(subscriber, e);
+            return false;
+        }
+    }
+
+    private void drop(Subscriber subscriber, Exception cause) {
+        log.debug("Dropping order feed subscriber: {}", cause.getMessage());
+        subscribers.remove(subscriber);
+        subscriber.emitter.completeWithError(cause);
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // Only touched by the one drain that holds `scheduled`.
+        private long cursor;
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
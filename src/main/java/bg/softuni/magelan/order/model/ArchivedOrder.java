@@ -0,0 +1,88 @@
+package bg.softuni.magelan.order.model;
+
+import bg.softuni.magelan.user.model.User;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "orders_archive", indexes = @Index(columnList = "customer_id, createdOn"))
+public class ArchivedOrder {
+
+    @Id
+    private UUID id;
+
+    @ManyToOne
+    private User customer;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private OrderStatus orderStatus;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    private String deliveryFullName;
+
+    private String deliveryPhone;
+
+    private String deliveryAddress;
+
+    @Column(length = 1000)
+    private String deliveryNotes;
+
+    @Column
+    private UUID paymentId;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedOn;
+
+    @Builder.Default
+    @OneToMany(mappedBy = "order")
+    @OrderBy("createdOn ASC")
+    private List<ArchivedOrderItem> items = new ArrayList<>();
+
+    /**
+     * The order without its items, for lists that only show the totals.
+     */
+    public Order toOrderSummary() {
+        return Order.builder()
+                .id(id)
+                .customer(customer)
+                .orderStatus(orderStatus)
+                .amount(amount)
+                .createdOn(createdOn)
+                .deliveryFullName(deliveryFullName)
+                .deliveryPhone(deliveryPhone)
+                .deliveryAddress(deliveryAddress)
+                .deliveryNotes(deliveryNotes)
+                .paymentId(paymentId)
+                .build();
+    }
+
+    public Order toOrder() {
+        Order order = toOrderSummary();
+        items.forEach(item -> order.getItems().add(OrderItem.builder()
+                .id(item.getId())
+                .order(order)
+                .product(item.getProduct())
+                .quantity(item.getQuantity())
+                .unitPrice(item.getUnitPrice())
+                .createdOn(item.getCreatedOn())
+                .build()));
+        return order;
+    }
+}
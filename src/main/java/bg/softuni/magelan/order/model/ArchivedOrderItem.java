@@ -0,0 +1,37 @@
+package bg.softuni.magelan.order.model;
+
+import bg.softuni.magelan.product.model.Product;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "order_items_archive")
+public class ArchivedOrderItem {
+
+    @Id
+    private UUID id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    private ArchivedOrder order;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    private Product product;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false)
+    private BigDecimal unitPrice;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+}
@@ -0,0 +1,53 @@
+package bg.softuni.magelan.order.model;
+
+import bg.softuni.magelan.order.event.OrderEventType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "order_outbox",
+        indexes = @Index(name = "idx_order_outbox_pending", columnList = "publishedOn, parkedOn, id"))
+public class OrderOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID orderId;
+
+    private UUID customerId;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private OrderEventType eventType;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredOn;
+
+    private LocalDateTime publishedOn;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 500)
+    private String lastError;
+
+    // Not retried before this time: set while a relay delivers the entry, and as backoff after a failure.
+    private LocalDateTime nextAttemptOn;
+
+    // Set once the entry failed too often; it is no longer retried and no longer holds back its order.
+    private LocalDateTime parkedOn;
+}
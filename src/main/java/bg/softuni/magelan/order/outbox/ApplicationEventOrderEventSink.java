@@ -0,0 +1,18 @@
+package bg.softuni.magelan.order.outbox;
+
+import bg.softuni.magelan.order.event.OrderLifecycleEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class ApplicationEventOrderEventSink implements OrderEventSink {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void deliver(OrderLifecycleEvent event) {
+        applicationEventPublisher.publishEvent(event);
+    }
+}
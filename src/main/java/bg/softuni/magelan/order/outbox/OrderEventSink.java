@@ -0,0 +1,8 @@
+package bg.softuni.magelan.order.outbox;
+
+import bg.softuni.magelan.order.event.OrderLifecycleEvent;
+
+public interface OrderEventSink {
+
+    void deliver(OrderLifecycleEvent event);
+}
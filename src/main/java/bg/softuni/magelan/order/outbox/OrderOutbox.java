@@ -0,0 +1,37 @@
+package bg.softuni.magelan.order.outbox;
+
+import bg.softuni.magelan.order.event.OrderEventType;
+import bg.softuni.magelan.order.model.Order;
+import bg.softuni.magelan.order.model.OrderOutboxEntry;
+import bg.softuni.magelan.order.repository.OrderOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderOutbox {
+
+    private final OrderOutboxRepository orderOutboxRepository;
+
+    // Must join the caller's transaction so the event commits or rolls back together with the order change.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Order order, OrderEventType type) {
+        OrderOutboxEntry entry = OrderOutboxEntry.builder()
+                .orderId(order.getId())
+                .customerId(order.getCustomer() != null ? order.getCustomer().getId() : null)
+                .eventType(type)
+                .amount(order.getAmount())
+                .occurredOn(LocalDateTime.now())
+                .attempts(0)
+                .build();
+
+        orderOutboxRepository.save(entry);
+        log.debug("Order event {} for order {} written to outbox", type, order.getId());
+    }
+}
@@ -0,0 +1,179 @@
+package bg.softuni.magelan.order.outbox;
+
+import bg.softuni.magelan.order.event.OrderLifecycleEvent;
+import bg.softuni.magelan.order.model.OrderOutboxEntry;
+import bg.softuni.magelan.order.repository.OrderOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Delivers pending outbox entries in id order. Each batch is claimed in a short locking transaction
+ * and delivered outside of it, so slow sinks never hold row locks. Failed entries are retried with
+ * exponential backoff and parked after {@code max-attempts}.
+ */
+@Slf4j
+@Component
+public class OrderOutboxRelay {
+
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final List<OrderEventSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int retentionDays;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+
+    public OrderOutboxRelay(OrderOutboxRepository orderOutboxRepository,
+                            List<OrderEventSink> sinks,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${magelan.outbox.batch-size:100}") int batchSize,
+                            @Value("${magelan.outbox.retention-days:7}") int retentionDays,
+                            @Value("${magelan.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${magelan.outbox.retry-backoff-ms:1000}") long retryBackoffMs,
+                            @Value("${magelan.outbox.max-backoff-ms:900000}") long maxBackoffMs,
+                            @Value("${magelan.outbox.claim-timeout-ms:60000}") long claimTimeoutMs) {
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.sinks = sinks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.retentionDays = retentionDays;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMs);
+    }
+
+    @Scheduled(fixedDelayString = "${magelan.outbox.relay-delay-ms:1000}")
+    public void drain() {
+        // A failed or not yet due event holds back the later events of the same order for the rest of
+        // this run, so listeners never see them out of order.
+        Set<UUID> blockedOrders = new HashSet<>();
+        long cursor = 0;
+        BatchResult result;
+
+        do {
+            long afterId = cursor;
+            List<OrderOutboxEntry> claimed = new ArrayList<>();
+            result = transactionTemplate.execute(status -> claimBatch(afterId, blockedOrders, claimed));
+            deliver(claimed, blockedOrders);
+            cursor = result.lastId();
+        } while (result.size() == batchSize);
+    }
+
+    private BatchResult claimBatch(long afterId, Set<UUID> blockedOrders, List<OrderOutboxEntry> claimed) {
+        List<OrderOutboxEntry> batch = orderOutboxRepository
+                .findAllByPublishedOnIsNullAndParkedOnIsNullAndIdGreaterThanOrderByIdAsc(afterId, Limit.of(batchSize));
+
+        if (batch.isEmpty()) {
+            return new BatchResult(afterId, 0);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (OrderOutboxEntry entry : batch) {
+            if (blockedOrders.contains(entry.getOrderId())) {
+                continue;
+            }
+            // Backing off after a failure, or being delivered by another relay right now.
+            if (entry.getNextAttemptOn() != null && entry.getNextAttemptOn().isAfter(now)) {
+                blockedOrders.add(entry.getOrderId());
+                continue;
+            }
+            entry.setNextAttemptOn(now.plus(claimTimeout));
+            claimed.add(entry);
+        }
+
+        orderOutboxRepository.saveAll(claimed);
+        return new BatchResult(batch.get(batch.size() - 1).getId(), batch.size());
+    }
+
+    private void deliver(List<OrderOutboxEntry> claimed, Set<UUID> blockedOrders) {
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int delivered = 0;
+
+        for (OrderOutboxEntry entry : claimed) {
+            if (blockedOrders.contains(entry.getOrderId())) {
+                // An earlier event of this order failed above; give the claim back untouched.
+                entry.setNextAttemptOn(null);
+                continue;
+            }
+
+            int attempt = entry.getAttempts() + 1;
+            entry.setAttempts(attempt);
+            try {
+                OrderLifecycleEvent event = toEvent(entry);
+                sinks.forEach(sink -> sink.deliver(event));
+                entry.setPublishedOn(now);
+                entry.setNextAttemptOn(null);
+                delivered++;
+            } catch (RuntimeException e) {
+                entry.setLastError(abbreviate(e.toString()));
+                if (attempt >= maxAttempts) {
+                    entry.setParkedOn(now);
+                    entry.setNextAttemptOn(null);
+                    log.error("Parking outbox entry {} ({} for order {}) after {} failed attempts: {}",
+                            entry.getId(), entry.getEventType(), entry.getOrderId(), attempt, e.getMessage());
+                } else {
+                    blockedOrders.add(entry.getOrderId());
+                    entry.setNextAttemptOn(now.plus(backoff(attempt)));
+                    log.warn("Delivery of outbox entry {} ({} for order {}) failed on attempt {}: {}",
+                            entry.getId(), entry.getEventType(), entry.getOrderId(), attempt, e.getMessage());
+                }
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> orderOutboxRepository.saveAll(claimed));
+
+        if (delivered > 0) {
+            log.debug("Relayed {} of {} claimed outbox entries", delivered, claimed.size());
+        }
+    }
+
+    private Duration backoff(int attempt) {
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempt - 1, 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    @Scheduled(cron = "${magelan.outbox.purge-cron:0 30 3 * * *}")
+    public void purgePublished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        Integer removed = transactionTemplate.execute(status -> orderOutboxRepository.deletePublishedBefore(cutoff));
+        log.info("Purged {} published outbox entries older than {} days", removed, retentionDays);
+    }
+
+    private OrderLifecycleEvent toEvent(OrderOutboxEntry entry) {
+        return new OrderLifecycleEvent(
+                entry.getId(),
+                entry.getOrderId(),
+                entry.getCustomerId(),
+                entry.getEventType(),
+                entry.getAmount(),
+                entry.getOccurredOn()
+        );
+    }
+
+    private String abbreviate(String message) {
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+
+    private record BatchResult(long lastId, int size) {
+    }
+}
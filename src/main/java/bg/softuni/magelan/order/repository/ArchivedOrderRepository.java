@@ -0,0 +1,47 @@
+package bg.softuni.magelan.order.repository;
+
+import bg.softuni.magelan.order.model.ArchivedOrder;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, UUID> {
+
+    List<ArchivedOrder> findAllByCustomer_IdOrderByCreatedOnDesc(UUID customerId);
+
+    Window<ArchivedOrder> findByCustomer_IdOrderByCreatedOnDescIdDesc(UUID customerId, ScrollPosition position,
+                                                                     Limit limit);
+
+    @Override
+    @EntityGraph(attributePaths = {"items", "items.product"})
+    Optional<ArchivedOrder> findById(UUID id);
+
+    @Modifying
+    @Query("""
+            insert into ArchivedOrder (id, customer, orderStatus, amount, createdOn, deliveryFullName, deliveryPhone,
+                                       deliveryAddress, deliveryNotes, paymentId, archivedOn)
+            select o.id, o.customer, o.orderStatus, o.amount, o.createdOn, o.deliveryFullName, o.deliveryPhone,
+                   o.deliveryAddress, o.deliveryNotes, o.paymentId, local datetime
+            from Order o
+            where o.id in :ids
+            """)
+    int copyFromOrders(Collection<UUID> ids);
+
+    @Modifying
+    @Query("""
+            insert into ArchivedOrderItem (id, order.id, product, quantity, unitPrice, createdOn)
+            select i.id, i.order.id, i.product, i.quantity, i.unitPrice, i.createdOn
+            from OrderItem i
+            where i.order.id in :orderIds
+            """)
+    int copyItemsFromOrders(Collection<UUID> orderIds);
+}
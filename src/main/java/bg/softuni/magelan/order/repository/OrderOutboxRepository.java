@@ -0,0 +1,25 @@
+package bg.softuni.magelan.order.repository;
+
+import bg.softuni.magelan.order.model.OrderOutboxEntry;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEntry, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<OrderOutboxEntry> findAllByPublishedOnIsNullAndParkedOnIsNullAndIdGreaterThanOrderByIdAsc(Long afterId,
+                                                                                                  Limit limit);
+
+    long countByPublishedOnIsNull();
+
+    @Modifying
+    @Query("delete from OrderOutboxEntry e where e.publishedOn < :publishedBefore")
+    int deletePublishedBefore(LocalDateTime publishedBefore);
+}
@@ -2,9 +2,17 @@ package bg.softuni.magelan.order.repository;
 
 import bg.softuni.magelan.order.model.Order;
 import bg.softuni.magelan.order.model.OrderStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,12 +21,25 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
 
     Optional<Order> findByOrderStatusAndCustomer_Id(OrderStatus status, UUID customerId);
 
-    List<Order> findAllByCustomer_IdAndOrderStatusNotOrderByCreatedOnDesc(UUID customerId,
-                                                                          OrderStatus status);
+    Window<Order> findByCustomer_IdAndOrderStatusNotOrderByCreatedOnDescIdDesc(UUID customerId, OrderStatus status,
+                                                                              ScrollPosition position, Limit limit);
+
     List<Order> findAllByOrderStatusOrderByCreatedOnDesc(OrderStatus status);
 
     Optional<Order> findByPaymentId(UUID paymentId);
 
     List<Order> findAllByOrderStatusAndCreatedOnBefore(OrderStatus status,
                                                        LocalDateTime createdOnBefore);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select o.id from Order o
+            where o.orderStatus = :status and o.createdOn < :before
+            order by o.createdOn, o.id
+            """)
+    List<UUID> findIdsByStatusCreatedBefore(OrderStatus status, LocalDateTime before, Limit limit);
+
+    @Modifying
+    @Query("delete from Order o where o.id in :ids")
+    int deleteByIds(Collection<UUID> ids);
 }
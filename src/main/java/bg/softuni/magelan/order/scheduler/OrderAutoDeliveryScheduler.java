@@ -1,12 +1,15 @@
 package bg.softuni.magelan.order.scheduler;
 
+import bg.softuni.magelan.order.event.OrderEventType;
 import bg.softuni.magelan.order.model.Order;
 import bg.softuni.magelan.order.model.OrderStatus;
+import bg.softuni.magelan.order.outbox.OrderOutbox;
 import bg.softuni.magelan.order.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -17,8 +20,10 @@ import java.util.List;
 public class OrderAutoDeliveryScheduler {
 
     private final OrderRepository orderRepository;
+    private final OrderOutbox orderOutbox;
 
     @Scheduled(fixedDelay = 5 * 60 * 1000)
+    @Transactional
     public void autoDeliverOldConfirmedOrders() {
 
         LocalDateTime cutoff = LocalDateTime.now().minusHours(1);
@@ -39,6 +44,7 @@ public class OrderAutoDeliveryScheduler {
 
         oldConfirmedOrders.forEach(order -> order.setOrderStatus(OrderStatus.DELIVERED));
         orderRepository.saveAll(oldConfirmedOrders);
+        oldConfirmedOrders.forEach(order -> orderOutbox.append(order, OrderEventType.DELIVERED));
 
         log.info("Successfully auto-delivered {} orders.", oldConfirmedOrders.size());
     }
@@ -0,0 +1,56 @@
+package bg.softuni.magelan.order.service;
+
+import bg.softuni.magelan.order.model.Order;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One page of a customer's past orders, newest first, plus an opaque cursor (creation time and id
+ * of the last row) for the next one.
+ */
+public record OrderHistoryPage(List<Order> orders, String nextCursor) {
+
+    // Ids compare as text so ties break the way the database orders them, as unsigned bytes.
+    private static final Comparator<Order> NEWEST_FIRST = Comparator.comparing(Order::getCreatedOn)
+            .thenComparing(order -> order.getId().toString())
+            .reversed();
+
+    /**
+     * The newest {@code size} of orders gathered from several sources, each read newest first from
+     * the same cursor; {@code more} tells whether any source had rows beyond the ones it returned.
+     */
+    static OrderHistoryPage newestOf(List<Order> orders, int size, boolean more) {
+        List<Order> newest = orders.stream().sorted(NEWEST_FIRST).limit(size).toList();
+        if (newest.isEmpty() || (!more && orders.size() <= size)) {
+            return new OrderHistoryPage(newest, null);
+        }
+
+        Order last = newest.get(newest.size() - 1);
+        return new OrderHistoryPage(newest, last.getCreatedOn() + "_" + last.getId());
+    }
+
+    static ScrollPosition positionAfter(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        String[] parts = cursor.split("_", 2);
+        try {
+            return ScrollPosition.forward(Map.of(
+                    "createdOn", LocalDateTime.parse(parts[0]),
+                    "id", UUID.fromString(parts[1])));
+        } catch (ArrayIndexOutOfBoundsException | DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor [%s].".formatted(cursor));
+        }
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
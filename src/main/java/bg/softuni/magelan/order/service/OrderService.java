@@ -1,27 +1,35 @@
 package bg.softuni.magelan.order.service;
 
 import bg.softuni.magelan.exception.OrderNotFoundException;
-import bg.softuni.magelan.order.event.OrderSubmittedEvent;
+import bg.softuni.magelan.order.event.OrderEventType;
+import bg.softuni.magelan.order.outbox.OrderOutbox;
 import bg.softuni.magelan.payment.PaymentClient;
 import bg.softuni.magelan.payment.PaymentRequest;
 import bg.softuni.magelan.payment.PaymentResponse;
+import bg.softuni.magelan.product.menu.MenuCatalog;
+import bg.softuni.magelan.product.menu.MenuItem;
 import bg.softuni.magelan.product.model.Product;
 import bg.softuni.magelan.product.repository.ProductRepository;
+import bg.softuni.magelan.order.model.ArchivedOrder;
 import bg.softuni.magelan.order.model.Order;
 import bg.softuni.magelan.order.model.OrderItem;
 import bg.softuni.magelan.order.model.OrderStatus;
+import bg.softuni.magelan.order.repository.ArchivedOrderRepository;
 import bg.softuni.magelan.order.repository.OrderItemRepository;
 import bg.softuni.magelan.order.repository.OrderRepository;
 import bg.softuni.magelan.user.model.User;
 import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -31,11 +39,15 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class OrderService {
 
+    private static final int HISTORY_PAGE_SIZE = 20;
+
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
+    private final MenuCatalog menuCatalog;
     private final PaymentClient paymentClient;
-    private final ApplicationEventPublisher applicationEventPublisher;
+    private final OrderOutbox orderOutbox;
+    private final ArchivedOrderRepository archivedOrderRepository;
 
     public Optional<Order> findPendingOrderByCustomerId(UUID customerId) {
         return orderRepository.findByOrderStatusAndCustomer_Id(OrderStatus.PENDING, customerId);
@@ -54,12 +66,12 @@ public class OrderService {
         return findPendingOrderByCustomerId(customer.getId())
                 .map(existing -> {
                     log.info("Using existing pending order {} for customer {}",
-                            existing.getId(), customer.getUsername());
+                            existing.getId(), customer.getId());
                     return existing;
                 })
                 .orElseGet(() -> {
                     log.info("No pending order for customer {} – creating new one",
-                            customer.getUsername());
+                            customer.getId());
                     return createPendingOrderForCustomer(customer);
                 });
     }
@@ -68,12 +80,12 @@ public class OrderService {
     public void addProductToCustomerOrder(User customer, UUID productId, int quantity) {
         if (quantity <= 0) {
             log.warn("Attempt to add product {} with non-positive quantity {} to customer {} order. Ignored.",
-                    productId, quantity, customer.getUsername());
+                    productId, quantity, customer.getId());
             return;
         }
 
         log.info("Adding product {} (quantity {}) to pending order for customer {}",
-                productId, quantity, customer.getUsername());
+                productId, quantity, customer.getId());
 
         Order order = getOrCreatePendingOrderForCustomer(customer);
         addProductToOrder(order.getId(), productId, quantity);
@@ -81,7 +93,7 @@ public class OrderService {
 
     @Transactional
     public Order createPendingOrderForCustomer(User customer) {
-        log.info("Creating new PENDING order for customer {}", customer.getUsername());
+        log.info("Creating new PENDING order for customer {}", customer.getId());
 
         Order order = Order.builder()
                 .customer(customer)
@@ -91,7 +103,7 @@ public class OrderService {
                 .build();
 
         Order saved = orderRepository.save(order);
-        log.info("Created order {} for customer {}", saved.getId(), customer.getUsername());
+        log.info("Created order {} for customer {}", saved.getId(), customer.getId());
         return saved;
     }
 
@@ -111,14 +123,14 @@ public class OrderService {
                     return new OrderNotFoundException(orderId);
                 });
 
-        Product product = productRepository.findByIdAndActiveTrue(productId)
+        MenuItem menuItem = menuCatalog.getSnapshot().findAvailableItem(productId)
                 .orElseThrow(() -> {
                     log.warn("Inactive or missing product {} requested for order {}", productId, orderId);
                     return new IllegalArgumentException("Product is not available.");
                 });
 
         OrderItem existingItem = order.getItems().stream()
-                .filter(i -> i.getProduct().getId().equals(product.getId()))
+                .filter(i -> i.getProduct().getId().equals(productId))
                 .findFirst()
                 .orElse(null);
 
@@ -131,9 +143,9 @@ public class OrderService {
         } else {
             OrderItem item = OrderItem.builder()
                     .order(order)
-                    .product(product)
+                    .product(productRepository.getReferenceById(productId))
                     .quantity(quantity)
-                    .unitPrice(product.getPrice())
+                    .unitPrice(menuItem.getPrice())
                     .createdOn(LocalDateTime.now())
                     .build();
 
@@ -280,6 +292,7 @@ public class OrderService {
         }
 
         orderRepository.save(order);
+        orderOutbox.append(order, OrderEventType.valueOf(targetStatus.name()));
         log.info("Order {} status changed from {} to {}", orderId, current, targetStatus);
     }
 
@@ -291,15 +304,26 @@ public class OrderService {
         log.debug("Order {} total updated to {}", order.getId(), total);
     }
 
-    public List<Order> getPastOrders(UUID customerId) {
-        return orderRepository.findAllByCustomer_IdAndOrderStatusNotOrderByCreatedOnDesc(
-                customerId,
-                OrderStatus.PENDING
-        );
+    /**
+     * The customer's finished orders, newest first, one page at a time across the live and archived
+     * tables. Archived orders come without their items; the details page loads them.
+     */
+    @Transactional(readOnly = true)
+    public OrderHistoryPage getPastOrders(UUID customerId, String before) {
+        ScrollPosition position = OrderHistoryPage.positionAfter(before);
+        Window<Order> recent = orderRepository.findByCustomer_IdAndOrderStatusNotOrderByCreatedOnDescIdDesc(
+                customerId, OrderStatus.PENDING, position, Limit.of(HISTORY_PAGE_SIZE));
+        Window<ArchivedOrder> archived = archivedOrderRepository.findByCustomer_IdOrderByCreatedOnDescIdDesc(
+                customerId, position, Limit.of(HISTORY_PAGE_SIZE));
+
+        List<Order> orders = new ArrayList<>(recent.getContent());
+        archived.forEach(order -> orders.add(order.toOrderSummary()));
+        return OrderHistoryPage.newestOf(orders, HISTORY_PAGE_SIZE, recent.hasNext() || archived.hasNext());
     }
 
     public Order getOrderById(UUID orderId) {
         return orderRepository.findById(orderId)
+                .or(() -> archivedOrderRepository.findById(orderId).map(ArchivedOrder::toOrder))
                 .orElseThrow(() -> {
                     log.warn("Order {} not found when fetching details", orderId);
                     return new OrderNotFoundException(orderId);
@@ -320,20 +344,18 @@ public class OrderService {
                     return new IllegalStateException("Order not found for payment " + paymentId);
                 });
 
-        if ("SUCCESSFUL".equalsIgnoreCase(updated.getStatus())) {
+        boolean successful = "SUCCESSFUL".equalsIgnoreCase(updated.getStatus());
+        if (successful && order.getOrderStatus() == OrderStatus.PENDING) {
             log.info("Payment {} SUCCESSFUL – setting order {} status to SUBMITTED",
                     paymentId, order.getId());
             order.setOrderStatus(OrderStatus.SUBMITTED);
 
-            applicationEventPublisher.publishEvent(
-                    new OrderSubmittedEvent(
-                            order.getId(),
-                            order.getCustomer().getId(),
-                            order.getAmount(),
-                            order.getCreatedOn()
-                    )
-            );
-            log.info("OrderSubmittedEvent published for order {}", order.getId());
+            orderOutbox.append(order, OrderEventType.SUBMITTED);
+            log.info("SUBMITTED event recorded in outbox for order {}", order.getId());
+        } else if (successful) {
+            // A repeated payment callback must not announce the order a second time.
+            log.info("Payment {} SUCCESSFUL – order {} is already {}, nothing to change",
+                    paymentId, order.getId(), order.getOrderStatus());
         } else {
             log.warn("Payment {} processed with status {} – order {} will stay in status {}",
                     paymentId, updated.getStatus(), order.getId(), order.getOrderStatus());
@@ -373,6 +395,10 @@ public class OrderService {
             throw new IllegalStateException("You are not allowed to cancel this order.");
         }
 
+        // Subscribers only know about orders that were submitted; a pending order was never announced.
+        if (order.getOrderStatus() != OrderStatus.PENDING) {
+            orderOutbox.append(order, OrderEventType.CANCELLED);
+        }
         orderRepository.delete(order);
         log.info("Order {} was cancelled by user {}", orderId, userId);
     }
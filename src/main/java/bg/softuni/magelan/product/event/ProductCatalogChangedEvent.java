@@ -0,0 +1,11 @@
+package bg.softuni.magelan.product.event;
+
+import java.util.Set;
+import java.util.UUID;
+
+public record ProductCatalogChangedEvent(Set<UUID> productIds) {
+
+    public static ProductCatalogChangedEvent of(UUID productId) {
+        return new ProductCatalogChangedEvent(Set.of(productId));
+    }
+}
@@ -0,0 +1,178 @@
+package bg.softuni.magelan.product.importing;
+
+import bg.softuni.magelan.product.model.ProductCategory;
+import bg.softuni.magelan.web.dto.ProductForm;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads RFC 4180 style CSV one record at a time. The first record is the header and must name
+ * at least the {@code name}, {@code price} and {@code category} columns.
+ */
+public class CsvProductRowReader implements ProductRowReader {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "price", "category");
+
+    private final Reader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private long line = 1;
+    private boolean endOfInput;
+
+    public CsvProductRowReader(Reader reader) throws IOException {
+        this.reader = reader.markSupported() ? reader : new BufferedReader(reader);
+
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("The CSV file is empty.");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("The CSV header is missing the '%s' column.".formatted(column));
+            }
+        }
+    }
+
+    @Override
+    public ProductImportRow next() throws IOException {
+        List<String> record;
+        long recordLine;
+        do {
+            recordLine = line;
+            record = readRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isBlank());
+
+        try {
+            ProductForm form = ProductForm.builder()
+                    .name(trimToNull(column(record, "name")))
+                    .description(trimToNull(column(record, "description")))
+                    .price(parsePrice(column(record, "price")))
+                    .category(parseCategory(column(record, "category")))
+                    .active(parseActive(column(record, "active")))
+                    .build();
+            return ProductImportRow.valid(recordLine, form);
+        } catch (IllegalArgumentException e) {
+            return ProductImportRow.invalid(recordLine, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String column(List<String> record, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < record.size() ? record.get(index) : null;
+    }
+
+    private List<String> readRecord() throws IOException {
+        if (endOfInput) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int following = reader.read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (following != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+
+        endOfInput = true;
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static BigDecimal parsePrice(String value) {
+        String trimmed = trimToNull(value);
+        if (trimmed == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(trimmed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price: '%s' is not a number".formatted(trimmed));
+        }
+    }
+
+    private static ProductCategory parseCategory(String value) {
+        String trimmed = trimToNull(value);
+        if (trimmed == null) {
+            return null;
+        }
+        try {
+            return ProductCategory.valueOf(trimmed.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("category: unknown category '%s'".formatted(trimmed));
+        }
+    }
+
+    private static boolean parseActive(String value) {
+        String trimmed = trimToNull(value);
+        if (trimmed == null) {
+            return true;
+        }
+        return switch (trimmed.toLowerCase(Locale.ROOT)) {
+            case "true", "yes", "1" -> true;
+            case "false", "no", "0" -> false;
+            default -> throw new IllegalArgumentException("active: '%s' is not a yes/no value".formatted(trimmed));
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package bg.softuni.magelan.product.importing;
+
+import bg.softuni.magelan.web.dto.ProductForm;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a top-level JSON array of product objects, binding one element at a time.
+ */
+public class JsonProductRowReader implements ProductRowReader {
+
+    private final JsonParser parser;
+    private final ObjectMapper objectMapper;
+
+    public JsonProductRowReader(InputStream input, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createParser(input);
+
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            parser.close();
+            throw new IllegalArgumentException("The JSON file must contain an array of products.");
+        }
+    }
+
+    @Override
+    public ProductImportRow next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null || token == JsonToken.END_ARRAY) {
+            return null;
+        }
+
+        long line = parser.currentLocation().getLineNr();
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return ProductImportRow.invalid(line, "expected a product object");
+        }
+
+        // Read the element as a tree first so a bad field only rejects this row, not the rest of the stream.
+        var node = objectMapper.readTree(parser);
+        try {
+            return ProductImportRow.valid(line, objectMapper.treeToValue(node, ProductForm.class));
+        } catch (InvalidFormatException e) {
+            return ProductImportRow.invalid(line, "%s: invalid value '%s'".formatted(fieldOf(e), e.getValue()));
+        } catch (MismatchedInputException e) {
+            return ProductImportRow.invalid(line, "%s: invalid value".formatted(fieldOf(e)));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    private static String fieldOf(MismatchedInputException e) {
+        return e.getPath().isEmpty() ? "product" : e.getPath().get(e.getPath().size() - 1).getFieldName();
+    }
+}
@@ -0,0 +1,24 @@
+package bg.softuni.magelan.product.importing;
+
+import java.util.Locale;
+import java.util.Optional;
+
+public enum ProductImportFormat {
+
+    CSV,
+    JSON;
+
+    public static Optional<ProductImportFormat> fromFilename(String filename) {
+        if (filename == null) {
+            return Optional.empty();
+        }
+        String lower = filename.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".csv")) {
+            return Optional.of(CSV);
+        }
+        if (lower.endsWith(".json")) {
+            return Optional.of(JSON);
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,21 @@
+package bg.softuni.magelan.product.importing;
+
+import java.util.List;
+
+public record ProductImportReport(boolean running,
+                                  long rowsRead,
+                                  long inserted,
+                                  long updated,
+                                  long unchanged,
+                                  long rejected,
+                                  List<String> errors) {
+
+    public static ProductImportReport started() {
+        return new ProductImportReport(true, 0, 0, 0, 0, 0, List.of());
+    }
+
+    public String summary() {
+        return "%d rows read: %d created, %d updated, %d unchanged, %d rejected."
+                .formatted(rowsRead, inserted, updated, unchanged, rejected);
+    }
+}
@@ -0,0 +1,18 @@
+package bg.softuni.magelan.product.importing;
+
+import bg.softuni.magelan.web.dto.ProductForm;
+
+public record ProductImportRow(long line, ProductForm form, String error) {
+
+    public static ProductImportRow valid(long line, ProductForm form) {
+        return new ProductImportRow(line, form, null);
+    }
+
+    public static ProductImportRow invalid(long line, String error) {
+        return new ProductImportRow(line, null, error);
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+}
@@ -0,0 +1,265 @@
+package bg.softuni.magelan.product.importing;
+
+import bg.softuni.magelan.product.event.ProductCatalogChangedEvent;
+import bg.softuni.magelan.product.model.Product;
+import bg.softuni.magelan.product.repository.ProductRepository;
+import bg.softuni.magelan.web.dto.ProductForm;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class ProductImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 50;
+
+    private final ProductRepository productRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicReference<ProductImportReport> progress = new AtomicReference<>();
+
+    public ProductImportService(ProductRepository productRepository,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher applicationEventPublisher,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${magelan.product-import.chunk-size:500}") int chunkSize) {
+        this.productRepository = productRepository;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public Optional<ProductImportReport> getProgress() {
+        return Optional.ofNullable(progress.get());
+    }
+
+    /**
+     * Streams the upload and upserts products by name, one transaction per chunk. Only the current
+     * chunk and the first few error messages are held in memory, whatever the size of the file.
+     * Each chunk announces the products it changed once it commits.
+     */
+    public ProductImportReport importProducts(InputStream input, ProductImportFormat format) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Another product import is still running.");
+        }
+
+        Counters counters = new Counters();
+        progress.set(ProductImportReport.started());
+        log.info("Starting {} product import in chunks of {}", format, chunkSize);
+
+        try (ProductRowReader reader = open(input, format)) {
+            List<ProductImportRow> chunk = new ArrayList<>(chunkSize);
+            ProductImportRow row;
+
+            while ((row = reader.next()) != null) {
+                counters.rowsRead++;
+
+                String problem = row.isValid() ? validate(row.form()) : row.error();
+                if (problem != null) {
+                    counters.reject(row.line(), problem);
+                    continue;
+                }
+
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, counters);
+                    chunk.clear();
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, counters);
+            }
+
+            ProductImportReport report = counters.report(false);
+            log.info("Product import finished: {}", report.summary());
+            return report;
+        } finally {
+            progress.set(counters.report(false));
+            running.set(false);
+        }
+    }
+
+    private ProductRowReader open(InputStream input, ProductImportFormat format) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvProductRowReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            case JSON -> new JsonProductRowReader(input, objectMapper);
+        };
+    }
+
+    private String validate(ProductForm form) {
+        if (form.getName() != null) {
+            form.setName(form.getName().trim());
+        }
+
+        Set<ConstraintViolation<ProductForm>> violations = validator.validate(form);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void writeChunk(List<ProductImportRow> chunk, Counters counters) {
+        try {
+            counters.add(upsert(chunk));
+        } catch (DataIntegrityViolationException e) {
+            // One bad row rolls back the whole chunk; write the rows one by one to find out which.
+            log.warn("Import chunk of {} products failed, retrying row by row: {}",
+                    chunk.size(), e.getMostSpecificCause().getMessage());
+            for (ProductImportRow row : chunk) {
+                try {
+                    counters.add(upsert(List.of(row)));
+                } catch (DataIntegrityViolationException rowFailure) {
+                    counters.reject(row.line(), "could not be saved: " + rowFailure.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        progress.set(counters.report(true));
+        log.info("Product import progress: {}", counters.report(true).summary());
+    }
+
+    private ChunkResult upsert(List<ProductImportRow> rows) {
+        return transactionTemplate.execute(status -> {
+            // MySQL compares names case-insensitively, so match the same way here.
+            Map<String, Product> byName = productRepository
+                    .findAllByNameIn(rows.stream().map(row -> row.form().getName()).collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(product -> key(product.getName()), product -> product, (a, b) -> a));
+
+            LocalDateTime now = LocalDateTime.now();
+            Map<UUID, Product> toSave = new LinkedHashMap<>();
+            List<Product> created = new ArrayList<>();
+            long updated = 0;
+            long unchanged = 0;
+
+            for (ProductImportRow row : rows) {
+                ProductForm form = row.form();
+                Product product = byName.get(key(form.getName()));
+                if (product == null) {
+                    product = newProduct(form, now);
+                    byName.put(key(form.getName()), product);
+                    created.add(product);
+                } else if (apply(product, form, now)) {
+                    if (product.getId() != null) {
+                        toSave.put(product.getId(), product);
+                    }
+                    updated++;
+                } else {
+                    unchanged++;
+                }
+            }
+
+            Set<UUID> changedIds = new HashSet<>(toSave.keySet());
+            productRepository.saveAll(created).forEach(product -> changedIds.add(product.getId()));
+            productRepository.saveAll(toSave.values());
+
+            // Push the batched statements out through the repository, so a clash arrives translated,
+            // and drop the managed entities before the next chunk.
+            productRepository.flush();
+            entityManager.clear();
+
+            // Published inside the chunk's transaction, so the catalog listeners run once it commits.
+            if (!changedIds.isEmpty()) {
+                applicationEventPublisher.publishEvent(new ProductCatalogChangedEvent(changedIds));
+            }
+            return new ChunkResult(created.size(), updated, unchanged);
+        });
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static Product newProduct(ProductForm form, LocalDateTime now) {
+        return Product.builder()
+                .name(form.getName())
+                .description(form.getDescription())
+                .price(form.getPrice())
+                .category(form.getCategory())
+                .active(form.isActive())
+                .createdOn(now)
+                .updatedOn(now)
+                .build();
+    }
+
+    private static boolean apply(Product product, ProductForm form, LocalDateTime now) {
+        boolean changed = !Objects.equals(product.getDescription(), form.getDescription())
+                || product.getPrice() == null
+                || product.getPrice().compareTo(form.getPrice()) != 0
+                || product.getCategory() != form.getCategory()
+                || product.isActive() != form.isActive();
+
+        if (changed) {
+            product.setDescription(form.getDescription());
+            product.setPrice(form.getPrice());
+            product.setCategory(form.getCategory());
+            product.setActive(form.isActive());
+            product.setUpdatedOn(now);
+        }
+        return changed;
+    }
+
+    private static final class Counters {
+
+        private long rowsRead;
+        private long inserted;
+        private long updated;
+        private long unchanged;
+        private long rejected;
+        private final List<String> errors = new ArrayList<>();
+
+        void add(ChunkResult result) {
+            inserted += result.inserted();
+            updated += result.updated();
+            unchanged += result.unchanged();
+        }
+
+        void reject(long line, String problem) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Line %d: %s".formatted(line, problem));
+            }
+        }
+
+        ProductImportReport report(boolean running) {
+            return new ProductImportReport(running, rowsRead, inserted, updated, unchanged, rejected, List.copyOf(errors));
+        }
+    }
+
+    private record ChunkResult(long inserted, long updated, long unchanged) {
+    }
+}
@@ -0,0 +1,12 @@
+package bg.softuni.magelan.product.importing;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface ProductRowReader extends Closeable {
+
+    /**
+     * Returns the next row, or {@code null} once the input is exhausted.
+     */
+    ProductImportRow next() throws IOException;
+}
@@ -0,0 +1,54 @@
+package bg.softuni.magelan.product.menu;
+
+import bg.softuni.magelan.product.event.ProductCatalogChangedEvent;
+import bg.softuni.magelan.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MenuCatalog {
+
+    private final ProductRepository productRepository;
+    private final AtomicReference<MenuSnapshot> current = new AtomicReference<>();
+
+    public MenuSnapshot getSnapshot() {
+        MenuSnapshot snapshot = current.get();
+        return snapshot != null ? snapshot : rebuild();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Ahead of the listeners that read the snapshot, such as the search index.
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(ProductCatalogChangedEvent event) {
+        rebuild();
+    }
+
+    // Serialised so a rebuild that started later can never be overwritten by an older one.
+    public synchronized MenuSnapshot rebuild() {
+        List<MenuItem> items = productRepository.findAllByOrderByNameAsc().stream()
+                .map(MenuItem::from)
+                .toList();
+
+        MenuSnapshot previous = current.get();
+        MenuSnapshot snapshot = MenuSnapshot.of(previous != null ? previous.getVersion() + 1 : 1, items);
+        current.set(snapshot);
+
+        log.info("Menu snapshot rebuilt: version {}, {} products", snapshot.getVersion(), items.size());
+        return snapshot;
+    }
+}
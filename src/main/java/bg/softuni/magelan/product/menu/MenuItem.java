@@ -0,0 +1,30 @@
+package bg.softuni.magelan.product.menu;
+
+import bg.softuni.magelan.product.model.Product;
+import bg.softuni.magelan.product.model.ProductCategory;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Value
+public class MenuItem {
+
+    UUID id;
+    String name;
+    String description;
+    BigDecimal price;
+    ProductCategory category;
+    boolean active;
+
+    public static MenuItem from(Product product) {
+        return new MenuItem(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getCategory(),
+                product.isActive()
+        );
+    }
+}
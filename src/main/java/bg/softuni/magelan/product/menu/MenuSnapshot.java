@@ -0,0 +1,55 @@
+package bg.softuni.magelan.product.menu;
+
+import bg.softuni.magelan.product.model.ProductCategory;
+import lombok.Getter;
+
+import java.util.*;
+
+public final class MenuSnapshot {
+
+    @Getter
+    private final long version;
+    @Getter
+    private final List<MenuItem> allItems;
+    private final Map<ProductCategory, List<MenuItem>> itemsByCategory;
+    private final Map<UUID, MenuItem> itemsById;
+
+    private MenuSnapshot(long version,
+                         List<MenuItem> allItems,
+                         Map<ProductCategory, List<MenuItem>> itemsByCategory,
+                         Map<UUID, MenuItem> itemsById) {
+        this.version = version;
+        this.allItems = allItems;
+        this.itemsByCategory = itemsByCategory;
+        this.itemsById = itemsById;
+    }
+
+    // Expects the items already sorted by name; the order is kept within each category.
+    public static MenuSnapshot of(long version, List<MenuItem> sortedItems) {
+        Map<ProductCategory, List<MenuItem>> grouped = new EnumMap<>(ProductCategory.class);
+        Map<UUID, MenuItem> byId = new HashMap<>();
+        for (ProductCategory category : ProductCategory.values()) {
+            grouped.put(category, new ArrayList<>());
+        }
+        for (MenuItem item : sortedItems) {
+            grouped.get(item.getCategory()).add(item);
+            byId.put(item.getId(), item);
+        }
+        grouped.replaceAll((category, items) -> List.copyOf(items));
+
+        return new MenuSnapshot(version, List.copyOf(sortedItems), Collections.unmodifiableMap(grouped),
+                Map.copyOf(byId));
+    }
+
+    public List<MenuItem> getItems(ProductCategory category) {
+        return itemsByCategory.get(category);
+    }
+
+    public Optional<MenuItem> findItem(UUID id) {
+        return Optional.ofNullable(itemsById.get(id));
+    }
+
+    public Optional<MenuItem> findAvailableItem(UUID id) {
+        return findItem(id).filter(MenuItem::isActive);
+    }
+}
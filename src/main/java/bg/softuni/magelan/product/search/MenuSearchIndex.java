@@ -0,0 +1,431 @@
+package bg.softuni.magelan.product.search;
+
+import bg.softuni.magelan.product.event.ProductCatalogChangedEvent;
+import bg.softuni.magelan.product.menu.MenuCatalog;
+import bg.softuni.magelan.product.menu.MenuItem;
+import bg.softuni.magelan.product.menu.MenuSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Component
+public class MenuSearchIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    private static final int MAX_QUERY_LENGTH = 64;
+    // Share of the query's trigrams a product has to contain (in name or description) to be a hit.
+    private static final double MIN_GRAM_COVERAGE = 0.6;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final MenuCatalog menuCatalog;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+
+    public MenuSearchIndex(MenuCatalog menuCatalog) {
+        this.menuCatalog = menuCatalog;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Serialised with the incremental updates, so an older snapshot can never replace a newer one.
+    public synchronized void rebuild() {
+        List<MenuItem> items = menuCatalog.getSnapshot().getAllItems().stream()
+                .filter(MenuItem::isActive)
+                .toList();
+
+        Index fresh = new Index();
+        items.forEach(fresh::add);
+
+        lock.writeLock().lock();
+        try {
+            index = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Menu search index built with {} active products", items.size());
+    }
+
+    // Runs after the catalog has rebuilt its snapshot for the same event.
+    @Order(1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(ProductCatalogChangedEvent event) {
+        MenuSnapshot snapshot = menuCatalog.getSnapshot();
+
+        lock.writeLock().lock();
+        try {
+            for (UUID id : event.productIds()) {
+                index.remove(id);
+                snapshot.findAvailableItem(id).ifPresent(index::add);
+            }
+
+            if (index.needsCompaction()) {
+                index = index.compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<MenuItem> search(String query, int limit) {
+        String normalized = normalize(query);
+        Set<String> queryGrams = grams(normalized);
+        if (queryGrams.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return index.search(normalized, queryGrams, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return index.suggest(normalized, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String trimmed = text.length() > MAX_QUERY_LENGTH ? text.substring(0, MAX_QUERY_LENGTH) : text;
+        String folded = MARKS.matcher(Normalizer.normalize(trimmed, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // Words are padded with a leading space so that two-letter queries still match word starts.
+    static Set<String> grams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (normalized.isEmpty()) {
+            return grams;
+        }
+        for (String word : normalized.split(" ")) {
+            String padded = " " + word;
+            if (padded.length() <= GRAM_LENGTH) {
+                grams.add(padded);
+                continue;
+            }
+            for (int i = 0; i + GRAM_LENGTH <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + GRAM_LENGTH));
+            }
+        }
+        return grams;
+    }
+
+    private record Entry(MenuItem item, String name, String[] nameWords) {
+    }
+
+    // Slots are appended in increasing order, so every posting list is sorted.
+    private static final class Postings {
+
+        private static final Postings EMPTY = new Postings();
+
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+
+    /**
+     * Hit counters for one query, keyed by slot in an open-addressing table sized to the postings the
+     * query reads rather than to the whole index.
+     */
+    private static final class Hits {
+
+        private final int[] keys;
+        private final int[] nameHits;
+        private final int[] descriptionHits;
+        private final int mask;
+        private final int shift;
+        private int size;
+
+        Hits(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(8, expected) * 2 - 1) << 1;
+            keys = new int[capacity];
+            nameHits = new int[capacity];
+            descriptionHits = new int[capacity];
+            mask = capacity - 1;
+            shift = Integer.numberOfLeadingZeros(mask);
+        }
+
+        // Returns the cell holding the slot, or the empty cell it would take (as -cell - 1).
+        private int find(int slot) {
+            int key = slot + 1;
+            int cell = (slot * 0x9E3779B9) >>> shift;
+            while (keys[cell] != 0) {
+                if (keys[cell] == key) {
+                    return cell;
+                }
+                cell = (cell + 1) & mask;
+            }
+            return -cell - 1;
+        }
+
+        boolean add(int slot) {
+            int cell = find(slot);
+            if (cell >= 0) {
+                return false;
+            }
+            keys[-cell - 1] = slot + 1;
+            size++;
+            return true;
+        }
+
+        void collect(Postings postings, boolean name) {
+            int[] hits = name ? nameHits : descriptionHits;
+            for (int i = 0; i < postings.size; i++) {
+                int slot = postings.slots[i];
+                int cell = find(slot);
+                if (cell < 0) {
+                    cell = -cell - 1;
+                    keys[cell] = slot + 1;
+                    size++;
+                }
+                hits[cell]++;
+            }
+        }
+
+        void probe(Postings postings, boolean name) {
+            if (postings.size == 0 || size == 0) {
+                return;
+            }
+            int[] hits = name ? nameHits : descriptionHits;
+            int log = 32 - Integer.numberOfLeadingZeros(postings.size);
+            if ((long) keys.length * log < postings.size) {
+                for (int cell = 0; cell < keys.length; cell++) {
+                    if (keys[cell] != 0 && Arrays.binarySearch(postings.slots, 0, postings.size, keys[cell] - 1) >= 0) {
+                        hits[cell]++;
+                    }
+                }
+                return;
+            }
+            for (int i = 0; i < postings.size; i++) {
+                int cell = find(postings.slots[i]);
+                if (cell >= 0) {
+                    hits[cell]++;
+                }
+            }
+        }
+    }
+
+    // Slots only grow; a removed product leaves a null slot behind until the index is compacted.
+    private static final class Index {
+
+        private final List<Entry> entries = new ArrayList<>();
+        private final Map<UUID, Integer> slotById = new HashMap<>();
+        private final Map<String, Postings> nameGrams = new HashMap<>();
+        private final Map<String, Postings> descriptionGrams = new HashMap<>();
+        private final NavigableMap<String, Postings> nameWords = new TreeMap<>();
+        private int live;
+
+        void add(MenuItem item) {
+            remove(item.getId());
+
+            String name = normalize(item.getName());
+            int slot = entries.size();
+            entries.add(new Entry(item, name, name.isEmpty() ? new String[0] : name.split(" ")));
+            slotById.put(item.getId(), slot);
+            live++;
+
+            grams(name).forEach(gram -> nameGrams.computeIfAbsent(gram, g -> new Postings()).add(slot));
+            grams(normalize(item.getDescription()))
+                    .forEach(gram -> descriptionGrams.computeIfAbsent(gram, g -> new Postings()).add(slot));
+            new LinkedHashSet<>(Arrays.asList(entries.get(slot).nameWords()))
+                    .forEach(word -> nameWords.computeIfAbsent(word, w -> new Postings()).add(slot));
+        }
+
+        void remove(UUID id) {
+            Integer slot = slotById.remove(id);
+            if (slot != null) {
+                entries.set(slot, null);
+                live--;
+            }
+        }
+
+        boolean needsCompaction() {
+            return entries.size() > 64 && entries.size() - live > live;
+        }
+
+        Index compact() {
+            Index compacted = new Index();
+            entries.stream().filter(Objects::nonNull).map(Entry::item).forEach(compacted::add);
+            return compacted;
+        }
+
+        List<MenuItem> search(String query, Set<String> queryGrams, int limit) {
+            int required = (int) Math.ceil(queryGrams.size() * MIN_GRAM_COVERAGE);
+            // A hit needs `required` of the grams in one field, so it must occur in one of that field's
+            // (grams - required + 1) rarest postings; only those lists can introduce candidates.
+            int generating = queryGrams.size() - required + 1;
+            List<Postings> name = postingsBySize(nameGrams, queryGrams);
+            List<Postings> description = postingsBySize(descriptionGrams, queryGrams);
+
+            int candidates = 0;
+            for (int i = 0; i < generating; i++) {
+                candidates += name.get(i).size + description.get(i).size;
+            }
+            Hits hits = new Hits(candidates);
+            for (int i = 0; i < generating; i++) {
+                hits.collect(name.get(i), true);
+                hits.collect(description.get(i), false);
+            }
+            for (int i = generating; i < queryGrams.size(); i++) {
+                hits.probe(name.get(i), true);
+                hits.probe(description.get(i), false);
+            }
+            return rank(hits, query, queryGrams.size(), required, limit);
+        }
+
+        // Ties keep catalog order: a rebuild assigns slots in name order.
+        private List<MenuItem> rank(Hits hits, String query, int gramCount, int required, int limit) {
+            PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1,
+                    Comparator.<long[]>comparingLong(hit -> hit[0]).thenComparingLong(hit -> -hit[1]));
+
+            for (int cell = 0; cell < hits.keys.length; cell++) {
+                if (hits.keys[cell] == 0) {
+                    continue;
+                }
+                int slot = hits.keys[cell] - 1;
+                int nameHits = hits.nameHits[cell];
+                int descriptionHits = hits.descriptionHits[cell];
+                if (Math.max(nameHits, descriptionHits) < required) {
+                    continue;
+                }
+
+                int score = nameHits * 2 + descriptionHits;
+                if (top.size() == limit && score + gramCount * 3 < top.peek()[0]) {
+                    continue;
+                }
+
+                Entry entry = entries.get(slot);
+                if (entry == null) {
+                    continue;
+                }
+                if (entry.name().startsWith(query)) {
+                    score += gramCount * 3;
+                } else if (entry.name().contains(query)) {
+                    score += gramCount * 2;
+                }
+
+                top.offer(new long[]{score, slot});
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<MenuItem> ranked = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                ranked.add(entries.get((int) top.poll()[1]).item());
+            }
+            Collections.reverse(ranked);
+            return ranked;
+        }
+
+        private static List<Postings> postingsBySize(Map<String, Postings> field, Set<String> grams) {
+            List<Postings> postings = new ArrayList<>(grams.size());
+            for (String gram : grams) {
+                postings.add(field.getOrDefault(gram, Postings.EMPTY));
+            }
+            postings.sort(Comparator.comparingInt(p -> p.size));
+            return postings;
+        }
+
+        List<String> suggest(String query, int limit) {
+            String[] words = query.split(" ");
+            String last = words[words.length - 1];
+
+            Comparator<Entry> ranking = Comparator.comparing((Entry entry) -> !entry.name().startsWith(query))
+                    .thenComparingInt(entry -> entry.name().length())
+                    .thenComparing(Entry::name);
+            PriorityQueue<Entry> top = new PriorityQueue<>(limit + 1, ranking.reversed());
+
+            Collection<Postings> matching = nameWords.subMap(last, true, last + Character.MAX_VALUE, false).values();
+            int candidates = 0;
+            for (Postings postings : matching) {
+                candidates += postings.size;
+            }
+
+            // A product can be listed under several words sharing the prefix; the seen set dedupes it.
+            Hits seen = new Hits(candidates);
+            for (Postings postings : matching) {
+                for (int i = 0; i < postings.size; i++) {
+                    int slot = postings.slots[i];
+                    if (!seen.add(slot)) {
+                        continue;
+                    }
+
+                    Entry entry = entries.get(slot);
+                    if (entry == null || !matchesAllWords(entry, words)) {
+                        continue;
+                    }
+                    top.offer(entry);
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+
+            List<String> names = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                names.add(top.poll().item().getName());
+            }
+            Collections.reverse(names);
+            return names;
+        }
+
+        private boolean matchesAllWords(Entry entry, String[] queryWords) {
+            for (String queryWord : queryWords) {
+                boolean found = false;
+                for (String word : entry.nameWords()) {
+                    if (word.startsWith(queryWord)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package bg.softuni.magelan.product.service;
 
+import bg.softuni.magelan.product.event.ProductCatalogChangedEvent;
+import bg.softuni.magelan.product.menu.MenuCatalog;
+import bg.softuni.magelan.product.menu.MenuItem;
+import bg.softuni.magelan.product.menu.MenuSnapshot;
 import bg.softuni.magelan.product.model.Product;
-import bg.softuni.magelan.product.model.ProductCategory;
 import bg.softuni.magelan.product.repository.ProductRepository;
+import bg.softuni.magelan.product.search.MenuSearchIndex;
 import bg.softuni.magelan.web.dto.ProductForm;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -16,13 +21,38 @@ import java.util.UUID;
 public class ProductService {
 
     private final ProductRepository productRepository;
-
-    public ProductService(ProductRepository productRepository) {
+    private final MenuCatalog menuCatalog;
+    private final MenuSearchIndex menuSearchIndex;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public ProductService(ProductRepository productRepository,
+                          MenuCatalog menuCatalog,
+                          MenuSearchIndex menuSearchIndex,
+                          ApplicationEventPublisher applicationEventPublisher) {
         this.productRepository = productRepository;
+        this.menuCatalog = menuCatalog;
+        this.menuSearchIndex = menuSearchIndex;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    public MenuSnapshot getMenu() {
+        return menuCatalog.getSnapshot();
+    }
+
+    public MenuItem getMenuItem(UUID id) {
+        return menuCatalog.getSnapshot().findItem(id)
+                .orElseThrow(() -> {
+                    log.warn("Product with ID {} not found on the menu.", id);
+                    return new RuntimeException("Product with ID [%s] not found.".formatted(id));
+                });
+    }
+
+    public List<MenuItem> searchMenu(String query, int limit) {
+        return menuSearchIndex.search(query, limit);
     }
 
-    public List<Product> getByCategory(ProductCategory category) {
-        return productRepository.findAllByCategoryOrderByNameAsc(category);
+    public List<String> suggestMenuItems(String prefix, int limit) {
+        return menuSearchIndex.suggest(prefix, limit);
     }
 
     public List<Product> getAll() {
@@ -54,6 +84,7 @@ public class ProductService {
                 .build();
 
         Product saved = productRepository.save(product);
+        applicationEventPublisher.publishEvent(ProductCatalogChangedEvent.of(saved.getId()));
 
         log.info("Product {} created successfully.", saved.getId());
         return saved;
@@ -72,6 +103,7 @@ public class ProductService {
         product.setUpdatedOn(LocalDateTime.now());
 
         Product saved = productRepository.save(product);
+        applicationEventPublisher.publishEvent(ProductCatalogChangedEvent.of(id));
 
         log.info("Product {} updated successfully.", id);
         return saved;
@@ -80,6 +112,7 @@ public class ProductService {
     public void delete(UUID id) {
         log.info("Hard deleting product {}", id);
         productRepository.deleteById(id);
+        applicationEventPublisher.publishEvent(ProductCatalogChangedEvent.of(id));
     }
 
     public ProductForm toForm(Product product) {
@@ -0,0 +1,19 @@
+package bg.softuni.magelan.querystats;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every statement Hibernate prepares. Registered through
+ * {@code hibernate.session_factory.statement_inspector}; the SQL is passed on unchanged.
+ */
+public class CountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryStats stats = QueryStatsHolder.current();
+        if (stats != null) {
+            stats.statement(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,40 @@
+package bg.softuni.magelan.querystats;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds the time spent executing statements and batches to the current stats. Hibernate creates
+ * one per session, from {@code hibernate.session.events.auto}.
+ */
+public class JdbcTimingListener implements SessionEventListener {
+
+    private long executeStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record(executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record(batchStart);
+    }
+
+    private static void record(long start) {
+        QueryStats stats = QueryStatsHolder.current();
+        if (stats != null && start != 0) {
+            stats.jdbcTime(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package bg.softuni.magelan.querystats;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * SQL statements prepared and JDBC time spent on one thread between {@link QueryStatsHolder#start()}
+ * and {@link QueryStatsHolder#stop(QueryStats)}. Statements are kept by their SQL text, so the
+ * same parameterized select run once per row shows up as one statement with a high count.
+ */
+public final class QueryStats {
+
+    private final QueryStats parent;
+    private final Map<String, Integer> counts = new HashMap<>();
+    private int statements;
+    private long jdbcNanos;
+
+    QueryStats(QueryStats parent) {
+        this.parent = parent;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public Duration getJdbcTime() {
+        return Duration.ofNanos(jdbcNanos);
+    }
+
+    public Map<String, Integer> getStatementCounts() {
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * The statement that ran most often, the usual sign of an N+1 select.
+     */
+    public Optional<Map.Entry<String, Integer>> getMostRepeated() {
+        return counts.entrySet().stream().max(Map.Entry.comparingByValue());
+    }
+
+    QueryStats getParent() {
+        return parent;
+    }
+
+    void statement(String sql) {
+        statements++;
+        counts.merge(sql, 1, Integer::sum);
+        if (parent != null) {
+            parent.statement(sql);
+        }
+    }
+
+    void jdbcTime(long nanos) {
+        jdbcNanos += nanos;
+        if (parent != null) {
+            parent.jdbcTime(nanos);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package bg.softuni.magelan.querystats;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements and JDBC time of each request and reports them in response headers
+ * and metrics, warning when one statement repeats often enough to look like an N+1 select. The
+ * body is buffered so the headers can still be set after a template has lazily loaded data, which
+ * is why this is meant for development only.
+ */
+@Slf4j
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    static final String JDBC_TIME_HEADER = "X-SQL-Time-Ms";
+    static final String REPEATED_HEADER = "X-SQL-Repeated";
+
+    private final MeterRegistry meterRegistry;
+    private final int repeatThreshold;
+
+    public QueryStatsFilter(MeterRegistry meterRegistry, int repeatThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Event streams stay open for minutes and must reach the client as they are written.
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        QueryStats stats = QueryStatsHolder.start();
+        StatsResponse statsResponse = new StatsResponse(response, stats);
+        try {
+            filterChain.doFilter(request, statsResponse);
+        } finally {
+            QueryStatsHolder.stop(stats);
+            statsResponse.writeHeaders();
+            record(request, stats);
+            statsResponse.copyBodyToResponse();
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("magelan.http.sql.statements")
+                .description("SQL statements prepared per request")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        Timer.builder("magelan.http.sql.time")
+                .description("JDBC execution time per request")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getJdbcTime());
+
+        Map.Entry<String, Integer> repeated = repeated(stats);
+        if (repeated != null) {
+            meterRegistry.counter("magelan.http.sql.repeated", "method", request.getMethod(), "uri", uri).increment();
+            log.warn("Possible N+1 select on {} {}: ran {} times: {}",
+                    request.getMethod(), uri, repeated.getValue(), repeated.getKey());
+        }
+    }
+
+    private Map.Entry<String, Integer> repeated(QueryStats stats) {
+        return stats.getMostRepeated().filter(entry -> entry.getValue() >= repeatThreshold).orElse(null);
+    }
+
+    private final class StatsResponse extends ContentCachingResponseWrapper {
+
+        private final QueryStats stats;
+        private boolean headersWritten;
+
+        private StatsResponse(HttpServletResponse response, QueryStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        private void writeHeaders() {
+            if (headersWritten || isCommitted()) {
+                return;
+            }
+            headersWritten = true;
+            setHeader(STATEMENTS_HEADER, String.valueOf(stats.getStatements()));
+            setHeader(JDBC_TIME_HEADER, String.valueOf(stats.getJdbcTime().toMillis()));
+            Map.Entry<String, Integer> repeated = repeated(stats);
+            if (repeated != null) {
+                setHeader(REPEATED_HEADER, String.valueOf(repeated.getValue()));
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package bg.softuni.magelan.querystats;
+
+/**
+ * Where Hibernate's inspector and listener find the stats to count into. They are created by
+ * Hibernate rather than Spring, so the current stats live in a thread local. Nothing is counted
+ * on threads that never called {@link #start()}.
+ */
+public final class QueryStatsHolder {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private QueryStatsHolder() {
+    }
+
+    /**
+     * Starts counting on this thread. Stats already being collected keep counting as well, so a
+     * test can measure a single call inside a request.
+     */
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static void stop(QueryStats stats) {
+        if (stats.getParent() == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(stats.getParent());
+        }
+    }
+
+    static QueryStats current() {
+        return CURRENT.get();
+    }
+}
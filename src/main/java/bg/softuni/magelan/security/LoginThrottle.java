@@ -0,0 +1,137 @@
+package bg.softuni.magelan.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets for login attempts, one per username and one per client address. A bucket is a
+ * single {@link AtomicLong} holding the moment it will be full again, so taking a token is one
+ * CAS and idle buckets simply expire.
+ * <p>
+ * Every attempt spends from its address's bucket, but only a rejected password spends from the
+ * username's, so nobody can lock an account out just by sending requests for it.
+ */
+@Slf4j
+@Component
+public class LoginThrottle {
+
+    public enum Scope { USER, IP }
+
+    private final Limit userLimit;
+    private final Limit ipLimit;
+    private final Cache<String, AtomicLong> buckets;
+    private final Counter userRejections;
+    private final Counter ipRejections;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${magelan.security.login-throttle.user-burst:5}") int userBurst,
+                         @Value("${magelan.security.login-throttle.user-per-minute:5}") int userPerMinute,
+                         @Value("${magelan.security.login-throttle.ip-burst:20}") int ipBurst,
+                         @Value("${magelan.security.login-throttle.ip-per-minute:30}") int ipPerMinute,
+                         @Value("${magelan.security.login-throttle.idle-expiry:15m}") Duration idleExpiry) {
+        this.userLimit = new Limit(userBurst, userPerMinute);
+        this.ipLimit = new Limit(ipBurst, ipPerMinute);
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleExpiry)
+                .maximumSize(1_000_000)
+                .build();
+
+        this.userRejections = meterRegistry.counter("magelan.security.login.throttled", "scope", "user");
+        this.ipRejections = meterRegistry.counter("magelan.security.login.throttled", "scope", "ip");
+        meterRegistry.gauge("magelan.security.login.throttle.buckets", buckets, Cache::estimatedSize);
+    }
+
+    /**
+     * Takes a token from the address's bucket and, when a username was sent, checks that the
+     * username has not run out of failed attempts.
+     *
+     * @return {@code null} when the attempt may go ahead, otherwise the scope that refused it
+     */
+    public Rejection tryAcquire(String username, String remoteAddress) {
+        long now = System.nanoTime();
+
+        long ipWait = acquire("ip:" + remoteAddress, ipLimit, now);
+        if (ipWait > 0) {
+            ipRejections.increment();
+            return new Rejection(Scope.IP, Duration.ofNanos(ipWait));
+        }
+
+        if (username != null && !username.isBlank()) {
+            AtomicLong userBucket = buckets.getIfPresent(userKey(username));
+            long userWait = userBucket == null ? 0 : waitFor(userBucket.get(), userLimit, now);
+            if (userWait > 0) {
+                userRejections.increment();
+                log.warn("Throttled login attempts for username {} from {}", username, remoteAddress);
+                return new Rejection(Scope.USER, Duration.ofNanos(userWait));
+            }
+        }
+        return null;
+    }
+
+    @EventListener
+    public void onBadCredentials(AuthenticationFailureBadCredentialsEvent event) {
+        String username = event.getAuthentication().getName();
+        if (username != null && !username.isBlank()) {
+            acquire(userKey(username), userLimit, System.nanoTime());
+        }
+    }
+
+    // A successful login refills the username's bucket; the address keeps its count.
+    @EventListener
+    public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+        buckets.invalidate(userKey(event.getAuthentication().getName()));
+    }
+
+    /**
+     * Generic cell rate form of a token bucket: each attempt pushes the "full again" time one
+     * interval further, and the attempt is refused if that lands more than a burst ahead of now.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    static long acquire(AtomicLong fullAt, Limit limit, long now) {
+        while (true) {
+            long current = fullAt.get();
+            long ahead = waitFor(current, limit, now);
+            if (ahead > 0) {
+                return ahead;
+            }
+            if (fullAt.compareAndSet(current, Math.max(current, now) + limit.intervalNanos())) {
+                return 0;
+            }
+        }
+    }
+
+    private static long waitFor(long fullAt, Limit limit, long now) {
+        return Math.max(0, Math.max(fullAt, now) + limit.intervalNanos() - now - limit.toleranceNanos());
+    }
+
+    private long acquire(String key, Limit limit, long now) {
+        return acquire(buckets.get(key, k -> new AtomicLong(now)), limit, now);
+    }
+
+    private static String userKey(String username) {
+        return "user:" + username.strip().toLowerCase(Locale.ROOT);
+    }
+
+    public record Rejection(Scope scope, Duration retryAfter) {
+    }
+
+    record Limit(long intervalNanos, long toleranceNanos) {
+
+        Limit(int burst, int perMinute) {
+            this(Duration.ofMinutes(1).toNanos() / perMinute, Duration.ofMinutes(1).toNanos() / perMinute * burst);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package bg.softuni.magelan.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Refuses login submissions over the {@link LoginThrottle} limits before the form login filter
+ * loads the user or compares a password hash.
+ * <p>
+ * Attempts are counted per {@link HttpServletRequest#getRemoteAddr() remote address}. Behind a reverse
+ * proxy that address is the client's only if the proxy is listed in
+ * {@code server.tomcat.remoteip.internal-proxies}; otherwise every client shares the proxy's limit.
+ */
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+    private final LoginThrottle loginThrottle;
+    private final RequestMatcher loginRequest;
+    private final String usernameParameter;
+
+    public LoginThrottleFilter(LoginThrottle loginThrottle, String loginProcessingUrl, String usernameParameter) {
+        this.loginThrottle = loginThrottle;
+        this.loginRequest = new AntPathRequestMatcher(loginProcessingUrl, "POST");
+        this.usernameParameter = usernameParameter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !loginRequest.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        LoginThrottle.Rejection rejection =
+                loginThrottle.tryAcquire(request.getParameter(usernameParameter), request.getRemoteAddr());
+
+        if (rejection != null) {
+            long seconds = Math.max(1, (rejection.retryAfter().toMillis() + 999) / 1000);
+            // Written directly: an error dispatch would be bounced to the login page by authorization.
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("Too many login attempts. Please try again in %d seconds.".formatted(seconds));
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,71 @@
+package bg.softuni.magelan.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Picks the bcrypt cost from how fast this machine hashes. Every extra cost step doubles the work,
+ * so one measurement at the lowest allowed cost is enough to estimate the rest.
+ */
+@Slf4j
+@Component
+public class PasswordHashCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "calibration-Sample-Passw0rd";
+
+    private final Duration targetLatency;
+    private final int minStrength;
+    private final int maxStrength;
+    private final int samples;
+
+    public PasswordHashCalibrator(@Value("${magelan.security.password.target-hash-ms:250}") long targetHashMs,
+                                  @Value("${magelan.security.password.min-strength:10}") int minStrength,
+                                  @Value("${magelan.security.password.max-strength:14}") int maxStrength,
+                                  @Value("${magelan.security.password.calibration-samples:3}") int samples) {
+        if (minStrength < 4 || maxStrength > 31 || minStrength > maxStrength) {
+            throw new IllegalArgumentException("bcrypt strength must satisfy 4 <= min <= max <= 31.");
+        }
+        this.targetLatency = Duration.ofMillis(targetHashMs);
+        this.minStrength = minStrength;
+        this.maxStrength = maxStrength;
+        this.samples = Math.max(1, samples);
+    }
+
+    /**
+     * The highest cost whose estimated hash time stays within the target, never below the minimum.
+     * Logs the estimated logins per second per core for each cost in range.
+     */
+    public int calibrateBcryptStrength() {
+        long baseNanos = measureNanos(minStrength);
+        int chosen = minStrength;
+
+        for (int strength = minStrength; strength <= maxStrength; strength++) {
+            long estimatedNanos = baseNanos << (strength - minStrength);
+            log.info("bcrypt cost {}: ~{} ms per hash, ~{} logins/sec per core",
+                    strength, "%.1f".formatted(estimatedNanos / 1_000_000.0), "%.1f".formatted(1_000_000_000.0 / estimatedNanos));
+            if (estimatedNanos <= targetLatency.toNanos()) {
+                chosen = strength;
+            }
+        }
+
+        log.info("Hashing new passwords with bcrypt cost {} for a {} ms target", chosen, targetLatency.toMillis());
+        return chosen;
+    }
+
+    private long measureNanos(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode(SAMPLE_PASSWORD);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return Math.max(1, best);
+    }
+}
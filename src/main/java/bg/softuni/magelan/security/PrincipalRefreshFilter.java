@@ -0,0 +1,101 @@
+package bg.softuni.magelan.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.context.DelegatingSecurityContextRepository;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Swaps a stale {@link UserData} for a freshly loaded one, so pages can render from the principal
+ * and role or status changes still apply on the user's next request. Users that are gone or
+ * deactivated are logged out. Static resources are skipped, so they never load the session.
+ */
+@Slf4j
+public class PrincipalRefreshFilter extends OncePerRequestFilter {
+
+    private final UserProfileChanges userProfileChanges;
+    private final UserDetailsService userDetailsService;
+    private final RequestMatcher staticResources;
+    private final SecurityContextHolderStrategy securityContextHolderStrategy =
+            SecurityContextHolder.getContextHolderStrategy();
+    private final SecurityContextRepository securityContextRepository = new DelegatingSecurityContextRepository(
+            new RequestAttributeSecurityContextRepository(), new HttpSessionSecurityContextRepository());
+
+    public PrincipalRefreshFilter(UserProfileChanges userProfileChanges, UserDetailsService userDetailsService,
+                                  RequestMatcher staticResources) {
+        this.userProfileChanges = userProfileChanges;
+        this.userDetailsService = userDetailsService;
+        this.staticResources = staticResources;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return staticResources.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Authentication authentication = securityContextHolderStrategy.getContext().getAuthentication();
+
+        if (authentication != null
+                && authentication.getPrincipal() instanceof UserData userData
+                && userProfileChanges.isStale(userData)) {
+            refresh(userData, authentication, request, response);
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private void refresh(UserData stale, Authentication authentication,
+                         HttpServletRequest request, HttpServletResponse response) {
+
+        UserDetails fresh;
+        try {
+            fresh = userDetailsService.loadUserByUsername(stale.getUsername());
+        } catch (UsernameNotFoundException e) {
+            fresh = null;
+        }
+
+        if (fresh == null || !fresh.isEnabled()) {
+            log.info("Signing out user {}: account no longer active.", stale.getUserId());
+            securityContextHolderStrategy.clearContext();
+            HttpSession session = request.getSession(false);
+            if (session != null) {
+                session.invalidate();
+            }
+            return;
+        }
+
+        UsernamePasswordAuthenticationToken refreshed =
+                UsernamePasswordAuthenticationToken.authenticated(fresh, null, fresh.getAuthorities());
+        refreshed.setDetails(authentication.getDetails());
+        refreshed.eraseCredentials();
+
+        SecurityContext context = securityContextHolderStrategy.createEmptyContext();
+        context.setAuthentication(refreshed);
+        securityContextHolderStrategy.setContext(context);
+        securityContextRepository.saveContext(context, request, response);
+
+        log.debug("Refreshed principal for user {}.", stale.getUserId());
+    }
+}
@@ -2,24 +2,38 @@ package bg.softuni.magelan.security;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import bg.softuni.magelan.user.model.UserRole;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * The principal kept in every session. It is written field by field instead of by default
+ * serialization, and the password hash is dropped after login, so a stored session stays small.
+ */
 @Data
+@NoArgsConstructor
 @AllArgsConstructor
-public class UserData implements UserDetails {
+public class UserData implements UserDetails, CredentialsContainer, Externalizable {
 
     private UUID userId;
     private String username;
     private String password;
     private UserRole role;
     private boolean isAccountActive;
+    private UserProfile profile;
+    private long profileVersion;
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
@@ -58,4 +72,63 @@ public class UserData implements UserDetails {
     public boolean isEnabled() {
         return this.isAccountActive;
     }
-}
\ No newline at end of file
+
+    @Override
+    public void eraseCredentials() {
+        this.password = null;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeLong(userId.getMostSignificantBits());
+        out.writeLong(userId.getLeastSignificantBits());
+        out.writeUTF(username);
+        writeNullable(out, role != null ? role.name() : null);
+        out.writeBoolean(isAccountActive);
+        out.writeLong(profileVersion);
+
+        out.writeBoolean(profile != null);
+        if (profile != null) {
+            writeNullable(out, profile.firstName());
+            writeNullable(out, profile.lastName());
+            writeNullable(out, profile.email());
+            writeNullable(out, profile.phoneNumber());
+            writeNullable(out, profile.address());
+            writeNullable(out, profile.profilePicture());
+            writeNullable(out, profile.createdOn() != null ? profile.createdOn().toString() : null);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        userId = new UUID(in.readLong(), in.readLong());
+        username = in.readUTF();
+        String roleName = readNullable(in);
+        role = roleName != null ? UserRole.valueOf(roleName) : null;
+        isAccountActive = in.readBoolean();
+        profileVersion = in.readLong();
+
+        if (in.readBoolean()) {
+            String firstName = readNullable(in);
+            String lastName = readNullable(in);
+            String email = readNullable(in);
+            String phoneNumber = readNullable(in);
+            String address = readNullable(in);
+            String profilePicture = readNullable(in);
+            String createdOn = readNullable(in);
+            profile = new UserProfile(username, firstName, lastName, email, phoneNumber, address, profilePicture,
+                    role, createdOn != null ? LocalDateTime.parse(createdOn) : null);
+        }
+    }
+
+    private static void writeNullable(ObjectOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(ObjectInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
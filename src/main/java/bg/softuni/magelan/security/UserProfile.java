@@ -0,0 +1,27 @@
+package bg.softuni.magelan.security;
+
+import bg.softuni.magelan.user.model.User;
+import bg.softuni.magelan.user.model.UserRole;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * The display fields of a user as they were when the principal was built. Pages render from this
+ * instead of loading the user on every request.
+ */
+public record UserProfile(String username,
+                          String firstName,
+                          String lastName,
+                          String email,
+                          String phoneNumber,
+                          String address,
+                          String profilePicture,
+                          UserRole role,
+                          LocalDateTime createdOn) implements Serializable {
+
+    public static UserProfile of(User user) {
+        return new UserProfile(user.getUsername(), user.getFirstName(), user.getLastName(), user.getEmail(),
+                user.getPhoneNumber(), user.getAddress(), user.getProfilePicture(), user.getRole(), user.getCreatedOn());
+    }
+}
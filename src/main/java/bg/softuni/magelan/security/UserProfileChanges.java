@@ -0,0 +1,53 @@
+package bg.softuni.magelan.security;
+
+import bg.softuni.magelan.user.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Tells whether a user changed since their principal was built. Every principal records the
+ * profile version stored with the user when it was loaded; a later change bumps the stored
+ * version, so the comparison holds on every node sharing the database.
+ * <p>
+ * Stored versions are remembered for {@code magelan.security.profile-check-interval}, so a user
+ * costs at most one version query per interval instead of one per request. Changes made on this
+ * node take effect at once; changes made elsewhere within that interval.
+ */
+@Component
+public class UserProfileChanges {
+
+    private static final long GONE = -1;
+
+    private final UserRepository userRepository;
+    private final Cache<UUID, Long> storedVersions;
+
+    public UserProfileChanges(UserRepository userRepository,
+                              @Value("${magelan.security.profile-check-interval:10s}") Duration checkInterval) {
+        this.userRepository = userRepository;
+        this.storedVersions = Caffeine.newBuilder()
+                .expireAfterWrite(checkInterval)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    /**
+     * Call after the change is saved: a principal loaded in between sees the new data with the
+     * old version and is merely refreshed once more.
+     */
+    public void markChanged(UUID userId) {
+        userRepository.incrementProfileVersion(userId);
+        storedVersions.invalidate(userId);
+    }
+
+    // A user that is gone counts as changed, so the refresh signs the session out.
+    public boolean isStale(UserData userData) {
+        long stored = storedVersions.get(userData.getUserId(),
+                id -> userRepository.findProfileVersionById(id).orElse(GONE));
+        return stored == GONE || stored > userData.getProfileVersion();
+    }
+}
@@ -0,0 +1,213 @@
+package bg.softuni.magelan.session;
+
+import bg.softuni.magelan.session.model.SessionRecord;
+import bg.softuni.magelan.session.repository.SessionRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps sessions in the {@code http_sessions} table, one row per session with the attributes
+ * serialized together. A request that only read its session writes nothing, or just a new expiry
+ * once the last one is older than the touch interval. A request that changed attributes applies
+ * just those changes to the stored ones under a version check, so concurrent requests on the same
+ * session do not undo each other's changes.
+ */
+@Slf4j
+@Component
+public class DatabaseSessionRepository implements SessionRepository {
+
+    private static final int MAX_UPDATE_ATTEMPTS = 5;
+
+    private final SessionRecordRepository sessionRecordRepository;
+    private final Duration maxInactiveInterval;
+    private final Duration touchInterval;
+
+    private final DistributionSummary sessionBytes;
+    private final Counter inserts;
+    private final Counter updates;
+    private final Counter touches;
+    private final Counter skips;
+    private final Counter conflicts;
+
+    public DatabaseSessionRepository(SessionRecordRepository sessionRecordRepository,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${server.servlet.session.timeout:30m}") Duration maxInactiveInterval,
+                                     @Value("${magelan.session.touch-interval:60s}") Duration touchInterval) {
+        this.sessionRecordRepository = sessionRecordRepository;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.touchInterval = touchInterval;
+
+        this.sessionBytes = DistributionSummary.builder("magelan.session.bytes")
+                .description("Serialized size of a session's attributes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.inserts = meterRegistry.counter("magelan.session.writes", "kind", "insert");
+        this.updates = meterRegistry.counter("magelan.session.writes", "kind", "update");
+        this.touches = meterRegistry.counter("magelan.session.writes", "kind", "touch");
+        this.skips = meterRegistry.counter("magelan.session.writes", "kind", "skip");
+        this.conflicts = meterRegistry.counter("magelan.session.writes", "kind", "conflict");
+    }
+
+    @Override
+    public StoredSession createSession() {
+        Instant now = Instant.now();
+        return new StoredSession(newSessionId(), null, now, now, maxInactiveInterval, Map.of(), true);
+    }
+
+    @Override
+    public StoredSession findById(String id) {
+        SessionRecord record = sessionRecordRepository.findById(id).orElse(null);
+        if (record == null) {
+            return null;
+        }
+
+        Instant now = Instant.now();
+        if (record.getExpiresAt() <= now.toEpochMilli()) {
+            sessionRecordRepository.deleteSession(id);
+            return null;
+        }
+
+        Map<String, Object> attributes;
+        try {
+            attributes = deserialize(record.getAttributes());
+        } catch (IOException | ClassNotFoundException e) {
+            // Written by a build whose classes no longer match; the user just signs in again.
+            log.warn("Dropping session {} that can no longer be read: {}", id, e.getMessage());
+            sessionRecordRepository.deleteSession(id);
+            return null;
+        }
+
+        StoredSession session = new StoredSession(id, id, Instant.ofEpochMilli(record.getCreatedAt()),
+                Instant.ofEpochMilli(record.getLastAccessedAt()),
+                Duration.ofSeconds(record.getMaxInactiveSeconds()), attributes, false);
+        session.setLastAccessedOn(now);
+        return session;
+    }
+
+    @Override
+    public void save(StoredSession session) {
+        if (session.getStoredId() == null) {
+            byte[] attributes = serialize(session.getId(), session.getAttributes());
+            sessionRecordRepository.save(SessionRecord.builder()
+                    .id(session.getId())
+                    .createdAt(session.getCreatedOn().toEpochMilli())
+                    .lastAccessedAt(session.getLastAccessedOn().toEpochMilli())
+                    .expiresAt(session.getExpiresOn().toEpochMilli())
+                    .maxInactiveSeconds(session.getMaxInactiveInterval())
+                    .attributes(attributes)
+                    .build());
+            sessionBytes.record(attributes.length);
+            inserts.increment();
+        } else if (session.isChanged()) {
+            update(session);
+        } else if (Duration.between(session.getStoredLastAccessedOn(), session.getLastAccessedOn())
+                .compareTo(touchInterval) >= 0) {
+            sessionRecordRepository.touch(session.getId(), session.getLastAccessedOn().toEpochMilli(),
+                    session.getExpiresOn().toEpochMilli());
+            touches.increment();
+        } else {
+            skips.increment();
+        }
+
+        session.markSaved();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        sessionRecordRepository.deleteSession(id);
+    }
+
+    @Override
+    public String newSessionId() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Scheduled(fixedDelayString = "${magelan.session.cleanup-delay-ms:60000}")
+    public void deleteExpiredSessions() {
+        int deleted = sessionRecordRepository.deleteExpired(System.currentTimeMillis());
+        if (deleted > 0) {
+            log.info("Deleted {} expired sessions", deleted);
+        }
+    }
+
+    private void update(StoredSession session) {
+        for (int attempt = 0; attempt < MAX_UPDATE_ATTEMPTS; attempt++) {
+            SessionRecord record = sessionRecordRepository.findById(session.getStoredId()).orElse(null);
+            if (record == null) {
+                // Invalidated or expired meanwhile, by another request; do not bring it back.
+                log.debug("Session {} was removed before it could be saved", session.getStoredId());
+                return;
+            }
+
+            Map<String, Object> attributes = merge(record, session);
+            byte[] bytes = serialize(session.getId(), attributes);
+            int updated = sessionRecordRepository.update(session.getStoredId(), record.getVersion(), session.getId(),
+                    session.getLastAccessedOn().toEpochMilli(), session.getExpiresOn().toEpochMilli(),
+                    session.getMaxInactiveInterval(), bytes);
+            if (updated == 1) {
+                session.replaceAttributes(attributes);
+                sessionBytes.record(bytes.length);
+                updates.increment();
+                return;
+            }
+            conflicts.increment();
+        }
+        log.warn("Gave up saving session {} after {} conflicting updates", session.getStoredId(), MAX_UPDATE_ATTEMPTS);
+    }
+
+    private static Map<String, Object> merge(SessionRecord record, StoredSession session) {
+        Map<String, Object> attributes;
+        try {
+            attributes = deserialize(record.getAttributes());
+        } catch (IOException | ClassNotFoundException e) {
+            log.warn("Overwriting session {} that can no longer be read: {}", record.getId(), e.getMessage());
+            attributes = new HashMap<>(session.getAttributes());
+        }
+
+        for (String name : session.getChangedAttributes()) {
+            Object value = session.getAttributes().get(name);
+            if (value == null) {
+                attributes.remove(name);
+            } else {
+                attributes.put(name, value);
+            }
+        }
+        return attributes;
+    }
+
+    private static byte[] serialize(String id, Map<String, Object> attributes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new HashMap<>(attributes));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize session %s.".formatted(id), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> deserialize(byte[] attributes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ConfigurableObjectInputStream(
+                new ByteArrayInputStream(attributes), ClassUtils.getDefaultClassLoader())) {
+            return (Map<String, Object>) in.readObject();
+        }
+    }
+}
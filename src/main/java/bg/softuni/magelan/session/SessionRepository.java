@@ -0,0 +1,26 @@
+package bg.softuni.magelan.session;
+
+/**
+ * Where {@link SessionRepositoryFilter} keeps sessions, so any node can serve any request.
+ */
+public interface SessionRepository {
+
+    StoredSession createSession();
+
+    /**
+     * @return the session, or {@code null} if it does not exist or has expired
+     */
+    StoredSession findById(String id);
+
+    /**
+     * Writes whatever changed since the session was loaded or last saved, if anything.
+     */
+    void save(StoredSession session);
+
+    void deleteById(String id);
+
+    /**
+     * A fresh unguessable id for a session whose id changes on login.
+     */
+    String newSessionId();
+}
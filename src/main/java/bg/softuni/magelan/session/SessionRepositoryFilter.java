@@ -0,0 +1,233 @@
+package bg.softuni.magelan.session;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Replaces the container's sessions with ones from a {@link SessionRepository}, tracked by a
+ * {@code SESSION} cookie. The cookie is written as soon as a session is created or its id
+ * changes, and the session is saved whenever the response commits, so the follow-up request on
+ * another node already sees it, even when a view flushed the response while rendering.
+ */
+@Slf4j
+public class SessionRepositoryFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "SESSION";
+    // Kept on the request so error dispatches of the same request reuse the session.
+    private static final String CURRENT_SESSION = SessionRepositoryFilter.class.getName() + ".SESSION";
+
+    private final SessionRepository sessionRepository;
+
+    public SessionRepositoryFilter(SessionRepository sessionRepository) {
+        this.sessionRepository = sessionRepository;
+    }
+
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        SessionRequest sessionRequest = new SessionRequest(request, response);
+        try {
+            filterChain.doFilter(sessionRequest, new SessionResponse(response, sessionRequest));
+        } finally {
+            sessionRequest.commit();
+        }
+    }
+
+    private final class SessionRequest extends HttpServletRequestWrapper {
+
+        private final HttpServletResponse response;
+        private final String requestedSessionId;
+        private boolean requestedSessionLoaded;
+        private boolean requestedSessionValid;
+        private String cookieSessionId;
+        private boolean committed;
+
+        private SessionRequest(HttpServletRequest request, HttpServletResponse response) {
+            super(request);
+            this.response = response;
+            this.requestedSessionId = readCookie(request);
+            this.cookieSessionId = requestedSessionId;
+        }
+
+        @Override
+        public StoredSession getSession(boolean create) {
+            StoredSession current = current();
+            if (current != null && current.isInvalidated()) {
+                discard(current);
+                current = null;
+            }
+            if (current != null) {
+                return current;
+            }
+
+            if (!requestedSessionLoaded && requestedSessionId != null) {
+                requestedSessionLoaded = true;
+                StoredSession requested = sessionRepository.findById(requestedSessionId);
+                if (requested != null) {
+                    requestedSessionValid = true;
+                    return attach(requested);
+                }
+            }
+
+            return create ? attach(sessionRepository.createSession()) : null;
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+
+        @Override
+        public String changeSessionId() {
+            StoredSession session = getSession(false);
+            if (session == null) {
+                throw new IllegalStateException("There is no session to change the id of.");
+            }
+            session.changeId(sessionRepository.newSessionId());
+            writeCookie(session.getId(), null);
+            return session.getId();
+        }
+
+        @Override
+        public String getRequestedSessionId() {
+            return requestedSessionId;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdValid() {
+            if (!requestedSessionLoaded) {
+                getSession(false);
+            }
+            StoredSession current = current();
+            return requestedSessionValid && current != null && !current.isInvalidated();
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromCookie() {
+            return requestedSessionId != null;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromURL() {
+            return false;
+        }
+
+        private void commit() {
+            StoredSession session = current();
+            if (session == null) {
+                return;
+            }
+            if (session.isInvalidated()) {
+                discard(session);
+                return;
+            }
+            if (committed && !session.isChanged()) {
+                return;
+            }
+
+            sessionRepository.save(session);
+            committed = true;
+            if (!session.getId().equals(cookieSessionId)) {
+                writeCookie(session.getId(), null);
+            }
+        }
+
+        private StoredSession attach(StoredSession session) {
+            session.setServletContext(getServletContext());
+            setAttribute(CURRENT_SESSION, session);
+            committed = false;
+            // Before any of the body is written, in case the response commits while rendering.
+            if (!session.getId().equals(cookieSessionId)) {
+                writeCookie(session.getId(), null);
+            }
+            return session;
+        }
+
+        private void discard(StoredSession session) {
+            if (session.getStoredId() != null) {
+                sessionRepository.deleteById(session.getStoredId());
+            }
+            removeAttribute(CURRENT_SESSION);
+            if (cookieSessionId != null) {
+                writeCookie("", Duration.ZERO);
+            }
+        }
+
+        private StoredSession current() {
+            return (StoredSession) getAttribute(CURRENT_SESSION);
+        }
+
+        private void writeCookie(String value, Duration maxAge) {
+            if (response.isCommitted()) {
+                log.debug("Response already committed, cannot update the session cookie");
+                return;
+            }
+            ResponseCookie.ResponseCookieBuilder cookie = ResponseCookie.from(COOKIE_NAME, value)
+                    .path(getContextPath() + "/")
+                    .httpOnly(true)
+                    .secure(isSecure())
+                    .sameSite("Lax");
+            if (maxAge != null) {
+                cookie.maxAge(maxAge);
+            }
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.build().toString());
+            cookieSessionId = value.isEmpty() ? null : value;
+        }
+    }
+
+    /**
+     * Saves the session just before the response commits: on redirects, errors, flushing or
+     * closing the writer or stream, and once the declared content length is written.
+     */
+    private static final class SessionResponse extends OnCommittedResponseWrapper {
+
+        private final SessionRequest request;
+
+        private SessionResponse(HttpServletResponse response, SessionRequest request) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            request.commit();
+        }
+    }
+
+    private static String readCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName()) && !cookie.getValue().isBlank()) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,219 @@
+package bg.softuni.magelan.session;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpSession;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A session held by a {@link SessionRepository} instead of the servlet container. It remembers
+ * which attributes changed since it was loaded, so the repository can skip sessions that were only
+ * read and write just those attributes for the rest.
+ */
+public class StoredSession implements HttpSession {
+
+    private String id;
+    // The id the repository knows the session by; differs from id after a login changes it.
+    private String storedId;
+    private final Instant createdOn;
+    private Instant lastAccessedOn;
+    private Instant storedLastAccessedOn;
+    private Duration maxInactiveInterval;
+    private final Map<String, Object> attributes;
+    private final Set<String> changedAttributes = new HashSet<>();
+
+    private final boolean isNew;
+    private boolean changed;
+    private boolean invalidated;
+    private ServletContext servletContext;
+
+    StoredSession(String id, String storedId, Instant createdOn, Instant lastAccessedOn,
+                  Duration maxInactiveInterval, Map<String, Object> attributes, boolean isNew) {
+        this.id = id;
+        this.storedId = storedId;
+        this.createdOn = createdOn;
+        this.lastAccessedOn = lastAccessedOn;
+        this.storedLastAccessedOn = lastAccessedOn;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.attributes = new HashMap<>(attributes);
+        this.isNew = isNew;
+        this.changed = isNew;
+    }
+
+    @Override
+    public long getCreationTime() {
+        checkValid();
+        return createdOn.toEpochMilli();
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+        checkValid();
+        return lastAccessedOn.toEpochMilli();
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+        Duration requested = Duration.ofSeconds(interval);
+        if (!requested.equals(maxInactiveInterval)) {
+            maxInactiveInterval = requested;
+            changed = true;
+        }
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+        return (int) maxInactiveInterval.toSeconds();
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        checkValid();
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        checkValid();
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    /**
+     * Values are written out when the request ends, so they have to be serializable. Mutating a
+     * stored value does not mark the session changed; set it again instead.
+     */
+    @Override
+    public void setAttribute(String name, Object value) {
+        checkValid();
+        if (value == null) {
+            removeAttribute(name);
+            return;
+        }
+        if (!(value instanceof Serializable)) {
+            throw new IllegalArgumentException("Session attribute %s of type %s is not serializable."
+                    .formatted(name, value.getClass().getName()));
+        }
+        attributes.put(name, value);
+        changedAttributes.add(name);
+        changed = true;
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        checkValid();
+        if (attributes.remove(name) != null) {
+            changedAttributes.add(name);
+            changed = true;
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        checkValid();
+        invalidated = true;
+    }
+
+    @Override
+    public boolean isNew() {
+        checkValid();
+        return isNew;
+    }
+
+    public String getStoredId() {
+        return storedId;
+    }
+
+    public Instant getCreatedOn() {
+        return createdOn;
+    }
+
+    public Instant getLastAccessedOn() {
+        return lastAccessedOn;
+    }
+
+    public Instant getStoredLastAccessedOn() {
+        return storedLastAccessedOn;
+    }
+
+    public Instant getExpiresOn() {
+        return lastAccessedOn.plus(maxInactiveInterval);
+    }
+
+    public Map<String, Object> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    /**
+     * Attributes set or removed since the session was loaded or last saved.
+     */
+    public Set<String> getChangedAttributes() {
+        return Collections.unmodifiableSet(changedAttributes);
+    }
+
+    public boolean isChanged() {
+        return changed || !Objects.equals(id, storedId);
+    }
+
+    public boolean isInvalidated() {
+        return invalidated;
+    }
+
+    public boolean isExpired(Instant now) {
+        return !getExpiresOn().isAfter(now);
+    }
+
+    void setLastAccessedOn(Instant lastAccessedOn) {
+        this.lastAccessedOn = lastAccessedOn;
+    }
+
+    void setServletContext(ServletContext servletContext) {
+        this.servletContext = servletContext;
+    }
+
+    void changeId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Takes on what was stored, including attributes other requests saved meanwhile.
+     */
+    void replaceAttributes(Map<String, Object> stored) {
+        attributes.clear();
+        attributes.putAll(stored);
+    }
+
+    /**
+     * What was written becomes the new baseline; only later changes count as dirty.
+     */
+    void markSaved() {
+        storedId = id;
+        storedLastAccessedOn = lastAccessedOn;
+        changedAttributes.clear();
+        changed = false;
+    }
+
+    private void checkValid() {
+        if (invalidated) {
+            throw new IllegalStateException("Session %s has been invalidated.".formatted(id));
+        }
+    }
+}
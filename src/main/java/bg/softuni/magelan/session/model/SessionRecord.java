@@ -0,0 +1,56 @@
+package bg.softuni.magelan.session.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "http_sessions", indexes = @Index(columnList = "expiresAt"))
+public class SessionRecord implements Persistable<String> {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    // Epoch milliseconds, as the cleanup query compares them directly.
+    @Column(nullable = false)
+    private long createdAt;
+
+    @Column(nullable = false)
+    private long lastAccessedAt;
+
+    @Column(nullable = false)
+    private long expiresAt;
+
+    @Column(nullable = false)
+    private int maxInactiveSeconds;
+
+    // Bumped on every attribute update, so concurrent requests merge instead of overwriting.
+    @Column(nullable = false)
+    private long version;
+
+    @Lob
+    @Column(nullable = false, length = 16_777_215)
+    private byte[] attributes;
+
+    // Ids are assigned by us, so tell Spring Data to insert instead of merging.
+    @Transient
+    @Builder.Default
+    private boolean unsaved = true;
+
+    @Override
+    public boolean isNew() {
+        return unsaved;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        unsaved = false;
+    }
+}
@@ -0,0 +1,36 @@
+package bg.softuni.magelan.session.repository;
+
+import bg.softuni.magelan.session.model.SessionRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface SessionRecordRepository extends JpaRepository<SessionRecord, String> {
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update SessionRecord s
+            set s.id = :id, s.lastAccessedAt = :lastAccessedAt, s.expiresAt = :expiresAt,
+                s.maxInactiveSeconds = :maxInactiveSeconds, s.attributes = :attributes, s.version = s.version + 1
+            where s.id = :storedId and s.version = :version
+            """)
+    int update(String storedId, long version, String id, long lastAccessedAt, long expiresAt,
+               int maxInactiveSeconds, byte[] attributes);
+
+    @Transactional
+    @Modifying
+    @Query("update SessionRecord s set s.lastAccessedAt = :lastAccessedAt, s.expiresAt = :expiresAt where s.id = :id")
+    int touch(String id, long lastAccessedAt, long expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SessionRecord s where s.id = :id")
+    int deleteSession(String id);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SessionRecord s where s.expiresAt <= :now")
+    int deleteExpired(long now);
+}
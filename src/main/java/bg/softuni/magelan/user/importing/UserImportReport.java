@@ -0,0 +1,28 @@
+package bg.softuni.magelan.user.importing;
+
+import java.util.List;
+
+public record UserImportReport(boolean running,
+                               int received,
+                               int created,
+                               int rejected,
+                               long elapsedMillis,
+                               List<UserImportResult> results) {
+
+    public static UserImportReport started(int received) {
+        return new UserImportReport(true, received, 0, 0, 0, List.of());
+    }
+
+    public UserImportReport finished() {
+        return new UserImportReport(false, received, created, rejected, elapsedMillis, results);
+    }
+
+    public double usersPerSecond() {
+        return elapsedMillis == 0 ? created : created * 1000.0 / elapsedMillis;
+    }
+
+    public String summary() {
+        return "%d rows received: %d created, %d rejected in %d ms (%.1f users/s)."
+                .formatted(received, created, rejected, elapsedMillis, usersPerSecond());
+    }
+}
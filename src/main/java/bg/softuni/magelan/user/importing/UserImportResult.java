@@ -0,0 +1,12 @@
+package bg.softuni.magelan.user.importing;
+
+public record UserImportResult(int row, String username, UserImportStatus status, String message) {
+
+    public static UserImportResult created(int row, String username) {
+        return new UserImportResult(row, username, UserImportStatus.CREATED, null);
+    }
+
+    public static UserImportResult rejected(int row, String username, UserImportStatus status, String message) {
+        return new UserImportResult(row, username, status, message);
+    }
+}
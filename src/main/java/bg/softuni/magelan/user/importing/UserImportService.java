@@ -0,0 +1,333 @@
+package bg.softuni.magelan.user.importing;
+
+import bg.softuni.magelan.user.lookup.UsernameLookup;
+import bg.softuni.magelan.user.model.User;
+import bg.softuni.magelan.user.model.UserRole;
+import bg.softuni.magelan.user.repository.UserRepository;
+import bg.softuni.magelan.web.dto.UserImportRequest;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class UserImportService {
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final UsernameLookup usernameLookup;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxRows;
+
+    // Hashes are CPU bound and deliberately slow, so they get their own pool instead of the common one.
+    private final ForkJoinPool hashingPool;
+    // Runs the import itself, so the request that started it returns before the first hash.
+    private final Executor importer;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicReference<UserImportReport> progress = new AtomicReference<>();
+
+    @Autowired
+    public UserImportService(UserRepository userRepository,
+                             PasswordEncoder passwordEncoder,
+                             UsernameLookup usernameLookup,
+                             Validator validator,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${magelan.users.import.hashing-threads:0}") int hashingThreads,
+                             @Value("${magelan.users.import.chunk-size:200}") int chunkSize,
+                             @Value("${magelan.users.import.max-rows:5000}") int maxRows) {
+        this(userRepository, passwordEncoder, usernameLookup, validator, entityManager, transactionManager,
+                hashingThreads, chunkSize, maxRows, Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "user-import");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    UserImportService(UserRepository userRepository,
+                      PasswordEncoder passwordEncoder,
+                      UsernameLookup usernameLookup,
+                      Validator validator,
+                      EntityManager entityManager,
+                      PlatformTransactionManager transactionManager,
+                      int hashingThreads,
+                      int chunkSize,
+                      int maxRows,
+                      Executor importer) {
+        this.importer = importer;
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.usernameLookup = usernameLookup;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+
+        // By default leave half the cores to logins and page requests while an import runs.
+        int threads = hashingThreads > 0
+                ? hashingThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.hashingPool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("user-import-hash-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    public Optional<UserImportReport> getProgress() {
+        return Optional.ofNullable(progress.get());
+    }
+
+    /**
+     * Starts importing the given users in the background; {@link #getProgress()} follows the run
+     * and holds the full report once it ends.
+     *
+     * @throws IllegalArgumentException when there are more rows than one import may hold
+     * @throws IllegalStateException when another import is still running
+     */
+    public UserImportReport startImport(List<UserImportRequest> requests) {
+        if (requests.size() > maxRows) {
+            throw new IllegalArgumentException("An import can hold at most %d users.".formatted(maxRows));
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Another user import is still running.");
+        }
+
+        UserImportReport started = UserImportReport.started(requests.size());
+        progress.set(started);
+        try {
+            importer.execute(() -> {
+                try {
+                    importUsers(requests);
+                } catch (RuntimeException e) {
+                    log.error("User import failed", e);
+                    progress.set(progress.get().finished());
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return started;
+    }
+
+    /**
+     * Registers the given users and reports the outcome of every row, in order. Rows are checked
+     * against each other and, one chunk at a time, against the stored usernames in a single query;
+     * only the new ones are hashed, in parallel, and inserted in batches.
+     */
+    UserImportReport importUsers(List<UserImportRequest> requests) {
+        long started = System.nanoTime();
+        log.info("Starting import of {} users on {} hashing threads", requests.size(), hashingPool.getParallelism());
+
+        UserImportResult[] results = new UserImportResult[requests.size()];
+        Map<String, Integer> rowsByUsername = new HashMap<>();
+        List<Candidate> candidates = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            int row = i + 1;
+            UserImportRequest request = requests.get(i);
+            if (request == null) {
+                results[i] = UserImportResult.rejected(row, null, UserImportStatus.INVALID, "The row is empty.");
+                continue;
+            }
+
+            String problem = validate(request);
+            if (problem != null) {
+                results[i] = UserImportResult.rejected(row, request.getUsername(), UserImportStatus.INVALID, problem);
+                continue;
+            }
+
+            Integer firstRow = rowsByUsername.putIfAbsent(key(request.getUsername()), row);
+            if (firstRow != null) {
+                results[i] = UserImportResult.rejected(row, request.getUsername(), UserImportStatus.DUPLICATE,
+                        "Same username as row %d.".formatted(firstRow));
+                continue;
+            }
+
+            candidates.add(new Candidate(row, request.getUsername(), request.getPassword()));
+        }
+
+        for (int from = 0; from < candidates.size(); from += chunkSize) {
+            importChunk(candidates.subList(from, Math.min(from + chunkSize, candidates.size())), results);
+            progress.set(report(results, started, true));
+        }
+
+        UserImportReport report = report(results, started, false);
+        progress.set(report);
+        log.info("User import finished: {}", report.summary());
+        return report;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (importer instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+        hashingPool.shutdownNow();
+    }
+
+    // While running, only the counts are reported; the rows follow once every one of them is settled.
+    private static UserImportReport report(UserImportResult[] results, long started, boolean running) {
+        int settled = 0;
+        int created = 0;
+        for (UserImportResult result : results) {
+            if (result != null) {
+                settled++;
+                if (result.status() == UserImportStatus.CREATED) {
+                    created++;
+                }
+            }
+        }
+        return new UserImportReport(running, results.length, created, settled - created,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), running ? List.of() : List.of(results));
+    }
+
+    private void importChunk(List<Candidate> chunk, UserImportResult[] results) {
+        Set<String> taken = userRepository.findUsernamesIn(chunk.stream().map(Candidate::username).toList())
+                .stream()
+                .map(UserImportService::key)
+                .collect(Collectors.toSet());
+
+        List<Candidate> fresh = new ArrayList<>();
+        for (Candidate candidate : chunk) {
+            if (taken.contains(key(candidate.username()))) {
+                results[candidate.row() - 1] = UserImportResult.rejected(candidate.row(), candidate.username(),
+                        UserImportStatus.TAKEN, "Username is already taken.");
+            } else {
+                fresh.add(candidate);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        List<User> users = hash(fresh);
+        try {
+            insert(users);
+            fresh.forEach(candidate -> results[candidate.row() - 1] =
+                    UserImportResult.created(candidate.row(), candidate.username()));
+        } catch (DataIntegrityViolationException e) {
+            // A name was taken since the check, or a row broke another constraint; insert one by one to find out which.
+            log.warn("Batch insert of {} imported users failed, retrying row by row: {}", users.size(), e.getMessage());
+            for (int i = 0; i < fresh.size(); i++) {
+                Candidate candidate = fresh.get(i);
+                User user = users.get(i);
+                user.setId(null);
+                try {
+                    insert(List.of(user));
+                    results[candidate.row() - 1] = UserImportResult.created(candidate.row(), candidate.username());
+                } catch (DataIntegrityViolationException rowFailure) {
+                    results[candidate.row() - 1] = insertFailure(candidate, rowFailure);
+                }
+            }
+        }
+    }
+
+    // Only a clash on the username means it is taken; any other violation is reported as it is.
+    private UserImportResult insertFailure(Candidate candidate, DataIntegrityViolationException failure) {
+        if (userRepository.existsByUsername(candidate.username())) {
+            return UserImportResult.rejected(candidate.row(), candidate.username(),
+                    UserImportStatus.TAKEN, "Username is already taken.");
+        }
+        log.warn("Imported user in row {} could not be saved: {}",
+                candidate.row(), failure.getMostSpecificCause().getMessage());
+        return UserImportResult.rejected(candidate.row(), candidate.username(),
+                UserImportStatus.FAILED, "Could not be saved: " + failure.getMostSpecificCause().getMessage());
+    }
+
+    private List<User> hash(List<Candidate> candidates) {
+        long started = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<User> users;
+        try {
+            // A parallel stream started from inside the pool runs on that pool's workers.
+            users = hashingPool.submit(() -> candidates.parallelStream()
+                    .map(candidate -> newUser(candidate, passwordEncoder.encode(candidate.password()), now))
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The user import was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not hash the imported passwords.", e.getCause());
+        }
+
+        log.debug("Hashed {} passwords in {} ms", users.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return users;
+    }
+
+    private void insert(List<User> users) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Flushed here so the inserts go out as JDBC batches and a clash surfaces in this call.
+            userRepository.saveAllAndFlush(users);
+            users.forEach(user -> usernameLookup.add(user.getUsername()));
+            entityManager.clear();
+        });
+    }
+
+    private String validate(UserImportRequest request) {
+        if (request.getUsername() != null) {
+            request.setUsername(request.getUsername().trim());
+        }
+
+        Set<ConstraintViolation<UserImportRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    // MySQL compares usernames case-insensitively, so rows are matched the same way here.
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static User newUser(Candidate candidate, String passwordHash, LocalDateTime now) {
+        return User.builder()
+                .username(candidate.username())
+                .password(passwordHash)
+                .role(UserRole.USER)
+                .active(true)
+                .createdOn(now)
+                .updatedOn(now)
+                .build();
+    }
+
+    private record Candidate(int row, String username, String password) {
+    }
+}
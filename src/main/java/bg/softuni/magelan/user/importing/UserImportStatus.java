@@ -0,0 +1,10 @@
+package bg.softuni.magelan.user.importing;
+
+public enum UserImportStatus {
+
+    CREATED,
+    INVALID,
+    DUPLICATE,
+    TAKEN,
+    FAILED
+}
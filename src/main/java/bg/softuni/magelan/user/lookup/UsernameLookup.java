@@ -0,0 +1,141 @@
+package bg.softuni.magelan.user.lookup;
+
+import bg.softuni.magelan.user.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Answers "is this username taken?" from a Bloom filter of every registered name, so names that
+ * were never registered do not reach the database. Only possible hits run an existence query.
+ */
+@Slf4j
+@Component
+public class UsernameLookup {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final UserRepository userRepository;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+
+    // Null until the first build; every name is a possible hit until then.
+    private volatile BloomFilter filter;
+    // Set while a rebuild loads names, so names added meanwhile land in the new filter as well.
+    private volatile BloomFilter building;
+
+    private final Counter absent;
+    private final Counter taken;
+    private final Counter falsePositives;
+
+    public UsernameLookup(UserRepository userRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${magelan.users.username-filter.expected-users:100000}") long expectedUsers,
+                          @Value("${magelan.users.username-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+
+        this.absent = meterRegistry.counter("magelan.users.username.lookups", "result", "absent");
+        this.taken = meterRegistry.counter("magelan.users.username.lookups", "result", "taken");
+        this.falsePositives = meterRegistry.counter("magelan.users.username.lookups", "result", "false-positive");
+        meterRegistry.gauge("magelan.users.username.filter.bytes", this,
+                lookup -> lookup.filter != null ? lookup.filter.sizeInBytes() : 0);
+        meterRegistry.gauge("magelan.users.username.filter.expected.fpp", this,
+                lookup -> lookup.filter != null ? lookup.filter.expectedFalsePositiveRate() : 0);
+        meterRegistry.gauge("magelan.users.username.filter.observed.fpp", this, UsernameLookup::observedFalsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long current = filter != null ? filter.insertions() : 0;
+        BloomFilter fresh = BloomFilter.create(Math.max(expectedUsers, current * 2), falsePositiveRate);
+        building = fresh;
+
+        List<String> usernames = userRepository.findAllUsernames();
+        usernames.forEach(username -> fresh.put(normalize(username)));
+
+        filter = fresh;
+        building = null;
+        log.info("Username filter built from {} users ({} KiB)", usernames.size(), fresh.sizeInBytes() / 1024);
+    }
+
+    public boolean isTaken(String username) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(normalize(username))) {
+            absent.increment();
+            return false;
+        }
+
+        boolean exists = userRepository.existsByUsername(username);
+        if (exists) {
+            taken.increment();
+        } else if (current != null) {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    /**
+     * Adds the name right away, so a second registration racing this one is still checked against
+     * the database, and again once the registration commits, in case a rebuild read the users
+     * table in between.
+     */
+    public void add(String username) {
+        String normalized = normalize(username);
+        put(normalized);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(normalized);
+                    growIfFull();
+                }
+            });
+        } else {
+            growIfFull();
+        }
+    }
+
+    private void put(String normalized) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(normalized);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(normalized);
+        }
+    }
+
+    private void growIfFull() {
+        BloomFilter current = filter;
+        if (current != null && current.isOverCapacity()) {
+            log.info("Username filter is over capacity at {} names, rebuilding it larger", current.insertions());
+            rebuild();
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        double negatives = absent.count() + falsePositives.count();
+        return negatives == 0 ? 0 : falsePositives.count() / negatives;
+    }
+
+    // Coarser than any database collation, so a name the database would match is never filtered out.
+    private static String normalize(String username) {
+        String decomposed = Normalizer.normalize(username.strip(), Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -47,6 +47,9 @@ public class User {
 
     private boolean active;
 
+    // Bumped on every change that affects signed-in principals; see UserProfileChanges.
+    private long profileVersion;
+
     @Column(nullable = false)
     private LocalDateTime createdOn;
 
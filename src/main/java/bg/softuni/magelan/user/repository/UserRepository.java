@@ -1,10 +1,16 @@
 package bg.softuni.magelan.user.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import bg.softuni.magelan.user.model.User;
 import bg.softuni.magelan.user.model.UserRole;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,7 +18,40 @@ import java.util.UUID;
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByUsername(String username);
 
+    boolean existsByUsername(String username);
+
+    @Query("select u.username from User u")
+    List<String> findAllUsernames();
+
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findUsernamesIn(Collection<String> usernames);
+
     long countByRole(UserRole role);
 
+    @Query("select u.profileVersion from User u where u.id = :id")
+    Optional<Long> findProfileVersionById(UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.profileVersion = u.profileVersion + 1 where u.id = :id")
+    int incrementProfileVersion(UUID id);
+
     long countByRoleAndActiveTrue(UserRole role);
+
+    /**
+     * Keyset page over the unique username index; {@code pattern} is an escaped {@code prefix%}.
+     */
+    @Query("""
+            select u.id from User u
+            where u.username like :pattern escape '!' and u.username > :after
+            order by u.username
+            """)
+    List<UUID> findIdsByUsernameLikeAfter(String pattern, String after, Limit limit);
+
+    @Query("""
+            select new bg.softuni.magelan.user.repository.UserSummary(u.id, u.username, u.role, u.active, u.createdOn)
+            from User u
+            where u.id in :ids
+            """)
+    List<UserSummary> findSummariesByIdIn(Collection<UUID> ids);
 }
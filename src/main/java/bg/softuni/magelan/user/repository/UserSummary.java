@@ -0,0 +1,9 @@
+package bg.softuni.magelan.user.repository;
+
+import bg.softuni.magelan.user.model.UserRole;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record UserSummary(UUID id, String username, UserRole role, boolean active, LocalDateTime createdOn) {
+}
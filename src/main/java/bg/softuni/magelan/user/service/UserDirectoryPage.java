@@ -0,0 +1,12 @@
+package bg.softuni.magelan.user.service;
+
+import bg.softuni.magelan.user.repository.UserSummary;
+
+import java.util.List;
+
+/**
+ * One page of the admin user directory. {@code nextCursor} is the last username on the page, or
+ * {@code null} on the last page.
+ */
+public record UserDirectoryPage(List<UserSummary> users, String nextCursor) {
+}
@@ -1,18 +1,28 @@
 package bg.softuni.magelan.user.service;
 
 import bg.softuni.magelan.exception.UserNotFoundException;
+import bg.softuni.magelan.exception.UsernameTakenException;
 import bg.softuni.magelan.security.UserData;
+import bg.softuni.magelan.security.UserProfile;
+import bg.softuni.magelan.security.UserProfileChanges;
+import bg.softuni.magelan.user.lookup.UsernameLookup;
 import bg.softuni.magelan.user.model.User;
 import bg.softuni.magelan.user.model.UserRole;
 import bg.softuni.magelan.user.repository.UserRepository;
+import bg.softuni.magelan.user.repository.UserSummary;
 import bg.softuni.magelan.web.dto.EditProfileRequest;
 import bg.softuni.magelan.web.dto.RegisterRequest;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -20,24 +30,37 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 
 @Slf4j
 @Service
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
+
+    static final String USERS_CACHE = "users";
+    private static final int DIRECTORY_PAGE_SIZE = 25;
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CacheManager cacheManager;
+    private final UserProfileChanges userProfileChanges;
+    private final UsernameLookup usernameLookup;
 
     @Autowired
     public UserService(UserRepository userRepository,
-                       PasswordEncoder passwordEncoder) {
+                       PasswordEncoder passwordEncoder,
+                       CacheManager cacheManager,
+                       UserProfileChanges userProfileChanges,
+                       UsernameLookup usernameLookup) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.cacheManager = cacheManager;
+        this.userProfileChanges = userProfileChanges;
+        this.usernameLookup = usernameLookup;
     }
 
     @Transactional
-    @CacheEvict(value = "users", allEntries = true)
     public void register(RegisterRequest registerRequest) {
         log.info("Registering new user with username {}", registerRequest.getUsername());
 
@@ -50,15 +73,39 @@ public class UserService implements UserDetailsService {
                 .updatedOn(LocalDateTime.now())
                 .build();
 
-        user = userRepository.save(user);
+        usernameLookup.add(user.getUsername());
+        try {
+            // The filter is per node and the form check can race, so the unique index has the last word.
+            user = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Username {} was taken while registering", registerRequest.getUsername());
+            throw new UsernameTakenException(registerRequest.getUsername(), e);
+        }
 
         log.info("User {} registered successfully with ID {}",
                 registerRequest.getUsername(), user.getId());
     }
 
-    @Cacheable("users")
-    public List<User> getAll() {
-        return userRepository.findAll();
+    /**
+     * Users whose name starts with {@code prefix}, ordered by username and paged by the last
+     * username seen. Summaries come from the per-user {@code users} cache; misses are loaded in
+     * one query.
+     */
+    public UserDirectoryPage getDirectory(String prefix, String after) {
+        String pattern = (prefix == null ? "" : escapeLike(prefix.trim())) + "%";
+        List<UUID> ids = userRepository.findIdsByUsernameLikeAfter(
+                pattern, after == null ? "" : after, Limit.of(DIRECTORY_PAGE_SIZE + 1));
+
+        boolean hasNext = ids.size() > DIRECTORY_PAGE_SIZE;
+        List<UserSummary> users = summariesOf(hasNext ? ids.subList(0, DIRECTORY_PAGE_SIZE) : ids);
+        return new UserDirectoryPage(users, hasNext ? users.get(users.size() - 1).username() : null);
+    }
+
+    /**
+     * A lazy reference for associating the user with new rows, without loading it.
+     */
+    public User getReference(UUID id) {
+        return userRepository.getReferenceById(id);
     }
 
     public User getById(UUID id) {
@@ -69,7 +116,6 @@ public class UserService implements UserDetailsService {
                 });
     }
 
-    @CacheEvict(value = "users", allEntries = true)
     public void updateProfile(UUID id, EditProfileRequest editProfileRequest) {
         log.info("Updating profile for user {}", id);
 
@@ -84,11 +130,12 @@ public class UserService implements UserDetailsService {
         user.setUpdatedOn(LocalDateTime.now());
 
         userRepository.save(user);
+        userProfileChanges.markChanged(id);
 
         log.info("Profile updated successfully for user {}", id);
     }
 
-    @CacheEvict(value = "users", allEntries = true)
+    @CacheEvict(value = USERS_CACHE, key = "#id")
     public void switchRole(UUID id) {
         log.info("Switching role for user {}", id);
 
@@ -110,6 +157,7 @@ public class UserService implements UserDetailsService {
 
         user.setUpdatedOn(LocalDateTime.now());
         userRepository.save(user);
+        userProfileChanges.markChanged(id);
 
         log.info("Role switch persisted for user {}", id);
     }
@@ -129,10 +177,29 @@ public class UserService implements UserDetailsService {
         log.info("User {} authenticated successfully (ID: {}, role: {}, active: {}).",
                 username, user.getId(), user.getRole(), user.isActive());
 
-        return new UserData(user.getId(), username, user.getPassword(), user.getRole(), user.isActive());
+        return new UserData(user.getId(), username, user.getPassword(), user.getRole(), user.isActive(),
+                UserProfile.of(user), user.getProfileVersion());
     }
 
-    @CacheEvict(value = "users", allEntries = true)
+    /**
+     * Called by the authentication provider after a successful login whose stored hash is outdated.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException(
+                        "Username [%s] is not found.".formatted(userDetails.getUsername())));
+
+        user.setPassword(newPassword);
+        userRepository.save(user);
+
+        log.info("Rehashed the password of user {} with the current encoding", user.getId());
+        return new UserData(user.getId(), user.getUsername(), newPassword, user.getRole(), user.isActive(),
+                UserProfile.of(user), user.getProfileVersion());
+    }
+
+    @CacheEvict(value = USERS_CACHE, key = "#userId")
     public void toggleActive(UUID userId) {
         log.info("Toggling active status for user {}", userId);
 
@@ -150,7 +217,20 @@ public class UserService implements UserDetailsService {
         user.setActive(!user.isActive());
         user.setUpdatedOn(LocalDateTime.now());
         userRepository.save(user);
+        userProfileChanges.markChanged(userId);
 
         log.info("User {} is now {}", userId, user.isActive() ? "ACTIVE" : "INACTIVE");
     }
+
+    // The users cache always has UserSummaryLoader behind it, so misses are fetched together through loadAll.
+    @SuppressWarnings("unchecked")
+    private List<UserSummary> summariesOf(List<UUID> ids) {
+        Cache cache = Objects.requireNonNull(cacheManager.getCache(USERS_CACHE));
+        Map<Object, Object> loaded = ((LoadingCache<Object, Object>) cache.getNativeCache()).getAll(ids);
+        return ids.stream().map(loaded::get).map(UserSummary.class::cast).filter(Objects::nonNull).toList();
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
 }
@@ -0,0 +1,38 @@
+package bg.softuni.magelan.user.service;
+
+import bg.softuni.magelan.config.NamedCacheLoader;
+import bg.softuni.magelan.user.repository.UserRepository;
+import bg.softuni.magelan.user.repository.UserSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class UserSummaryLoader implements NamedCacheLoader<UUID, UserSummary> {
+
+    private final UserRepository userRepository;
+
+    @Override
+    public String cacheName() {
+        return UserService.USERS_CACHE;
+    }
+
+    @Override
+    public UserSummary load(UUID id) {
+        List<UserSummary> summaries = userRepository.findSummariesByIdIn(List.of(id));
+        return summaries.isEmpty() ? null : summaries.get(0);
+    }
+
+    @Override
+    public Map<UUID, UserSummary> loadAll(Set<? extends UUID> ids) {
+        return userRepository.findSummariesByIdIn(List.copyOf(ids)).stream()
+                .collect(Collectors.toMap(UserSummary::id, Function.identity()));
+    }
+}
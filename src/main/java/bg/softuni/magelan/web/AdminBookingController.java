@@ -1,15 +1,26 @@
 package bg.softuni.magelan.web;
 
-import bg.softuni.magelan.booking.model.Booking;
 import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.service.BookingPage;
 import bg.softuni.magelan.booking.service.BookingService;
+import bg.softuni.magelan.exception.BookingCapacityExceededException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.UUID;
 
@@ -22,34 +33,99 @@ public class AdminBookingController {
     private final BookingService bookingService;
 
     @GetMapping
-    public ModelAndView getBookingsPage() {
+    public ModelAndView getBookingsPage(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                        @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                        @RequestParam(value = "upcomingAfter", required = false) String upcomingAfter,
+                                        @RequestParam(value = "pastAfter", required = false) String pastAfter) {
+        BookingPage upcoming = bookingService.getUpcomingBookingsForAdmin(from, to, upcomingAfter);
+        BookingPage past = bookingService.getPastBookingsForAdmin(from, to, pastAfter);
+
         ModelAndView modelAndView = new ModelAndView("admin-bookings");
-        modelAndView.addObject("upcomingBookings", bookingService.getUpcomingBookingsForAdmin());
-        modelAndView.addObject("pastBookings", bookingService.getPastBookingsForAdmin());
+        modelAndView.addObject("upcomingBookings", upcoming.bookings());
+        modelAndView.addObject("upcomingNext", upcoming.nextCursor());
+        modelAndView.addObject("pastBookings", past.bookings());
+        modelAndView.addObject("pastNext", past.nextCursor());
+        modelAndView.addObject("from", from);
+        modelAndView.addObject("to", to);
         return modelAndView;
     }
 
     @GetMapping("/search")
-    public ModelAndView listBookings(@ModelAttribute("message") String message,
+    public ModelAndView listBookings(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                     @RequestParam(value = "after", required = false) String after,
+                                     @ModelAttribute("message") String message,
                                      @ModelAttribute("error") String error) {
 
-        List<Booking> bookings = bookingService.getAllBookings();
+        BookingPage page = bookingService.searchBookingsForAdmin(from, to, after);
 
         ModelAndView modelAndView = new ModelAndView("admin-bookings");
-        modelAndView.addObject("bookings", bookings);
+        modelAndView.addObject("bookings", page.bookings());
+        modelAndView.addObject("nextCursor", page.nextCursor());
+        modelAndView.addObject("from", from);
+        modelAndView.addObject("to", to);
         modelAndView.addObject("message", message);
         modelAndView.addObject("error", error);
         return modelAndView;
     }
 
+    /**
+     * Streams bookings as an iCalendar feed, from today through the next year unless a range is given.
+     */
+    @GetMapping("/calendar.ics")
+    public void exportCalendar(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                               @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                               HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start.plusYears(1);
+
+        LocalDateTime lastModified = bookingService.getCalendarLastModified(start, end);
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        if (lastModified != null
+                && webRequest.checkNotModified(lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())) {
+            return;
+        }
+
+        response.setContentType("text/calendar;charset=UTF-8");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("magelan-bookings-%s-%s.ics".formatted(start, end))
+                .build()
+                .toString());
+        bookingService.exportCalendar(start, end, response.getWriter());
+    }
+
     @PostMapping("{id}/status")
     public String changeStatus(
             @PathVariable UUID id,
             @RequestParam BookingStatus status,
             RedirectAttributes redirectAttributes) {
 
-        bookingService.changeStatus(id, status);
-        redirectAttributes.addFlashAttribute("message", "Status updated!");
+        try {
+            bookingService.changeStatus(id, status);
+            redirectAttributes.addFlashAttribute("message", "Status updated!");
+        } catch (BookingCapacityExceededException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+
+        return "redirect:/admin/bookings";
+    }
+
+    @PostMapping("/bulk-status")
+    public String changeStatuses(
+            @RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(value = "currentStatus", required = false) BookingStatus currentStatus,
+            @RequestParam(value = "ids", required = false) List<UUID> ids,
+            @RequestParam BookingStatus status,
+            RedirectAttributes redirectAttributes) {
+
+        try {
+            int updated = bookingService.changeStatuses(date, currentStatus, ids, status);
+            redirectAttributes.addFlashAttribute("message", "%d booking(s) set to %s.".formatted(updated, status));
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
 
         return "redirect:/admin/bookings";
     }
@@ -1,14 +1,17 @@
 package bg.softuni.magelan.web;
 
+import bg.softuni.magelan.order.feed.OrderFeedService;
 import bg.softuni.magelan.payment.PaymentResponse;
 import lombok.RequiredArgsConstructor;
 import bg.softuni.magelan.order.model.Order;
 import bg.softuni.magelan.order.model.OrderStatus;
 import bg.softuni.magelan.order.service.OrderService;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.UUID;
@@ -20,6 +23,7 @@ import java.util.UUID;
 public class AdminOrderController {
 
     private final OrderService orderService;
+    private final OrderFeedService orderFeedService;
 
     @GetMapping
     public ModelAndView getAdminOrdersPage(
@@ -37,6 +41,13 @@ public class AdminOrderController {
         return modelAndView;
     }
 
+    @ResponseBody
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderFeed(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return orderFeedService.subscribe(lastEventId);
+    }
+
     @GetMapping("/{id}")
     public ModelAndView getOrderDetails(@PathVariable("id") UUID orderId,
                                         @ModelAttribute("message") String message,
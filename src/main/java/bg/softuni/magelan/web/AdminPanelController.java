@@ -1,6 +1,10 @@
 package bg.softuni.magelan.web;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
@@ -8,9 +12,13 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import bg.softuni.magelan.security.UserData;
-import bg.softuni.magelan.user.model.User;
+import bg.softuni.magelan.user.importing.UserImportReport;
+import bg.softuni.magelan.user.importing.UserImportService;
+import bg.softuni.magelan.user.service.UserDirectoryPage;
 import bg.softuni.magelan.user.service.UserService;
+import bg.softuni.magelan.web.dto.UserImportRequest;
 
+import java.net.URI;
 import java.util.List;
 import java.util.UUID;
 
@@ -21,13 +29,19 @@ import java.util.UUID;
 public class AdminPanelController {
 
     private final UserService userService;
+    private final UserImportService userImportService;
 
     @GetMapping("/panel")
-    public ModelAndView getAdminPanel(@AuthenticationPrincipal UserData userData) {
-        List<User> users = userService.getAll();
+    public ModelAndView getAdminPanel(@AuthenticationPrincipal UserData userData,
+                                      @RequestParam(value = "q", required = false) String query,
+                                      @RequestParam(value = "after", required = false) String after) {
+        UserDirectoryPage page = userService.getDirectory(query, after);
 
         ModelAndView modelAndView = new ModelAndView("admin-panel");
-        modelAndView.addObject("users", users);
+        modelAndView.addObject("users", page.users());
+        modelAndView.addObject("nextCursor", page.nextCursor());
+        modelAndView.addObject("query", query);
+        modelAndView.addObject("after", after);
         modelAndView.addObject("currentUserId", userData.getUserId());
         return modelAndView;
     }
@@ -47,4 +61,24 @@ public class AdminPanelController {
         redirectAttributes.addFlashAttribute("message", "User status updated.");
         return "redirect:/admin/panel";
     }
+
+    // Answered here as JSON: the advice's error pages are for browser requests.
+    @ResponseBody
+    @PostMapping(value = "/users/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> importUsers(@RequestBody List<UserImportRequest> users) {
+        try {
+            UserImportReport started = userImportService.startImport(users);
+            return ResponseEntity.accepted().location(URI.create("/admin/users/import/status")).body(started);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage())).build();
+        }
+    }
+
+    @ResponseBody
+    @GetMapping("/users/import/status")
+    public ResponseEntity<UserImportReport> importStatus() {
+        return ResponseEntity.of(userImportService.getProgress());
+    }
 }
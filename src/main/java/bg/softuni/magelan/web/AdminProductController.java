@@ -2,19 +2,27 @@ package bg.softuni.magelan.web;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import bg.softuni.magelan.product.importing.ProductImportFormat;
+import bg.softuni.magelan.product.importing.ProductImportReport;
+import bg.softuni.magelan.product.importing.ProductImportService;
 import bg.softuni.magelan.product.model.Product;
 import bg.softuni.magelan.product.model.ProductCategory;
 import bg.softuni.magelan.product.service.ProductService;
 import bg.softuni.magelan.web.dto.ProductForm;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Controller
@@ -24,6 +32,7 @@ import java.util.UUID;
 public class AdminProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
 
     @GetMapping
     public ModelAndView listProducts() {
@@ -99,4 +108,31 @@ public class AdminProductController {
         redirectAttributes.addFlashAttribute("message", "Product deleted.");
         return new ModelAndView("redirect:/admin/products");
     }
+
+    @PostMapping("/import")
+    public ModelAndView importProducts(@RequestParam("file") MultipartFile file,
+                                       RedirectAttributes redirectAttributes) {
+        Optional<ProductImportFormat> format = ProductImportFormat.fromFilename(file.getOriginalFilename());
+        if (file.isEmpty() || format.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "Choose a non-empty .csv or .json file to import.");
+            return new ModelAndView("redirect:/admin/products");
+        }
+
+        try (InputStream input = file.getInputStream()) {
+            ProductImportReport report = productImportService.importProducts(input, format.get());
+            redirectAttributes.addFlashAttribute("message", "Import finished. " + report.summary());
+            redirectAttributes.addFlashAttribute("importErrors", report.errors());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        } catch (IOException e) {
+            redirectAttributes.addFlashAttribute("error", "The file could not be read: " + e.getMessage());
+        }
+        return new ModelAndView("redirect:/admin/products");
+    }
+
+    @ResponseBody
+    @GetMapping("/import/status")
+    public ResponseEntity<ProductImportReport> importStatus() {
+        return ResponseEntity.of(productImportService.getProgress());
+    }
 }
@@ -1,9 +1,13 @@
 package bg.softuni.magelan.web;
 
+import bg.softuni.magelan.booking.availability.MonthAvailability;
 import bg.softuni.magelan.booking.model.Booking;
+import bg.softuni.magelan.booking.service.BookingPage;
+import bg.softuni.magelan.booking.service.BookingRequestResult;
 import bg.softuni.magelan.booking.service.BookingService;
+import bg.softuni.magelan.exception.AlreadyWaitlistedException;
+import bg.softuni.magelan.exception.BookingCapacityExceededException;
 import bg.softuni.magelan.security.UserData;
-import bg.softuni.magelan.user.model.User;
 import bg.softuni.magelan.user.service.UserService;
 import bg.softuni.magelan.web.dto.BookTableRequest;
 import jakarta.validation.Valid;
@@ -13,13 +17,18 @@ import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.UUID;
 
 @Controller
 @RequiredArgsConstructor
@@ -29,27 +38,30 @@ public class BookingController {
     private final BookingService bookingService;
 
     @GetMapping("/book-table")
-    public ModelAndView getBookTablePage(@AuthenticationPrincipal UserData userData) {
+    public ModelAndView getBookTablePage(@AuthenticationPrincipal UserData userData,
+                                         @RequestParam(value = "before", required = false) String before) {
         if (userData == null) {
             return new ModelAndView("redirect:/login");
         }
 
-        User user = userService.getById(userData.getUserId());
+        UUID userId = userData.getUserId();
 
-        List<Booking> upcoming = bookingService.getUpcomingBookings(user.getId());
-        List<Booking> past = bookingService.getPastBookingsForUser(user.getId());
+        List<Booking> upcoming = bookingService.getUpcomingBookings(userId);
+        BookingPage past = bookingService.getPastBookingsForUser(userId, before);
 
         BookTableRequest form = BookTableRequest.builder()
                 .date(LocalDate.now())
                 .time(LocalTime.of(19, 0))
                 .guests(2)
-                .phone(user.getPhoneNumber())
+                .phone(userData.getProfile().phoneNumber())
                 .build();
 
         ModelAndView modelAndView = new ModelAndView("book-table");
         modelAndView.addObject("bookTableRequest", form);
         modelAndView.addObject("upcomingBookings", upcoming);
-        modelAndView.addObject("pastBookings", past);
+        modelAndView.addObject("pastBookings", past.bookings());
+        modelAndView.addObject("pastCursor", past.nextCursor());
+        modelAndView.addObject("waitlistEntries", bookingService.getWaitlistEntries(userId));
         return modelAndView;
     }
 
@@ -62,21 +74,66 @@ public class BookingController {
             return new ModelAndView("redirect:/login");
         }
 
-        User user = userService.getById(userData.getUserId());
+        UUID userId = userData.getUserId();
 
         if (bindingResult.hasErrors()) {
-            List<Booking> upcoming = bookingService.getUpcomingBookings(user.getId());
-            List<Booking> past = bookingService.getPastBookingsForUser(user.getId());
-
-            ModelAndView modelAndView = new ModelAndView("book-table");
-            modelAndView.addObject("bookTableRequest", request);
-            modelAndView.addObject("upcomingBookings", upcoming);
-            modelAndView.addObject("pastBookings", past);
-            return modelAndView;
+            return bookTablePageWithErrors(userId, request);
         }
 
-        bookingService.createBooking(user, request);
-        redirectAttributes.addFlashAttribute("message", "Your booking request was submitted.");
+        BookingRequestResult result;
+        try {
+            result = bookingService.createBooking(userService.getReference(userId), request);
+        } catch (BookingCapacityExceededException e) {
+            bindingResult.rejectValue("guests", "capacity", "Sorry, we cannot seat a party this large. Please call us.");
+            return bookTablePageWithErrors(userId, request);
+        } catch (AlreadyWaitlistedException e) {
+            bindingResult.rejectValue("time", "waitlisted", "You are already on the waitlist for this time.");
+            return bookTablePageWithErrors(userId, request);
+        }
+
+        if (result.booked()) {
+            redirectAttributes.addFlashAttribute("message", "Your booking request was submitted.");
+        } else {
+            redirectAttributes.addFlashAttribute("message",
+                    "We are fully booked at this time, so you are #%d on the waitlist. We will book your table as soon as one frees up."
+                            .formatted(result.waitlistPosition()));
+        }
         return new ModelAndView("redirect:/book-table");
     }
+
+    @PostMapping("/book-table/waitlist/{id}/leave")
+    public ModelAndView leaveWaitlist(@AuthenticationPrincipal UserData userData,
+                                      @PathVariable UUID id,
+                                      RedirectAttributes redirectAttributes) {
+        if (userData == null) {
+            return new ModelAndView("redirect:/login");
+        }
+
+        if (bookingService.leaveWaitlist(userData.getUserId(), id)) {
+            redirectAttributes.addFlashAttribute("message", "You have left the waitlist.");
+        } else {
+            redirectAttributes.addFlashAttribute("message",
+                    "You are no longer on that waitlist. Check your upcoming bookings, your table may already be booked.");
+        }
+        return new ModelAndView("redirect:/book-table");
+    }
+
+    @ResponseBody
+    @GetMapping("/book-table/availability")
+    public MonthAvailability getAvailability(@RequestParam(value = "month", required = false) YearMonth month) {
+        return bookingService.getAvailability(month != null ? month : YearMonth.now());
+    }
+
+    private ModelAndView bookTablePageWithErrors(UUID userId, BookTableRequest request) {
+        List<Booking> upcoming = bookingService.getUpcomingBookings(userId);
+        BookingPage past = bookingService.getPastBookingsForUser(userId, null);
+
+        ModelAndView modelAndView = new ModelAndView("book-table");
+        modelAndView.addObject("bookTableRequest", request);
+        modelAndView.addObject("upcomingBookings", upcoming);
+        modelAndView.addObject("pastBookings", past.bookings());
+        modelAndView.addObject("pastCursor", past.nextCursor());
+        modelAndView.addObject("waitlistEntries", bookingService.getWaitlistEntries(userId));
+        return modelAndView;
+    }
 }
@@ -11,8 +11,8 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import bg.softuni.magelan.exception.UsernameTakenException;
 import bg.softuni.magelan.security.UserData;
-import bg.softuni.magelan.user.model.User;
 import bg.softuni.magelan.user.service.UserService;
 import bg.softuni.magelan.web.dto.LoginRequest;
 import bg.softuni.magelan.web.dto.RegisterRequest;
@@ -64,7 +64,14 @@ public class IndexController {
             return modelAndView;
         }
 
-        userService.register(registerRequest);
+        try {
+            userService.register(registerRequest);
+        } catch (UsernameTakenException e) {
+            bindingResult.rejectValue("username", "taken", "Username is already taken.");
+            ModelAndView modelAndView = new ModelAndView("register");
+            modelAndView.addObject("registerRequest", registerRequest);
+            return modelAndView;
+        }
         redirectAttributes.addFlashAttribute("successfulRegistration", "You have created your account.");
 
         return new ModelAndView("redirect:/login");
@@ -72,9 +79,8 @@ public class IndexController {
 
     @GetMapping("/home")
     public ModelAndView getHomePage(@AuthenticationPrincipal UserData userData) {
-        User user = userService.getById(userData.getUserId());
         ModelAndView modelAndView = new ModelAndView("home");
-        modelAndView.addObject("user", user);
+        modelAndView.addObject("user", userData.getProfile());
         return modelAndView;
     }
 }
@@ -1,32 +1,80 @@
 package bg.softuni.magelan.web;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import bg.softuni.magelan.product.menu.MenuItem;
+import bg.softuni.magelan.product.menu.MenuSnapshot;
 import bg.softuni.magelan.product.model.ProductCategory;
 import bg.softuni.magelan.product.service.ProductService;
 import bg.softuni.magelan.security.UserData;
+import bg.softuni.magelan.web.cache.MenuPageCache;
+import bg.softuni.magelan.web.cache.MenuVariant;
+
+import java.util.List;
 
 @Controller
 public class MenuController {
+    private static final int SEARCH_LIMIT = 20;
+    private static final int SUGGESTION_LIMIT = 8;
+
     private final ProductService productService;
+    private final MenuPageCache menuPageCache;
 
-    public MenuController(ProductService productService) {
+    public MenuController(ProductService productService, MenuPageCache menuPageCache) {
         this.productService = productService;
+        this.menuPageCache = menuPageCache;
     }
 
     @GetMapping("/menu")
-    public ModelAndView getMenuPage(@AuthenticationPrincipal UserData userData) {
+    public ModelAndView getMenuPage(@AuthenticationPrincipal UserData userData,
+                                    HttpServletRequest request,
+                                    HttpServletResponse response) {
         ModelAndView modelAndView = new ModelAndView("menu");
+        MenuSnapshot menu = productService.getMenu();
 
-        modelAndView.addObject("starters", productService.getByCategory(ProductCategory.STARTER));
-        modelAndView.addObject("mains", productService.getByCategory(ProductCategory.MAIN));
-        modelAndView.addObject("desserts", productService.getByCategory(ProductCategory.DESSERT));
-        modelAndView.addObject("drinks", productService.getByCategory(ProductCategory.DRINK));
+        modelAndView.addObject("starters", menu.getItems(ProductCategory.STARTER));
+        modelAndView.addObject("mains", menu.getItems(ProductCategory.MAIN));
+        modelAndView.addObject("desserts", menu.getItems(ProductCategory.DESSERT));
+        modelAndView.addObject("drinks", menu.getItems(ProductCategory.DRINK));
 
         modelAndView.addObject("isAuthenticated", userData != null);
 
+        // Flash messages (e.g. "added to order") are one-off, so that response is rendered fresh.
+        if (RequestContextUtils.getInputFlashMap(request) != null) {
+            return modelAndView;
+        }
+
+        MenuVariant variant = MenuVariant.of(userData);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.COOKIE);
+
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        if (webRequest.checkNotModified(menuPageCache.eTag(menu.getVersion(), variant, request))) {
+            return null;
+        }
+
+        modelAndView.setView(menuPageCache.view(menu.getVersion(), variant));
         return modelAndView;
     }
+
+    @ResponseBody
+    @GetMapping("/menu/search")
+    public List<MenuItem> searchMenu(@RequestParam("q") String query) {
+        return productService.searchMenu(query, SEARCH_LIMIT);
+    }
+
+    @ResponseBody
+    @GetMapping("/menu/suggest")
+    public List<String> suggestMenuItems(@RequestParam("q") String prefix) {
+        return productService.suggestMenuItems(prefix, SUGGESTION_LIMIT);
+    }
 }
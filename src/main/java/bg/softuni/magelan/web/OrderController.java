@@ -1,6 +1,7 @@
 package bg.softuni.magelan.web;
 
 import bg.softuni.magelan.order.model.Order;
+import bg.softuni.magelan.order.service.OrderHistoryPage;
 import bg.softuni.magelan.order.service.OrderService;
 import bg.softuni.magelan.order.service.ReceiptService;
 import bg.softuni.magelan.product.service.ProductService;
@@ -15,7 +16,6 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.ModelAndView;
 import bg.softuni.magelan.security.UserData;
-import bg.softuni.magelan.user.model.User;
 import bg.softuni.magelan.user.service.UserService;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
@@ -43,25 +43,27 @@ public class OrderController {
     }
 
     @GetMapping
-    public ModelAndView getOrdersPage(@AuthenticationPrincipal UserData userData) {
-        User user = userService.getById(userData.getUserId());
+    public ModelAndView getOrdersPage(@AuthenticationPrincipal UserData userData,
+                                      @RequestParam(value = "before", required = false) String before) {
+        UUID userId = userData.getUserId();
 
         Order order = orderService
-                .findPendingOrderByCustomerId(user.getId())
-                .orElseGet(() -> orderService.createPendingOrderForCustomer(user));
+                .findPendingOrderByCustomerId(userId)
+                .orElseGet(() -> orderService.createPendingOrderForCustomer(userService.getReference(userId)));
 
         if (order.getPaymentId() != null) {
             return new ModelAndView("redirect:/orders/payment/" + order.getPaymentId());
         }
 
-        List<Order> pastOrders = orderService.getPastOrders(user.getId());
+        OrderHistoryPage pastOrders = orderService.getPastOrders(userId, before);
 
         ModelAndView modelAndView = new ModelAndView("orders");
-        modelAndView.addObject("user", user);
+        modelAndView.addObject("user", userData.getProfile());
         modelAndView.addObject("orderItems", order.getItems());
         modelAndView.addObject("products", orderService.getAvailableProducts());
         modelAndView.addObject("totalAmount", orderService.calculateTotal(order));
-        modelAndView.addObject("pastOrders", pastOrders);
+        modelAndView.addObject("pastOrders", pastOrders.orders());
+        modelAndView.addObject("pastCursor", pastOrders.nextCursor());
         modelAndView.addObject("isAuthenticated", userData != null);
         return modelAndView;
     }
@@ -78,9 +80,9 @@ public class OrderController {
             return "redirect:/login";
         }
 
-        User user = userService.getById(userData.getUserId());
+        UUID userId = userData.getUserId();
 
-        Order pending = orderService.findPendingOrderByCustomerId(user.getId()).orElse(null);
+        Order pending = orderService.findPendingOrderByCustomerId(userId).orElse(null);
         if (pending != null && pending.getPaymentId() != null) {
             redirectAttributes.addFlashAttribute(
                     "orderMessage",
@@ -89,9 +91,9 @@ public class OrderController {
             return "redirect:/orders";
         }
 
-        String productName = productService.getById(productId).getName();
+        String productName = productService.getMenuItem(productId).getName();
 
-        orderService.addProductToCustomerOrder(user, productId, quantity);
+        orderService.addProductToCustomerOrder(userService.getReference(userId), productId, quantity);
 
         redirectAttributes.addFlashAttribute(
                 "orderMessage",
@@ -186,10 +188,9 @@ public class OrderController {
             return new ModelAndView("redirect:/login");
         }
 
-        User user = userService.getById(userData.getUserId());
         Order order = orderService.getOrderById(orderId);
 
-        if (!order.getCustomer().getId().equals(user.getId())) {
+        if (!order.getCustomer().getId().equals(userData.getUserId())) {
             throw new IllegalStateException("You are not allowed to view this order.");
         }
 
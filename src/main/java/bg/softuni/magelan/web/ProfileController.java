@@ -11,7 +11,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import bg.softuni.magelan.security.UserData;
-import bg.softuni.magelan.user.model.User;
+import bg.softuni.magelan.security.UserProfile;
 import bg.softuni.magelan.user.service.UserService;
 import bg.softuni.magelan.web.dto.EditProfileRequest;
 
@@ -27,10 +27,8 @@ public class ProfileController {
             return new ModelAndView("redirect:/login");
         }
 
-        User user = userService.getById(userData.getUserId());
-
         ModelAndView modelAndView = new ModelAndView("profile");
-        modelAndView.addObject("user", user);
+        modelAndView.addObject("user", userData.getProfile());
         return modelAndView;
     }
 
@@ -40,15 +38,15 @@ public class ProfileController {
             return new ModelAndView("redirect:/login");
         }
 
-        User user = userService.getById(userData.getUserId());
+        UserProfile profile = userData.getProfile();
 
         EditProfileRequest form = EditProfileRequest.builder()
-                .firstName(user.getFirstName())
-                .lastName(user.getLastName())
-                .email(user.getEmail())
-                .phoneNumber(user.getPhoneNumber())
-                .address(user.getAddress())
-                .profilePictureUrl(user.getProfilePicture())
+                .firstName(profile.firstName())
+                .lastName(profile.lastName())
+                .email(profile.email())
+                .phoneNumber(profile.phoneNumber())
+                .address(profile.address())
+                .profilePictureUrl(profile.profilePicture())
                 .build();
 
         ModelAndView modelAndView = new ModelAndView("profile-edit");
@@ -0,0 +1,138 @@
+package bg.softuni.magelan.web.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.View;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.IWebExchange;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MenuPageCache {
+
+    static final String CSRF_PLACEHOLDER = "__magelan_menu_csrf__";
+    private static final String TEMPLATE = "menu";
+    private static final String CONTENT_TYPE = MediaType.TEXT_HTML_VALUE + ";charset=UTF-8";
+
+    private final ITemplateEngine templateEngine;
+    private final Map<MenuVariant, RenderedPage> pages = new ConcurrentHashMap<>();
+
+    public String eTag(long menuVersion, MenuVariant variant, HttpServletRequest request) {
+        StringBuilder eTag = new StringBuilder("\"menu-")
+                .append(menuVersion)
+                .append('-')
+                .append(variant.name().toLowerCase(Locale.ROOT));
+
+        // A new session means a new CSRF token, so the customer's copy must not be revalidated across sessions.
+        if (variant.isSessionBound()) {
+            HttpSession session = request.getSession(false);
+            eTag.append('-').append(session != null ? Integer.toHexString(session.getId().hashCode()) : "0");
+        }
+        return eTag.append('"').toString();
+    }
+
+    public View view(long menuVersion, MenuVariant variant) {
+        return new CachedMenuView(menuVersion, variant);
+    }
+
+    private RenderedPage pageFor(long menuVersion, MenuVariant variant, Map<String, ?> model,
+                                 HttpServletRequest request, HttpServletResponse response) {
+        return pages.compute(variant, (key, existing) -> {
+            if (existing != null && existing.menuVersion() >= menuVersion) {
+                return existing;
+            }
+            log.info("Rendering {} menu page for menu version {}", variant, menuVersion);
+            return new RenderedPage(menuVersion, render(model, request, response));
+        });
+    }
+
+    private String render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response) {
+        Map<String, Object> variables = new HashMap<>(model);
+        CsrfToken csrfToken = (CsrfToken) request.getAttribute(CsrfToken.class.getName());
+        if (csrfToken != null) {
+            variables.put(csrfToken.getParameterName(), new DefaultCsrfToken(
+                    csrfToken.getHeaderName(), csrfToken.getParameterName(), CSRF_PLACEHOLDER));
+        }
+
+        IWebExchange exchange = JakartaServletWebApplication
+                .buildApplication(request.getServletContext())
+                .buildExchange(request, new NonEncodingResponse(response));
+
+        try {
+            return templateEngine.process(TEMPLATE, new WebContext(exchange, request.getLocale(), variables));
+        } finally {
+            // The web context copies its variables into request attributes; put the real token back.
+            if (csrfToken != null) {
+                request.setAttribute(csrfToken.getParameterName(), csrfToken);
+            }
+        }
+    }
+
+    private record RenderedPage(long menuVersion, String html) {
+    }
+
+    private class CachedMenuView implements View {
+
+        private final long menuVersion;
+        private final MenuVariant variant;
+
+        private CachedMenuView(long menuVersion, MenuVariant variant) {
+            this.menuVersion = menuVersion;
+            this.variant = variant;
+        }
+
+        @Override
+        public String getContentType() {
+            return CONTENT_TYPE;
+        }
+
+        @Override
+        public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response)
+                throws IOException {
+            String html = pageFor(menuVersion, variant, model == null ? Map.of() : model, request, response).html();
+
+            if (variant.isSessionBound()) {
+                CsrfToken csrfToken = (CsrfToken) request.getAttribute(CsrfToken.class.getName());
+                html = html.replace(CSRF_PLACEHOLDER, csrfToken != null ? csrfToken.getToken() : "");
+            }
+
+            response.setContentType(CONTENT_TYPE);
+            response.getWriter().write(html);
+        }
+    }
+
+    // Cached HTML is shared between visitors, so URLs must never carry a rewritten session id.
+    private static class NonEncodingResponse extends HttpServletResponseWrapper {
+
+        private NonEncodingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public String encodeURL(String url) {
+            return url;
+        }
+
+        @Override
+        public String encodeRedirectURL(String url) {
+            return url;
+        }
+    }
+}
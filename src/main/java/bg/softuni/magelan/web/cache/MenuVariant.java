@@ -0,0 +1,27 @@
+package bg.softuni.magelan.web.cache;
+
+import bg.softuni.magelan.security.UserData;
+import bg.softuni.magelan.user.model.UserRole;
+import lombok.Getter;
+
+@Getter
+public enum MenuVariant {
+
+    ANONYMOUS(false),
+    USER(true),
+    ADMIN(false);
+
+    // Only customers get add-to-order forms, and with them a per-session CSRF token.
+    private final boolean sessionBound;
+
+    MenuVariant(boolean sessionBound) {
+        this.sessionBound = sessionBound;
+    }
+
+    public static MenuVariant of(UserData userData) {
+        if (userData == null) {
+            return ANONYMOUS;
+        }
+        return userData.getRole() == UserRole.ADMIN ? ADMIN : USER;
+    }
+}
@@ -4,13 +4,13 @@ import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
-import bg.softuni.magelan.user.repository.UserRepository;
+import bg.softuni.magelan.user.lookup.UsernameLookup;
 
 @Component
 @RequiredArgsConstructor
 public class UniqueUsernameValidator implements ConstraintValidator<UniqueUsername, String> {
 
-    private final UserRepository userRepository;
+    private final UsernameLookup usernameLookup;
 
     @Override
     public boolean isValid(String value, ConstraintValidatorContext context) {
@@ -18,7 +18,6 @@ public class UniqueUsernameValidator implements ConstraintValidator<UniqueUserna
             return true;
         }
 
-        boolean exists = userRepository.findByUsername(value).isPresent();
-        return !exists;
+        return !usernameLookup.isTaken(value);
     }
 }
@@ -0,0 +1,70 @@
+package bg.softuni.magelan.aop;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ServiceMetricsAspectTest {
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    @Mock
+    private MethodSignature signature;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ServiceMetricsAspect aspect;
+
+    static class MenuService {
+        String findDish() {
+            return "Harbor Soup";
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        aspect = new ServiceMetricsAspect(meterRegistry, Duration.ofSeconds(1));
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getMethod()).thenReturn(MenuService.class.getDeclaredMethod("findDish"));
+    }
+
+    @Test
+    void time_shouldRecordSuccessfulCallsUnderOneTimer() throws Throwable {
+        when(joinPoint.proceed()).thenReturn("Harbor Soup");
+
+        assertThat(aspect.time(joinPoint)).isEqualTo("Harbor Soup");
+        aspect.time(joinPoint);
+
+        Timer timer = meterRegistry.get(ServiceMetricsAspect.TIMER_NAME)
+                .tags("class", "MenuService", "method", "findDish", "outcome", "success", "exception", "none")
+                .timer();
+        assertThat(timer.count()).isEqualTo(2);
+    }
+
+    @Test
+    void time_shouldTagFailuresWithExceptionAndRethrow() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("Kitchen closed"));
+
+        assertThatThrownBy(() -> aspect.time(joinPoint))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Kitchen closed");
+
+        assertThat(meterRegistry.get(ServiceMetricsAspect.TIMER_NAME)
+                .tags("outcome", "error", "exception", "IllegalStateException")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find(ServiceMetricsAspect.TIMER_NAME).tag("outcome", "success").timer()).isNull();
+    }
+}
@@ -0,0 +1,46 @@
+package bg.softuni.magelan.archive;
+
+import bg.softuni.magelan.booking.archive.BookingArchiver;
+import bg.softuni.magelan.order.archive.OrderArchiver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ArchivalJobTest {
+
+    @Mock
+    private BookingArchiver bookingArchiver;
+
+    @Mock
+    private OrderArchiver orderArchiver;
+
+    @Test
+    void run_shouldDrainFullChunksUntilAShortOne() {
+        ArchivalJob job = new ArchivalJob(bookingArchiver, orderArchiver, 2, 0, 30, 90, 60);
+        when(bookingArchiver.archiveChunk(LocalDate.now().minusDays(90), 2)).thenReturn(2, 2, 1);
+        when(orderArchiver.archiveChunk(any(LocalDateTime.class), eq(2))).thenReturn(0);
+
+        job.run();
+
+        verify(bookingArchiver, times(3)).archiveChunk(any(), eq(2));
+        verify(orderArchiver, times(1)).archiveChunk(any(), eq(2));
+    }
+
+    @Test
+    void run_shouldStopOnceTheTimeBudgetIsSpent() {
+        ArchivalJob job = new ArchivalJob(bookingArchiver, orderArchiver, 2, 0, 0, 90, 60);
+
+        job.run();
+
+        verifyNoInteractions(bookingArchiver, orderArchiver);
+    }
+}
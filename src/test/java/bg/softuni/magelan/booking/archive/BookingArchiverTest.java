@@ -0,0 +1,86 @@
+package bg.softuni.magelan.booking.archive;
+
+import bg.softuni.magelan.booking.model.ArchivedBooking;
+import bg.softuni.magelan.booking.model.Booking;
+import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.repository.ArchivedBookingRepository;
+import bg.softuni.magelan.booking.repository.BookingRepository;
+import bg.softuni.magelan.user.model.User;
+import bg.softuni.magelan.user.model.UserRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+@Import(BookingArchiver.class)
+class BookingArchiverTest {
+
+    @Autowired
+    private BookingArchiver bookingArchiver;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void archiveChunk_shouldMoveOldestBookingsBeforeCutoff_inBoundedChunks() {
+        LocalDate cutoff = LocalDate.of(2025, 1, 1);
+
+        User user = User.builder()
+                .username("archiveUser")
+                .password("encoded-pass")
+                .role(UserRole.USER)
+                .active(true)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build();
+        entityManager.persist(user);
+
+        for (int daysBefore : new int[]{30, 20, 10, -5}) {
+            entityManager.persist(Booking.builder()
+                    .customer(user)
+                    .date(cutoff.minusDays(daysBefore))
+                    .time(LocalTime.of(19, 0))
+                    .guests(2)
+                    .notes("note " + daysBefore)
+                    .status(BookingStatus.CONFIRMED)
+                    .createdOn(LocalDateTime.now())
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(bookingArchiver.archiveChunk(cutoff, 2)).isEqualTo(2);
+        assertThat(bookingArchiver.archiveChunk(cutoff, 2)).isEqualTo(1);
+        assertThat(bookingArchiver.archiveChunk(cutoff, 2)).isZero();
+        entityManager.clear();
+
+        assertThat(bookingRepository.findAll())
+                .extracting(Booking::getDate)
+                .containsExactly(cutoff.plusDays(5));
+        assertThat(archivedBookingRepository.findAllByCustomer_IdOrderByDateDescTimeDesc(user.getId()))
+                .extracting(ArchivedBooking::getDate, ArchivedBooking::getNotes, ArchivedBooking::getStatus)
+                .containsExactly(
+                        tuple(cutoff.minusDays(10), "note 10", BookingStatus.CONFIRMED),
+                        tuple(cutoff.minusDays(20), "note 20", BookingStatus.CONFIRMED),
+                        tuple(cutoff.minusDays(30), "note 30", BookingStatus.CONFIRMED));
+        assertThat(archivedBookingRepository.findAll()).allMatch(archived -> archived.getArchivedOn() != null);
+    }
+}
@@ -0,0 +1,109 @@
+package bg.softuni.magelan.booking.availability;
+
+import bg.softuni.magelan.booking.capacity.TableCapacityIndex;
+import bg.softuni.magelan.booking.event.BookingChangedEvent;
+import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.repository.BookingRepository;
+import bg.softuni.magelan.booking.repository.BookingSlotGuestsView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityCalendarTest {
+
+    private static final YearMonth NEXT_MONTH = YearMonth.now().plusMonths(1);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private AvailabilityCalendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        TableCapacityIndex tableCapacityIndex = new TableCapacityIndex(bookingRepository, 3, 4, 120);
+        calendar = new AvailabilityCalendar(bookingRepository, tableCapacityIndex,
+                LocalTime.of(18, 0), LocalTime.of(22, 0), 6);
+    }
+
+    private BookingSlotGuestsView row(LocalDate date, LocalTime time, int guests, long bookings) {
+        return new BookingSlotGuestsView() {
+            @Override
+            public LocalDate getDate() {
+                return date;
+            }
+
+            @Override
+            public LocalTime getTime() {
+                return time;
+            }
+
+            @Override
+            public Integer getGuests() {
+                return guests;
+            }
+
+            @Override
+            public Long getBookings() {
+                return bookings;
+            }
+        };
+    }
+
+    @Test
+    void getMonth_shouldComputeFreeSeatsPerSlot_fromOneQuery_andServeRepeatsFromCache() {
+        LocalDate first = NEXT_MONTH.atDay(1);
+        when(bookingRepository.countGuestsBetween(first, NEXT_MONTH.atEndOfMonth(), BookingStatus.CANCELLED))
+                .thenReturn(List.of(
+                        row(first, LocalTime.of(18, 30), 2, 2),
+                        row(first, LocalTime.of(19, 45), 5, 1),
+                        row(first, LocalTime.of(13, 0), 4, 3)));
+
+        MonthAvailability month = calendar.getMonth(NEXT_MONTH);
+        calendar.getMonth(NEXT_MONTH);
+
+        assertThat(month.seatsPerSlot()).isEqualTo(12);
+        assertThat(month.days()).hasSize(NEXT_MONTH.lengthOfMonth());
+        assertThat(month.days().get(0).slots()).containsExactly(
+                new SlotAvailability(LocalTime.of(18, 0), 0, 0),
+                new SlotAvailability(LocalTime.of(20, 0), 3, 12));
+        assertThat(month.days().get(1).slots())
+                .allMatch(slot -> slot.freeTables() == 3);
+        verify(bookingRepository, times(1)).countGuestsBetween(any(), any(), any());
+    }
+
+    @Test
+    void onBookingChanged_shouldReloadOnlyTheChangedDay() {
+        LocalDate changed = NEXT_MONTH.atDay(10);
+        when(bookingRepository.countGuestsBetween(any(), any(), eq(BookingStatus.CANCELLED))).thenReturn(List.of());
+        calendar.getMonth(NEXT_MONTH);
+
+        when(bookingRepository.countGuestsBetween(changed, changed, BookingStatus.CANCELLED))
+                .thenReturn(List.of(row(changed, LocalTime.of(20, 0), 4, 1)));
+        calendar.onBookingChanged(new BookingChangedEvent(changed));
+        MonthAvailability month = calendar.getMonth(NEXT_MONTH);
+
+        assertThat(month.days().get(9).slots().get(1).freeTables()).isEqualTo(2);
+        verify(bookingRepository).countGuestsBetween(changed, changed, BookingStatus.CANCELLED);
+    }
+
+    @Test
+    void getMonth_shouldReturnNoDays_forPastMonths() {
+        MonthAvailability month = calendar.getMonth(YearMonth.now().minusMonths(1));
+
+        assertThat(month.days()).isEmpty();
+        verifyNoInteractions(bookingRepository);
+    }
+}
@@ -0,0 +1,128 @@
+package bg.softuni.magelan.booking.calendar;
+
+import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.repository.BookingCalendarView;
+import bg.softuni.magelan.booking.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingCalendarExporterTest {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 6, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 6, 30);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingCalendarExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new BookingCalendarExporter(bookingRepository, 120);
+    }
+
+    private BookingCalendarView view(UUID id, String notes, BookingStatus status) {
+        return new BookingCalendarView() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+
+            @Override
+            public String getCustomerName() {
+                return "pirate";
+            }
+
+            @Override
+            public LocalDate getDate() {
+                return FROM;
+            }
+
+            @Override
+            public LocalTime getTime() {
+                return LocalTime.of(19, 30);
+            }
+
+            @Override
+            public Integer getGuests() {
+                return 4;
+            }
+
+            @Override
+            public String getPhone() {
+                return "0888123456";
+            }
+
+            @Override
+            public String getNotes() {
+                return notes;
+            }
+
+            @Override
+            public BookingStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public LocalDateTime getUpdatedOn() {
+                return LocalDateTime.of(2025, 5, 1, 10, 0);
+            }
+        };
+    }
+
+    @Test
+    void export_shouldWriteOneEventPerBooking_andCloseTheStream() throws Exception {
+        UUID id = UUID.randomUUID();
+        AtomicBoolean closed = new AtomicBoolean();
+        when(bookingRepository.streamCalendarBetween(FROM, TO)).thenReturn(Stream.of(
+                view(id, "Window, please; thanks", BookingStatus.PENDING),
+                view(UUID.randomUUID(), null, BookingStatus.CANCELLED)).onClose(() -> closed.set(true)));
+
+        StringWriter writer = new StringWriter();
+        int exported = exporter.export(FROM, TO, writer);
+
+        String feed = writer.toString();
+        assertThat(exported).isEqualTo(2);
+        assertThat(closed).isTrue();
+        assertThat(feed).startsWith("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n").endsWith("END:VCALENDAR\r\n");
+        assertThat(feed).contains(
+                "UID:" + id + "@magelan\r\n",
+                "DTSTART:20250601T193000\r\n",
+                "DTEND:20250601T213000\r\n",
+                "SUMMARY:Table for 4 - pirate\r\n",
+                "DESCRIPTION:Phone: 0888123456\\nNotes: Window\\, please\\; thanks\r\n",
+                "STATUS:TENTATIVE\r\n",
+                "STATUS:CANCELLED\r\n");
+    }
+
+    @Test
+    void writeLine_shouldFoldLongLinesAt75Octets_withoutSplittingCharacters() throws Exception {
+        StringWriter writer = new StringWriter();
+        String line = "DESCRIPTION:" + "ж".repeat(60);
+
+        BookingCalendarExporter.writeLine(writer, line);
+
+        String[] physical = writer.toString().split("\r\n");
+        assertThat(physical).hasSizeGreaterThan(1);
+        for (String part : physical) {
+            assertThat(part.getBytes(StandardCharsets.UTF_8).length).isLessThanOrEqualTo(75);
+        }
+        assertThat(writer.toString().replace("\r\n ", "")).isEqualTo(line + "\r\n");
+    }
+}
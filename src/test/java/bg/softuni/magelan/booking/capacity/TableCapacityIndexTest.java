@@ -0,0 +1,152 @@
+package bg.softuni.magelan.booking.capacity;
+
+import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.repository.BookingRepository;
+import bg.softuni.magelan.booking.repository.BookingSeatsView;
+import bg.softuni.magelan.exception.BookingCapacityExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TableCapacityIndexTest {
+
+    private static final LocalDate DATE = LocalDate.now().plusDays(3);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private TableCapacityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TableCapacityIndex(bookingRepository, 3, 4, 120);
+    }
+
+    private BookingSeatsView seats(LocalTime time, int guests) {
+        return new BookingSeatsView() {
+            @Override
+            public LocalDate getDate() {
+                return DATE;
+            }
+
+            @Override
+            public LocalTime getTime() {
+                return time;
+            }
+
+            @Override
+            public Integer getGuests() {
+                return guests;
+            }
+        };
+    }
+
+    @Test
+    void tryReserve_shouldConsumeWholeTablesPerSlot_andReleaseUpToCapacity() {
+        assertThat(index.tryReserve(DATE, LocalTime.of(19, 0), 6)).isTrue();
+        assertThat(index.remainingSeats(DATE, LocalTime.of(18, 15))).isEqualTo(4);
+        assertThat(index.tryReserve(DATE, LocalTime.of(19, 30), 5)).isFalse();
+        assertThat(index.remainingSeats(DATE, LocalTime.of(20, 0))).isEqualTo(12);
+
+        index.release(DATE, LocalTime.of(19, 0), 6);
+        index.release(DATE, LocalTime.of(19, 0), 6);
+
+        assertThat(index.remainingSeats(DATE, LocalTime.of(19, 0))).isEqualTo(12);
+    }
+
+    @Test
+    void rebuild_shouldLoadUpcomingActiveBookings() {
+        when(bookingRepository.findSeatsFrom(any(LocalDate.class), eq(BookingStatus.CANCELLED)))
+                .thenReturn(List.of(seats(LocalTime.of(19, 0), 2), seats(LocalTime.of(18, 30), 4)));
+
+        index.rebuild();
+
+        assertThat(index.remainingSeats(DATE, LocalTime.of(19, 0))).isEqualTo(4);
+        assertThat(index.tryReserve(DATE, LocalTime.of(19, 0), 5)).isFalse();
+    }
+
+    @Test
+    void rebuild_shouldKeepReservationsWhoseBookingIsNotCommittedYet() {
+        when(bookingRepository.findSeatsFrom(any(LocalDate.class), eq(BookingStatus.CANCELLED)))
+                .thenReturn(List.of(seats(LocalTime.of(19, 0), 4)))
+                .thenReturn(List.of(seats(LocalTime.of(19, 0), 4), seats(LocalTime.of(19, 0), 4)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(index.reserveIfAvailable(DATE, LocalTime.of(19, 0), 4)).isTrue();
+            index.rebuild();
+            assertThat(index.remainingSeats(DATE, LocalTime.of(19, 0))).isEqualTo(4);
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(sync -> sync.beforeCommit(false));
+            synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Committed now, so the next rebuild finds the booking in the database and counts it once.
+        index.rebuild();
+        assertThat(index.remainingSeats(DATE, LocalTime.of(19, 0))).isEqualTo(4);
+    }
+
+    @Test
+    void tryReserve_shouldNeverOversell_underConcurrentAttempts() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            attempts.add(pool.submit(() -> {
+                start.await();
+                return index.tryReserve(DATE, LocalTime.of(20, 0), 2);
+            }));
+        }
+
+        start.countDown();
+        int granted = 0;
+        for (Future<Boolean> attempt : attempts) {
+            granted += attempt.get(5, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        pool.shutdown();
+
+        assertThat(granted).isEqualTo(3);
+        assertThat(index.remainingSeats(DATE, LocalTime.of(20, 0))).isZero();
+    }
+
+    @Test
+    void reserve_shouldThrowWhenFull_andGiveTablesBackOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.reserve(DATE, LocalTime.of(19, 0), 12);
+            assertThatThrownBy(() -> index.reserve(DATE, LocalTime.of(19, 0), 1))
+                    .isInstanceOf(BookingCapacityExceededException.class);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(index.remainingSeats(DATE, LocalTime.of(19, 0))).isEqualTo(12);
+    }
+}
@@ -0,0 +1,143 @@
+package bg.softuni.magelan.booking.reminder;
+
+import bg.softuni.magelan.booking.event.BookingStatusChangedEvent;
+import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.repository.BookingRepository;
+import bg.softuni.magelan.booking.repository.BookingStatusView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingReminderDispatcherTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private final List<BookingReminder> delivered = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BookingReminderDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new BookingReminderDispatcher(bookingRepository, List.of(delivered::add), meterRegistry, 3, 2, 1000);
+        lenient().when(bookingRepository.claimReminder(any(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    private BookingStatusChangedEvent event(LocalDateTime startsAt, BookingStatus status) {
+        return event(UUID.randomUUID(), startsAt, status);
+    }
+
+    private BookingStatusChangedEvent event(UUID bookingId, LocalDateTime startsAt, BookingStatus status) {
+        return new BookingStatusChangedEvent(bookingId, UUID.randomUUID(),
+                startsAt.toLocalDate(), startsAt.toLocalTime(), status);
+    }
+
+    @Test
+    void dispatchDue_shouldSendOnlyDueReminders_inBatches_andRecordMetrics() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            dispatcher.onStatusChanged(event(now.plusHours(1), BookingStatus.CONFIRMED));
+        }
+        dispatcher.onStatusChanged(event(now.plusDays(2), BookingStatus.CONFIRMED));
+
+        dispatcher.dispatchDue();
+
+        assertThat(delivered).hasSize(5);
+        assertThat(dispatcher.getPendingCount()).isEqualTo(1);
+        assertThat(meterRegistry.counter("magelan.booking.reminders.sent").count()).isEqualTo(5);
+        assertThat(meterRegistry.timer("magelan.booking.reminders.lag").count()).isEqualTo(5);
+        assertThat(meterRegistry.get("magelan.booking.reminders.pending").gauge().value()).isEqualTo(1);
+        verify(bookingRepository, times(5)).claimReminder(any(), any());
+    }
+
+    @Test
+    void onStatusChanged_shouldDropReminder_whenBookingIsNoLongerConfirmed() {
+        UUID bookingId = UUID.randomUUID();
+        LocalDateTime startsAt = LocalDateTime.now().plusHours(2);
+
+        dispatcher.onStatusChanged(event(bookingId, startsAt, BookingStatus.CONFIRMED));
+        dispatcher.onStatusChanged(event(bookingId, startsAt, BookingStatus.CANCELLED));
+        dispatcher.onStatusChanged(event(LocalDateTime.now().minusHours(1), BookingStatus.CONFIRMED));
+        dispatcher.dispatchDue();
+
+        assertThat(delivered).isEmpty();
+        assertThat(dispatcher.getPendingCount()).isZero();
+    }
+
+    @Test
+    void rebuild_shouldQueueUpcomingReminders_andSendOverdueOnesRightAway() {
+        LocalDateTime tomorrow = LocalDateTime.now().plusDays(1).withNano(0);
+        LocalDateTime soon = LocalDateTime.now().plusHours(1).withNano(0);
+        BookingStatusView overdue = view(soon);
+        List<BookingStatusView> unreminded = List.of(view(tomorrow), overdue);
+        when(bookingRepository.findAwaitingReminderFrom(eq(BookingStatus.CONFIRMED), any())).thenReturn(unreminded);
+
+        dispatcher.rebuild();
+        dispatcher.dispatchDue();
+
+        assertThat(dispatcher.getPendingCount()).isEqualTo(1);
+        assertThat(delivered).extracting(BookingReminder::bookingId).containsExactly(overdue.getId());
+        verify(bookingRepository).claimReminder(eq(overdue.getId()), any());
+    }
+
+    @Test
+    void dispatchDue_shouldSendOnce_whenBookingIsConfirmedAgain() {
+        UUID bookingId = UUID.randomUUID();
+        LocalDateTime startsAt = LocalDateTime.now().plusHours(1);
+
+        dispatcher.onStatusChanged(event(bookingId, startsAt, BookingStatus.CONFIRMED));
+        dispatcher.dispatchDue();
+        when(bookingRepository.claimReminder(eq(bookingId), any())).thenReturn(0);
+        dispatcher.onStatusChanged(event(bookingId, startsAt, BookingStatus.CONFIRMED));
+        dispatcher.dispatchDue();
+
+        assertThat(delivered).hasSize(1);
+        assertThat(meterRegistry.counter("magelan.booking.reminders.sent").count()).isEqualTo(1);
+    }
+
+    @Test
+    void dispatchDue_shouldReleaseClaim_whenSinkFails() {
+        dispatcher = new BookingReminderDispatcher(bookingRepository, List.of(reminder -> {
+            throw new IllegalStateException("Mail server down");
+        }), meterRegistry, 3, 2, 1000);
+        dispatcher.onStatusChanged(event(LocalDateTime.now().plusHours(1), BookingStatus.CONFIRMED));
+
+        dispatcher.dispatchDue();
+
+        assertThat(meterRegistry.counter("magelan.booking.reminders.failed").count()).isEqualTo(1);
+        verify(bookingRepository).releaseReminder(any());
+    }
+
+    private BookingStatusView view(LocalDateTime startsAt) {
+        BookingStatusView view = mock(BookingStatusView.class);
+        when(view.getId()).thenReturn(UUID.randomUUID());
+        when(view.getCustomerId()).thenReturn(UUID.randomUUID());
+        when(view.getDate()).thenReturn(startsAt.toLocalDate());
+        when(view.getTime()).thenReturn(startsAt.toLocalTime());
+        return view;
+    }
+}
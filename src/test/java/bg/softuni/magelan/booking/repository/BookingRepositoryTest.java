@@ -4,11 +4,15 @@ import bg.softuni.magelan.booking.model.Booking;
 import bg.softuni.magelan.booking.model.BookingStatus;
 import bg.softuni.magelan.user.model.User;
 import bg.softuni.magelan.user.model.UserRole;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -16,6 +20,7 @@ import java.time.LocalTime;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest(properties = {
         "spring.jpa.hibernate.ddl-auto=create-drop",
@@ -90,4 +95,219 @@ class BookingRepositoryTest {
                         today.plusDays(1)
                 );
     }
+
+    @Test
+    void countGuestsBetween_shouldGroupActiveBookingsBySlotAndPartySize() {
+        LocalDate day = LocalDate.of(2025, 3, 14);
+
+        User user = User.builder()
+                .username("aggregateUser")
+                .password("encoded-pass")
+                .role(UserRole.USER)
+                .active(true)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build();
+        entityManager.persist(user);
+
+        for (BookingStatus status : List.of(BookingStatus.PENDING, BookingStatus.CONFIRMED, BookingStatus.CANCELLED)) {
+            entityManager.persist(Booking.builder()
+                    .customer(user)
+                    .date(day)
+                    .time(LocalTime.of(19, 0))
+                    .guests(2)
+                    .status(status)
+                    .createdOn(LocalDateTime.now())
+                    .build());
+        }
+        entityManager.persist(Booking.builder()
+                .customer(user)
+                .date(day.plusDays(1))
+                .time(LocalTime.of(20, 0))
+                .guests(6)
+                .status(BookingStatus.PENDING)
+                .createdOn(LocalDateTime.now())
+                .build());
+        entityManager.persist(Booking.builder()
+                .customer(user)
+                .date(day.plusDays(5))
+                .time(LocalTime.of(20, 0))
+                .guests(6)
+                .status(BookingStatus.PENDING)
+                .createdOn(LocalDateTime.now())
+                .build());
+        entityManager.flush();
+
+        List<BookingSlotGuestsView> result = bookingRepository
+                .countGuestsBetween(day, day.plusDays(1), BookingStatus.CANCELLED);
+
+        assertThat(result)
+                .extracting(BookingSlotGuestsView::getDate, BookingSlotGuestsView::getGuests, BookingSlotGuestsView::getBookings)
+                .containsExactlyInAnyOrder(
+                        tuple(day, 2, 2L),
+                        tuple(day.plusDays(1), 6, 1L));
+    }
+
+    @Test
+    void findByDateBetween_shouldScrollByKeysetWithCustomersLoaded() {
+        LocalDate day = LocalDate.of(2025, 6, 1);
+
+        User user = User.builder()
+                .username("keysetUser")
+                .password("encoded-pass")
+                .firstName("Jack")
+                .lastName("Sparrow")
+                .role(UserRole.USER)
+                .active(true)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build();
+        entityManager.persist(user);
+
+        for (int i = 0; i < 5; i++) {
+            entityManager.persist(Booking.builder()
+                    .customer(user)
+                    .date(day.plusDays(i % 2))
+                    .time(LocalTime.of(18 + i, 0))
+                    .guests(2)
+                    .status(BookingStatus.PENDING)
+                    .createdOn(LocalDateTime.now())
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Window<Booking> first = bookingRepository.findByDateBetweenOrderByDateAscTimeAscIdAsc(
+                day, day.plusDays(1), ScrollPosition.keyset(), Limit.of(3));
+        Window<Booking> second = bookingRepository.findByDateBetweenOrderByDateAscTimeAscIdAsc(
+                day, day.plusDays(1), first.positionAt(first.size() - 1), Limit.of(3));
+
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.hasNext()).isFalse();
+        assertThat(first.getContent())
+                .extracting(Booking::getTime)
+                .containsExactly(LocalTime.of(18, 0), LocalTime.of(20, 0), LocalTime.of(22, 0));
+        assertThat(second.getContent())
+                .extracting(Booking::getTime)
+                .containsExactly(LocalTime.of(19, 0), LocalTime.of(21, 0));
+        assertThat(Hibernate.isInitialized(first.getContent().get(0).getCustomer())).isTrue();
+    }
+
+    @Test
+    void lockForStatusChange_andUpdateStatus_shouldMoveMatchingActiveBookingsInOneStatement() {
+        LocalDate day = LocalDate.of(2025, 8, 9);
+
+        User user = User.builder()
+                .username("bulkUser")
+                .password("encoded-pass")
+                .role(UserRole.USER)
+                .active(true)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build();
+        entityManager.persist(user);
+
+        List<Booking> bookings = List.of(
+                Booking.builder().customer(user).date(day).time(LocalTime.of(18, 0)).guests(2)
+                        .status(BookingStatus.PENDING).createdOn(LocalDateTime.now()).build(),
+                Booking.builder().customer(user).date(day).time(LocalTime.of(20, 0)).guests(4)
+                        .status(BookingStatus.PENDING).createdOn(LocalDateTime.now()).build(),
+                Booking.builder().customer(user).date(day).time(LocalTime.of(21, 0)).guests(2)
+                        .status(BookingStatus.CANCELLED).createdOn(LocalDateTime.now()).build(),
+                Booking.builder().customer(user).date(day.plusDays(1)).time(LocalTime.of(19, 0)).guests(2)
+                        .status(BookingStatus.PENDING).createdOn(LocalDateTime.now()).build());
+        bookings.forEach(entityManager::persist);
+        entityManager.flush();
+
+        List<BookingStatusView> onDay = bookingRepository.lockForStatusChange(
+                day, null, true, List.of(), BookingStatus.CONFIRMED, BookingStatus.CANCELLED);
+        List<BookingStatusView> byId = bookingRepository.lockForStatusChange(
+                null, BookingStatus.PENDING, false, List.of(bookings.get(3).getId()),
+                BookingStatus.CONFIRMED, BookingStatus.CANCELLED);
+
+        assertThat(onDay)
+                .extracting(BookingStatusView::getId)
+                .containsExactlyInAnyOrder(bookings.get(0).getId(), bookings.get(1).getId());
+        assertThat(onDay).allMatch(view -> user.getId().equals(view.getCustomerId()));
+        assertThat(byId).extracting(BookingStatusView::getId).containsExactly(bookings.get(3).getId());
+
+        int updated = bookingRepository.updateStatus(
+                onDay.stream().map(BookingStatusView::getId).toList(), BookingStatus.CONFIRMED);
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(bookingRepository.findById(bookings.get(1).getId()).orElseThrow().getStatus())
+                .isEqualTo(BookingStatus.CONFIRMED);
+        assertThat(bookingRepository.findById(bookings.get(2).getId()).orElseThrow().getStatus())
+                .isEqualTo(BookingStatus.CANCELLED);
+    }
+
+    @Test
+    void findAwaitingReminderFrom_shouldSkipBookingsAlreadyReminded() {
+        LocalDate day = LocalDate.of(2025, 8, 9);
+
+        User user = User.builder()
+                .username("remindedUser")
+                .password("encoded-pass")
+                .role(UserRole.USER)
+                .active(true)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build();
+        entityManager.persist(user);
+
+        Booking reminded = Booking.builder().customer(user).date(day).time(LocalTime.of(18, 0)).guests(2)
+                .status(BookingStatus.CONFIRMED).createdOn(LocalDateTime.now()).build();
+        Booking waiting = Booking.builder().customer(user).date(day).time(LocalTime.of(20, 0)).guests(2)
+                .status(BookingStatus.CONFIRMED).createdOn(LocalDateTime.now()).build();
+        entityManager.persist(reminded);
+        entityManager.persist(waiting);
+        entityManager.flush();
+
+        assertThat(bookingRepository.claimReminder(reminded.getId(), LocalDateTime.now())).isEqualTo(1);
+        assertThat(bookingRepository.claimReminder(reminded.getId(), LocalDateTime.now())).isZero();
+        entityManager.clear();
+
+        assertThat(bookingRepository.findAwaitingReminderFrom(BookingStatus.CONFIRMED, day))
+                .extracting(BookingStatusView::getId)
+                .containsExactly(waiting.getId());
+        assertThat(bookingRepository.findById(reminded.getId()).orElseThrow().getReminderSentOn()).isNotNull();
+    }
+
+    @Test
+    void streamCalendarBetween_shouldStreamRangeInOrder_withLastModifiedWatermark() {
+        LocalDate day = LocalDate.of(2025, 6, 1);
+        LocalDateTime created = LocalDateTime.of(2025, 5, 1, 10, 0);
+
+        User user = User.builder()
+                .username("calendarUser")
+                .password("encoded-pass")
+                .role(UserRole.USER)
+                .active(true)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build();
+        entityManager.persist(user);
+
+        Booking later = Booking.builder().customer(user).date(day).time(LocalTime.of(20, 0)).guests(4)
+                .status(BookingStatus.CONFIRMED).createdOn(created).updatedOn(created.plusDays(3)).build();
+        Booking earlier = Booking.builder().customer(user).date(day).time(LocalTime.of(18, 0)).guests(2)
+                .status(BookingStatus.PENDING).createdOn(created).build();
+        Booking outside = Booking.builder().customer(user).date(day.plusDays(5)).time(LocalTime.of(19, 0)).guests(2)
+                .status(BookingStatus.PENDING).createdOn(created.plusDays(10)).build();
+        List.of(later, earlier, outside).forEach(entityManager::persist);
+        entityManager.flush();
+
+        List<BookingCalendarView> streamed;
+        try (var stream = bookingRepository.streamCalendarBetween(day, day.plusDays(1))) {
+            streamed = stream.toList();
+        }
+
+        assertThat(streamed)
+                .extracting(BookingCalendarView::getId, BookingCalendarView::getCustomerName, BookingCalendarView::getUpdatedOn)
+                .containsExactly(
+                        tuple(earlier.getId(), "calendarUser", created),
+                        tuple(later.getId(), "calendarUser", created.plusDays(3)));
+        assertThat(bookingRepository.findLastModifiedBetween(day, day.plusDays(1))).isEqualTo(created.plusDays(3));
+        assertThat(bookingRepository.findLastModifiedBetween(day.plusDays(20), day.plusDays(30))).isNull();
+    }
 }
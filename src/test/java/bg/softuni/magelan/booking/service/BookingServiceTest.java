@@ -1,8 +1,17 @@
 package bg.softuni.magelan.booking.service;
 
+import bg.softuni.magelan.booking.availability.AvailabilityCalendar;
+import bg.softuni.magelan.booking.capacity.TableCapacityIndex;
+import bg.softuni.magelan.booking.event.BookingChangedEvent;
+import bg.softuni.magelan.booking.event.BookingStatusChangedEvent;
+import bg.softuni.magelan.booking.model.ArchivedBooking;
 import bg.softuni.magelan.booking.model.Booking;
 import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.repository.ArchivedBookingRepository;
 import bg.softuni.magelan.booking.repository.BookingRepository;
+import bg.softuni.magelan.booking.repository.BookingStatusView;
+import bg.softuni.magelan.booking.waitlist.BookingWaitlist;
+import bg.softuni.magelan.exception.BookingCapacityExceededException;
 import bg.softuni.magelan.exception.BookingNotFoundException;
 import bg.softuni.magelan.user.model.User;
 import bg.softuni.magelan.web.dto.BookTableRequest;
@@ -10,14 +19,21 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -32,6 +48,21 @@ class BookingServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private ArchivedBookingRepository archivedBookingRepository;
+
+    @Mock
+    private TableCapacityIndex tableCapacityIndex;
+
+    @Mock
+    private AvailabilityCalendar availabilityCalendar;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Mock
+    private BookingWaitlist bookingWaitlist;
+
     @InjectMocks
     private BookingService bookingService;
 
@@ -55,7 +86,12 @@ class BookingServiceTest {
 
     @Test
     void createBooking_shouldSaveBookingWithCorrectFields() {
-        bookingService.createBooking(user, request);
+        when(tableCapacityIndex.fitsInSlot(4)).thenReturn(true);
+        when(tableCapacityIndex.reserveIfAvailable(request.getDate(), request.getTime(), 4)).thenReturn(true);
+
+        BookingRequestResult result = bookingService.createBooking(user, request);
+
+        assertThat(result.booked()).isTrue();
 
         ArgumentCaptor<Booking> captor = ArgumentCaptor.forClass(Booking.class);
         verify(bookingRepository).save(captor.capture());
@@ -88,57 +124,102 @@ class BookingServiceTest {
     }
 
     @Test
-    void getPastBookingsForUser_shouldDelegateToRepositoryWithToday() {
+    void getPastBookingsForUser_shouldMergeLiveAndArchivedPages_newestFirst_andCutToOnePage() {
         UUID userId = UUID.randomUUID();
-        List<Booking> bookings = List.of(new Booking());
-        when(bookingRepository
-                .findAllByCustomer_IdAndDateLessThanOrderByDateDesc(eq(userId), any(LocalDate.class)))
-                .thenReturn(bookings);
-
-        List<Booking> result = bookingService.getPastBookingsForUser(userId);
+        LocalDate lastWeek = LocalDate.now().minusDays(7);
+        List<Booking> recent = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            recent.add(Booking.builder().id(UUID.randomUUID()).date(lastWeek.minusDays(i * 2L))
+                    .time(LocalTime.of(19, 0)).build());
+        }
+        ArchivedBooking archived = ArchivedBooking.builder()
+                .id(UUID.randomUUID())
+                .date(lastWeek.minusDays(1))
+                .time(LocalTime.of(20, 0))
+                .guests(2)
+                .status(BookingStatus.CONFIRMED)
+                .build();
+        when(bookingRepository.findByCustomer_IdAndDateLessThanOrderByDateDescTimeDescIdDesc(
+                eq(userId), any(LocalDate.class), eq(ScrollPosition.keyset()), eq(Limit.of(20))))
+                .thenReturn(Window.from(recent, index -> ScrollPosition.keyset(), true));
+        when(archivedBookingRepository.findByCustomer_IdOrderByDateDescTimeDescIdDesc(
+                userId, ScrollPosition.keyset(), Limit.of(20)))
+                .thenReturn(Window.from(List.of(archived), index -> ScrollPosition.keyset()));
+
+        BookingPage page = bookingService.getPastBookingsForUser(userId, null);
+
+        assertThat(page.bookings()).hasSize(20);
+        assertThat(page.bookings().get(0)).isSameAs(recent.get(0));
+        assertThat(page.bookings().get(1).getId()).isEqualTo(archived.getId());
+        assertThat(page.bookings().get(1).getStatus()).isEqualTo(BookingStatus.CONFIRMED);
+        Booking last = recent.get(18);
+        assertThat(page.bookings().get(19)).isSameAs(last);
+        assertThat(page.nextCursor()).isEqualTo(last.getDate() + "_19:00_" + last.getId());
+    }
 
-        assertThat(result).isEqualTo(bookings);
-        verify(bookingRepository)
-                .findAllByCustomer_IdAndDateLessThanOrderByDateDesc(eq(userId), any(LocalDate.class));
+    @Test
+    void getPastBookingsForUser_shouldHaveNoCursor_whenEverythingFitsOnOnePage() {
+        UUID userId = UUID.randomUUID();
+        Booking recent = Booking.builder().id(UUID.randomUUID()).date(LocalDate.now().minusDays(3))
+                .time(LocalTime.of(19, 0)).build();
+        when(bookingRepository.findByCustomer_IdAndDateLessThanOrderByDateDescTimeDescIdDesc(
+                eq(userId), any(LocalDate.class), any(ScrollPosition.class), any(Limit.class)))
+                .thenReturn(Window.from(List.of(recent), index -> ScrollPosition.keyset()));
+        when(archivedBookingRepository.findByCustomer_IdOrderByDateDescTimeDescIdDesc(
+                eq(userId), any(ScrollPosition.class), any(Limit.class)))
+                .thenReturn(Window.from(List.of(), index -> ScrollPosition.keyset()));
+
+        BookingPage page = bookingService.getPastBookingsForUser(userId, null);
+
+        assertThat(page.bookings()).containsExactly(recent);
+        assertThat(page.hasNext()).isFalse();
     }
 
     @Test
-    void getUpcomingBookingsForAdmin_shouldDelegateToRepository() {
-        List<Booking> bookings = List.of(new Booking());
-        when(bookingRepository
-                .findAllByDateGreaterThanEqualOrderByDateAscTimeAsc(any(LocalDate.class)))
-                .thenReturn(bookings);
+    void getUpcomingBookingsForAdmin_shouldClampRangeToToday_andExposeNextCursor() {
+        Booking last = Booking.builder()
+                .id(UUID.randomUUID())
+                .date(LocalDate.now().plusDays(2))
+                .time(LocalTime.of(19, 30))
+                .build();
+        when(bookingRepository.findByDateBetweenOrderByDateAscTimeAscIdAsc(
+                eq(LocalDate.now()), eq(LocalDate.of(9999, 12, 31)), eq(ScrollPosition.keyset()), eq(Limit.of(25))))
+                .thenReturn(Window.from(List.of(last), index -> ScrollPosition.keyset(), true));
 
-        List<Booking> result = bookingService.getUpcomingBookingsForAdmin();
+        BookingPage page = bookingService.getUpcomingBookingsForAdmin(LocalDate.now().minusYears(1), null, null);
 
-        assertThat(result).isEqualTo(bookings);
-        verify(bookingRepository)
-                .findAllByDateGreaterThanEqualOrderByDateAscTimeAsc(any(LocalDate.class));
+        assertThat(page.bookings()).containsExactly(last);
+        assertThat(page.nextCursor()).isEqualTo(last.getDate() + "_19:30_" + last.getId());
     }
 
     @Test
-    void getPastBookingsForAdmin_shouldDelegateToRepository() {
-        List<Booking> bookings = List.of(new Booking());
-        when(bookingRepository
-                .findAllByDateLessThanOrderByDateDescTimeDesc(any(LocalDate.class)))
-                .thenReturn(bookings);
-
-        List<Booking> result = bookingService.getPastBookingsForAdmin();
-
-        assertThat(result).isEqualTo(bookings);
-        verify(bookingRepository)
-                .findAllByDateLessThanOrderByDateDescTimeDesc(any(LocalDate.class));
+    void getPastBookingsForAdmin_shouldContinueAfterCursor_inDescendingOrder() {
+        UUID lastSeen = UUID.randomUUID();
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        ScrollPosition after = ScrollPosition.forward(Map.of(
+                "date", LocalDate.of(2025, 1, 20),
+                "time", LocalTime.of(18, 0),
+                "id", lastSeen));
+        when(bookingRepository.findByDateBetweenOrderByDateDescTimeDescIdDesc(
+                eq(from), eq(LocalDate.now().minusDays(1)), eq(after), eq(Limit.of(25))))
+                .thenReturn(Window.from(List.of(), index -> ScrollPosition.keyset()));
+
+        BookingPage page = bookingService.getPastBookingsForAdmin(from, null, "2025-01-20_18:00_" + lastSeen);
+
+        assertThat(page.bookings()).isEmpty();
+        assertThat(page.hasNext()).isFalse();
     }
 
     @Test
-    void getAllBookings_shouldDelegateToRepository() {
-        List<Booking> bookings = List.of(new Booking());
-        when(bookingRepository.findAllByOrderByDateAscTimeAsc()).thenReturn(bookings);
+    void searchBookingsForAdmin_shouldRejectMalformedCursor_andSkipQueryForEmptyRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.searchBookingsForAdmin(null, null, "not-a-cursor"));
 
-        List<Booking> result = bookingService.getAllBookings();
+        BookingPage page = bookingService.searchBookingsForAdmin(
+                LocalDate.of(2025, 2, 1), LocalDate.of(2025, 1, 1), null);
 
-        assertThat(result).isEqualTo(bookings);
-        verify(bookingRepository).findAllByOrderByDateAscTimeAsc();
+        assertThat(page.bookings()).isEmpty();
+        verifyNoInteractions(bookingRepository);
     }
 
     @Test
@@ -154,6 +235,7 @@ class BookingServiceTest {
 
         assertThat(booking.getStatus()).isEqualTo(BookingStatus.CONFIRMED);
         verify(bookingRepository).save(booking);
+        verifyNoInteractions(tableCapacityIndex);
     }
 
     @Test
@@ -166,5 +248,138 @@ class BookingServiceTest {
 
         verify(bookingRepository).findById(bookingId);
         verify(bookingRepository, never()).save(any());
+        verifyNoInteractions(applicationEventPublisher);
+    }
+
+    @Test
+    void createBooking_shouldReserveTablesBeforeSaving() {
+        when(tableCapacityIndex.fitsInSlot(4)).thenReturn(true);
+        when(tableCapacityIndex.reserveIfAvailable(request.getDate(), request.getTime(), 4)).thenReturn(true);
+
+        bookingService.createBooking(user, request);
+
+        InOrder inOrder = inOrder(tableCapacityIndex, bookingRepository);
+        inOrder.verify(tableCapacityIndex).reserveIfAvailable(request.getDate(), request.getTime(), 4);
+        inOrder.verify(bookingRepository).save(any(Booking.class));
+        verify(applicationEventPublisher).publishEvent(new BookingChangedEvent(request.getDate()));
+    }
+
+    @Test
+    void createBooking_shouldJoinWaitlist_whenSlotIsFull() {
+        when(tableCapacityIndex.fitsInSlot(4)).thenReturn(true);
+        when(tableCapacityIndex.reserveIfAvailable(request.getDate(), request.getTime(), 4)).thenReturn(false);
+        when(bookingWaitlist.join(user, request)).thenReturn(3);
+
+        BookingRequestResult result = bookingService.createBooking(user, request);
+
+        assertThat(result.booked()).isFalse();
+        assertThat(result.waitlistPosition()).isEqualTo(3);
+        verify(bookingRepository, never()).save(any());
+        verifyNoInteractions(applicationEventPublisher);
+    }
+
+    @Test
+    void createBooking_shouldJoinWaitlistWithoutReserving_whenPartiesAreAlreadyWaiting() {
+        when(tableCapacityIndex.fitsInSlot(4)).thenReturn(true);
+        when(bookingWaitlist.waitingCount(request.getDate(), request.getTime())).thenReturn(1);
+        when(bookingWaitlist.join(user, request)).thenReturn(2);
+
+        BookingRequestResult result = bookingService.createBooking(user, request);
+
+        assertThat(result.waitlistPosition()).isEqualTo(2);
+        verify(tableCapacityIndex, never()).reserveIfAvailable(any(), any(), anyInt());
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void createBooking_shouldThrow_whenPartyIsLargerThanTheRoom() {
+        when(tableCapacityIndex.fitsInSlot(4)).thenReturn(false);
+
+        assertThrows(BookingCapacityExceededException.class, () -> bookingService.createBooking(user, request));
+
+        verify(tableCapacityIndex, never()).reserveIfAvailable(any(), any(), anyInt());
+        verifyNoInteractions(bookingWaitlist, applicationEventPublisher);
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void changeStatus_shouldReleaseTables_whenCancelled_andReserveAgain_whenRestored() {
+        UUID bookingId = UUID.randomUUID();
+        Booking booking = Booking.builder()
+                .id(bookingId)
+                .date(request.getDate())
+                .time(request.getTime())
+                .guests(4)
+                .status(BookingStatus.CONFIRMED)
+                .build();
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+
+        bookingService.changeStatus(bookingId, BookingStatus.CANCELLED);
+        verify(tableCapacityIndex).releaseOnCommit(request.getDate(), request.getTime(), 4);
+
+        bookingService.changeStatus(bookingId, BookingStatus.PENDING);
+        verify(tableCapacityIndex).reserve(request.getDate(), request.getTime(), 4);
+        assertThat(booking.getStatus()).isEqualTo(BookingStatus.PENDING);
+    }
+
+    private BookingStatusView statusView(UUID id, LocalTime time, int guests) {
+        BookingStatusView view = mock(BookingStatusView.class);
+        lenient().when(view.getId()).thenReturn(id);
+        lenient().when(view.getCustomerId()).thenReturn(user.getId());
+        lenient().when(view.getDate()).thenReturn(request.getDate());
+        lenient().when(view.getTime()).thenReturn(time);
+        lenient().when(view.getGuests()).thenReturn(guests);
+        return view;
+    }
+
+    @Test
+    void changeStatuses_shouldCancelMatchingBookingsInOneUpdate_releaseTables_andNotifyEach() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        List<BookingStatusView> matched = List.of(
+                statusView(first, LocalTime.of(18, 0), 2), statusView(second, LocalTime.of(20, 0), 6));
+        when(bookingRepository.lockForStatusChange(request.getDate(), null, true, List.of(),
+                BookingStatus.CANCELLED, BookingStatus.CANCELLED))
+                .thenReturn(matched);
+        when(bookingRepository.updateStatus(List.of(first, second), BookingStatus.CANCELLED)).thenReturn(2);
+
+        int updated = bookingService.changeStatuses(request.getDate(), null, null, BookingStatus.CANCELLED);
+
+        assertThat(updated).isEqualTo(2);
+        verify(tableCapacityIndex).releaseOnCommit(request.getDate(), LocalTime.of(18, 0), 2);
+        verify(tableCapacityIndex).releaseOnCommit(request.getDate(), LocalTime.of(20, 0), 6);
+        verify(applicationEventPublisher).publishEvent(new BookingStatusChangedEvent(
+                first, user.getId(), request.getDate(), LocalTime.of(18, 0), BookingStatus.CANCELLED));
+        verify(applicationEventPublisher).publishEvent(new BookingStatusChangedEvent(
+                second, user.getId(), request.getDate(), LocalTime.of(20, 0), BookingStatus.CANCELLED));
+        verify(applicationEventPublisher, times(1)).publishEvent(new BookingChangedEvent(request.getDate()));
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void changeStatuses_shouldConfirmSelectedIds_withoutTouchingCapacity() {
+        UUID id = UUID.randomUUID();
+        List<BookingStatusView> matched = List.of(statusView(id, LocalTime.of(19, 0), 2));
+        when(bookingRepository.lockForStatusChange(null, BookingStatus.PENDING, false, List.of(id),
+                BookingStatus.CONFIRMED, BookingStatus.CANCELLED))
+                .thenReturn(matched);
+        when(bookingRepository.updateStatus(List.of(id), BookingStatus.CONFIRMED)).thenReturn(1);
+
+        int updated = bookingService.changeStatuses(null, BookingStatus.PENDING, List.of(id), BookingStatus.CONFIRMED);
+
+        assertThat(updated).isEqualTo(1);
+        verifyNoInteractions(tableCapacityIndex);
+    }
+
+    @Test
+    void changeStatuses_shouldRequireAFilter_andSkipUpdateWhenNothingMatches() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.changeStatuses(null, null, List.of(), BookingStatus.CONFIRMED));
+
+        when(bookingRepository.lockForStatusChange(any(), any(), anyBoolean(), any(), any(), any())).thenReturn(List.of());
+
+        assertThat(bookingService.changeStatuses(request.getDate(), null, null, BookingStatus.CONFIRMED)).isZero();
+        verify(bookingRepository, never()).updateStatus(any(), any());
+        verifyNoInteractions(applicationEventPublisher);
     }
 }
@@ -0,0 +1,249 @@
+package bg.softuni.magelan.booking.waitlist;
+
+import bg.softuni.magelan.booking.capacity.TableCapacityIndex;
+import bg.softuni.magelan.booking.event.BookingChangedEvent;
+import bg.softuni.magelan.booking.event.BookingStatusChangedEvent;
+import bg.softuni.magelan.booking.model.Booking;
+import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.model.WaitlistEntry;
+import bg.softuni.magelan.booking.repository.BookingRepository;
+import bg.softuni.magelan.booking.repository.WaitlistEntryRepository;
+import bg.softuni.magelan.exception.AlreadyWaitlistedException;
+import bg.softuni.magelan.user.model.User;
+import bg.softuni.magelan.web.dto.BookTableRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingWaitlistTest {
+
+    private static final LocalDate DATE = LocalDate.now().plusDays(2);
+    private static final LocalTime TIME = LocalTime.of(19, 0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TableCapacityIndex tableCapacityIndex;
+    private BookingWaitlist bookingWaitlist;
+    private User customer;
+
+    private final Map<UUID, WaitlistEntry> entries = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        // Two tables of four seats, both taken.
+        tableCapacityIndex = new TableCapacityIndex(bookingRepository, 2, 4, 120);
+        tableCapacityIndex.tryReserve(DATE, TIME, 8);
+
+        // Promotions run inline, so each test sees their outcome right away.
+        bookingWaitlist = new BookingWaitlist(bookingRepository, waitlistEntryRepository, tableCapacityIndex,
+                applicationEventPublisher, transactionManager, Runnable::run);
+
+        customer = new User();
+        customer.setId(UUID.randomUUID());
+        customer.setUsername("pirate");
+
+        lenient().when(waitlistEntryRepository.saveAndFlush(any(WaitlistEntry.class))).thenAnswer(invocation -> {
+            WaitlistEntry entry = invocation.getArgument(0);
+            entry.setId(UUID.randomUUID());
+            entries.put(entry.getId(), entry);
+            return entry;
+        });
+        lenient().when(waitlistEntryRepository.findById(any()))
+                .thenAnswer(invocation -> Optional.ofNullable(entries.get(invocation.<UUID>getArgument(0))));
+        lenient().when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> {
+            Booking booking = invocation.getArgument(0);
+            booking.setId(UUID.randomUUID());
+            return booking;
+        });
+    }
+
+    private BookTableRequest request(int guests) {
+        return BookTableRequest.builder().date(DATE).time(TIME).guests(guests).phone("0888123456").build();
+    }
+
+    private void cancel(int guests) {
+        tableCapacityIndex.release(DATE, TIME, guests);
+        bookingWaitlist.onStatusChanged(new BookingStatusChangedEvent(
+                UUID.randomUUID(), UUID.randomUUID(), DATE, TIME, BookingStatus.CANCELLED));
+    }
+
+    @Test
+    void join_shouldPersistEntryAndReportPosition_whenSlotIsFull() {
+        int first = bookingWaitlist.join(customer, request(2));
+        int second = bookingWaitlist.join(customer, request(4));
+
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isEqualTo(2);
+        assertThat(bookingWaitlist.waitingCount(DATE, TIME)).isEqualTo(2);
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void onStatusChanged_shouldPromoteHeadOfQueue_whenBookingCancelled() {
+        bookingWaitlist.join(customer, request(3));
+
+        cancel(4);
+
+        ArgumentCaptor<Booking> captor = ArgumentCaptor.forClass(Booking.class);
+        verify(bookingRepository).save(captor.capture());
+        Booking promoted = captor.getValue();
+        assertThat(promoted.getCustomer()).isEqualTo(customer);
+        assertThat(promoted.getGuests()).isEqualTo(3);
+        assertThat(promoted.getStatus()).isEqualTo(BookingStatus.PENDING);
+
+        verify(waitlistEntryRepository).delete(any(WaitlistEntry.class));
+        verify(applicationEventPublisher).publishEvent(new BookingChangedEvent(DATE));
+        verify(applicationEventPublisher).publishEvent(any(BookingStatusChangedEvent.class));
+        assertThat(bookingWaitlist.waitingCount(DATE, TIME)).isZero();
+        assertThat(tableCapacityIndex.remainingSeats(DATE, TIME)).isZero();
+    }
+
+    @Test
+    void promote_shouldKeepArrivalOrder_whenHeadDoesNotFit() {
+        bookingWaitlist.join(customer, request(8));
+        bookingWaitlist.join(customer, request(2));
+
+        cancel(4);
+
+        verify(bookingRepository, never()).save(any());
+        assertThat(bookingWaitlist.waitingCount(DATE, TIME)).isEqualTo(2);
+
+        cancel(4);
+
+        verify(bookingRepository).save(any(Booking.class));
+        assertThat(bookingWaitlist.waitingCount(DATE, TIME)).isEqualTo(1);
+    }
+
+    @Test
+    void join_shouldRejectSecondPlace_forTheSameCustomerAndTime() {
+        bookingWaitlist.join(customer, request(2));
+        when(waitlistEntryRepository.existsByCustomer_IdAndDateAndTime(customer.getId(), DATE, TIME)).thenReturn(true);
+
+        assertThatThrownBy(() -> bookingWaitlist.join(customer, request(2)))
+                .isInstanceOf(AlreadyWaitlistedException.class);
+        assertThat(bookingWaitlist.waitingCount(DATE, TIME)).isEqualTo(1);
+    }
+
+    @Test
+    void leave_shouldRemoveEntry_andLetSmallerPartiesBehindIn() {
+        bookingWaitlist.join(customer, request(8));
+        bookingWaitlist.join(customer, request(2));
+        cancel(4);
+        UUID head = entries.values().stream().filter(entry -> entry.getGuests() == 8).findFirst().orElseThrow().getId();
+        when(waitlistEntryRepository.findByIdAndCustomer_Id(head, customer.getId()))
+                .thenReturn(Optional.of(entries.get(head)));
+
+        assertThat(bookingWaitlist.leave(customer.getId(), head)).isTrue();
+
+        verify(waitlistEntryRepository).delete(entries.get(head));
+        ArgumentCaptor<Booking> captor = ArgumentCaptor.forClass(Booking.class);
+        verify(bookingRepository).save(captor.capture());
+        assertThat(captor.getValue().getGuests()).isEqualTo(2);
+        assertThat(bookingWaitlist.waitingCount(DATE, TIME)).isZero();
+    }
+
+    @Test
+    void leave_shouldKeepOthersInOrder_whenPartyBehindTheHeadLeaves() {
+        bookingWaitlist.join(customer, request(8));
+        bookingWaitlist.join(customer, request(6));
+        bookingWaitlist.join(customer, request(2));
+        UUID middle = entries.values().stream().filter(entry -> entry.getGuests() == 6).findFirst().orElseThrow().getId();
+        when(waitlistEntryRepository.findByIdAndCustomer_Id(middle, customer.getId()))
+                .thenReturn(Optional.of(entries.get(middle)));
+
+        assertThat(bookingWaitlist.leave(customer.getId(), middle)).isTrue();
+        assertThat(bookingWaitlist.waitingCount(DATE, TIME)).isEqualTo(2);
+
+        cancel(4);
+        cancel(4);
+
+        ArgumentCaptor<Booking> captor = ArgumentCaptor.forClass(Booking.class);
+        verify(bookingRepository).save(captor.capture());
+        assertThat(captor.getValue().getGuests()).isEqualTo(8);
+        assertThat(bookingWaitlist.waitingCount(DATE, TIME)).isEqualTo(1);
+    }
+
+    @Test
+    void leave_shouldReturnFalse_whenEntryIsNotTheCustomers() {
+        UUID entryId = UUID.randomUUID();
+        when(waitlistEntryRepository.findByIdAndCustomer_Id(entryId, customer.getId())).thenReturn(Optional.empty());
+
+        assertThat(bookingWaitlist.leave(customer.getId(), entryId)).isFalse();
+        verify(waitlistEntryRepository, never()).delete(any());
+    }
+
+    @Test
+    void onStatusChanged_shouldIgnoreNonCancellations() {
+        bookingWaitlist.join(customer, request(2));
+        tableCapacityIndex.release(DATE, TIME, 4);
+
+        bookingWaitlist.onStatusChanged(new BookingStatusChangedEvent(
+                UUID.randomUUID(), UUID.randomUUID(), DATE, TIME, BookingStatus.CONFIRMED));
+
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void rebuild_shouldRestoreQueuesAndPromoteWhereTablesAreFree() {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        WaitlistEntry stored = WaitlistEntry.builder()
+                .id(UUID.randomUUID())
+                .customer(customer)
+                .date(tomorrow)
+                .time(TIME)
+                .guests(2)
+                .joinedOn(LocalDateTime.now().minusHours(1))
+                .build();
+        WaitlistEntry stillWaiting = WaitlistEntry.builder()
+                .id(UUID.randomUUID())
+                .customer(customer)
+                .date(DATE)
+                .time(TIME)
+                .guests(2)
+                .joinedOn(LocalDateTime.now())
+                .build();
+        entries.put(stored.getId(), stored);
+        entries.put(stillWaiting.getId(), stillWaiting);
+
+        when(waitlistEntryRepository.findPartiesFrom(LocalDate.now())).thenReturn(List.of(
+                new WaitingParty(stored.getId(), customer.getId(), tomorrow, TIME, 2, stored.getJoinedOn()),
+                new WaitingParty(stillWaiting.getId(), customer.getId(), DATE, TIME, 2, stillWaiting.getJoinedOn())));
+
+        bookingWaitlist.rebuild();
+
+        verify(bookingRepository, times(1)).save(any(Booking.class));
+        verify(waitlistEntryRepository).delete(stored);
+        assertThat(bookingWaitlist.waitingCount(tomorrow, TIME)).isZero();
+        assertThat(bookingWaitlist.waitingCount(DATE, TIME)).isEqualTo(1);
+    }
+}
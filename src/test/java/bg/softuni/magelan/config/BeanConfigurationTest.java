@@ -0,0 +1,51 @@
+package bg.softuni.magelan.config;
+
+import bg.softuni.magelan.security.PasswordHashCalibrator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BeanConfigurationTest {
+
+    @Mock
+    private PasswordHashCalibrator passwordHashCalibrator;
+
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        when(passwordHashCalibrator.calibrateBcryptStrength()).thenReturn(5);
+        passwordEncoder = new BeanConfiguration().passwordEncoder(passwordHashCalibrator);
+    }
+
+    @Test
+    void passwordEncoder_shouldEncodeWithBcryptIdAtCalibratedCost() {
+        String encoded = passwordEncoder.encode("secret");
+
+        assertThat(encoded).startsWith("{bcrypt}$2a$05$");
+        assertThat(passwordEncoder.matches("secret", encoded)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(encoded)).isFalse();
+    }
+
+    @Test
+    void passwordEncoder_shouldMatchAndUpgradeLegacyAndWeakerHashes() {
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+        String weaker = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("secret");
+        String pbkdf2 = "{pbkdf2}" + BeanConfiguration.pbkdf2().encode("secret");
+
+        assertThat(passwordEncoder.matches("secret", legacy)).isTrue();
+        assertThat(passwordEncoder.matches("secret", weaker)).isTrue();
+        assertThat(passwordEncoder.matches("secret", pbkdf2)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(legacy)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(weaker)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(pbkdf2)).isTrue();
+    }
+}
@@ -0,0 +1,89 @@
+package bg.softuni.magelan.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CacheConfigurationTest {
+
+    private static final String DEFAULT_SPEC = "maximumSize=2,recordStats";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final NamedCacheLoader<String, String> upperCaseLoader = new NamedCacheLoader<>() {
+        @Override
+        public String cacheName() {
+            return "words";
+        }
+
+        @Override
+        public String load(String key) {
+            return key.toUpperCase();
+        }
+    };
+
+    @Test
+    void cacheManager_shouldBuildLoadingCache_whenLoaderIsRegistered() {
+        CaffeineCacheManager cacheManager = CacheConfiguration.cacheManager(DEFAULT_SPEC,
+                Map.of("words", "maximumSize=10,refreshAfterWrite=1m,recordStats"), List.of(upperCaseLoader), meterRegistry);
+
+        Object nativeCache = cacheManager.getCache("words").getNativeCache();
+
+        assertThat(nativeCache).isInstanceOf(LoadingCache.class);
+        @SuppressWarnings("unchecked")
+        LoadingCache<Object, Object> words = (LoadingCache<Object, Object>) nativeCache;
+        assertThat(words.get("ahoy")).isEqualTo("AHOY");
+        assertThat(words.policy().refreshAfterWrite()).isPresent();
+        assertThat(words.policy().isRecordingStats()).isTrue();
+    }
+
+    @Test
+    void cacheManager_shouldBoundCachesWithoutOwnSpec_byTheDefaultSpec() {
+        CaffeineCacheManager cacheManager = CacheConfiguration.cacheManager(DEFAULT_SPEC, Map.of(), List.of(), meterRegistry);
+
+        @SuppressWarnings("unchecked")
+        Cache<Object, Object> other = (Cache<Object, Object>) cacheManager.getCache("other").getNativeCache();
+
+        assertThat(other.policy().eviction().orElseThrow().getMaximum()).isEqualTo(2);
+        assertThat(other.policy().isRecordingStats()).isTrue();
+    }
+
+    @Test
+    void cacheManager_shouldUseLoader_evenWithoutOwnSpec() {
+        CaffeineCacheManager cacheManager = CacheConfiguration.cacheManager(DEFAULT_SPEC, Map.of(),
+                List.of(upperCaseLoader), meterRegistry);
+
+        assertThat(cacheManager.getCache("words").getNativeCache()).isInstanceOf(LoadingCache.class);
+    }
+
+    @Test
+    void cacheManager_shouldBindCachesToMeterRegistry_whenTheyAreCreated() {
+        CaffeineCacheManager cacheManager = CacheConfiguration.cacheManager(DEFAULT_SPEC,
+                Map.of("words", "maximumSize=10,recordStats"), List.of(upperCaseLoader), meterRegistry);
+
+        assertThat(meterRegistry.find("cache.gets").tag("cache", "late").functionCounter()).isNull();
+        cacheManager.getCache("late").get("missing");
+        cacheManager.getCache("words").get("ahoy");
+
+        assertThat(meterRegistry.get("cache.gets").tags("cache", "late", "result", "miss", "cache.manager", "cacheManager")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tags("cache", "words", "result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void cacheManager_shouldFailFast_whenRefreshIsConfiguredWithoutLoader() {
+        assertThatThrownBy(() -> CacheConfiguration.cacheManager(DEFAULT_SPEC,
+                Map.of("orphans", "refreshAfterWrite=1m"), List.of(), meterRegistry))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("orphans");
+    }
+}
@@ -32,10 +32,12 @@ class DataInitializerTest {
 
         dataInitializer.run();
 
-        ArgumentCaptor<Product> captor = ArgumentCaptor.forClass(Product.class);
-        verify(productRepository, atLeastOnce()).save(captor.capture());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Product>> captor = ArgumentCaptor.forClass(List.class);
+        verify(productRepository).saveAll(captor.capture());
+        verify(productRepository, never()).save(any());
 
-        List<Product> savedProducts = captor.getAllValues();
+        List<Product> savedProducts = captor.getValue();
         assertThat(savedProducts).isNotEmpty();
 
         assertThat(savedProducts)
@@ -60,5 +62,6 @@ class DataInitializerTest {
         dataInitializer.run();
 
         verify(productRepository, never()).save(any());
+        verify(productRepository, never()).saveAll(any());
     }
 }
@@ -0,0 +1,111 @@
+package bg.softuni.magelan.order.archive;
+
+import bg.softuni.magelan.order.model.ArchivedOrder;
+import bg.softuni.magelan.order.model.Order;
+import bg.softuni.magelan.order.model.OrderItem;
+import bg.softuni.magelan.order.model.OrderStatus;
+import bg.softuni.magelan.order.repository.ArchivedOrderRepository;
+import bg.softuni.magelan.order.repository.OrderItemRepository;
+import bg.softuni.magelan.order.repository.OrderRepository;
+import bg.softuni.magelan.product.model.Product;
+import bg.softuni.magelan.product.model.ProductCategory;
+import bg.softuni.magelan.user.model.User;
+import bg.softuni.magelan.user.model.UserRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+@Import(OrderArchiver.class)
+class OrderArchiverTest {
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Order order(User customer, Product product, OrderStatus status, LocalDateTime createdOn) {
+        Order order = Order.builder()
+                .customer(customer)
+                .orderStatus(status)
+                .amount(new BigDecimal("14.80"))
+                .createdOn(createdOn)
+                .deliveryAddress("Harbor 1")
+                .build();
+        order.getItems().add(OrderItem.builder()
+                .order(order)
+                .product(product)
+                .quantity(2)
+                .unitPrice(new BigDecimal("7.40"))
+                .createdOn(createdOn)
+                .build());
+        return entityManager.persist(order);
+    }
+
+    @Test
+    void archiveChunk_shouldMoveOnlyOldDeliveredOrdersWithTheirItems() {
+        LocalDateTime cutoff = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+        User user = entityManager.persist(User.builder()
+                .username("archiveCustomer")
+                .password("encoded-pass")
+                .role(UserRole.USER)
+                .active(true)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+        Product soup = entityManager.persist(Product.builder()
+                .name("Harbor Soup")
+                .price(new BigDecimal("7.40"))
+                .category(ProductCategory.STARTER)
+                .active(true)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+
+        Order oldDelivered = order(user, soup, OrderStatus.DELIVERED, cutoff.minusDays(3));
+        order(user, soup, OrderStatus.CONFIRMED, cutoff.minusDays(3));
+        order(user, soup, OrderStatus.DELIVERED, cutoff.plusDays(1));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(orderArchiver.archiveChunk(cutoff, 10)).isEqualTo(1);
+        entityManager.clear();
+
+        assertThat(orderRepository.findById(oldDelivered.getId())).isEmpty();
+        assertThat(orderRepository.count()).isEqualTo(2);
+        assertThat(orderItemRepository.count()).isEqualTo(2);
+
+        List<ArchivedOrder> archived = archivedOrderRepository.findAllByCustomer_IdOrderByCreatedOnDesc(user.getId());
+        assertThat(archived).hasSize(1);
+
+        Order restored = archived.get(0).toOrder();
+        assertThat(restored.getId()).isEqualTo(oldDelivered.getId());
+        assertThat(restored.getCustomer().getId()).isEqualTo(user.getId());
+        assertThat(restored.getDeliveryAddress()).isEqualTo("Harbor 1");
+        assertThat(restored.getItems()).hasSize(1);
+        assertThat(restored.getItems().get(0).getProduct().getName()).isEqualTo("Harbor Soup");
+        assertThat(restored.getItems().get(0).getTotalPrice()).isEqualByComparingTo("14.80");
+    }
+}
@@ -0,0 +1,85 @@
+package bg.softuni.magelan.order.feed;
+
+import bg.softuni.magelan.order.event.OrderEventType;
+import bg.softuni.magelan.order.event.OrderLifecycleEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderFeedBufferTest {
+
+    private OrderLifecycleEvent event(long sequence) {
+        return new OrderLifecycleEvent(
+                sequence,
+                UUID.randomUUID(),
+                UUID.randomUUID(),
+                OrderEventType.SUBMITTED,
+                BigDecimal.TEN,
+                LocalDateTime.now()
+        );
+    }
+
+    @Test
+    void append_shouldAssignIncreasingIds() {
+        OrderFeedBuffer buffer = new OrderFeedBuffer(4);
+
+        OrderFeedEntry first = buffer.append(event(10));
+        OrderFeedEntry second = buffer.append(event(11));
+
+        assertThat(first.id()).isEqualTo(1);
+        assertThat(second.id()).isEqualTo(2);
+        assertThat(buffer.lastId()).isEqualTo(2);
+    }
+
+    @Test
+    void entriesAfter_shouldReplayOnlyNewerEntries() {
+        OrderFeedBuffer buffer = new OrderFeedBuffer(4);
+        buffer.append(event(1));
+        buffer.append(event(2));
+        buffer.append(event(3));
+
+        Optional<List<OrderFeedEntry>> result = buffer.entriesAfter(1);
+
+        assertThat(result).isPresent();
+        assertThat(result.get()).extracting(e -> e.event().sequence()).containsExactly(2L, 3L);
+        assertThat(buffer.entriesAfter(3)).contains(List.of());
+    }
+
+    @Test
+    void entriesAfter_shouldReplayAcrossWrapAround() {
+        OrderFeedBuffer buffer = new OrderFeedBuffer(3);
+        for (long i = 1; i <= 5; i++) {
+            buffer.append(event(i));
+        }
+
+        Optional<List<OrderFeedEntry>> result = buffer.entriesAfter(2);
+
+        assertThat(result).isPresent();
+        assertThat(result.get()).extracting(OrderFeedEntry::id).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    void entriesAfter_shouldRequestResync_whenEntriesWereOverwritten() {
+        OrderFeedBuffer buffer = new OrderFeedBuffer(3);
+        for (long i = 1; i <= 5; i++) {
+            buffer.append(event(i));
+        }
+
+        assertThat(buffer.entriesAfter(1)).isEmpty();
+        assertThat(buffer.entriesAfter(-1)).isEmpty();
+        assertThat(buffer.entriesAfter(99)).isEmpty();
+    }
+
+    @Test
+    void constructor_shouldRejectNonPositiveCapacity() {
+        assertThatThrownBy(() -> new OrderFeedBuffer(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
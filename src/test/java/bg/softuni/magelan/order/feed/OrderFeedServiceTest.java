@@ -0,0 +1,109 @@
+package bg.softuni.magelan.order.feed;
+
+import bg.softuni.magelan.order.event.OrderEventType;
+import bg.softuni.magelan.order.event.OrderLifecycleEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderFeedServiceTest {
+
+    private final Deque<RecordingEmitter> nextEmitters = new ArrayDeque<>();
+    private final OrderFeedService service = new OrderFeedService(2, 60_000, 2, 10) {
+        @Override
+        SseEmitter createEmitter() {
+            return nextEmitters.removeFirst();
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static OrderLifecycleEvent event(long sequence) {
+        return new OrderLifecycleEvent(sequence, UUID.randomUUID(), UUID.randomUUID(), OrderEventType.SUBMITTED,
+                BigDecimal.TEN, LocalDateTime.now());
+    }
+
+    @Test
+    void onOrderEvent_shouldReachOtherSubscribers_whileOneIsStuckWriting() throws Exception {
+        RecordingEmitter stuck = new RecordingEmitter(1, new CountDownLatch(1));
+        RecordingEmitter healthy = new RecordingEmitter(2, null);
+        nextEmitters.add(stuck);
+        nextEmitters.add(healthy);
+        service.subscribe(null);
+        service.subscribe(null);
+
+        service.onOrderEvent(event(1));
+        assertThat(stuck.writing.await(5, TimeUnit.SECONDS)).isTrue();
+        service.onOrderEvent(event(2));
+
+        assertThat(healthy.received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(healthy.events).allMatch(event -> event.contains("event:order"));
+        stuck.release.countDown();
+    }
+
+    @Test
+    void onOrderEvent_shouldResyncSubscriber_thatFellBehindTheBuffer() throws Exception {
+        RecordingEmitter slow = new RecordingEmitter(2, new CountDownLatch(1));
+        nextEmitters.add(slow);
+        service.subscribe(null);
+
+        service.onOrderEvent(event(1));
+        assertThat(slow.writing.await(5, TimeUnit.SECONDS)).isTrue();
+        for (long sequence = 2; sequence <= 5; sequence++) {
+            service.onOrderEvent(event(sequence));
+        }
+        slow.release.countDown();
+
+        assertThat(slow.received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(slow.events.get(0)).contains("event:order");
+        assertThat(slow.events.get(1)).contains("event:resync");
+        assertThat(service.getSubscriberCount()).isEqualTo(1);
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch received;
+        private final CountDownLatch release;
+
+        private RecordingEmitter(int expected, CountDownLatch release) {
+            this.received = new CountDownLatch(expected);
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            writing.countDown();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            events.add(builder.build().stream()
+                    .map(part -> String.valueOf(part.getData()))
+                    .collect(Collectors.joining()));
+            received.countDown();
+        }
+    }
+}
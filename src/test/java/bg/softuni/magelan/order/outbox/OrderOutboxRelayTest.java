@@ -0,0 +1,207 @@
+package bg.softuni.magelan.order.outbox;
+
+import bg.softuni.magelan.order.event.OrderEventType;
+import bg.softuni.magelan.order.event.OrderLifecycleEvent;
+import bg.softuni.magelan.order.model.Order;
+import bg.softuni.magelan.order.model.OrderOutboxEntry;
+import bg.softuni.magelan.order.model.OrderStatus;
+import bg.softuni.magelan.order.repository.OrderOutboxRepository;
+import bg.softuni.magelan.user.model.User;
+import bg.softuni.magelan.user.model.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+@Import(OrderOutbox.class)
+class OrderOutboxRelayTest {
+
+    @Autowired
+    private OrderOutbox orderOutbox;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private RecordingSink sink;
+    private OrderOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        sink = new RecordingSink();
+        relay = relay(0);
+    }
+
+    // Two attempts before parking; the backoff decides when a failed entry is due again.
+    private OrderOutboxRelay relay(long retryBackoffMs) {
+        return new OrderOutboxRelay(orderOutboxRepository, List.of(sink), transactionManager, 2, 7,
+                2, retryBackoffMs, retryBackoffMs, 60_000);
+    }
+
+    private Order persistOrder(String username) {
+        User user = User.builder()
+                .username(username)
+                .password("encoded-pass")
+                .role(UserRole.USER)
+                .active(true)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build();
+        entityManager.persist(user);
+
+        Order order = Order.builder()
+                .customer(user)
+                .orderStatus(OrderStatus.SUBMITTED)
+                .amount(new BigDecimal("12.50"))
+                .createdOn(LocalDateTime.now())
+                .build();
+        return entityManager.persist(order);
+    }
+
+    @Test
+    void drain_shouldDeliverEventsInOrderAcrossBatches_andMarkThemPublished() {
+        Order first = persistOrder("first");
+        Order second = persistOrder("second");
+
+        orderOutbox.append(first, OrderEventType.SUBMITTED);
+        orderOutbox.append(second, OrderEventType.SUBMITTED);
+        orderOutbox.append(first, OrderEventType.CONFIRMED);
+        orderOutbox.append(first, OrderEventType.DELIVERED);
+
+        relay.drain();
+
+        assertThat(sink.delivered)
+                .extracting(OrderLifecycleEvent::orderId, OrderLifecycleEvent::type)
+                .containsExactly(
+                        tuple(first.getId(), OrderEventType.SUBMITTED),
+                        tuple(second.getId(), OrderEventType.SUBMITTED),
+                        tuple(first.getId(), OrderEventType.CONFIRMED),
+                        tuple(first.getId(), OrderEventType.DELIVERED)
+                );
+        assertThat(sink.delivered.get(0).userId()).isEqualTo(first.getCustomer().getId());
+        assertThat(orderOutboxRepository.countByPublishedOnIsNull()).isZero();
+    }
+
+    @Test
+    void drain_shouldHoldBackLaterEventsOfFailedOrder_andRetryThemOnNextRun() {
+        Order failing = persistOrder("failing");
+        Order healthy = persistOrder("healthy");
+
+        orderOutbox.append(failing, OrderEventType.SUBMITTED);
+        orderOutbox.append(failing, OrderEventType.CONFIRMED);
+        orderOutbox.append(healthy, OrderEventType.SUBMITTED);
+
+        sink.failFor = failing.getId();
+        relay.drain();
+
+        assertThat(sink.delivered)
+                .extracting(OrderLifecycleEvent::orderId)
+                .containsExactly(healthy.getId());
+
+        List<OrderOutboxEntry> pending = orderOutboxRepository.findAll().stream()
+                .filter(e -> e.getPublishedOn() == null)
+                .toList();
+        assertThat(pending).extracting(OrderOutboxEntry::getEventType)
+                .containsExactlyInAnyOrder(OrderEventType.SUBMITTED, OrderEventType.CONFIRMED);
+        assertThat(pending).filteredOn(e -> e.getEventType() == OrderEventType.SUBMITTED)
+                .singleElement()
+                .satisfies(e -> {
+                    assertThat(e.getAttempts()).isEqualTo(1);
+                    assertThat(e.getLastError()).contains("sink unavailable");
+                });
+
+        sink.failFor = null;
+        relay.drain();
+
+        assertThat(sink.delivered)
+                .extracting(OrderLifecycleEvent::orderId, OrderLifecycleEvent::type)
+                .containsExactly(
+                        tuple(healthy.getId(), OrderEventType.SUBMITTED),
+                        tuple(failing.getId(), OrderEventType.SUBMITTED),
+                        tuple(failing.getId(), OrderEventType.CONFIRMED)
+                );
+        assertThat(orderOutboxRepository.countByPublishedOnIsNull()).isZero();
+    }
+
+    @Test
+    void drain_shouldNotRetryFailedEntry_beforeItsBackoffHasPassed() {
+        Order failing = persistOrder("failing");
+        orderOutbox.append(failing, OrderEventType.SUBMITTED);
+        orderOutbox.append(failing, OrderEventType.CONFIRMED);
+        OrderOutboxRelay slowRetries = relay(60_000);
+
+        sink.failFor = failing.getId();
+        slowRetries.drain();
+        sink.failFor = null;
+        slowRetries.drain();
+
+        assertThat(sink.delivered).isEmpty();
+        assertThat(orderOutboxRepository.findAll())
+                .filteredOn(e -> e.getEventType() == OrderEventType.SUBMITTED)
+                .singleElement()
+                .satisfies(e -> {
+                    assertThat(e.getAttempts()).isEqualTo(1);
+                    assertThat(e.getNextAttemptOn()).isAfter(LocalDateTime.now().plusSeconds(30));
+                });
+    }
+
+    @Test
+    void drain_shouldParkEntryAfterMaxAttempts_andReleaseLaterEventsOfItsOrder() {
+        Order failing = persistOrder("failing");
+        orderOutbox.append(failing, OrderEventType.SUBMITTED);
+        orderOutbox.append(failing, OrderEventType.CONFIRMED);
+
+        sink.failFor = failing.getId();
+        relay.drain();
+        relay.drain();
+        sink.failFor = null;
+        relay.drain();
+
+        assertThat(sink.delivered)
+                .extracting(OrderLifecycleEvent::type)
+                .containsExactly(OrderEventType.CONFIRMED);
+        assertThat(orderOutboxRepository.findAll())
+                .filteredOn(e -> e.getEventType() == OrderEventType.SUBMITTED)
+                .singleElement()
+                .satisfies(e -> {
+                    assertThat(e.getAttempts()).isEqualTo(2);
+                    assertThat(e.getParkedOn()).isNotNull();
+                    assertThat(e.getPublishedOn()).isNull();
+                });
+    }
+
+    private static class RecordingSink implements OrderEventSink {
+
+        private final List<OrderLifecycleEvent> delivered = new ArrayList<>();
+        private UUID failFor;
+
+        @Override
+        public void deliver(OrderLifecycleEvent event) {
+            if (event.orderId().equals(failFor)) {
+                throw new IllegalStateException("sink unavailable");
+            }
+            delivered.add(event);
+        }
+    }
+}
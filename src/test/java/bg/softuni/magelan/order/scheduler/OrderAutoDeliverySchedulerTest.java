@@ -1,7 +1,9 @@
 package bg.softuni.magelan.order.scheduler;
 
+import bg.softuni.magelan.order.event.OrderEventType;
 import bg.softuni.magelan.order.model.Order;
 import bg.softuni.magelan.order.model.OrderStatus;
+import bg.softuni.magelan.order.outbox.OrderOutbox;
 import bg.softuni.magelan.order.repository.OrderRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,6 +23,9 @@ class OrderAutoDeliverySchedulerTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private OrderOutbox orderOutbox;
+
     @InjectMocks
     private OrderAutoDeliveryScheduler scheduler;
 
@@ -34,6 +39,7 @@ class OrderAutoDeliverySchedulerTest {
         scheduler.autoDeliverOldConfirmedOrders();
 
         verify(orderRepository, never()).saveAll(any());
+        verifyNoInteractions(orderOutbox);
     }
 
     @Test
@@ -60,5 +66,8 @@ class OrderAutoDeliverySchedulerTest {
         assertThat(saved).hasSize(2);
         assertThat(saved)
                 .allMatch(o -> o.getOrderStatus() == OrderStatus.DELIVERED);
+
+        verify(orderOutbox).append(o1, OrderEventType.DELIVERED);
+        verify(orderOutbox).append(o2, OrderEventType.DELIVERED);
     }
 }
@@ -1,13 +1,21 @@
 package bg.softuni.magelan.order.service;
 
 import bg.softuni.magelan.exception.OrderNotFoundException;
+import bg.softuni.magelan.order.event.OrderEventType;
+import bg.softuni.magelan.order.model.ArchivedOrder;
 import bg.softuni.magelan.order.model.Order;
 import bg.softuni.magelan.order.model.OrderItem;
 import bg.softuni.magelan.order.model.OrderStatus;
+import bg.softuni.magelan.order.outbox.OrderOutbox;
+import bg.softuni.magelan.order.repository.ArchivedOrderRepository;
 import bg.softuni.magelan.order.repository.OrderItemRepository;
 import bg.softuni.magelan.order.repository.OrderRepository;
 import bg.softuni.magelan.payment.PaymentClient;
 import bg.softuni.magelan.payment.PaymentResponse;
+import bg.softuni.magelan.product.menu.MenuCatalog;
+import bg.softuni.magelan.product.menu.MenuItem;
+import bg.softuni.magelan.product.menu.MenuSnapshot;
+import bg.softuni.magelan.product.model.ProductCategory;
 import bg.softuni.magelan.product.model.Product;
 import bg.softuni.magelan.product.repository.ProductRepository;
 import bg.softuni.magelan.user.model.User;
@@ -15,7 +23,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -37,15 +47,26 @@ class OrderServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private MenuCatalog menuCatalog;
+
     @Mock
     private PaymentClient paymentClient;
 
     @Mock
-    private ApplicationEventPublisher applicationEventPublisher;
+    private OrderOutbox orderOutbox;
+
+    @Mock
+    private ArchivedOrderRepository archivedOrderRepository;
 
     @InjectMocks
     private OrderService orderService;
 
+    private MenuSnapshot menuWith(UUID productId, BigDecimal price, boolean active) {
+        return MenuSnapshot.of(1, List.of(
+                new MenuItem(productId, "Dish", null, price, ProductCategory.MAIN, active)));
+    }
+
     private User createUser() {
         User u = new User();
         u.setId(UUID.randomUUID());
@@ -136,7 +157,7 @@ class OrderServiceTest {
 
         verify(orderRepository, never()).findByOrderStatusAndCustomer_Id(any(), any());
         verify(orderRepository, never()).save(any());
-        verify(productRepository, never()).findByIdAndActiveTrue(any());
+        verifyNoInteractions(menuCatalog, productRepository);
     }
 
     @Test
@@ -155,7 +176,7 @@ class OrderServiceTest {
         order.setItems(new ArrayList<>(List.of(existing)));
 
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
-        when(productRepository.findByIdAndActiveTrue(productId)).thenReturn(Optional.of(product));
+        when(menuCatalog.getSnapshot()).thenReturn(menuWith(productId, product.getPrice(), true));
         when(orderItemRepository.save(any(OrderItem.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
         when(orderRepository.save(any(Order.class)))
@@ -166,6 +187,34 @@ class OrderServiceTest {
         assertThat(existing.getQuantity()).isEqualTo(5);
         verify(orderItemRepository).save(existing);
         verify(orderRepository, atLeastOnce()).save(order);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void addProductToOrder_shouldAddNewItemPricedFromMenu_withoutLoadingProduct() {
+        UUID orderId = UUID.randomUUID();
+        UUID productId = UUID.randomUUID();
+
+        Order order = createOrder(createUser(), OrderStatus.PENDING);
+        order.setItems(new ArrayList<>());
+
+        Product reference = new Product();
+        reference.setId(productId);
+
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
+        when(menuCatalog.getSnapshot()).thenReturn(menuWith(productId, new BigDecimal("6.50"), true));
+        when(productRepository.getReferenceById(productId)).thenReturn(reference);
+        when(orderItemRepository.save(any(OrderItem.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderRepository.save(any(Order.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        orderService.addProductToOrder(orderId, productId, 2);
+
+        assertThat(order.getItems()).hasSize(1);
+        assertThat(order.getItems().get(0).getProduct()).isSameAs(reference);
+        assertThat(order.getItems().get(0).getUnitPrice()).isEqualByComparingTo("6.50");
+        assertThat(order.getAmount()).isEqualByComparingTo("13.00");
     }
 
     @Test
@@ -187,7 +236,7 @@ class OrderServiceTest {
         Order order = createOrder(createUser(), OrderStatus.PENDING);
 
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
-        when(productRepository.findByIdAndActiveTrue(productId)).thenReturn(Optional.empty());
+        when(menuCatalog.getSnapshot()).thenReturn(menuWith(productId, BigDecimal.ONE, false));
 
         assertThatThrownBy(() -> orderService.addProductToOrder(orderId, productId, 1))
                 .isInstanceOf(IllegalArgumentException.class)
@@ -252,6 +301,7 @@ class OrderServiceTest {
 
         assertThat(order.getOrderStatus()).isEqualTo(OrderStatus.CONFIRMED);
         verify(orderRepository).save(order);
+        verify(orderOutbox).append(order, OrderEventType.CONFIRMED);
     }
 
     @Test
@@ -264,6 +314,7 @@ class OrderServiceTest {
         assertThatThrownBy(() -> orderService.changeAdminOrderStatus(orderId, OrderStatus.CONFIRMED))
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessageContaining("Only SUBMITTED orders can be confirmed");
+        verifyNoInteractions(orderOutbox);
     }
 
     @Test
@@ -320,6 +371,7 @@ class OrderServiceTest {
         assertThat(result).isSameAs(paymentResponse);
         assertThat(order.getOrderStatus()).isEqualTo(OrderStatus.SUBMITTED);
         verify(orderRepository).save(order);
+        verify(orderOutbox).append(order, OrderEventType.SUBMITTED);
     }
 
     @Test
@@ -339,6 +391,25 @@ class OrderServiceTest {
 
         assertThat(order.getOrderStatus()).isEqualTo(OrderStatus.PENDING);
         verify(orderRepository).save(order);
+        verifyNoInteractions(orderOutbox);
+    }
+
+    @Test
+    void processPayment_shouldNotAnnounceAgain_whenOrderIsAlreadySubmitted() {
+        UUID paymentId = UUID.randomUUID();
+
+        PaymentResponse paymentResponse = mock(PaymentResponse.class);
+        when(paymentResponse.getStatus()).thenReturn("SUCCESSFUL");
+
+        when(paymentClient.processPayment(paymentId)).thenReturn(paymentResponse);
+
+        Order order = createOrder(createUser(), OrderStatus.CONFIRMED);
+        when(orderRepository.findByPaymentId(paymentId)).thenReturn(Optional.of(order));
+
+        orderService.processPayment(paymentId);
+
+        assertThat(order.getOrderStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        verifyNoInteractions(orderOutbox);
     }
 
     @Test
@@ -353,6 +424,58 @@ class OrderServiceTest {
         assertThat(result).isSameAs(order);
     }
 
+    @Test
+    void getOrderById_shouldFallBackToArchive_whenNotInHotTable() {
+        UUID orderId = UUID.randomUUID();
+        User customer = createUser();
+        ArchivedOrder archived = ArchivedOrder.builder()
+                .id(orderId)
+                .customer(customer)
+                .orderStatus(OrderStatus.DELIVERED)
+                .amount(BigDecimal.TEN)
+                .createdOn(LocalDateTime.now().minusYears(1))
+                .build();
+        when(orderRepository.findById(orderId)).thenReturn(Optional.empty());
+        when(archivedOrderRepository.findById(orderId)).thenReturn(Optional.of(archived));
+
+        Order result = orderService.getOrderById(orderId);
+
+        assertThat(result.getId()).isEqualTo(orderId);
+        assertThat(result.getCustomer()).isSameAs(customer);
+        assertThat(result.getOrderStatus()).isEqualTo(OrderStatus.DELIVERED);
+    }
+
+    @Test
+    void getPastOrders_shouldMergeHotAndArchivedOrdersNewestFirst() {
+        User customer = createUser();
+        Order recent = createOrder(customer, OrderStatus.DELIVERED);
+        ArchivedOrder archived = ArchivedOrder.builder()
+                .id(UUID.randomUUID())
+                .customer(customer)
+                .orderStatus(OrderStatus.DELIVERED)
+                .amount(BigDecimal.ONE)
+                .createdOn(LocalDateTime.now().minusMonths(6))
+                .build();
+        ScrollPosition position = ScrollPosition.forward(Map.of(
+                "createdOn", LocalDateTime.of(2025, 3, 1, 19, 30), "id", recent.getId()));
+        when(orderRepository.findByCustomer_IdAndOrderStatusNotOrderByCreatedOnDescIdDesc(
+                customer.getId(), OrderStatus.PENDING, position, Limit.of(20)))
+                .thenReturn(Window.from(List.of(recent), index -> ScrollPosition.keyset()));
+        when(archivedOrderRepository.findByCustomer_IdOrderByCreatedOnDescIdDesc(customer.getId(), position, Limit.of(20)))
+                .thenReturn(Window.from(List.of(archived), index -> ScrollPosition.keyset()));
+
+        OrderHistoryPage result = orderService.getPastOrders(customer.getId(), "2025-03-01T19:30_" + recent.getId());
+
+        assertThat(result.orders()).extracting(Order::getId).containsExactly(recent.getId(), archived.getId());
+        assertThat(result.hasNext()).isFalse();
+    }
+
+    @Test
+    void getPastOrders_shouldRejectMalformedCursor() {
+        assertThatThrownBy(() -> orderService.getPastOrders(UUID.randomUUID(), "yesterday"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     void getOrderById_shouldThrow_whenNotFound() {
         UUID orderId = UUID.randomUUID();
@@ -370,12 +493,31 @@ class OrderServiceTest {
         User user = new User();
         user.setId(userId);
 
+        Order order = createOrder(user, OrderStatus.SUBMITTED);
+
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
+
+        orderService.cancelOrder(orderId, userId);
+
+        verify(orderOutbox).append(order, OrderEventType.CANCELLED);
+        verify(orderRepository).delete(order);
+    }
+
+    @Test
+    void cancelOrder_shouldNotAnnounce_whenOrderWasNeverSubmitted() {
+        UUID orderId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+
+        User user = new User();
+        user.setId(userId);
+
         Order order = createOrder(user, OrderStatus.PENDING);
 
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
 
         orderService.cancelOrder(orderId, userId);
 
+        verifyNoInteractions(orderOutbox);
         verify(orderRepository).delete(order);
     }
 
@@ -0,0 +1,182 @@
+package bg.softuni.magelan.product.importing;
+
+import bg.softuni.magelan.product.event.ProductCatalogChangedEvent;
+import bg.softuni.magelan.product.model.Product;
+import bg.softuni.magelan.product.model.ProductCategory;
+import bg.softuni.magelan.product.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Object> events = new ArrayList<>();
+    private ProductImportService productImportService;
+
+    @BeforeEach
+    void setUp() {
+        productImportService = new ProductImportService(
+                productRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper(),
+                events::add,
+                entityManager,
+                transactionManager,
+                2
+        );
+
+        LocalDateTime now = LocalDateTime.now();
+        productRepository.save(Product.builder().name("Harbor Soup").description("Creamy soup")
+                .price(new BigDecimal("7.40")).category(ProductCategory.STARTER).active(true)
+                .createdOn(now).updatedOn(now).build());
+        productRepository.save(Product.builder().name("Espresso").description("Short, strong")
+                .price(new BigDecimal("2.40")).category(ProductCategory.DRINK).active(true)
+                .createdOn(now).updatedOn(now).build());
+    }
+
+    private ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void executeInOwnTransaction(String sql) {
+        EntityManager own = entityManager.getEntityManagerFactory().createEntityManager();
+        try {
+            own.getTransaction().begin();
+            own.createNativeQuery(sql).executeUpdate();
+            own.getTransaction().commit();
+        } finally {
+            own.close();
+        }
+    }
+
+    @Test
+    void importProducts_shouldUpsertCsvByNameInChunks_andReportRejectedRows() throws Exception {
+        String csv = """
+                name,description,price,category,active
+                Harbor Soup,Creamy soup,8.10,starter,yes
+                Espresso,"Short, strong",2.40,DRINK,
+                Midnight Ribs,"Slow-cooked ribs,
+                glazed",18.90,MAIN,true
+                Broken,,abc,MAIN,true
+                Mystery,,4.00,SNACK,true
+                Ok,,1.00,DESSERT,true
+                Sea Salad,,-1,STARTER,no
+                """;
+
+        ProductImportReport report = productImportService.importProducts(stream(csv), ProductImportFormat.CSV);
+
+        assertThat(report.running()).isFalse();
+        assertThat(report.rowsRead()).isEqualTo(7);
+        assertThat(report.inserted()).isEqualTo(1);
+        assertThat(report.updated()).isEqualTo(1);
+        assertThat(report.unchanged()).isEqualTo(1);
+        assertThat(report.rejected()).isEqualTo(4);
+        assertThat(report.errors()).containsExactly(
+                "Line 6: price: 'abc' is not a number",
+                "Line 7: category: unknown category 'SNACK'",
+                "Line 8: name: size must be between 3 and 50",
+                "Line 9: price: Price must be greater than 0."
+        );
+
+        entityManager.clear();
+        assertThat(productRepository.findAll()).hasSize(3);
+        Product soup = productRepository.findAllByNameIn(List.of("Harbor Soup")).get(0);
+        assertThat(soup.getPrice()).isEqualByComparingTo("8.10");
+        Product ribs = productRepository.findAllByNameIn(List.of("Midnight Ribs")).get(0);
+        assertThat(ribs.getDescription()).isEqualTo("Slow-cooked ribs,\nglazed");
+
+        // One event per chunk: the soup and espresso, then the ribs.
+        assertThat(events).extracting(event -> ((ProductCatalogChangedEvent) event).productIds())
+                .containsExactly(Set.of(soup.getId()), Set.of(ribs.getId()));
+        assertThat(productImportService.getProgress()).contains(report);
+    }
+
+    @Test
+    void importProducts_shouldStreamJsonArray_andRejectBadElementsOnly() throws Exception {
+        String json = """
+                [
+                  {"name": "Craft Lemonade", "price": 3.90, "category": "DRINK", "active": true},
+                  {"name": "Bad Category", "price": 3.90, "category": "SNACK"},
+                  {"description": "no name", "price": 3.90, "category": "DRINK"},
+                  {"name": "harbor soup", "description": "Creamy soup", "price": 7.40, "category": "STARTER", "active": false}
+                ]
+                """;
+
+        ProductImportReport report = productImportService.importProducts(stream(json), ProductImportFormat.JSON);
+
+        assertThat(report.rowsRead()).isEqualTo(4);
+        assertThat(report.inserted()).isEqualTo(2);
+        assertThat(report.rejected()).isEqualTo(2);
+        assertThat(report.errors().get(0)).startsWith("Line 3: category: invalid value 'SNACK'");
+        assertThat(report.errors().get(1)).isEqualTo("Line 4: name: must not be blank");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void importProducts_shouldRetryFailedChunkRowByRow_andRejectOnlyTheFailingRow() throws Exception {
+        // A rule the form does not know about, so the row only fails when the chunk is written.
+        executeInOwnTransaction("ALTER TABLE \"product\" ADD CONSTRAINT \"price_cap\" CHECK (\"price\" < 100)");
+        try {
+            String csv = """
+                    name,description,price,category,active
+                    Lobster Roll,,24.00,MAIN,true
+                    Gold Steak,,250.00,MAIN,true
+                    Harbor Soup,Creamy soup,7.90,STARTER,true
+                    """;
+
+            ProductImportReport report = productImportService.importProducts(stream(csv), ProductImportFormat.CSV);
+
+            assertThat(report.inserted()).isEqualTo(1);
+            assertThat(report.updated()).isEqualTo(1);
+            assertThat(report.rejected()).isEqualTo(1);
+            assertThat(report.errors()).singleElement().asString().startsWith("Line 3: could not be saved");
+            assertThat(productRepository.findAllByNameIn(List.of("Lobster Roll", "Gold Steak")))
+                    .extracting(Product::getName).containsExactly("Lobster Roll");
+            // The failed chunk announces nothing; its surviving row and the next chunk announce their own.
+            assertThat(events).extracting(event -> ((ProductCatalogChangedEvent) event).productIds())
+                    .extracting(Set::size)
+                    .containsExactly(1, 1);
+        } finally {
+            executeInOwnTransaction("ALTER TABLE \"product\" DROP CONSTRAINT \"price_cap\"");
+            productRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void importProducts_shouldRejectCsvWithoutRequiredColumns() {
+        assertThatThrownBy(() -> productImportService.importProducts(stream("name,price\nSoup,1.00\n"), ProductImportFormat.CSV))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("'category'");
+    }
+}
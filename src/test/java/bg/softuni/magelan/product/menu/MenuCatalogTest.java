@@ -0,0 +1,78 @@
+package bg.softuni.magelan.product.menu;
+
+import bg.softuni.magelan.product.event.ProductCatalogChangedEvent;
+import bg.softuni.magelan.product.model.Product;
+import bg.softuni.magelan.product.model.ProductCategory;
+import bg.softuni.magelan.product.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MenuCatalogTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private MenuCatalog menuCatalog;
+
+    private Product product(String name, ProductCategory category) {
+        return Product.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .price(BigDecimal.ONE)
+                .category(category)
+                .active(true)
+                .build();
+    }
+
+    @Test
+    void getSnapshot_shouldGroupByCategoryKeepingNameOrder_andCacheResult() {
+        when(productRepository.findAllByOrderByNameAsc()).thenReturn(List.of(
+                product("Espresso", ProductCategory.DRINK),
+                product("Harbor Soup", ProductCategory.STARTER),
+                product("Magelan Burger", ProductCategory.MAIN),
+                product("Soft Drinks", ProductCategory.DRINK)
+        ));
+
+        MenuSnapshot snapshot = menuCatalog.getSnapshot();
+        MenuSnapshot again = menuCatalog.getSnapshot();
+
+        assertThat(again).isSameAs(snapshot);
+        assertThat(snapshot.getVersion()).isEqualTo(1);
+        assertThat(snapshot.getItems(ProductCategory.DRINK))
+                .extracting(MenuItem::getName)
+                .containsExactly("Espresso", "Soft Drinks");
+        assertThat(snapshot.getItems(ProductCategory.STARTER)).hasSize(1);
+        assertThat(snapshot.getItems(ProductCategory.DESSERT)).isEmpty();
+        assertThatThrownBy(() -> snapshot.getItems(ProductCategory.MAIN).clear())
+                .isInstanceOf(UnsupportedOperationException.class);
+        verify(productRepository, times(1)).findAllByOrderByNameAsc();
+    }
+
+    @Test
+    void onCatalogChanged_shouldSwapInNewVersion() {
+        when(productRepository.findAllByOrderByNameAsc())
+                .thenReturn(List.of(product("Espresso", ProductCategory.DRINK)))
+                .thenReturn(List.of());
+
+        MenuSnapshot before = menuCatalog.getSnapshot();
+        menuCatalog.onCatalogChanged(ProductCatalogChangedEvent.of(UUID.randomUUID()));
+        MenuSnapshot after = menuCatalog.getSnapshot();
+
+        assertThat(after.getVersion()).isEqualTo(before.getVersion() + 1);
+        assertThat(before.getItems(ProductCategory.DRINK)).hasSize(1);
+        assertThat(after.getItems(ProductCategory.DRINK)).isEmpty();
+    }
+}
@@ -0,0 +1,168 @@
+package bg.softuni.magelan.product.search;
+
+import bg.softuni.magelan.product.event.ProductCatalogChangedEvent;
+import bg.softuni.magelan.product.menu.MenuCatalog;
+import bg.softuni.magelan.product.menu.MenuItem;
+import bg.softuni.magelan.product.model.Product;
+import bg.softuni.magelan.product.model.ProductCategory;
+import bg.softuni.magelan.product.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MenuSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private MenuCatalog menuCatalog;
+    private MenuSearchIndex menuSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        menuCatalog = new MenuCatalog(productRepository);
+        menuSearchIndex = new MenuSearchIndex(menuCatalog);
+    }
+
+    private Product product(String name, String description, boolean active) {
+        return Product.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .description(description)
+                .price(BigDecimal.TEN)
+                .category(ProductCategory.MAIN)
+                .active(active)
+                .build();
+    }
+
+    @Test
+    void search_shouldRankNameMatchesFirst_andTolerateTyposAndAccents() {
+        when(productRepository.findAllByOrderByNameAsc()).thenReturn(List.of(
+                product("Magelan Burger", "Beef patty, cheddar, smoked sauce", true),
+                product("Harbor Soup", "Creamy fish soup served with bread", true),
+                product("Fish & Chips", "Crispy cod with fries", true),
+                product("Crème Brûlée", "Vanilla custard", true)
+        ));
+        menuSearchIndex.rebuild();
+
+        assertThat(menuSearchIndex.search("fish", 10))
+                .extracting(MenuItem::getName)
+                .containsExactly("Fish & Chips", "Harbor Soup");
+        assertThat(menuSearchIndex.search("burgr", 10))
+                .extracting(MenuItem::getName)
+                .containsExactly("Magelan Burger");
+        assertThat(menuSearchIndex.search("creme brulee", 10))
+                .extracting(MenuItem::getName)
+                .containsExactly("Crème Brûlée");
+        assertThat(menuSearchIndex.search("pizza", 10)).isEmpty();
+        assertThat(menuSearchIndex.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void suggest_shouldCompleteWordPrefixes() {
+        when(productRepository.findAllByOrderByNameAsc()).thenReturn(List.of(
+                product("Harbor Soup", null, true),
+                product("Soft Drinks", null, true),
+                product("Sea Salad", null, true)
+        ));
+        menuSearchIndex.rebuild();
+
+        assertThat(menuSearchIndex.suggest("s", 10))
+                .containsExactly("Sea Salad", "Soft Drinks", "Harbor Soup");
+        assertThat(menuSearchIndex.suggest("harbor so", 10)).containsExactly("Harbor Soup");
+        assertThat(menuSearchIndex.suggest("so", 1)).containsExactly("Soft Drinks");
+    }
+
+    @Test
+    void onCatalogChanged_shouldApplyEditsIncrementally() {
+        Product soup = product("Harbor Soup", null, true);
+        when(productRepository.findAllByOrderByNameAsc()).thenReturn(List.of(soup));
+        menuSearchIndex.rebuild();
+
+        Product burger = product("Magelan Burger", null, true);
+        soup.setActive(false);
+        when(productRepository.findAllByOrderByNameAsc()).thenReturn(List.of(soup, burger));
+        ProductCatalogChangedEvent event = new ProductCatalogChangedEvent(Set.of(soup.getId(), burger.getId()));
+
+        menuCatalog.onCatalogChanged(event);
+        menuSearchIndex.onCatalogChanged(event);
+
+        assertThat(menuSearchIndex.search("soup", 10)).isEmpty();
+        assertThat(menuSearchIndex.search("burger", 10)).extracting(MenuItem::getName).containsExactly("Magelan Burger");
+        assertThat(menuSearchIndex.size()).isEqualTo(1);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_searchAndSuggestOver100kProducts() {
+        Random random = new Random(42);
+        String consonants = "bcdfghklmnprstvz";
+        String vowels = "aeiou";
+        List<String> vocabulary = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int syllable = 2 + random.nextInt(2); syllable > 0; syllable--) {
+                word.append(consonants.charAt(random.nextInt(consonants.length())))
+                        .append(vowels.charAt(random.nextInt(vowels.length())));
+            }
+            vocabulary.add(word.toString());
+        }
+
+        List<Product> catalog = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder description = new StringBuilder();
+            for (int w = 0; w < 6; w++) {
+                description.append(vocabulary.get(random.nextInt(vocabulary.size()))).append(' ');
+            }
+            String name = vocabulary.get(random.nextInt(vocabulary.size())) + " "
+                    + vocabulary.get(random.nextInt(vocabulary.size())) + " No. " + i;
+            catalog.add(product(name, description.toString(), true));
+        }
+        when(productRepository.findAllByOrderByNameAsc()).thenReturn(catalog);
+        menuSearchIndex.rebuild();
+
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String word = vocabulary.get(random.nextInt(vocabulary.size()));
+            queries.add(word);
+            queries.add(word.substring(0, 3));
+            queries.add(word.substring(1) + " " + vocabulary.get(random.nextInt(vocabulary.size())));
+        }
+
+        for (int warmup = 0; warmup < 20; warmup++) {
+            queries.forEach(query -> menuSearchIndex.search(query, 20));
+            queries.forEach(query -> menuSearchIndex.suggest(query, 8));
+        }
+
+        int rounds = 50;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            queries.forEach(query -> menuSearchIndex.search(query, 20));
+        }
+        double searchMicros = (System.nanoTime() - start) / 1_000.0 / (rounds * queries.size());
+
+        start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            queries.forEach(query -> menuSearchIndex.suggest(query, 8));
+        }
+        double suggestMicros = (System.nanoTime() - start) / 1_000.0 / (rounds * queries.size());
+
+        assertThat(menuSearchIndex.search(queries.get(0), 20)).isNotEmpty();
+        assertThat(searchMicros).as("search microseconds per query").isLessThan(1_000);
+        assertThat(suggestMicros).as("suggest microseconds per query").isLessThan(1_000);
+    }
+}
@@ -1,8 +1,13 @@
 package bg.softuni.magelan.product.service;
 
+import bg.softuni.magelan.product.event.ProductCatalogChangedEvent;
+import bg.softuni.magelan.product.menu.MenuCatalog;
+import bg.softuni.magelan.product.menu.MenuItem;
+import bg.softuni.magelan.product.menu.MenuSnapshot;
 import bg.softuni.magelan.product.model.Product;
 import bg.softuni.magelan.product.model.ProductCategory;
 import bg.softuni.magelan.product.repository.ProductRepository;
+import bg.softuni.magelan.product.search.MenuSearchIndex;
 import bg.softuni.magelan.web.dto.ProductForm;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,6 +15,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -27,20 +33,50 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private MenuCatalog menuCatalog;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Mock
+    private MenuSearchIndex menuSearchIndex;
+
     @InjectMocks
     private ProductService productService;
 
     @Test
-    void getByCategory_shouldDelegateToRepository() {
-        ProductCategory category = ProductCategory.MAIN;
-        List<Product> products = List.of(new Product());
-        when(productRepository.findAllByCategoryOrderByNameAsc(category))
-                .thenReturn(products);
+    void getMenu_shouldReturnCurrentSnapshotWithoutQueryingRepository() {
+        MenuSnapshot snapshot = MenuSnapshot.of(3, List.of());
+        when(menuCatalog.getSnapshot()).thenReturn(snapshot);
 
-        List<Product> result = productService.getByCategory(category);
+        MenuSnapshot result = productService.getMenu();
 
-        assertThat(result).isSameAs(products);
-        verify(productRepository).findAllByCategoryOrderByNameAsc(category);
+        assertThat(result).isSameAs(snapshot);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void getMenuItem_shouldResolveFromSnapshot_andThrowWhenUnknown() {
+        UUID id = UUID.randomUUID();
+        MenuItem item = new MenuItem(id, "Espresso", null, BigDecimal.ONE, ProductCategory.DRINK, false);
+        when(menuCatalog.getSnapshot()).thenReturn(MenuSnapshot.of(1, List.of(item)));
+
+        assertThat(productService.getMenuItem(id)).isSameAs(item);
+        assertThatThrownBy(() -> productService.getMenuItem(UUID.randomUUID()))
+                .isInstanceOf(RuntimeException.class);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void searchMenu_shouldUseSearchIndex() {
+        MenuItem item = new MenuItem(UUID.randomUUID(), "Harbor Soup", null, BigDecimal.ONE, ProductCategory.STARTER, true);
+        when(menuSearchIndex.search("soup", 5)).thenReturn(List.of(item));
+        when(menuSearchIndex.suggest("har", 3)).thenReturn(List.of("Harbor Soup"));
+
+        assertThat(productService.searchMenu("soup", 5)).containsExactly(item);
+        assertThat(productService.suggestMenuItems("har", 3)).containsExactly("Harbor Soup");
+        verifyNoInteractions(productRepository);
     }
 
     @Test
@@ -117,6 +153,7 @@ class ProductServiceTest {
         assertThat(toSave.getUpdatedOn()).isNotNull();
 
         assertThat(result).isSameAs(saved);
+        verify(applicationEventPublisher).publishEvent(ProductCatalogChangedEvent.of(saved.getId()));
     }
 
     @Test
@@ -159,6 +196,7 @@ class ProductServiceTest {
 
         verify(productRepository).findById(id);
         verify(productRepository).save(existing);
+        verify(applicationEventPublisher).publishEvent(ProductCatalogChangedEvent.of(id));
     }
 
     @Test
@@ -168,6 +206,7 @@ class ProductServiceTest {
         productService.delete(id);
 
         verify(productRepository).deleteById(id);
+        verify(applicationEventPublisher).publishEvent(ProductCatalogChangedEvent.of(id));
     }
 
     @Test
@@ -0,0 +1,36 @@
+package bg.softuni.magelan.querystats;
+
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Fails a test when the code under test prepares more SQL statements than its budget, listing
+ * what ran so an N+1 select is easy to spot. Needs the Hibernate hooks from the test
+ * application.properties.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static QueryStats assertAtMost(int maxStatements, Executable action) throws Throwable {
+        QueryStats stats = QueryStatsHolder.start();
+        try {
+            action.execute();
+        } finally {
+            QueryStatsHolder.stop(stats);
+        }
+
+        if (stats.getStatements() > maxStatements) {
+            String statements = stats.getStatementCounts().entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .map(entry -> "  %dx %s".formatted(entry.getValue(), entry.getKey()))
+                    .collect(Collectors.joining("\n"));
+            throw new AssertionError("Expected at most %d SQL statements but %d ran:%n%s"
+                    .formatted(maxStatements, stats.getStatements(), statements));
+        }
+        return stats;
+    }
+}
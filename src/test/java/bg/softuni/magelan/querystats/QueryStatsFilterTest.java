@@ -0,0 +1,72 @@
+package bg.softuni.magelan.querystats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryStatsFilterTest {
+
+    private static final String SELECT_CUSTOMER = "select u.id, u.username from users u where u.id=?";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final QueryStatsFilter filter = new QueryStatsFilter(meterRegistry, 3);
+    private final CountingStatementInspector inspector = new CountingStatementInspector();
+
+    @Test
+    void doFilter_shouldReportStatementsInHeadersAndMetrics_andFlagRepeats() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/admin/bookings");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, resp) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/admin/bookings");
+            inspector.inspect("select b.id from booking b");
+            for (int i = 0; i < 4; i++) {
+                inspector.inspect(SELECT_CUSTOMER);
+            }
+            resp.getWriter().write("<html>bookings</html>");
+        });
+
+        assertThat(response.getHeader(QueryStatsFilter.STATEMENTS_HEADER)).isEqualTo("5");
+        assertThat(response.getHeader(QueryStatsFilter.JDBC_TIME_HEADER)).isEqualTo("0");
+        assertThat(response.getHeader(QueryStatsFilter.REPEATED_HEADER)).isEqualTo("4");
+        assertThat(response.getContentAsString()).isEqualTo("<html>bookings</html>");
+        assertThat(meterRegistry.get("magelan.http.sql.statements").tag("uri", "/admin/bookings")
+                .summary().totalAmount()).isEqualTo(5);
+        assertThat(meterRegistry.get("magelan.http.sql.repeated").tag("uri", "/admin/bookings")
+                .counter().count()).isEqualTo(1);
+        assertThat(QueryStatsHolder.current()).isNull();
+    }
+
+    @Test
+    void doFilter_shouldSetHeadersBeforeRedirect() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/bookings");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, resp) -> {
+            inspector.inspect("insert into booking values (?)");
+            ((HttpServletResponse) resp).sendRedirect("/bookings");
+        });
+
+        assertThat(response.getRedirectedUrl()).isEqualTo("/bookings");
+        assertThat(response.getHeader(QueryStatsFilter.STATEMENTS_HEADER)).isEqualTo("1");
+        assertThat(response.getHeader(QueryStatsFilter.REPEATED_HEADER)).isNull();
+        assertThat(meterRegistry.find("magelan.http.sql.repeated").counter()).isNull();
+    }
+
+    @Test
+    void doFilter_shouldLeaveEventStreamsUntouched() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/admin/orders/feed");
+        request.addHeader("Accept", "text/event-stream");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, resp) -> inspector.inspect("select 1"));
+
+        assertThat(response.getHeader(QueryStatsFilter.STATEMENTS_HEADER)).isNull();
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+}
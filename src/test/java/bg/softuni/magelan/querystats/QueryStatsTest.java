@@ -0,0 +1,97 @@
+package bg.softuni.magelan.querystats;
+
+import bg.softuni.magelan.booking.model.Booking;
+import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.repository.BookingRepository;
+import bg.softuni.magelan.user.model.User;
+import bg.softuni.magelan.user.model.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+class QueryStatsTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 6, 1);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            User customer = entityManager.persist(User.builder().username("guest" + i).password("hash")
+                    .role(UserRole.USER).active(true).createdOn(now).updatedOn(now).build());
+            entityManager.persist(Booking.builder().customer(customer).date(DATE).time(LocalTime.of(12 + i, 0))
+                    .guests(2).status(BookingStatus.PENDING).createdOn(now).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void assertAtMost_shouldPass_whenCustomersAreFetchedWithTheBookings() throws Throwable {
+        QueryStats stats = QueryBudget.assertAtMost(1, () ->
+                bookingRepository.findByDateBetweenOrderByDateAscTimeAscIdAsc(DATE, DATE,
+                                ScrollPosition.keyset(), Limit.of(10))
+                        .forEach(booking -> booking.getCustomer().getUsername()));
+
+        assertThat(stats.getStatements()).isEqualTo(1);
+        assertThat(stats.getJdbcTime()).isPositive();
+    }
+
+    @Test
+    void assertAtMost_shouldPass_whenLazyCustomersLoadInOneBatch() throws Throwable {
+        QueryStats stats = QueryBudget.assertAtMost(2, () ->
+                bookingRepository.findAll().forEach(booking -> booking.getCustomer().getUsername()));
+
+        assertThat(stats.getStatements()).isEqualTo(2);
+    }
+
+    @Test
+    void assertAtMost_shouldFailAndShowRepeatedSelect_whenBookingsLoadOneByOne() {
+        List<UUID> ids = bookingRepository.findAll().stream().map(Booking::getId).toList();
+        entityManager.clear();
+
+        assertThatThrownBy(() -> QueryBudget.assertAtMost(1, () -> ids.forEach(bookingRepository::findById)))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("at most 1 SQL statements but 5 ran")
+                .hasMessageContaining("5x select");
+    }
+
+    @Test
+    void start_shouldCountNestedStatsIntoOuterOnes() {
+        QueryStats outer = QueryStatsHolder.start();
+        QueryStats inner = QueryStatsHolder.start();
+        bookingRepository.count();
+        QueryStatsHolder.stop(inner);
+        bookingRepository.count();
+        QueryStatsHolder.stop(outer);
+        bookingRepository.count();
+
+        assertThat(inner.getStatements()).isEqualTo(1);
+        assertThat(outer.getStatements()).isEqualTo(2);
+        assertThat(outer.getMostRepeated()).get().extracting(entry -> entry.getValue()).isEqualTo(2);
+        assertThat(QueryStatsHolder.current()).isNull();
+    }
+}
@@ -0,0 +1,97 @@
+package bg.softuni.magelan.security;
+
+import jakarta.servlet.http.HttpServlet;
+import org.apache.catalina.filters.RemoteIpFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoginThrottleFilterTest {
+
+    @Mock
+    private LoginThrottle loginThrottle;
+
+    private LoginThrottleFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new LoginThrottleFilter(loginThrottle, "/login", "username");
+    }
+
+    @Test
+    void doFilter_shouldAnswerTooManyRequests_withoutReachingAuthentication() throws Exception {
+        MockHttpServletRequest request = loginRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        when(loginThrottle.tryAcquire("pirate", "10.0.0.1"))
+                .thenReturn(new LoginThrottle.Rejection(LoginThrottle.Scope.USER, Duration.ofMillis(11_200)));
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("12");
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void doFilter_shouldPassAttemptsWithinLimits() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(loginRequest(), new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void doFilter_shouldIgnoreOtherRequests() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/login"), new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        verifyNoInteractions(loginThrottle);
+    }
+
+    @Test
+    void doFilter_shouldThrottleTheForwardedClient_onlyBehindATrustedProxy() throws Exception {
+        RemoteIpFilter remoteIp = new RemoteIpFilter();
+        MockFilterConfig config = new MockFilterConfig();
+        // Same as server.tomcat.remoteip.internal-proxies in application.properties.
+        config.addInitParameter("internalProxies", "127\\.0\\.0\\.1|0:0:0:0:0:0:0:1|::1");
+        remoteIp.init(config);
+
+        MockHttpServletRequest viaProxy = loginRequest();
+        viaProxy.setRemoteAddr("127.0.0.1");
+        viaProxy.addHeader("X-Forwarded-For", "203.0.113.7");
+        remoteIp.doFilter(viaProxy, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+        }, filter));
+
+        MockHttpServletRequest spoofed = loginRequest();
+        spoofed.addHeader("X-Forwarded-For", "203.0.113.8");
+        remoteIp.doFilter(spoofed, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+        }, filter));
+
+        verify(loginThrottle).tryAcquire("pirate", "203.0.113.7");
+        verify(loginThrottle).tryAcquire("pirate", "10.0.0.1");
+    }
+
+    private static MockHttpServletRequest loginRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setServletPath("/login");
+        request.setRemoteAddr("10.0.0.1");
+        request.setParameter("username", "pirate");
+        return request;
+    }
+}
@@ -0,0 +1,85 @@
+package bg.softuni.magelan.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginThrottleTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoginThrottle loginThrottle = new LoginThrottle(meterRegistry, 3, 3, 10, 10, Duration.ofMinutes(15));
+
+    private void failLogin(String username) {
+        loginThrottle.onBadCredentials(new AuthenticationFailureBadCredentialsEvent(
+                new TestingAuthenticationToken(username, null), new BadCredentialsException("Bad credentials")));
+    }
+
+    @Test
+    void tryAcquire_shouldRefuseUsername_afterFailedAttemptsSpendTheBurst() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(loginThrottle.tryAcquire("pirate", "10.0.0." + i)).isNull();
+            failLogin("pirate");
+        }
+
+        LoginThrottle.Rejection rejection = loginThrottle.tryAcquire("PIRATE", "10.0.0.9");
+
+        assertThat(rejection.scope()).isEqualTo(LoginThrottle.Scope.USER);
+        assertThat(rejection.retryAfter()).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(20));
+        assertThat(loginThrottle.tryAcquire("captain", "10.0.0.9")).isNull();
+        assertThat(meterRegistry.get("magelan.security.login.throttled").tag("scope", "user").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void tryAcquire_shouldNotSpendUsernameBucket_whenAttemptsDoNotFail() {
+        for (int i = 0; i < 9; i++) {
+            assertThat(loginThrottle.tryAcquire("pirate", "10.0.0." + i)).isNull();
+        }
+    }
+
+    @Test
+    void tryAcquire_shouldRefuseAddress_sprayingManyUsernames() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(loginThrottle.tryAcquire("sailor" + i, "10.0.0.1")).isNull();
+        }
+
+        assertThat(loginThrottle.tryAcquire("sailor99", "10.0.0.1").scope()).isEqualTo(LoginThrottle.Scope.IP);
+        assertThat(meterRegistry.get("magelan.security.login.throttled").tag("scope", "ip").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void onAuthenticationSuccess_shouldRefillUsernameBucket() {
+        for (int i = 0; i < 3; i++) {
+            failLogin("pirate");
+        }
+        assertThat(loginThrottle.tryAcquire("pirate", "10.0.0.1")).isNotNull();
+
+        loginThrottle.onAuthenticationSuccess(new AuthenticationSuccessEvent(new TestingAuthenticationToken("pirate", null)));
+
+        assertThat(loginThrottle.tryAcquire("pirate", "10.0.0.1")).isNull();
+    }
+
+    @Test
+    void acquire_shouldRefillOneTokenPerInterval() {
+        LoginThrottle.Limit limit = new LoginThrottle.Limit(2, 60);
+        long start = 0;
+        AtomicLong bucket = new AtomicLong(start);
+
+        assertThat(LoginThrottle.acquire(bucket, limit, start)).isZero();
+        assertThat(LoginThrottle.acquire(bucket, limit, start)).isZero();
+        assertThat(LoginThrottle.acquire(bucket, limit, start)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+
+        assertThat(LoginThrottle.acquire(bucket, limit, start + TimeUnit.SECONDS.toNanos(1))).isZero();
+        assertThat(LoginThrottle.acquire(bucket, limit, start + TimeUnit.SECONDS.toNanos(1))).isPositive();
+    }
+}
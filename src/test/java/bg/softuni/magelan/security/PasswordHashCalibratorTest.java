@@ -0,0 +1,29 @@
+package bg.softuni.magelan.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashCalibratorTest {
+
+    @Test
+    void calibrateBcryptStrength_shouldPickHighestCostWithinTarget_whenTargetIsGenerous() {
+        PasswordHashCalibrator calibrator = new PasswordHashCalibrator(60_000, 4, 6, 1);
+
+        assertThat(calibrator.calibrateBcryptStrength()).isEqualTo(6);
+    }
+
+    @Test
+    void calibrateBcryptStrength_shouldNeverGoBelowMinimum_whenTargetIsUnreachable() {
+        PasswordHashCalibrator calibrator = new PasswordHashCalibrator(0, 5, 7, 1);
+
+        assertThat(calibrator.calibrateBcryptStrength()).isEqualTo(5);
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidStrengthRange() {
+        assertThatThrownBy(() -> new PasswordHashCalibrator(250, 12, 10, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
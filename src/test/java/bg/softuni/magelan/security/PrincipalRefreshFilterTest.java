@@ -0,0 +1,128 @@
+package bg.softuni.magelan.security;
+
+import bg.softuni.magelan.user.model.UserRole;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrincipalRefreshFilterTest {
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private UserProfileChanges userProfileChanges;
+    private final UUID userId = UUID.randomUUID();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_shouldKeepPrincipal_whenNothingChanged() throws Exception {
+        UserData current = principal(UserRole.USER, true, 1);
+        signIn(current);
+        when(userProfileChanges.isStale(current)).thenReturn(false);
+
+        filter().doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isSameAs(current);
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void doFilter_shouldReloadAndStorePrincipal_whenUserChanged() throws Exception {
+        signInStale(principal(UserRole.USER, true, 1));
+        UserData fresh = principal(UserRole.ADMIN, true, 2);
+        when(userDetailsService.loadUserByUsername("pirate")).thenReturn(fresh);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(new MockHttpSession());
+
+        filter().doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getPrincipal()).isSameAs(fresh);
+        assertThat(authentication.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+        SecurityContext stored = (SecurityContext) request.getSession()
+                .getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        assertThat(stored.getAuthentication()).isSameAs(authentication);
+    }
+
+    @Test
+    void doFilter_shouldSignOut_whenUserWasDeactivated() throws Exception {
+        signInStale(principal(UserRole.USER, true, 1));
+        when(userDetailsService.loadUserByUsername("pirate"))
+                .thenReturn(principal(UserRole.USER, false, 2));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpSession session = new MockHttpSession();
+        request.setSession(session);
+
+        filter().doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(session.isInvalid()).isTrue();
+    }
+
+    @Test
+    void doFilter_shouldNotCheckVersion_forStaticResources() throws Exception {
+        signIn(principal(UserRole.USER, true, 1));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/css/site.css");
+        request.setServletPath("/css/site.css");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter().doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        verifyNoInteractions(userProfileChanges, userDetailsService);
+    }
+
+    @Test
+    void doFilter_shouldSignOut_whenUserIsGone() throws Exception {
+        signInStale(principal(UserRole.USER, true, 1));
+        when(userDetailsService.loadUserByUsername("pirate")).thenThrow(new UsernameNotFoundException("gone"));
+
+        filter().doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    private PrincipalRefreshFilter filter() {
+        return new PrincipalRefreshFilter(userProfileChanges, userDetailsService,
+                new AntPathRequestMatcher("/css/**"));
+    }
+
+    private UserData principal(UserRole role, boolean active, long profileVersion) {
+        return new UserData(userId, "pirate", "encoded", role, active, null, profileVersion);
+    }
+
+    private void signInStale(UserData userData) {
+        signIn(userData);
+        when(userProfileChanges.isStale(userData)).thenReturn(true);
+    }
+
+    private static void signIn(UserData userData) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(userData, null, userData.getAuthorities()));
+    }
+}
@@ -0,0 +1,74 @@
+package bg.softuni.magelan.security;
+
+import bg.softuni.magelan.user.model.UserRole;
+import bg.softuni.magelan.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserProfileChangesTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserProfileChanges userProfileChanges;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        userProfileChanges = new UserProfileChanges(userRepository, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void isStale_shouldBeTrue_onlyForPrincipalsOlderThanTheStoredVersion() {
+        when(userRepository.findProfileVersionById(userId)).thenReturn(Optional.of(4L));
+
+        assertThat(userProfileChanges.isStale(principal(3))).isTrue();
+        assertThat(userProfileChanges.isStale(principal(4))).isFalse();
+    }
+
+    @Test
+    void isStale_shouldReadTheStoredVersionOncePerInterval_untilChangedHere() {
+        when(userRepository.findProfileVersionById(userId)).thenReturn(Optional.of(4L), Optional.of(5L));
+
+        userProfileChanges.isStale(principal(4));
+        assertThat(userProfileChanges.isStale(principal(4))).isFalse();
+        verify(userRepository, times(1)).findProfileVersionById(userId);
+
+        userProfileChanges.markChanged(userId);
+
+        assertThat(userProfileChanges.isStale(principal(4))).isTrue();
+        verify(userRepository, times(2)).findProfileVersionById(userId);
+    }
+
+    @Test
+    void isStale_shouldBeTrue_whenUserIsGone() {
+        when(userRepository.findProfileVersionById(userId)).thenReturn(Optional.empty());
+
+        assertThat(userProfileChanges.isStale(principal(0))).isTrue();
+    }
+
+    @Test
+    void markChanged_shouldBumpTheStoredVersion() {
+        userProfileChanges.markChanged(userId);
+
+        verify(userRepository).incrementProfileVersion(userId);
+    }
+
+    private UserData principal(long profileVersion) {
+        return new UserData(userId, "pirate", "encoded", UserRole.USER, true, null, profileVersion);
+    }
+}
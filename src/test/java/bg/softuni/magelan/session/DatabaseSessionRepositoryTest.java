@@ -0,0 +1,151 @@
+package bg.softuni.magelan.session;
+
+import bg.softuni.magelan.security.UserData;
+import bg.softuni.magelan.security.UserProfile;
+import bg.softuni.magelan.session.repository.SessionRecordRepository;
+import bg.softuni.magelan.user.model.UserRole;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.FlashMap;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DatabaseSessionRepositoryTest {
+
+    @Autowired
+    private SessionRecordRepository sessionRecordRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DatabaseSessionRepository sessionRepository;
+
+    @BeforeEach
+    void setUp() {
+        sessionRecordRepository.deleteAll();
+        sessionRepository = new DatabaseSessionRepository(sessionRecordRepository, meterRegistry,
+                Duration.ofMinutes(30), Duration.ofSeconds(60));
+    }
+
+    @Test
+    void save_andFindById_shouldRoundTripSecurityContextAndFlashAttributes() {
+        StoredSession session = sessionRepository.createSession();
+        UserData userData = new UserData(UUID.randomUUID(), "pirate", null, UserRole.USER, true,
+                new UserProfile("pirate", "Jack", "Sparrow", null, "0888123456", null, null, UserRole.USER,
+                        LocalDateTime.of(2025, 1, 1, 12, 0)), 7);
+        SecurityContext context = new SecurityContextImpl(
+                UsernamePasswordAuthenticationToken.authenticated(userData, null, userData.getAuthorities()));
+        FlashMap flashMap = new FlashMap();
+        flashMap.put("message", "Your booking request was submitted.");
+        session.setAttribute("SPRING_SECURITY_CONTEXT", context);
+        session.setAttribute("flashMaps", new ArrayList<>(List.of(flashMap)));
+
+        sessionRepository.save(session);
+        StoredSession loaded = sessionRepository.findById(session.getId());
+
+        SecurityContext loadedContext = (SecurityContext) loaded.getAttribute("SPRING_SECURITY_CONTEXT");
+        assertThat(loadedContext.getAuthentication().getPrincipal()).isEqualTo(userData);
+        assertThat(loadedContext.getAuthentication().getAuthorities()).extracting(Object::toString)
+                .containsExactly("ROLE_USER");
+        assertThat(loaded.getAttribute("flashMaps")).isEqualTo(List.of(flashMap));
+        assertThat(loaded.isNew()).isFalse();
+        assertThat(meterRegistry.get("magelan.session.bytes").summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    void save_shouldWriteNothing_whenSessionWasOnlyRead() {
+        StoredSession session = sessionRepository.createSession();
+        session.setAttribute("cart", "3 items");
+        sessionRepository.save(session);
+
+        StoredSession loaded = sessionRepository.findById(session.getId());
+        loaded.getAttribute("cart");
+        sessionRepository.save(loaded);
+
+        assertThat(meterRegistry.get("magelan.session.writes").tag("kind", "skip").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("magelan.session.writes").tag("kind", "update").counter().count()).isZero();
+    }
+
+    @Test
+    void save_shouldOnlyPushExpiry_whenIdleLongerThanTouchInterval() {
+        StoredSession session = sessionRepository.createSession();
+        sessionRepository.save(session);
+        Instant later = session.getLastAccessedOn().plus(Duration.ofMinutes(5));
+
+        StoredSession loaded = sessionRepository.findById(session.getId());
+        loaded.setLastAccessedOn(later);
+        sessionRepository.save(loaded);
+
+        assertThat(meterRegistry.get("magelan.session.writes").tag("kind", "touch").counter().count()).isEqualTo(1);
+        assertThat(sessionRecordRepository.findById(session.getId()).orElseThrow().getExpiresAt())
+                .isEqualTo(later.plus(Duration.ofMinutes(30)).toEpochMilli());
+    }
+
+    @Test
+    void save_shouldMoveSessionToNewId_afterIdChange() {
+        StoredSession session = sessionRepository.createSession();
+        session.setAttribute("cart", "3 items");
+        sessionRepository.save(session);
+        String oldId = session.getId();
+
+        session.changeId(sessionRepository.newSessionId());
+        sessionRepository.save(session);
+
+        assertThat(sessionRepository.findById(oldId)).isNull();
+        assertThat(sessionRepository.findById(session.getId()).getAttribute("cart")).isEqualTo("3 items");
+    }
+
+    @Test
+    void save_shouldKeepChangesOfConcurrentRequests_onTheSameSession() {
+        StoredSession session = sessionRepository.createSession();
+        session.setAttribute("cart", "3 items");
+        session.setAttribute("flashMaps", "old flash");
+        sessionRepository.save(session);
+
+        StoredSession first = sessionRepository.findById(session.getId());
+        StoredSession second = sessionRepository.findById(session.getId());
+        first.setAttribute("SPRING_SECURITY_CONTEXT", "signed in");
+        second.setAttribute("_csrf", "token");
+        second.removeAttribute("flashMaps");
+        sessionRepository.save(first);
+        sessionRepository.save(second);
+
+        StoredSession reloaded = sessionRepository.findById(session.getId());
+        assertThat(reloaded.getAttributes()).containsOnlyKeys("cart", "SPRING_SECURITY_CONTEXT", "_csrf");
+        assertThat(second.getAttribute("SPRING_SECURITY_CONTEXT")).isEqualTo("signed in");
+        assertThat(meterRegistry.get("magelan.session.writes").tag("kind", "conflict").counter().count()).isZero();
+    }
+
+    @Test
+    void findById_andDeleteExpiredSessions_shouldDropExpiredSessions() {
+        StoredSession session = sessionRepository.createSession();
+        session.setMaxInactiveInterval(0);
+        sessionRepository.save(session);
+        StoredSession other = sessionRepository.createSession();
+        other.setMaxInactiveInterval(0);
+        sessionRepository.save(other);
+
+        assertThat(sessionRepository.findById(session.getId())).isNull();
+        sessionRepository.deleteExpiredSessions();
+
+        assertThat(sessionRecordRepository.count()).isZero();
+    }
+}
@@ -0,0 +1,71 @@
+package bg.softuni.magelan.session;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SessionLoginFlowTest {
+
+    private static final Pattern CSRF_TOKEN = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void loginForm_shouldSetSessionCookie_soTheCsrfTokenIsAcceptedOnPost() throws Exception {
+        MvcResult form = mockMvc.perform(get("/login"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Cookie session = form.getResponse().getCookie(SessionRepositoryFilter.COOKIE_NAME);
+        assertThat(session).isNotNull();
+        Matcher token = CSRF_TOKEN.matcher(form.getResponse().getContentAsString());
+        assertThat(token.find()).isTrue();
+
+        mockMvc.perform(post("/login")
+                        .cookie(session)
+                        .param("_csrf", token.group(1))
+                        .param("username", "nobody")
+                        .param("password", "wrong-password"))
+                .andExpect(redirectedUrl("/login?error"));
+    }
+
+    @Test
+    void login_shouldThrottleUsername_onlyAfterItsFailedAttempts() throws Exception {
+        MvcResult form = mockMvc.perform(get("/login")).andReturn();
+        Cookie session = form.getResponse().getCookie(SessionRepositoryFilter.COOKIE_NAME);
+        Matcher token = CSRF_TOKEN.matcher(form.getResponse().getContentAsString());
+        assertThat(token.find()).isTrue();
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/login")
+                            .cookie(session)
+                            .param("_csrf", token.group(1))
+                            .param("username", "castaway")
+                            .param("password", "wrong-password"))
+                    .andExpect(redirectedUrl("/login?error"));
+        }
+
+        mockMvc.perform(post("/login")
+                        .cookie(session)
+                        .param("_csrf", token.group(1))
+                        .param("username", "castaway")
+                        .param("password", "wrong-password"))
+                .andExpect(status().isTooManyRequests());
+    }
+}
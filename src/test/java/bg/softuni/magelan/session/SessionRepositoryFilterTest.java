@@ -0,0 +1,124 @@
+package bg.softuni.magelan.session;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionRepositoryFilterTest {
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    private SessionRepositoryFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new SessionRepositoryFilter(sessionRepository);
+        lenient().doAnswer(invocation -> {
+            invocation.<StoredSession>getArgument(0).markSaved();
+            return null;
+        }).when(sessionRepository).save(any());
+    }
+
+    @Test
+    void doFilter_shouldSaveNewSessionBeforeRedirectIsSent() throws Exception {
+        StoredSession created = session("s-1", null, true);
+        when(sessionRepository.createSession()).thenReturn(created);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest(), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                req.getSession().setAttribute("message", "Saved!");
+                resp.sendRedirect("/book-table");
+                verify(sessionRepository).save(created);
+            }
+        }));
+
+        verify(sessionRepository).save(created);
+        assertThat(response.getRedirectedUrl()).isEqualTo("/book-table");
+        assertThat(response.getHeader("Set-Cookie")).startsWith("SESSION=s-1").contains("HttpOnly", "SameSite=Lax");
+    }
+
+    @Test
+    void doFilter_shouldLoadSessionFromCookie_withoutCreatingOne() throws Exception {
+        StoredSession existing = session("s-2", "s-2", false);
+        when(sessionRepository.findById("s-2")).thenReturn(existing);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("SESSION", "s-2"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpSession[] seen = new HttpSession[1];
+
+        filter.doFilter(request, response, (req, res) -> seen[0] = ((HttpServletRequest) req).getSession(false));
+
+        assertThat(seen[0]).isSameAs(existing);
+        verify(sessionRepository).save(existing);
+        verify(sessionRepository, never()).createSession();
+        assertThat(response.getHeader("Set-Cookie")).isNull();
+    }
+
+    @Test
+    void doFilter_shouldNotTouchRepository_whenSessionIsNeverUsed() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("SESSION", "s-3"));
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        verifyNoInteractions(sessionRepository);
+    }
+
+    @Test
+    void doFilter_shouldReissueCookie_whenLoginChangesSessionId() throws Exception {
+        StoredSession existing = session("s-4", "s-4", false);
+        when(sessionRepository.findById("s-4")).thenReturn(existing);
+        when(sessionRepository.newSessionId()).thenReturn("s-5");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("SESSION", "s-4"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> ((HttpServletRequest) req).changeSessionId());
+
+        verify(sessionRepository).save(existing);
+        assertThat(existing.getId()).isEqualTo("s-5");
+        assertThat(response.getHeader("Set-Cookie")).startsWith("SESSION=s-5");
+    }
+
+    @Test
+    void doFilter_shouldDeleteSessionAndExpireCookie_whenInvalidated() throws Exception {
+        StoredSession existing = session("s-6", "s-6", false);
+        when(sessionRepository.findById("s-6")).thenReturn(existing);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("SESSION", "s-6"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> ((HttpServletRequest) req).getSession().invalidate());
+
+        verify(sessionRepository).deleteById("s-6");
+        verify(sessionRepository, never()).save(any());
+        assertThat(response.getHeader("Set-Cookie")).startsWith("SESSION=;").contains("Max-Age=0");
+    }
+
+    private static StoredSession session(String id, String storedId, boolean isNew) {
+        Instant now = Instant.now();
+        return new StoredSession(id, storedId, now, now, Duration.ofMinutes(30), Map.of(), isNew);
+    }
+}
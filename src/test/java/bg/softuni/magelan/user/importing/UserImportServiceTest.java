@@ -0,0 +1,197 @@
+package bg.softuni.magelan.user.importing;
+
+import bg.softuni.magelan.user.lookup.UsernameLookup;
+import bg.softuni.magelan.user.model.User;
+import bg.softuni.magelan.user.model.UserRole;
+import bg.softuni.magelan.user.repository.UserRepository;
+import bg.softuni.magelan.web.dto.UserImportRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserImportServiceTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+    private UsernameLookup usernameLookup;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        userRepository.save(user("captain"));
+        usernameLookup = new UsernameLookup(userRepository, new SimpleMeterRegistry(), 1000, 0.01);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    private UserImportService service(PasswordEncoder passwordEncoder, int chunkSize) {
+        // The import runs on the calling thread, so each test sees its outcome right away.
+        return new UserImportService(userRepository, passwordEncoder, usernameLookup,
+                Validation.buildDefaultValidatorFactory().getValidator(), entityManager, transactionManager,
+                2, chunkSize, 100, Runnable::run);
+    }
+
+    private static User user(String username) {
+        LocalDateTime now = LocalDateTime.now();
+        return User.builder().username(username).password("hash").role(UserRole.USER).active(true)
+                .createdOn(now).updatedOn(now).build();
+    }
+
+    @Test
+    void importUsers_shouldCreateNewUsers_andReportEveryRowInOrder() {
+        List<UserImportRequest> requests = new ArrayList<>(List.of(
+                new UserImportRequest(" deckhand ", "secret1"),
+                new UserImportRequest("captain", "secret2"),
+                new UserImportRequest("x", "secret3"),
+                new UserImportRequest("Deckhand", "secret4"),
+                new UserImportRequest("cook", "secret5"),
+                new UserImportRequest("navigator", "secret6")));
+        requests.add(null);
+
+        UserImportReport report = service(bcrypt, 2).importUsers(requests);
+
+        assertThat(report.results()).extracting(UserImportResult::status).containsExactly(
+                UserImportStatus.CREATED,
+                UserImportStatus.TAKEN,
+                UserImportStatus.INVALID,
+                UserImportStatus.DUPLICATE,
+                UserImportStatus.CREATED,
+                UserImportStatus.CREATED,
+                UserImportStatus.INVALID);
+        assertThat(report.results().get(3).message()).isEqualTo("Same username as row 1.");
+        assertThat(report.created()).isEqualTo(3);
+        assertThat(report.rejected()).isEqualTo(4);
+        assertThat(report.summary()).startsWith("7 rows received: 3 created, 4 rejected");
+
+        User deckhand = userRepository.findByUsername("deckhand").orElseThrow();
+        assertThat(bcrypt.matches("secret1", deckhand.getPassword())).isTrue();
+        assertThat(deckhand.getRole()).isEqualTo(UserRole.USER);
+        assertThat(userRepository.count()).isEqualTo(4);
+        assertThat(usernameLookup.isTaken("navigator")).isTrue();
+    }
+
+    @Test
+    void importUsers_shouldFallBackToRowByRow_whenNameIsTakenDuringImport() {
+        // Registers "bosun" through the normal path while its import row is being hashed.
+        PasswordEncoder racingEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                if ("bosun-pass".contentEquals(rawPassword)) {
+                    userRepository.save(user("bosun"));
+                }
+                return bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return bcrypt.matches(rawPassword, encodedPassword);
+            }
+        };
+
+        UserImportReport report = service(racingEncoder, 10).importUsers(List.of(
+                new UserImportRequest("gunner", "gunner-pass"),
+                new UserImportRequest("bosun", "bosun-pass"),
+                new UserImportRequest("lookout", "lookout-pass")));
+
+        assertThat(report.results()).extracting(UserImportResult::status).containsExactly(
+                UserImportStatus.CREATED, UserImportStatus.TAKEN, UserImportStatus.CREATED);
+        assertThat(userRepository.findByUsername("gunner")).isPresent();
+        assertThat(userRepository.findByUsername("lookout")).isPresent();
+    }
+
+    @Test
+    void importUsers_shouldReportOtherConstraintViolations_asFailedNotTaken() {
+        // A hash longer than the password column breaks the insert without any name clash.
+        PasswordEncoder oversizedEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return "cook-pass".contentEquals(rawPassword) ? "x".repeat(300) : bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return bcrypt.matches(rawPassword, encodedPassword);
+            }
+        };
+
+        UserImportReport report = service(oversizedEncoder, 10).importUsers(List.of(
+                new UserImportRequest("gunner", "gunner-pass"),
+                new UserImportRequest("cook", "cook-pass")));
+
+        assertThat(report.results()).extracting(UserImportResult::status).containsExactly(
+                UserImportStatus.CREATED, UserImportStatus.FAILED);
+        assertThat(report.results().get(1).message()).startsWith("Could not be saved:");
+        assertThat(userRepository.findByUsername("cook")).isEmpty();
+    }
+
+    @Test
+    void startImport_shouldRefuseOversizedImports() {
+        List<UserImportRequest> requests = Collections.nCopies(101, new UserImportRequest("sailor", "secret1"));
+
+        assertThatThrownBy(() -> service(bcrypt, 10).startImport(requests))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("at most 100");
+    }
+
+    @Test
+    void startImport_shouldRunInTheBackground_andKeepTheReportForTheStatusCheck() {
+        List<Runnable> queued = new ArrayList<>();
+        UserImportService service = new UserImportService(userRepository, bcrypt, usernameLookup,
+                Validation.buildDefaultValidatorFactory().getValidator(), entityManager, transactionManager,
+                2, 10, 100, queued::add);
+        List<UserImportRequest> requests = List.of(new UserImportRequest("deckhand", "secret1"),
+                new UserImportRequest("captain", "secret1"));
+
+        UserImportReport started = service.startImport(requests);
+
+        assertThat(started.running()).isTrue();
+        assertThat(service.getProgress()).contains(started);
+        assertThat(userRepository.findByUsername("deckhand")).isEmpty();
+        assertThatThrownBy(() -> service.startImport(requests))
+                .isInstanceOf(IllegalStateException.class);
+
+        queued.forEach(Runnable::run);
+
+        UserImportReport finished = service.getProgress().orElseThrow();
+        assertThat(finished.running()).isFalse();
+        assertThat(finished.created()).isEqualTo(1);
+        assertThat(finished.rejected()).isEqualTo(1);
+        assertThat(finished.results()).extracting(UserImportResult::status)
+                .containsExactly(UserImportStatus.CREATED, UserImportStatus.TAKEN);
+        assertThat(userRepository.findByUsername("deckhand")).isPresent();
+    }
+}
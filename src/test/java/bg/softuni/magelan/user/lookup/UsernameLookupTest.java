@@ -0,0 +1,99 @@
+package bg.softuni.magelan.user.lookup;
+
+import bg.softuni.magelan.user.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsernameLookupTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private UsernameLookup usernameLookup;
+
+    @BeforeEach
+    void setUp() {
+        usernameLookup = new UsernameLookup(userRepository, meterRegistry, 1000, 0.01);
+    }
+
+    @Test
+    void isTaken_shouldAskDatabase_untilFilterIsBuilt() {
+        when(userRepository.existsByUsername("pirate")).thenReturn(true);
+
+        assertThat(usernameLookup.isTaken("pirate")).isTrue();
+    }
+
+    @Test
+    void isTaken_shouldSkipDatabase_forNamesNeverRegistered() {
+        when(userRepository.findAllUsernames()).thenReturn(List.of("pirate", "captain"));
+        usernameLookup.rebuild();
+
+        assertThat(usernameLookup.isTaken("stowaway")).isFalse();
+
+        verify(userRepository, never()).existsByUsername(any());
+        assertThat(meterRegistry.get("magelan.users.username.lookups").tag("result", "absent").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("magelan.users.username.filter.bytes").gauge().value()).isPositive();
+    }
+
+    @Test
+    void isTaken_shouldConfirmPossibleHitsInDatabase_ignoringCaseAndAccents() {
+        when(userRepository.findAllUsernames()).thenReturn(List.of("José"));
+        when(userRepository.existsByUsername("jose")).thenReturn(true);
+        usernameLookup.rebuild();
+
+        assertThat(usernameLookup.isTaken("jose")).isTrue();
+        verify(userRepository).existsByUsername("jose");
+    }
+
+    @Test
+    void add_shouldMakeNewNameAPossibleHit() {
+        when(userRepository.findAllUsernames()).thenReturn(List.of());
+        usernameLookup.rebuild();
+
+        usernameLookup.add("bosun");
+
+        assertThat(usernameLookup.isTaken("bosun")).isFalse();
+        verify(userRepository).existsByUsername("bosun");
+        assertThat(meterRegistry.get("magelan.users.username.lookups").tag("result", "false-positive").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void add_shouldRebuildLarger_whenFilterRunsOverCapacity() {
+        List<String> names = IntStream.range(0, 1001).mapToObj(i -> "sailor" + i).toList();
+        when(userRepository.findAllUsernames()).thenReturn(List.of()).thenReturn(names);
+        usernameLookup.rebuild();
+        double emptyBytes = meterRegistry.get("magelan.users.username.filter.bytes").gauge().value();
+
+        names.forEach(usernameLookup::add);
+
+        verify(userRepository, times(2)).findAllUsernames();
+        assertThat(meterRegistry.get("magelan.users.username.filter.bytes").gauge().value()).isGreaterThan(emptyBytes);
+        assertThat(meterRegistry.get("magelan.users.username.filter.expected.fpp").gauge().value()).isLessThan(0.01);
+    }
+
+    @Test
+    void bloomFilter_shouldStayNearConfiguredFalsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put("member" + i));
+
+        long falsePositives = IntStream.range(0, 10_000).filter(i -> filter.mightContain("outsider" + i)).count();
+
+        assertThat(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("member" + i))).isTrue();
+        assertThat(falsePositives).isLessThan(200);
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.015);
+    }
+}
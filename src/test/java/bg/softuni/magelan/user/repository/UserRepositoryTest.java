@@ -0,0 +1,93 @@
+package bg.softuni.magelan.user.repository;
+
+import bg.softuni.magelan.user.model.User;
+import bg.softuni.magelan.user.model.UserRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User persist(String username) {
+        return entityManager.persist(User.builder()
+                .username(username)
+                .password("encoded-pass")
+                .role(UserRole.USER)
+                .active(true)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+    }
+
+    @Test
+    void findIdsByUsernameLikeAfter_shouldPageByUsernameWithinPrefix() {
+        Map<String, User> users = List.of("pirate_b", "pirate_a", "pirateXc", "captain", "pirate_c").stream()
+                .map(this::persist)
+                .collect(Collectors.toMap(User::getUsername, Function.identity()));
+        entityManager.flush();
+
+        List<UUID> firstPage = userRepository.findIdsByUsernameLikeAfter("pirate!_%", "", Limit.of(2));
+        List<UUID> secondPage = userRepository.findIdsByUsernameLikeAfter("pirate!_%", "pirate_b", Limit.of(2));
+
+        assertThat(firstPage).containsExactly(users.get("pirate_a").getId(), users.get("pirate_b").getId());
+        assertThat(secondPage).containsExactly(users.get("pirate_c").getId());
+    }
+
+    @Test
+    void findSummariesByIdIn_shouldProjectListingColumns() {
+        User user = persist("bosun");
+        entityManager.flush();
+
+        List<UserSummary> summaries = userRepository.findSummariesByIdIn(List.of(user.getId()));
+
+        assertThat(summaries)
+                .extracting(UserSummary::id, UserSummary::username, UserSummary::role, UserSummary::active)
+                .containsExactly(tuple(user.getId(), "bosun", UserRole.USER, true));
+        assertThat(summaries.get(0).createdOn()).isNotNull();
+    }
+
+    @Test
+    void incrementProfileVersion_shouldBumpTheStoredVersion() {
+        User user = persist("navigator");
+        entityManager.flush();
+
+        userRepository.incrementProfileVersion(user.getId());
+        userRepository.incrementProfileVersion(user.getId());
+
+        assertThat(userRepository.findProfileVersionById(user.getId())).contains(2L);
+        assertThat(userRepository.findProfileVersionById(UUID.randomUUID())).isEmpty();
+    }
+
+    @Test
+    void existsByUsername_andFindAllUsernames_shouldReadUsernamesOnly() {
+        persist("quartermaster");
+        persist("gunner");
+        entityManager.flush();
+
+        assertThat(userRepository.existsByUsername("gunner")).isTrue();
+        assertThat(userRepository.existsByUsername("stowaway")).isFalse();
+        assertThat(userRepository.findAllUsernames()).containsExactlyInAnyOrder("quartermaster", "gunner");
+    }
+}
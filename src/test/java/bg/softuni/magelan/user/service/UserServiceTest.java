@@ -1,21 +1,31 @@
 package bg.softuni.magelan.user.service;
 
 import bg.softuni.magelan.exception.UserNotFoundException;
+import bg.softuni.magelan.exception.UsernameTakenException;
 import bg.softuni.magelan.security.UserData;
+import bg.softuni.magelan.security.UserProfileChanges;
+import bg.softuni.magelan.user.lookup.UsernameLookup;
 import bg.softuni.magelan.user.model.User;
 import bg.softuni.magelan.user.model.UserRole;
 import bg.softuni.magelan.user.repository.UserRepository;
+import bg.softuni.magelan.user.repository.UserSummary;
 import bg.softuni.magelan.web.dto.EditProfileRequest;
 import bg.softuni.magelan.web.dto.RegisterRequest;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -33,7 +43,12 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
-    @InjectMocks
+    @Mock
+    private UsernameLookup usernameLookup;
+
+    @Mock
+    private UserProfileChanges userProfileChanges;
+
     private UserService userService;
 
     private UUID userId;
@@ -41,6 +56,12 @@ class UserServiceTest {
 
     @BeforeEach
     void setUp() {
+        @SuppressWarnings("unchecked")
+        CacheLoader<Object, Object> loader = (CacheLoader<Object, Object>) (CacheLoader<?, ?>) new UserSummaryLoader(userRepository);
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache("users", Caffeine.newBuilder().maximumSize(100).build(loader));
+        userService = new UserService(userRepository, passwordEncoder, cacheManager, userProfileChanges, usernameLookup);
+
         userId = UUID.randomUUID();
         user = User.builder()
                 .id(userId)
@@ -48,6 +69,7 @@ class UserServiceTest {
                 .password("encoded-pass")
                 .role(UserRole.USER)
                 .active(true)
+                .profileVersion(3)
                 .createdOn(LocalDateTime.now())
                 .updatedOn(LocalDateTime.now())
                 .build();
@@ -61,7 +83,7 @@ class UserServiceTest {
                 .build();
 
         when(passwordEncoder.encode("raw-pass")).thenReturn("encoded-pass");
-        when(userRepository.save(any(User.class)))
+        when(userRepository.saveAndFlush(any(User.class)))
                 .thenAnswer(invocation -> {
                     User saved = invocation.getArgument(0);
                     saved.setId(UUID.randomUUID());
@@ -71,7 +93,7 @@ class UserServiceTest {
         userService.register(req);
 
         ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
-        verify(userRepository).save(captor.capture());
+        verify(userRepository).saveAndFlush(captor.capture());
 
         User saved = captor.getValue();
         assertThat(saved.getUsername()).isEqualTo("newUser");
@@ -80,16 +102,74 @@ class UserServiceTest {
         assertThat(saved.isActive()).isTrue();
         assertThat(saved.getCreatedOn()).isNotNull();
         assertThat(saved.getUpdatedOn()).isNotNull();
+        verify(usernameLookup).add("newUser");
     }
 
     @Test
-    void getAll_shouldDelegateToRepository() {
-        when(userRepository.findAll()).thenReturn(List.of(user));
+    void register_shouldThrowUsernameTaken_whenUniqueIndexRejectsTheName() {
+        RegisterRequest req = RegisterRequest.builder()
+                .username("newUser")
+                .password("raw-pass")
+                .build();
 
-        List<User> result = userService.getAll();
+        when(passwordEncoder.encode("raw-pass")).thenReturn("encoded-pass");
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry 'newUser'"));
 
-        assertThat(result).containsExactly(user);
-        verify(userRepository).findAll();
+        assertThatThrownBy(() -> userService.register(req))
+                .isInstanceOf(UsernameTakenException.class)
+                .hasMessageContaining("newUser");
+    }
+
+    @Test
+    void getDirectory_shouldLoadMissingSummariesOnce_andServeRepeatsFromCache() {
+        UserSummary summary = new UserSummary(userId, "pirate", UserRole.USER, true, user.getCreatedOn());
+        when(userRepository.findIdsByUsernameLikeAfter(eq("pi!_r%"), eq(""), any(Limit.class)))
+                .thenReturn(List.of(userId));
+        when(userRepository.findSummariesByIdIn(List.of(userId))).thenReturn(List.of(summary));
+
+        UserDirectoryPage first = userService.getDirectory("pi_r", null);
+        UserDirectoryPage second = userService.getDirectory("pi_r", null);
+
+        assertThat(first.users()).containsExactly(summary);
+        assertThat(first.nextCursor()).isNull();
+        assertThat(second.users()).containsExactly(summary);
+        verify(userRepository, times(1)).findSummariesByIdIn(any());
+    }
+
+    @Test
+    void getDirectory_shouldBatchMissesThroughLoader() {
+        UUID otherId = UUID.randomUUID();
+        UserSummary first = new UserSummary(userId, "anchor", UserRole.USER, true, LocalDateTime.now());
+        UserSummary second = new UserSummary(otherId, "bosun", UserRole.ADMIN, true, LocalDateTime.now());
+
+        when(userRepository.findIdsByUsernameLikeAfter(eq("%"), eq(""), any(Limit.class)))
+                .thenReturn(List.of(userId, otherId));
+        when(userRepository.findSummariesByIdIn(anyList())).thenReturn(List.of(second, first));
+
+        UserDirectoryPage page = userService.getDirectory(null, null);
+        userService.getDirectory(null, null);
+
+        assertThat(page.users()).containsExactly(first, second);
+        verify(userRepository, times(1)).findSummariesByIdIn(anyList());
+    }
+
+    @Test
+    void getDirectory_shouldReturnCursor_whenMoreUsersFollow() {
+        List<UUID> ids = new ArrayList<>();
+        List<UserSummary> summaries = new ArrayList<>();
+        for (int i = 0; i < 26; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            summaries.add(new UserSummary(id, "user%02d".formatted(i), UserRole.USER, true, LocalDateTime.now()));
+        }
+        when(userRepository.findIdsByUsernameLikeAfter(eq("%"), eq("user00"), any(Limit.class))).thenReturn(ids);
+        when(userRepository.findSummariesByIdIn(ids.subList(0, 25))).thenReturn(summaries.subList(0, 25));
+
+        UserDirectoryPage page = userService.getDirectory(null, "user00");
+
+        assertThat(page.users()).hasSize(25);
+        assertThat(page.nextCursor()).isEqualTo("user24");
     }
 
     @Test
@@ -138,6 +218,7 @@ class UserServiceTest {
         assertThat(user.getUpdatedOn()).isNotNull();
 
         verify(userRepository).save(user);
+        verify(userProfileChanges).markChanged(userId);
     }
 
     @Test
@@ -155,6 +236,7 @@ class UserServiceTest {
 
         assertThat(user.getRole()).isEqualTo(UserRole.USER);
         verify(userRepository).save(user);
+        verify(userProfileChanges).markChanged(userId);
     }
 
     @Test
@@ -199,6 +281,8 @@ class UserServiceTest {
         assertThat(userData.getUserId()).isEqualTo(userId);
         assertThat(userData.getAuthorities()).hasSize(1);
         assertThat(userData.isEnabled()).isEqualTo(user.isActive());
+        assertThat(userData.getProfile().username()).isEqualTo("pirate");
+        assertThat(userData.getProfileVersion()).isEqualTo(3);
 
         verify(userRepository).findByUsername("pirate");
     }
@@ -244,4 +328,17 @@ class UserServiceTest {
 
         verify(userRepository, never()).save(any());
     }
+
+    @Test
+    void updatePassword_shouldStoreRehashedPasswordAndReturnFreshDetails() {
+        UserData details = new UserData(userId, "pirate", "encoded-pass", UserRole.USER, true, null, 0);
+        when(userRepository.findByUsername("pirate")).thenReturn(Optional.of(user));
+
+        UserData updated = (UserData) userService.updatePassword(details, "{bcrypt}rehashed");
+
+        assertThat(user.getPassword()).isEqualTo("{bcrypt}rehashed");
+        verify(userRepository).save(user);
+        assertThat(updated.getPassword()).isEqualTo("{bcrypt}rehashed");
+        assertThat(updated.getUserId()).isEqualTo(userId);
+    }
 }
@@ -2,20 +2,30 @@ package bg.softuni.magelan.web;
 
 import bg.softuni.magelan.booking.model.Booking;
 import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.service.BookingPage;
 import bg.softuni.magelan.booking.service.BookingService;
+import bg.softuni.magelan.exception.BookingCapacityExceededException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.web.servlet.mvc.support.RedirectAttributesModelMap;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,30 +38,36 @@ class AdminBookingControllerTest {
     private AdminBookingController adminBookingController;
 
     @Test
-    void getBookingsPage_shouldPopulateUpcomingAndPastBookings() {
+    void getBookingsPage_shouldPopulateUpcomingAndPastPagesForRange() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 1, 31);
         List<Booking> upcoming = List.of(new Booking());
         List<Booking> past = List.of(new Booking());
 
-        when(bookingService.getUpcomingBookingsForAdmin()).thenReturn(upcoming);
-        when(bookingService.getPastBookingsForAdmin()).thenReturn(past);
+        when(bookingService.getUpcomingBookingsForAdmin(from, to, "cursor")).thenReturn(new BookingPage(upcoming, "next"));
+        when(bookingService.getPastBookingsForAdmin(from, to, null)).thenReturn(new BookingPage(past, null));
 
-        ModelAndView mav = adminBookingController.getBookingsPage();
+        ModelAndView mav = adminBookingController.getBookingsPage(from, to, "cursor", null);
 
         assertThat(mav.getViewName()).isEqualTo("admin-bookings");
         assertThat(mav.getModel().get("upcomingBookings")).isEqualTo(upcoming);
+        assertThat(mav.getModel().get("upcomingNext")).isEqualTo("next");
         assertThat(mav.getModel().get("pastBookings")).isEqualTo(past);
+        assertThat(mav.getModel().get("pastNext")).isNull();
+        assertThat(mav.getModel().get("from")).isEqualTo(from);
     }
 
     @Test
     void listBookings_shouldPopulateBookingsAndMessages() {
         List<Booking> bookings = List.of(new Booking());
 
-        when(bookingService.getAllBookings()).thenReturn(bookings);
+        when(bookingService.searchBookingsForAdmin(null, null, null)).thenReturn(new BookingPage(bookings, "next"));
 
-        ModelAndView mav = adminBookingController.listBookings("ok", "err");
+        ModelAndView mav = adminBookingController.listBookings(null, null, null, "ok", "err");
 
         assertThat(mav.getViewName()).isEqualTo("admin-bookings");
         assertThat(mav.getModel().get("bookings")).isEqualTo(bookings);
+        assertThat(mav.getModel().get("nextCursor")).isEqualTo("next");
         assertThat(mav.getModel().get("message")).isEqualTo("ok");
         assertThat(mav.getModel().get("error")).isEqualTo("err");
     }
@@ -69,4 +85,75 @@ class AdminBookingControllerTest {
 
         verify(bookingService).changeStatus(bookingId, BookingStatus.CONFIRMED);
     }
+
+    @Test
+    void changeStatus_shouldFlashError_whenRestoringIntoFullSlot() {
+        UUID bookingId = UUID.randomUUID();
+        RedirectAttributes redirectAttributes = new RedirectAttributesModelMap();
+        doThrow(new BookingCapacityExceededException(LocalDate.now(), LocalTime.of(19, 0), 4))
+                .when(bookingService).changeStatus(bookingId, BookingStatus.PENDING);
+
+        String view = adminBookingController.changeStatus(bookingId, BookingStatus.PENDING, redirectAttributes);
+
+        assertThat(view).isEqualTo("redirect:/admin/bookings");
+        assertThat(redirectAttributes.getFlashAttributes()).containsKey("error").doesNotContainKey("message");
+    }
+
+    @Test
+    void changeStatuses_shouldFlashAffectedCount() {
+        LocalDate date = LocalDate.of(2025, 8, 9);
+        RedirectAttributes redirectAttributes = new RedirectAttributesModelMap();
+        when(bookingService.changeStatuses(date, BookingStatus.PENDING, null, BookingStatus.CONFIRMED)).thenReturn(14);
+
+        String view = adminBookingController.changeStatuses(date, BookingStatus.PENDING, null,
+                BookingStatus.CONFIRMED, redirectAttributes);
+
+        assertThat(view).isEqualTo("redirect:/admin/bookings");
+        assertThat(redirectAttributes.getFlashAttributes().get("message")).isEqualTo("14 booking(s) set to CONFIRMED.");
+    }
+
+    @Test
+    void changeStatuses_shouldFlashError_whenNoFilterGiven() {
+        RedirectAttributes redirectAttributes = new RedirectAttributesModelMap();
+        when(bookingService.changeStatuses(null, null, null, BookingStatus.CANCELLED))
+                .thenThrow(new IllegalArgumentException("Pick a date, a status or at least one booking to update."));
+
+        adminBookingController.changeStatuses(null, null, null, BookingStatus.CANCELLED, redirectAttributes);
+
+        assertThat(redirectAttributes.getFlashAttributes()).containsKey("error").doesNotContainKey("message");
+    }
+
+    @Test
+    void exportCalendar_shouldStreamFeed_whenCalendarChanged() throws Exception {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/admin/bookings/calendar.ics");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(bookingService.getCalendarLastModified(from, to)).thenReturn(LocalDateTime.of(2025, 1, 1, 12, 0));
+
+        adminBookingController.exportCalendar(from, to, request, response);
+
+        assertThat(response.getContentType()).startsWith("text/calendar");
+        assertThat(response.getHeader("Last-Modified")).isNotNull();
+        assertThat(response.getHeader("Content-Disposition")).contains("magelan-bookings-2025-01-01-2025-12-31.ics");
+        verify(bookingService).exportCalendar(eq(from), eq(to), any());
+    }
+
+    @Test
+    void exportCalendar_shouldAnswerNotModified_whenNothingChangedSinceLastFetch() throws Exception {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = from.plusYears(1);
+        LocalDateTime lastModified = LocalDateTime.of(2025, 1, 1, 12, 0);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/admin/bookings/calendar.ics");
+        request.addHeader("If-Modified-Since", lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(bookingService.getCalendarLastModified(from, to)).thenReturn(lastModified);
+
+        adminBookingController.exportCalendar(from, null, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        verify(bookingService, never()).exportCalendar(any(), any(), any());
+    }
 }
@@ -0,0 +1,72 @@
+package bg.softuni.magelan.web;
+
+import bg.softuni.magelan.booking.model.Booking;
+import bg.softuni.magelan.booking.model.BookingStatus;
+import bg.softuni.magelan.booking.repository.BookingRepository;
+import bg.softuni.magelan.querystats.QueryBudget;
+import bg.softuni.magelan.user.model.User;
+import bg.softuni.magelan.user.model.UserRole;
+import bg.softuni.magelan.user.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.hamcrest.Matchers.containsString;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AdminBookingsPageQueryTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private final List<User> customers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 6; i++) {
+            User customer = userRepository.save(User.builder().username("budget-guest" + i).password("hash")
+                    .firstName("Budget").lastName("Guest" + i).role(UserRole.USER).active(true).createdOn(now).updatedOn(now).build());
+            customers.add(customer);
+            // Half upcoming, half past, so both tables on the page have rows with their own customer.
+            LocalDate date = i % 2 == 0 ? LocalDate.now().plusDays(i + 1) : LocalDate.now().minusDays(i);
+            bookingRepository.save(Booking.builder().customer(customer).date(date).time(LocalTime.of(19, 0))
+                    .guests(2).phone("0888123456").status(BookingStatus.CONFIRMED).createdOn(now).updatedOn(now).build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll();
+        userRepository.deleteAll(customers);
+    }
+
+    @Test
+    void bookingsPage_shouldLoadCustomersWithTheBookings_notOneByOne() throws Throwable {
+        // One select per table on the page, with its customers joined in, plus storing the new session.
+        QueryBudget.assertAtMost(3, () -> mockMvc.perform(get("/admin/bookings").with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Budget Guest5"))));
+    }
+}
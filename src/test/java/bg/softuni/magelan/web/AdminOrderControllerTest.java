@@ -1,5 +1,6 @@
 package bg.softuni.magelan.web;
 
+import bg.softuni.magelan.order.feed.OrderFeedService;
 import bg.softuni.magelan.order.model.Order;
 import bg.softuni.magelan.order.model.OrderStatus;
 import bg.softuni.magelan.order.service.OrderService;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.UUID;
@@ -23,6 +25,9 @@ class AdminOrderControllerTest {
     @Mock
     private OrderService orderService;
 
+    @Mock
+    private OrderFeedService orderFeedService;
+
     @InjectMocks
     private AdminOrderController adminOrderController;
 
@@ -81,4 +86,15 @@ class AdminOrderControllerTest {
         verify(orderService).changeAdminOrderStatus(orderId, OrderStatus.CONFIRMED);
         assertThat(result).isEqualTo("redirect:/admin/orders/" + orderId);
     }
+
+    @Test
+    void streamOrderFeed_shouldSubscribeWithLastEventId() {
+        SseEmitter emitter = new SseEmitter();
+        when(orderFeedService.subscribe("lq2x8e-42")).thenReturn(emitter);
+
+        SseEmitter result = adminOrderController.streamOrderFeed("lq2x8e-42");
+
+        assertThat(result).isSameAs(emitter);
+        verify(orderFeedService).subscribe("lq2x8e-42");
+    }
 }
@@ -1,19 +1,28 @@
 package bg.softuni.magelan.web;
 
 import bg.softuni.magelan.security.UserData;
+import bg.softuni.magelan.user.importing.UserImportReport;
+import bg.softuni.magelan.user.importing.UserImportResult;
+import bg.softuni.magelan.user.importing.UserImportService;
 import bg.softuni.magelan.user.model.User;
 import bg.softuni.magelan.user.model.UserRole;
+import bg.softuni.magelan.user.repository.UserSummary;
+import bg.softuni.magelan.user.service.UserDirectoryPage;
 import bg.softuni.magelan.user.service.UserService;
+import bg.softuni.magelan.web.dto.UserImportRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -25,6 +34,9 @@ class AdminPanelControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private UserImportService userImportService;
+
     @Mock
     private RedirectAttributes redirectAttributes;
 
@@ -52,25 +64,35 @@ class AdminPanelControllerTest {
                 "admin",
                 "encoded",
                 UserRole.ADMIN,
-                true
+                true,
+                null,
+                0
         );
     }
 
     @Test
     void getAdminPanel_shouldReturnViewWithUsersAndCurrentUserId() {
-        when(userService.getAll()).thenReturn(List.of(adminUser));
+        UserSummary summary = new UserSummary(adminId, "admin", UserRole.ADMIN, true, adminUser.getCreatedOn());
+        when(userService.getDirectory("ad", null)).thenReturn(new UserDirectoryPage(List.of(summary), "admin"));
 
-        ModelAndView mav = adminPanelController.getAdminPanel(adminData);
+        ModelAndView mav = adminPanelController.getAdminPanel(adminData, "ad", null);
 
         assertThat(mav.getViewName()).isEqualTo("admin-panel");
         assertThat(mav.getModel()).containsKeys("users", "currentUserId");
+        assertThat(mav.getModel().get("users")).isEqualTo(List.of(summary));
+        assertThat(mav.getModel().get("nextCursor")).isEqualTo("admin");
+        assertThat(mav.getModel().get("query")).isEqualTo("ad");
+        assertThat(mav.getModel().get("currentUserId")).isEqualTo(adminId);
+    }
 
-        @SuppressWarnings("unchecked")
-        List<User> users = (List<User>) mav.getModel().get("users");
-        assertThat(users).containsExactly(adminUser);
+    @Test
+    void getAdminPanel_shouldKeepAfterCursor_onLastPage() {
+        when(userService.getDirectory(null, "admin")).thenReturn(new UserDirectoryPage(List.of(), null));
 
-        assertThat(mav.getModel().get("currentUserId")).isEqualTo(adminId);
-        verify(userService).getAll();
+        ModelAndView mav = adminPanelController.getAdminPanel(adminData, null, "admin");
+
+        assertThat(mav.getModel().get("after")).isEqualTo("admin");
+        assertThat(mav.getModel().get("nextCursor")).isNull();
     }
 
     @Test
@@ -94,4 +116,52 @@ class AdminPanelControllerTest {
         verify(userService).toggleActive(targetUserId);
         verify(redirectAttributes).addFlashAttribute("message", "User status updated.");
     }
+
+    @Test
+    void importUsers_shouldAcceptImport_andPointToItsStatus() {
+        List<UserImportRequest> users = List.of(new UserImportRequest("deckhand", "secret1"));
+        UserImportReport started = UserImportReport.started(1);
+        when(userImportService.startImport(users)).thenReturn(started);
+
+        ResponseEntity<?> response = adminPanelController.importUsers(users);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(202);
+        assertThat(response.getHeaders().getLocation()).hasToString("/admin/users/import/status");
+        assertThat(response.getBody()).isSameAs(started);
+    }
+
+    @Test
+    void importUsers_shouldAnswerConflict_whenAnotherImportIsRunning() {
+        List<UserImportRequest> users = List.of(new UserImportRequest("deckhand", "secret1"));
+        when(userImportService.startImport(users))
+                .thenThrow(new IllegalStateException("Another user import is still running."));
+
+        ResponseEntity<?> response = adminPanelController.importUsers(users);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(409);
+    }
+
+    @Test
+    void importStatus_shouldReturnReportFromService() {
+        UserImportReport report = new UserImportReport(false, 1, 1, 0, 120, List.of(UserImportResult.created(1, "deckhand")));
+        when(userImportService.getProgress()).thenReturn(Optional.of(report));
+
+        ResponseEntity<UserImportReport> response = adminPanelController.importStatus();
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getBody()).isSameAs(report);
+    }
+
+    @Test
+    void importUsers_shouldAnswerBadRequestWithProblemDetail_whenImportIsTooLarge() {
+        List<UserImportRequest> users = List.of(new UserImportRequest("deckhand", "secret1"));
+        when(userImportService.startImport(users))
+                .thenThrow(new IllegalArgumentException("An import can hold at most 5000 users."));
+
+        ResponseEntity<?> response = adminPanelController.importUsers(users);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(400);
+        assertThat(response.getBody()).isInstanceOfSatisfying(ProblemDetail.class,
+                problem -> assertThat(problem.getDetail()).isEqualTo("An import can hold at most 5000 users."));
+    }
 }
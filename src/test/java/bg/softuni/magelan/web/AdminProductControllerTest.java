@@ -1,5 +1,8 @@
 package bg.softuni.magelan.web;
 
+import bg.softuni.magelan.product.importing.ProductImportFormat;
+import bg.softuni.magelan.product.importing.ProductImportReport;
+import bg.softuni.magelan.product.importing.ProductImportService;
 import bg.softuni.magelan.product.model.Product;
 import bg.softuni.magelan.product.model.ProductCategory;
 import bg.softuni.magelan.product.service.ProductService;
@@ -10,6 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
@@ -19,6 +23,7 @@ import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +32,9 @@ class AdminProductControllerTest {
     @Mock
     private ProductService productService;
 
+    @Mock
+    private ProductImportService productImportService;
+
     @InjectMocks
     private AdminProductController adminProductController;
 
@@ -188,4 +196,40 @@ class AdminProductControllerTest {
         verify(productService).delete(productId);
         verify(redirectAttributes).addFlashAttribute("message", "Product deleted.");
     }
+
+    @Test
+    void importProducts_shouldRunImportAndFlashSummary() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "menu.csv", "text/csv",
+                "name,price,category\nEspresso,2.40,DRINK\n".getBytes());
+        ProductImportReport report = new ProductImportReport(false, 1, 1, 0, 0, 0, List.of());
+        when(productImportService.importProducts(any(), eq(ProductImportFormat.CSV))).thenReturn(report);
+
+        ModelAndView mav = adminProductController.importProducts(file, redirectAttributes);
+
+        assertThat(mav.getViewName()).isEqualTo("redirect:/admin/products");
+        verify(redirectAttributes).addFlashAttribute("message", "Import finished. " + report.summary());
+        verify(redirectAttributes).addFlashAttribute("importErrors", List.of());
+    }
+
+    @Test
+    void importProducts_shouldRejectUnsupportedFile() {
+        MockMultipartFile file = new MockMultipartFile("file", "menu.xlsx", null, new byte[]{1});
+
+        ModelAndView mav = adminProductController.importProducts(file, redirectAttributes);
+
+        assertThat(mav.getViewName()).isEqualTo("redirect:/admin/products");
+        verify(redirectAttributes).addFlashAttribute(eq("error"), anyString());
+        verifyNoInteractions(productImportService);
+    }
+
+    @Test
+    void importProducts_shouldFlashError_whenImportAlreadyRunning() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "menu.json", null, "[]".getBytes());
+        when(productImportService.importProducts(any(), eq(ProductImportFormat.JSON)))
+                .thenThrow(new IllegalStateException("Another product import is still running."));
+
+        adminProductController.importProducts(file, redirectAttributes);
+
+        verify(redirectAttributes).addFlashAttribute("error", "Another product import is still running.");
+    }
 }
@@ -1,9 +1,16 @@
 package bg.softuni.magelan.web;
 
+import bg.softuni.magelan.booking.availability.MonthAvailability;
 import bg.softuni.magelan.booking.model.Booking;
+import bg.softuni.magelan.booking.service.BookingPage;
+import bg.softuni.magelan.booking.service.BookingRequestResult;
 import bg.softuni.magelan.booking.service.BookingService;
+import bg.softuni.magelan.exception.AlreadyWaitlistedException;
+import bg.softuni.magelan.exception.BookingCapacityExceededException;
 import bg.softuni.magelan.security.UserData;
+import bg.softuni.magelan.security.UserProfile;
 import bg.softuni.magelan.user.model.User;
+import bg.softuni.magelan.user.model.UserRole;
 import bg.softuni.magelan.user.service.UserService;
 import bg.softuni.magelan.web.dto.BookTableRequest;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,6 +29,7 @@ import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.UUID;
 
@@ -41,7 +49,6 @@ class BookingControllerTest {
     @InjectMocks
     private BookingController bookingController;
 
-    @Mock
     private UserData userData;
 
     private User user;
@@ -55,32 +62,29 @@ class BookingControllerTest {
         user.setUsername("pirate");
         user.setPhoneNumber("0888123456");
 
-        lenient().when(userData.getUserId()).thenReturn(userId);
-        lenient().when(userService.getById(userId)).thenReturn(user);
+        userData = new UserData(userId, "pirate", "encoded", UserRole.USER, true, UserProfile.of(user), 0);
+        lenient().when(userService.getReference(userId)).thenReturn(user);
     }
 
     @Test
     void getBookTablePage_shouldRedirectToLogin_whenUserNotAuthenticated() {
-        ModelAndView mav = bookingController.getBookTablePage(null);
+        ModelAndView mav = bookingController.getBookTablePage(null, null);
 
         assertThat(mav.getViewName()).isEqualTo("redirect:/login");
     }
 
     @Test
     void getBookTablePage_shouldReturnViewWithFormAndBookings_whenUserAuthenticated() {
-
-        when(userService.getById(user.getId())).thenReturn(user);
-
         List<Booking> upcoming = List.of(new Booking());
         List<Booking> past = List.of(new Booking());
 
         when(bookingService.getUpcomingBookings(user.getId()))
                 .thenReturn(upcoming);
 
-        when(bookingService.getPastBookingsForUser(user.getId()))
-                .thenReturn(past);
+        when(bookingService.getPastBookingsForUser(user.getId(), "2025-01-01_19:00_" + user.getId()))
+                .thenReturn(new BookingPage(past, "2024-12-01_20:00_" + user.getId()));
 
-        ModelAndView mav = bookingController.getBookTablePage(userData);
+        ModelAndView mav = bookingController.getBookTablePage(userData, "2025-01-01_19:00_" + user.getId());
 
         assertThat(mav.getViewName()).isEqualTo("book-table");
         assertThat(mav.getModel()).containsKeys("bookTableRequest", "upcomingBookings", "pastBookings");
@@ -93,6 +97,8 @@ class BookingControllerTest {
 
         assertThat(mav.getModel().get("upcomingBookings")).isEqualTo(upcoming);
         assertThat(mav.getModel().get("pastBookings")).isEqualTo(past);
+        assertThat(mav.getModel().get("pastCursor")).isEqualTo("2024-12-01_20:00_" + user.getId());
+        verifyNoInteractions(userService);
     }
 
     @Test
@@ -120,7 +126,7 @@ class BookingControllerTest {
         List<Booking> upcoming = List.of(new Booking());
         List<Booking> past = List.of(new Booking());
         when(bookingService.getUpcomingBookings(user.getId())).thenReturn(upcoming);
-        when(bookingService.getPastBookingsForUser(user.getId())).thenReturn(past);
+        when(bookingService.getPastBookingsForUser(user.getId(), null)).thenReturn(new BookingPage(past, null));
 
         RedirectAttributes redirectAttributes = new RedirectAttributesModelMap();
 
@@ -146,6 +152,7 @@ class BookingControllerTest {
 
         BindingResult result = new BeanPropertyBindingResult(request, "bookTableRequest");
         RedirectAttributes redirectAttributes = new RedirectAttributesModelMap();
+        when(bookingService.createBooking(user, request)).thenReturn(BookingRequestResult.reserved());
 
         ModelAndView mav = bookingController.bookTable(userData, request, result, redirectAttributes);
 
@@ -156,4 +163,85 @@ class BookingControllerTest {
 
         verify(bookingService).createBooking(user, request);
     }
+
+    @Test
+    void bookTable_shouldRedirectWithWaitlistPosition_whenSlotIsFullyBooked() {
+        BookTableRequest request = BookTableRequest.builder()
+                .date(LocalDate.now())
+                .time(LocalTime.of(19, 0))
+                .guests(8)
+                .phone("0888123456")
+                .build();
+
+        BindingResult result = new BeanPropertyBindingResult(request, "bookTableRequest");
+        RedirectAttributes redirectAttributes = new RedirectAttributesModelMap();
+        when(bookingService.createBooking(user, request)).thenReturn(BookingRequestResult.waitlisted(2));
+
+        ModelAndView mav = bookingController.bookTable(userData, request, result, redirectAttributes);
+
+        assertThat(mav.getViewName()).isEqualTo("redirect:/book-table");
+        assertThat((String) redirectAttributes.getFlashAttributes().get("message")).contains("#2 on the waitlist");
+    }
+
+    @Test
+    void bookTable_shouldShowFormWithTimeError_whenAlreadyOnTheWaitlist() {
+        BookTableRequest request = BookTableRequest.builder()
+                .date(LocalDate.now())
+                .time(LocalTime.of(19, 0))
+                .guests(4)
+                .phone("0888123456")
+                .build();
+
+        BindingResult result = new BeanPropertyBindingResult(request, "bookTableRequest");
+        doThrow(new AlreadyWaitlistedException(request.getDate(), request.getTime()))
+                .when(bookingService).createBooking(user, request);
+
+        when(bookingService.getPastBookingsForUser(user.getId(), null)).thenReturn(BookingPage.empty());
+
+        ModelAndView mav = bookingController.bookTable(userData, request, result, new RedirectAttributesModelMap());
+
+        assertThat(mav.getViewName()).isEqualTo("book-table");
+        assertThat(result.getFieldError("time")).isNotNull();
+    }
+
+    @Test
+    void leaveWaitlist_shouldRedirectWithMessage() {
+        UUID entryId = UUID.randomUUID();
+        RedirectAttributes redirectAttributes = new RedirectAttributesModelMap();
+        when(bookingService.leaveWaitlist(userData.getUserId(), entryId)).thenReturn(true);
+
+        ModelAndView mav = bookingController.leaveWaitlist(userData, entryId, redirectAttributes);
+
+        assertThat(mav.getViewName()).isEqualTo("redirect:/book-table");
+        assertThat(redirectAttributes.getFlashAttributes().get("message")).isEqualTo("You have left the waitlist.");
+    }
+
+    @Test
+    void bookTable_shouldShowFormWithGuestsError_whenPartyCannotBeSeated() {
+        BookTableRequest request = BookTableRequest.builder()
+                .date(LocalDate.now())
+                .time(LocalTime.of(19, 0))
+                .guests(80)
+                .phone("0888123456")
+                .build();
+
+        BindingResult result = new BeanPropertyBindingResult(request, "bookTableRequest");
+        doThrow(new BookingCapacityExceededException(request.getDate(), request.getTime(), 80))
+                .when(bookingService).createBooking(user, request);
+
+        when(bookingService.getPastBookingsForUser(user.getId(), null)).thenReturn(BookingPage.empty());
+
+        ModelAndView mav = bookingController.bookTable(userData, request, result, new RedirectAttributesModelMap());
+
+        assertThat(mav.getViewName()).isEqualTo("book-table");
+        assertThat(result.getFieldError("guests")).isNotNull();
+    }
+
+    @Test
+    void getAvailability_shouldDefaultToCurrentMonth() {
+        MonthAvailability availability = new MonthAvailability(YearMonth.now(), 48, List.of());
+        when(bookingService.getAvailability(YearMonth.now())).thenReturn(availability);
+
+        assertThat(bookingController.getAvailability(null)).isSameAs(availability);
+    }
 }
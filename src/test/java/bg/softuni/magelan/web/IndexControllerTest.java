@@ -1,6 +1,8 @@
 package bg.softuni.magelan.web;
 
+import bg.softuni.magelan.exception.UsernameTakenException;
 import bg.softuni.magelan.security.UserData;
+import bg.softuni.magelan.security.UserProfile;
 import bg.softuni.magelan.user.model.User;
 import bg.softuni.magelan.user.service.UserService;
 import bg.softuni.magelan.web.dto.LoginRequest;
@@ -101,21 +103,40 @@ class IndexControllerTest {
     }
 
     @Test
-    void getHomePage_shouldLoadUserAndReturnHomeView() {
-        UUID userId = UUID.randomUUID();
-        UserData userData = new UserData(userId, "pirate", "pwd", null, true);
+    void register_shouldReturnRegisterViewWithUsernameError_whenNameWasTakenMeanwhile() {
+        RegisterRequest request = RegisterRequest.builder()
+                .username("pirate")
+                .password("secret123")
+                .confirmPassword("secret123")
+                .build();
 
+        BindingResult bindingResult = mock(BindingResult.class);
+        RedirectAttributes redirectAttributes = mock(RedirectAttributes.class);
+
+        when(bindingResult.hasErrors()).thenReturn(false);
+        doThrow(new UsernameTakenException("pirate", null)).when(userService).register(request);
+
+        ModelAndView mav = indexController.register(request, bindingResult, redirectAttributes);
+
+        assertEquals("register", mav.getViewName());
+        verify(bindingResult).rejectValue("username", "taken", "Username is already taken.");
+        verifyNoInteractions(redirectAttributes);
+    }
+
+    @Test
+    void getHomePage_shouldRenderProfileFromPrincipal_withoutLoadingUser() {
+        UUID userId = UUID.randomUUID();
         User user = User.builder()
                 .id(userId)
                 .username("pirate")
                 .build();
-
-        when(userService.getById(userId)).thenReturn(user);
+        UserProfile profile = UserProfile.of(user);
+        UserData userData = new UserData(userId, "pirate", "pwd", null, true, profile, 0);
 
         ModelAndView mav = indexController.getHomePage(userData);
 
         assertEquals("home", mav.getViewName());
-        assertSame(user, mav.getModel().get("user"));
-        verify(userService).getById(userId);
+        assertSame(profile, mav.getModel().get("user"));
+        verifyNoInteractions(userService);
     }
 }
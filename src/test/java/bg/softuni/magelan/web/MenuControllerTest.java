@@ -1,89 +1,146 @@
 package bg.softuni.magelan.web;
 
-import bg.softuni.magelan.product.model.Product;
+import bg.softuni.magelan.product.menu.MenuItem;
+import bg.softuni.magelan.product.menu.MenuSnapshot;
 import bg.softuni.magelan.product.model.ProductCategory;
 import bg.softuni.magelan.product.service.ProductService;
 import bg.softuni.magelan.security.UserData;
+import bg.softuni.magelan.web.cache.MenuPageCache;
+import bg.softuni.magelan.web.cache.MenuVariant;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.FlashMap;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.View;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class MenuControllerTest {
 
+    private static final String ETAG = "\"menu-1-anonymous\"";
+
     @Mock
     private ProductService productService;
 
+    @Mock
+    private MenuPageCache menuPageCache;
+
     private MenuController menuController;
 
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
     @BeforeEach
     void setUp() {
-        menuController = new MenuController(productService);
+        menuController = new MenuController(productService, menuPageCache);
+        request = new MockHttpServletRequest("GET", "/menu");
+        response = new MockHttpServletResponse();
     }
 
-    private Product product(String name, ProductCategory category) {
-        return Product.builder()
-                .id(UUID.randomUUID())
-                .name(name)
-                .category(category)
-                .price(BigDecimal.TEN)
-                .active(true)
-                .createdOn(LocalDateTime.now())
-                .updatedOn(LocalDateTime.now())
-                .build();
+    private MenuItem item(String name, ProductCategory category) {
+        return new MenuItem(UUID.randomUUID(), name, null, BigDecimal.TEN, category, true);
     }
 
     @Test
-    void getMenuPage_shouldPopulateModelAndSetIsAuthenticatedFalse_whenNoUser() {
-        List<Product> starters = List.of(product("Starter", ProductCategory.STARTER));
-        List<Product> mains = List.of(product("Main", ProductCategory.MAIN));
-        List<Product> desserts = List.of(product("Dessert", ProductCategory.DESSERT));
-        List<Product> drinks = List.of(product("Drink", ProductCategory.DRINK));
-
-        when(productService.getByCategory(ProductCategory.STARTER)).thenReturn(starters);
-        when(productService.getByCategory(ProductCategory.MAIN)).thenReturn(mains);
-        when(productService.getByCategory(ProductCategory.DESSERT)).thenReturn(desserts);
-        when(productService.getByCategory(ProductCategory.DRINK)).thenReturn(drinks);
-
-        ModelAndView mav = menuController.getMenuPage(null);
-
-        assertEquals("menu", mav.getViewName());
-        assertSame(starters, mav.getModel().get("starters"));
-        assertSame(mains, mav.getModel().get("mains"));
-        assertSame(desserts, mav.getModel().get("desserts"));
-        assertSame(drinks, mav.getModel().get("drinks"));
+    void getMenuPage_shouldPopulateModelAndServeCachedView_whenNoUser() {
+        MenuItem starter = item("Starter", ProductCategory.STARTER);
+        MenuItem main = item("Main", ProductCategory.MAIN);
+        MenuItem dessert = item("Dessert", ProductCategory.DESSERT);
+        MenuItem drink = item("Drink", ProductCategory.DRINK);
+        View cachedView = mock(View.class);
+
+        when(productService.getMenu()).thenReturn(MenuSnapshot.of(1, List.of(starter, main, dessert, drink)));
+        when(menuPageCache.eTag(1, MenuVariant.ANONYMOUS, request)).thenReturn(ETAG);
+        when(menuPageCache.view(1, MenuVariant.ANONYMOUS)).thenReturn(cachedView);
+
+        ModelAndView mav = menuController.getMenuPage(null, request, response);
+
+        assertSame(cachedView, mav.getView());
+        assertEquals(List.of(starter), mav.getModel().get("starters"));
+        assertEquals(List.of(main), mav.getModel().get("mains"));
+        assertEquals(List.of(dessert), mav.getModel().get("desserts"));
+        assertEquals(List.of(drink), mav.getModel().get("drinks"));
         assertEquals(false, mav.getModel().get("isAuthenticated"));
+        assertEquals(ETAG, response.getHeader("ETag"));
+        assertEquals("private, no-cache", response.getHeader("Cache-Control"));
     }
 
     @Test
-    void getMenuPage_shouldSetIsAuthenticatedTrue_whenUserPresent() {
+    void getMenuPage_shouldUseCustomerVariant_whenUserPresent() {
         UserData userData = new UserData(
                 UUID.randomUUID(),
                 "pirate",
                 "pwd",
                 null,
-                true
+                true,
+                null,
+                0
         );
 
-        when(productService.getByCategory(ProductCategory.STARTER)).thenReturn(List.of());
-        when(productService.getByCategory(ProductCategory.MAIN)).thenReturn(List.of());
-        when(productService.getByCategory(ProductCategory.DESSERT)).thenReturn(List.of());
-        when(productService.getByCategory(ProductCategory.DRINK)).thenReturn(List.of());
+        when(productService.getMenu()).thenReturn(MenuSnapshot.of(1, List.of()));
+        when(menuPageCache.eTag(1, MenuVariant.USER, request)).thenReturn("\"menu-1-user-0\"");
+        when(menuPageCache.view(1, MenuVariant.USER)).thenReturn(mock(View.class));
 
-        ModelAndView mav = menuController.getMenuPage(userData);
+        ModelAndView mav = menuController.getMenuPage(userData, request, response);
 
-        assertEquals("menu", mav.getViewName());
+        assertEquals(List.of(), mav.getModel().get("starters"));
         assertEquals(true, mav.getModel().get("isAuthenticated"));
     }
+
+    @Test
+    void getMenuPage_shouldAnswerNotModified_whenETagMatches() {
+        request.addHeader("If-None-Match", ETAG);
+
+        when(productService.getMenu()).thenReturn(MenuSnapshot.of(1, List.of()));
+        when(menuPageCache.eTag(1, MenuVariant.ANONYMOUS, request)).thenReturn(ETAG);
+
+        ModelAndView mav = menuController.getMenuPage(null, request, response);
+
+        assertNull(mav);
+        assertEquals(304, response.getStatus());
+        verify(menuPageCache, never()).view(anyLong(), any());
+    }
+
+    @Test
+    void getMenuPage_shouldRenderFresh_whenFlashMessagePresent() {
+        FlashMap flashMap = new FlashMap();
+        flashMap.put("orderMessage", "Added");
+        request.setAttribute(DispatcherServlet.INPUT_FLASH_MAP_ATTRIBUTE, flashMap);
+
+        when(productService.getMenu()).thenReturn(MenuSnapshot.of(1, List.of()));
+
+        ModelAndView mav = menuController.getMenuPage(null, request, response);
+
+        assertEquals("menu", mav.getViewName());
+        assertNull(response.getHeader("ETag"));
+        verify(menuPageCache, never()).eTag(anyLong(), any(), eq(request));
+    }
+
+    @Test
+    void searchAndSuggest_shouldDelegateToProductService() {
+        MenuItem soup = item("Harbor Soup", ProductCategory.STARTER);
+        when(productService.searchMenu("soup", 20)).thenReturn(List.of(soup));
+        when(productService.suggestMenuItems("har", 8)).thenReturn(List.of("Harbor Soup"));
+
+        assertEquals(List.of(soup), menuController.searchMenu("soup"));
+        assertEquals(List.of("Harbor Soup"), menuController.suggestMenuItems("har"));
+    }
 }
@@ -2,11 +2,14 @@ package bg.softuni.magelan.web;
 
 import bg.softuni.magelan.order.model.Order;
 import bg.softuni.magelan.order.model.OrderStatus;
+import bg.softuni.magelan.order.service.OrderHistoryPage;
 import bg.softuni.magelan.order.service.OrderService;
 import bg.softuni.magelan.payment.PaymentResponse;
-import bg.softuni.magelan.product.model.Product;
+import bg.softuni.magelan.product.menu.MenuItem;
+import bg.softuni.magelan.product.model.ProductCategory;
 import bg.softuni.magelan.product.service.ProductService;
 import bg.softuni.magelan.security.UserData;
+import bg.softuni.magelan.security.UserProfile;
 import bg.softuni.magelan.user.model.User;
 import bg.softuni.magelan.user.model.UserRole;
 import bg.softuni.magelan.user.service.UserService;
@@ -55,7 +58,9 @@ class OrderControllerTest {
                 user.getUsername(),
                 "encoded",
                 UserRole.USER,
-                true
+                true,
+                UserProfile.of(user),
+                0
         );
     }
 
@@ -74,22 +79,23 @@ class OrderControllerTest {
         Order newOrder = createPendingOrderWithoutPayment();
         List<Order> pastOrders = List.of(new Order());
 
-        when(userService.getById(user.getId())).thenReturn(user);
+        when(userService.getReference(user.getId())).thenReturn(user);
         when(orderService.findPendingOrderByCustomerId(user.getId()))
                 .thenReturn(Optional.empty());
         when(orderService.createPendingOrderForCustomer(user)).thenReturn(newOrder);
-        when(orderService.getPastOrders(user.getId())).thenReturn(pastOrders);
+        when(orderService.getPastOrders(user.getId(), null)).thenReturn(new OrderHistoryPage(pastOrders, "next"));
         when(orderService.getAvailableProducts()).thenReturn(Collections.emptyList());
         when(orderService.calculateTotal(newOrder)).thenReturn(BigDecimal.ZERO);
 
-        ModelAndView mav = orderController.getOrdersPage(userData);
+        ModelAndView mav = orderController.getOrdersPage(userData, null);
 
         assertThat(mav.getViewName()).isEqualTo("orders");
-        assertThat(mav.getModel().get("user")).isEqualTo(user);
+        assertThat(mav.getModel().get("user")).isEqualTo(userData.getProfile());
         assertThat(mav.getModel().get("orderItems")).isEqualTo(newOrder.getItems());
         assertThat(mav.getModel().get("products")).isEqualTo(Collections.emptyList());
         assertThat(mav.getModel().get("totalAmount")).isEqualTo(BigDecimal.ZERO);
         assertThat(mav.getModel().get("pastOrders")).isEqualTo(pastOrders);
+        assertThat(mav.getModel().get("pastCursor")).isEqualTo("next");
         assertThat(mav.getModel().get("isAuthenticated")).isEqualTo(true);
     }
 
@@ -99,11 +105,10 @@ class OrderControllerTest {
         UUID paymentId = UUID.randomUUID();
         order.setPaymentId(paymentId);
 
-        when(userService.getById(user.getId())).thenReturn(user);
         when(orderService.findPendingOrderByCustomerId(user.getId()))
                 .thenReturn(Optional.of(order));
 
-        ModelAndView mav = orderController.getOrdersPage(userData);
+        ModelAndView mav = orderController.getOrdersPage(userData, null);
 
         assertThat(mav.getViewName())
                 .isEqualTo("redirect:/orders/payment/" + paymentId);
@@ -130,14 +135,12 @@ class OrderControllerTest {
         RedirectAttributes attrs = new RedirectAttributesModelMap();
 
         Order pending = createPendingOrderWithoutPayment();
-        Product product = new Product();
-        product.setId(productId);
-        product.setName("Magelan Burger");
+        MenuItem product = new MenuItem(productId, "Magelan Burger", null, BigDecimal.TEN, ProductCategory.MAIN, true);
 
-        when(userService.getById(user.getId())).thenReturn(user);
+        when(userService.getReference(user.getId())).thenReturn(user);
         when(orderService.findPendingOrderByCustomerId(user.getId()))
                 .thenReturn(Optional.of(pending));
-        when(productService.getById(productId)).thenReturn(product);
+        when(productService.getMenuItem(productId)).thenReturn(product);
 
         String result = orderController.addProductToOrder(
                 userData,
@@ -159,14 +162,12 @@ class OrderControllerTest {
         RedirectAttributes attrs = new RedirectAttributesModelMap();
 
         Order pending = createPendingOrderWithoutPayment();
-        Product product = new Product();
-        product.setId(productId);
-        product.setName("Magelan Burger");
+        MenuItem product = new MenuItem(productId, "Magelan Burger", null, BigDecimal.TEN, ProductCategory.MAIN, true);
 
-        when(userService.getById(user.getId())).thenReturn(user);
+        when(userService.getReference(user.getId())).thenReturn(user);
         when(orderService.findPendingOrderByCustomerId(user.getId()))
                 .thenReturn(Optional.of(pending));
-        when(productService.getById(productId)).thenReturn(product);
+        when(productService.getMenuItem(productId)).thenReturn(product);
 
         String result = orderController.addProductToOrder(
                 userData,
@@ -188,7 +189,6 @@ class OrderControllerTest {
         Order pending = createPendingOrderWithoutPayment();
         pending.setPaymentId(UUID.randomUUID());
 
-        when(userService.getById(user.getId())).thenReturn(user);
         when(orderService.findPendingOrderByCustomerId(user.getId()))
                 .thenReturn(Optional.of(pending));
 
@@ -318,7 +318,6 @@ class OrderControllerTest {
         Order order = new Order();
         order.setCustomer(otherUser);
 
-        when(userService.getById(user.getId())).thenReturn(user);
         when(orderService.getOrderById(orderId)).thenReturn(order);
 
         assertThatThrownBy(() -> orderController.viewOrder(userData, orderId))
@@ -335,7 +334,6 @@ class OrderControllerTest {
 
         PaymentResponse payment = mock(PaymentResponse.class);
 
-        when(userService.getById(user.getId())).thenReturn(user);
         when(orderService.getOrderById(orderId)).thenReturn(order);
         when(orderService.getPaymentForOrder(orderId)).thenReturn(payment);
 
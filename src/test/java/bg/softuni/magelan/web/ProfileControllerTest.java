@@ -1,6 +1,7 @@
 package bg.softuni.magelan.web;
 
 import bg.softuni.magelan.security.UserData;
+import bg.softuni.magelan.security.UserProfile;
 import bg.softuni.magelan.user.model.User;
 import bg.softuni.magelan.user.model.UserRole;
 import bg.softuni.magelan.user.service.UserService;
@@ -62,7 +63,9 @@ class ProfileControllerTest {
                 "pirate",
                 "encoded",
                 UserRole.USER,
-                true
+                true,
+                UserProfile.of(user),
+                0
         );
     }
 
@@ -75,16 +78,14 @@ class ProfileControllerTest {
     }
 
     @Test
-    void getProfilePage_shouldReturnProfileViewWithUser_whenAuthenticated() {
-        when(userService.getById(userId)).thenReturn(user);
-
+    void getProfilePage_shouldReturnProfileViewWithPrincipalProfile_whenAuthenticated() {
         ModelAndView mav = profileController.getProfilePage(userData);
 
         assertThat(mav.getViewName()).isEqualTo("profile");
         assertThat(mav.getModel()).containsKey("user");
-        assertThat(mav.getModel().get("user")).isEqualTo(user);
+        assertThat(mav.getModel().get("user")).isEqualTo(userData.getProfile());
 
-        verify(userService).getById(userId);
+        verifyNoInteractions(userService);
     }
 
     @Test
@@ -97,8 +98,6 @@ class ProfileControllerTest {
 
     @Test
     void getEditProfilePage_shouldReturnEditViewWithForm_whenAuthenticated() {
-        when(userService.getById(userId)).thenReturn(user);
-
         ModelAndView mav = profileController.getEditProfilePage(userData);
 
         assertThat(mav.getViewName()).isEqualTo("profile-edit");
@@ -112,7 +111,7 @@ class ProfileControllerTest {
         assertThat(form.getAddress()).isEqualTo("The Black Pearl");
         assertThat(form.getProfilePictureUrl()).isEqualTo("http://image");
 
-        verify(userService).getById(userId);
+        verifyNoInteractions(userService);
     }
 
     @Test
@@ -0,0 +1,83 @@
+package bg.softuni.magelan.web.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.IContext;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MenuPageCacheTest {
+
+    @Mock
+    private ITemplateEngine templateEngine;
+
+    private MenuPageCache menuPageCache;
+
+    @BeforeEach
+    void setUp() {
+        menuPageCache = new MenuPageCache(templateEngine);
+    }
+
+    private MockHttpServletRequest requestWithToken(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/menu");
+        CsrfToken csrfToken = new DefaultCsrfToken("X-CSRF-TOKEN", "_csrf", token);
+        request.setAttribute(CsrfToken.class.getName(), csrfToken);
+        request.setAttribute(csrfToken.getParameterName(), csrfToken);
+        return request;
+    }
+
+    private String render(long version, MenuVariant variant, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        menuPageCache.view(version, variant).render(Map.of(), request, response);
+        return response.getContentAsString();
+    }
+
+    @Test
+    void render_shouldReuseRenderedPage_untilMenuVersionChanges() throws Exception {
+        when(templateEngine.process(eq("menu"), any(IContext.class))).thenReturn("v1", "v2");
+
+        assertThat(render(1, MenuVariant.ANONYMOUS, requestWithToken("a"))).isEqualTo("v1");
+        assertThat(render(1, MenuVariant.ANONYMOUS, requestWithToken("b"))).isEqualTo("v1");
+        assertThat(render(2, MenuVariant.ANONYMOUS, requestWithToken("c"))).isEqualTo("v2");
+        assertThat(render(1, MenuVariant.ANONYMOUS, requestWithToken("d"))).isEqualTo("v2");
+
+        verify(templateEngine, times(2)).process(eq("menu"), any(IContext.class));
+    }
+
+    @Test
+    void render_shouldSubstituteRequestCsrfToken_forCustomerVariant() throws Exception {
+        when(templateEngine.process(eq("menu"), any(IContext.class)))
+                .thenReturn("<input value=\"" + MenuPageCache.CSRF_PLACEHOLDER + "\">");
+
+        MockHttpServletRequest first = requestWithToken("token-1");
+        assertThat(render(1, MenuVariant.USER, first)).isEqualTo("<input value=\"token-1\">");
+        assertThat(render(1, MenuVariant.USER, requestWithToken("token-2"))).isEqualTo("<input value=\"token-2\">");
+        assertThat(((CsrfToken) first.getAttribute("_csrf")).getToken()).isEqualTo("token-1");
+    }
+
+    @Test
+    void eTag_shouldIncludeSession_onlyForCustomerVariant() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        String sessionHash = Integer.toHexString(request.getSession().getId().hashCode());
+
+        assertThat(menuPageCache.eTag(3, MenuVariant.ANONYMOUS, request)).isEqualTo("\"menu-3-anonymous\"");
+        assertThat(menuPageCache.eTag(3, MenuVariant.ADMIN, request)).isEqualTo("\"menu-3-admin\"");
+        assertThat(menuPageCache.eTag(3, MenuVariant.USER, request)).isEqualTo("\"menu-3-user-" + sessionHash + "\"");
+    }
+}